@@ -0,0 +1,114 @@
+package com.iyer.vinayaka.benchmark;
+
+import com.iyer.vinayaka.model.AssetIndex;
+import com.iyer.vinayaka.model.AssetInfo;
+import com.iyer.vinayaka.model.AssetSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures symbol lookups in the tradable asset universe, which is what adding a ticker and every
+ * search keystroke do.
+ *
+ * <pre>{@code
+ * ./mvnw -Pjmh compile exec:exec -Djmh.args="AssetLookupBenchmark"
+ * }</pre>
+ * <ul>
+ * <li>{@code listScan}: a linear scan of the asset list, as returned by the assets endpoint</li>
+ * <li>{@code indexGet}: {@link AssetIndex#get(String)}</li>
+ * <li>{@code searchSymbolPrefix} and {@code searchNameInfix}: type-ahead queries on
+ * {@link AssetSearchIndex}</li>
+ * </ul>
+ * <p>
+ * Alpaca lists about 12,000 active US equities.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AssetLookupBenchmark {
+	private static final String[] NAME_WORDS = {"Global", "Holdings", "Micro", "Systems", "Energy", "Capital",
+			"Therapeutics", "Financial", "Semiconductor", "Software", "Brands", "Industries", "Pacific",
+			"Resources", "Networks", "Biosciences", "Realty", "Motors", "Foods", "Aerospace"};
+
+	@Param({"1000", "12000"})
+	public int assets;
+
+	private List<AssetInfo> assetList;
+	private AssetIndex index;
+	private AssetSearchIndex searchIndex;
+	// Symbols looked up in turn, so each call doesn't hit the same cache lines
+	private String[] queries;
+	private int next = 0;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		this.assetList = new ArrayList<>(this.assets);
+		for (int i = 0; i < this.assets; i++) {
+			String name = NAME_WORDS[random.nextInt(NAME_WORDS.length)] + " "
+					+ NAME_WORDS[random.nextInt(NAME_WORDS.length)] + " Inc.";
+			this.assetList.add(new AssetInfo(symbol(i), name, random.nextBoolean() ? "NASDAQ" : "NYSE"));
+		}
+		this.index = AssetIndex.of(this.assetList);
+		this.searchIndex = AssetSearchIndex.of(this.index);
+
+		this.queries = new String[1024];
+		for (int i = 0; i < this.queries.length; i++) {
+			this.queries[i] = symbol(random.nextInt(this.assets)).toLowerCase();
+		}
+	}
+
+	@Benchmark
+	public AssetInfo listScan() {
+		String query = this.nextQuery();
+		for (AssetInfo asset : this.assetList) {
+			if (asset.symbol().equalsIgnoreCase(query)) {
+				return asset;
+			}
+		}
+		return null;
+	}
+
+	@Benchmark
+	public AssetInfo indexGet() {
+		return this.index.get(this.nextQuery());
+	}
+
+	@Benchmark
+	public List<AssetInfo> searchSymbolPrefix() {
+		String query = this.nextQuery();
+		return this.searchIndex.search(query.substring(0, Math.min(2, query.length())), 10);
+	}
+
+	@Benchmark
+	public List<AssetInfo> searchNameInfix() {
+		return this.searchIndex.search("conduct", 10);
+	}
+
+	private String nextQuery() {
+		String query = this.queries[this.next];
+		this.next = (this.next + 1) & (this.queries.length - 1);
+		return query;
+	}
+
+	/**
+	 * @return A distinct symbol of one to four letters for each index: A..Z, AA..ZZ, AAA..
+	 */
+	private static String symbol(int i) {
+		StringBuilder symbol = new StringBuilder();
+		int n = i;
+		do {
+			symbol.insert(0, (char) ('A' + n % 26));
+			n = n / 26 - 1;
+		} while (n >= 0);
+		return symbol.toString();
+	}
+}
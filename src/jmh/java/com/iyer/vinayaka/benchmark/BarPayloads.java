@@ -0,0 +1,75 @@
+package com.iyer.vinayaka.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Builds multi-symbol stockBars response bodies in the exact shape Alpaca returns them, so the
+ * benchmarks can decode them with the client's own Gson models instead of calling the API.
+ *
+ * <p>
+ * Each bar carries every field of a real response (open, high, low, close, volume, trade count, VWAP
+ * and timestamp), with prices drawn from a seeded {@link Random} so that runs are repeatable.
+ * </p>
+ */
+final class BarPayloads {
+	// The close of the regular session on a trading day; bars go back a minute at a time from here.
+	private static final Instant LAST_BAR = Instant.parse("2025-01-02T20:59:00Z");
+
+	private BarPayloads() {
+	}
+
+	/**
+	 * @return {@code count} distinct ticker symbols.
+	 */
+	static List<String> symbols(int count) {
+		List<String> symbols = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			symbols.add("SYM" + i);
+		}
+		return symbols;
+	}
+
+	/**
+	 * Builds the body of a stockBars response.
+	 *
+	 * @param symbols       The symbols, in the order of {@link #symbols(int)}.
+	 * @param barsPerSymbol The number of 1-minute bars per symbol, oldest first.
+	 * @param seed          The seed of the prices.
+	 * @return The JSON body, with no next page.
+	 */
+	static String stockBars(List<String> symbols, int barsPerSymbol, long seed) {
+		Random random = new Random(seed);
+		StringBuilder json = new StringBuilder(symbols.size() * barsPerSymbol * 140 + 64).append("{\"bars\":{");
+		for (int s = 0; s < symbols.size(); s++) {
+			if (s > 0) {
+				json.append(',');
+			}
+			json.append('"').append(symbols.get(s)).append("\":[");
+			double price = 10 + random.nextInt(50_000) / 100.0;
+			for (int b = 0; b < barsPerSymbol; b++) {
+				if (b > 0) {
+					json.append(',');
+				}
+				double open = price;
+				double close = Math.max(0.01, open * (0.995 + random.nextDouble() / 100));
+				appendBar(json, LAST_BAR.minusSeconds(60L * (barsPerSymbol - 1 - b)), open, close, random);
+				price = close;
+			}
+			json.append(']');
+		}
+		return json.append("},\"next_page_token\":null}").toString();
+	}
+
+	private static void appendBar(StringBuilder json, Instant time, double open, double close, Random random) {
+		double high = Math.max(open, close) * (1 + random.nextDouble() / 500);
+		double low = Math.min(open, close) * (1 - random.nextDouble() / 500);
+		long volume = 100 + random.nextInt(100_000);
+		json.append(String.format(Locale.ROOT,
+				"{\"c\":%.2f,\"h\":%.2f,\"l\":%.2f,\"n\":%d,\"o\":%.2f,\"t\":\"%s\",\"v\":%d,\"vw\":%.4f}",
+				close, high, low, 1 + volume / 50, open, time, volume, (open + close + high + low) / 4));
+	}
+}
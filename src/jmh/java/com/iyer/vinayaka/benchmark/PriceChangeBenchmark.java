@@ -0,0 +1,118 @@
+package com.iyer.vinayaka.benchmark;
+
+import com.iyer.vinayaka.service.PriceChangeKernel;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBar;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBarsResp;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the change percentage stage of a refresh cycle before and after {@link PriceChangeKernel}.
+ * The inputs are decoded from stockBars response bodies (see {@link BarPayloads}), so the bars are the
+ * same objects a refresh cycle works on.
+ *
+ * <p>
+ * Run with the GC profiler to see the allocations per cycle ({@code gc.alloc.rate.norm}, in bytes per
+ * operation):
+ * </p>
+ * <pre>{@code
+ * ./mvnw -Pjmh compile exec:exec -Djmh.args="PriceChangeBenchmark"
+ * }</pre>
+ * <ul>
+ * <li>{@code legacyParallelStream}: the previous implementation, a parallel stream over the previous
+ * closes with two map lookups per ticker, BigDecimal rounding and a boxed result map</li>
+ * <li>{@code kernel}: the compute stage on reused primitive buffers, results read by ordinal</li>
+ * <li>{@code kernelToMap}: the kernel plus the {@code Map<String, Double>} that
+ * {@code getLatestPriceChangePercentages} still returns</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PriceChangeBenchmark {
+	@Param({"10", "100", "1000", "5000"})
+	public int symbols;
+
+	private List<String> tickers;
+	private Map<String, Double> yesterdaysCloses;
+	private Map<String, List<StockBar>> latestBars;
+	private PriceChangeKernel kernel;
+
+	@Setup
+	public void setUp() throws IOException {
+		// The inputs of a cycle as the client decodes them: yesterday's closing bars and the latest bar.
+		this.tickers = BarPayloads.symbols(this.symbols);
+		Map<String, List<StockBar>> closingBars = StockBarsResp.fromJson(
+				BarPayloads.stockBars(this.tickers, 1, 7)).getBars();
+		this.latestBars = StockBarsResp.fromJson(BarPayloads.stockBars(this.tickers, 1, 42)).getBars();
+		this.yesterdaysCloses = new HashMap<>();
+		closingBars.forEach((ticker, bars) -> this.yesterdaysCloses.put(ticker, bars.getLast().getC()));
+
+		// Assign the ordinals up front, as they are after the first refresh of a session.
+		this.kernel = new PriceChangeKernel();
+		this.tickers.forEach(this.kernel::ordinal);
+	}
+
+	@Benchmark
+	public Map<String, Double> legacyParallelStream() {
+		return this.yesterdaysCloses.keySet().parallelStream()
+				.filter(ticker -> {
+					List<StockBar> todayBars = this.latestBars.get(ticker);
+					return todayBars != null && !todayBars.isEmpty();
+				})
+				.collect(Collectors.toMap(
+						ticker -> ticker,
+						ticker -> {
+							Double yesterdaysClose = this.yesterdaysCloses.get(ticker);
+							Double currentPrice = this.latestBars.get(ticker).getLast().getC();
+							return new BigDecimal(Double.toString(((currentPrice - yesterdaysClose) / yesterdaysClose) * 100))
+									.setScale(2, RoundingMode.HALF_UP).doubleValue();
+						}
+				));
+	}
+
+	@Benchmark
+	public void kernel(Blackhole blackhole) {
+		this.loadKernel();
+		for (int ordinal = 0, size = this.kernel.size(); ordinal < size; ordinal++) {
+			blackhole.consume(this.kernel.changePercentage(ordinal));
+		}
+	}
+
+	@Benchmark
+	public Map<String, Double> kernelToMap() {
+		Map<String, Double> changes = HashMap.newHashMap(this.loadKernel());
+		for (int ordinal = 0, size = this.kernel.size(); ordinal < size; ordinal++) {
+			if (this.kernel.hasResult(ordinal)) {
+				changes.put(this.kernel.symbol(ordinal), this.kernel.changePercentage(ordinal));
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * Mirrors AlpacaHistoricalBarsDataService#computePriceChangePercentages up to the result map.
+	 */
+	private int loadKernel() {
+		this.kernel.beginCycle();
+		for (int i = 0, count = this.tickers.size(); i < count; i++) {
+			String ticker = this.tickers.get(i);
+			int ordinal = this.kernel.ordinal(ticker);
+			this.kernel.setPreviousClose(ordinal, this.yesterdaysCloses.get(ticker));
+			this.kernel.setCurrentPrice(ordinal, this.latestBars.get(ticker).getLast().getC());
+		}
+		return this.kernel.compute();
+	}
+}
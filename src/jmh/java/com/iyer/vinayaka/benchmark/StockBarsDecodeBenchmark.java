@@ -0,0 +1,52 @@
+package com.iyer.vinayaka.benchmark;
+
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBarsResp;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding a multi-symbol stockBars response with the Gson models of the Alpaca client, which
+ * is what every bars refresh cycle and chart prefetch page does with the response body.
+ *
+ * <pre>{@code
+ * ./mvnw -Pjmh compile exec:exec -Djmh.args="StockBarsDecodeBenchmark"
+ * }</pre>
+ * <ul>
+ * <li>{@code latestBars}: one bar per symbol, the shape of the latest bars and previous closes
+ * requests</li>
+ * <li>{@code chartPage}: a page of 1-minute bars per symbol, the shape of the history requests</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StockBarsDecodeBenchmark {
+	@Param({"10", "100", "1000", "5000"})
+	public int symbols;
+
+	private String latestBarsPayload;
+	private String chartPagePayload;
+
+	@Setup
+	public void setUp() {
+		this.latestBarsPayload = BarPayloads.stockBars(BarPayloads.symbols(this.symbols), 1, 42);
+		// Alpaca pages hold up to 10,000 bars in total, however many symbols they span.
+		int barsPerSymbol = Math.max(1, 10_000 / this.symbols);
+		this.chartPagePayload = BarPayloads.stockBars(BarPayloads.symbols(this.symbols), barsPerSymbol, 42);
+	}
+
+	@Benchmark
+	public StockBarsResp latestBars() throws IOException {
+		return StockBarsResp.fromJson(this.latestBarsPayload);
+	}
+
+	@Benchmark
+	public StockBarsResp chartPage() throws IOException {
+		return StockBarsResp.fromJson(this.chartPagePayload);
+	}
+}
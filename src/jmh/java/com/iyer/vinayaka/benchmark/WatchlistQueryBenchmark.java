@@ -0,0 +1,137 @@
+package com.iyer.vinayaka.benchmark;
+
+import com.iyer.vinayaka.entities.UserTickers;
+import com.iyer.vinayaka.repository.UserTickersRepository;
+import com.iyer.vinayaka.service.UserTickersService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading the watchlist from SQLite through Spring Data JPA, as the app does at startup (and,
+ * before the in-memory watchlist, on every refresh cycle).
+ *
+ * <p>
+ * Each trial starts a Spring context with only the persistence beans and a fresh database file in a
+ * temporary directory, filled with {@code tickers} tickers of which every fifth is a favorite. The
+ * application's {@code application.properties} turns on SQL logging and JMX, so they're turned off with
+ * command line arguments, which take precedence over it. Each iteration fails if any SQL was printed
+ * anyway, since it would be timing the console instead of the query.
+ * </p>
+ *
+ * <pre>{@code
+ * ./mvnw -Pjmh compile exec:exec -Djmh.args="WatchlistQueryBenchmark"
+ * }</pre>
+ * <ul>
+ * <li>{@code favoritesFirst}: {@link UserTickersService#getAllTickersWithFavoritesFirst()}, two queries
+ * sorted in memory</li>
+ * <li>{@code sortedQuery}: the same order from a single query sorted by SQLite</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WatchlistQueryBenchmark {
+	private static final Sort FAVORITES_FIRST = Sort.by(Sort.Order.desc("favorite"), Sort.Order.asc("symbol"));
+
+	@Param({"10", "100", "1000"})
+	public int tickers;
+
+	private Path directory;
+	private ConfigurableApplicationContext context;
+	private UserTickersService userTickersService;
+	private UserTickersRepository userTickersRepository;
+	// Everything printed during the current iteration, and the stream it's normally printed to.
+	private final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+	private PrintStream stdout;
+
+	/**
+	 * The persistence slice of the application: the datasource, JPA, the repositories and the service.
+	 */
+	@SpringBootConfiguration
+	@EnableAutoConfiguration
+	@EnableJpaRepositories(basePackageClasses = UserTickersRepository.class)
+	@EntityScan(basePackageClasses = UserTickers.class)
+	@Import(UserTickersService.class)
+	static class WatchlistDatabase {
+	}
+
+	@Setup
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("vinayaka-jmh");
+		this.context = new SpringApplicationBuilder(WatchlistDatabase.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=jdbc:sqlite:" + this.directory.resolve("vinayaka.db"),
+						"--spring.jpa.show-sql=false",
+						"--spring.jpa.properties.hibernate.format_sql=false",
+						"--spring.jmx.enabled=false",
+						"--spring.main.banner-mode=off",
+						"--spring.main.log-startup-info=false");
+		this.userTickersService = this.context.getBean(UserTickersService.class);
+		this.userTickersRepository = this.context.getBean(UserTickersRepository.class);
+
+		List<UserTickers> watchlist = new ArrayList<>(this.tickers);
+		for (String symbol : BarPayloads.symbols(this.tickers)) {
+			watchlist.add(new UserTickers(symbol, symbol + " Inc.", "NASDAQ", watchlist.size() % 5 == 0));
+		}
+		this.userTickersService.applyChanges(watchlist, List.of());
+	}
+
+	@Setup(Level.Iteration)
+	public void captureOutput() {
+		this.printed.reset();
+		this.stdout = System.out;
+		System.setOut(new PrintStream(this.printed, true, StandardCharsets.UTF_8));
+	}
+
+	@TearDown(Level.Iteration)
+	public void checkOutput() {
+		System.setOut(this.stdout);
+		String output = this.printed.toString(StandardCharsets.UTF_8);
+		this.stdout.print(output);
+		if (output.contains("Hibernate:") || output.toLowerCase().contains("select ")) {
+			throw new IllegalStateException("SQL was logged during the iteration, so the console was measured too");
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.context.close();
+		try (var files = Files.list(this.directory)) {
+			for (Path file : files.toList()) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(this.directory);
+	}
+
+	@Benchmark
+	public List<UserTickers> favoritesFirst() {
+		return this.userTickersService.getAllTickersWithFavoritesFirst();
+	}
+
+	@Benchmark
+	public List<UserTickers> sortedQuery() {
+		return this.userTickersRepository.findAll(FAVORITES_FIRST);
+	}
+}
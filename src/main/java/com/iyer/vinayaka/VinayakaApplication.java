@@ -1,11 +1,14 @@
 package com.iyer.vinayaka;
 
+import com.iyer.vinayaka.config.VinayakaProperties;
 import javafx.application.Application;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
 @EnableJpaRepositories(basePackages = "com.iyer.vinayaka.repository")
+@EnableConfigurationProperties(VinayakaProperties.class)
 public class VinayakaApplication {
 
 	public static void main(String[] args) {
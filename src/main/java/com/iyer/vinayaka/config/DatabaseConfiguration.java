@@ -37,8 +37,9 @@ public class DatabaseConfiguration implements ApplicationContextInitializer<Conf
 	 *   <li>Linux/macOS: ~/.config/vinayaka/</li>
 	 *   <li>Windows: %APPDATA%\Vinayaka\</li>
 	 * </ul>
+	 * Other local data (e.g., the historical bar store) lives under this directory as well.
 	 */
-	private static Path getConfigDirectory() {
+	public static Path getConfigDirectory() {
 		String os = System.getProperty("os.name").toLowerCase();
 
 		if (os.contains("win")) {
@@ -0,0 +1,276 @@
+package com.iyer.vinayaka.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Application level tuning knobs, bound from the {@code vinayaka.*} keys in application.properties.
+ * User preferences (refresh interval, dark mode, timezone) stay in the database via UserSettings; these
+ * are settings that change how the application talks to Alpaca rather than what the user sees.
+ */
+@Data
+@ConfigurationProperties(prefix = "vinayaka")
+public class VinayakaProperties {
+	private final Refresh refresh = new Refresh();
+	private final Alpaca alpaca = new Alpaca();
+	private final BarStore barStore = new BarStore();
+	private final AssetCache assetCache = new AssetCache();
+	private final Prefetch prefetch = new Prefetch();
+	private final Watchlist watchlist = new Watchlist();
+	private final Ui ui = new Ui();
+
+	/**
+	 * How the latest prices and change percentages are fetched on each refresh.
+	 */
+	public enum RefreshEngine {
+		/**
+		 * Two 1-minute stockBars range queries (latest window and previous close) plus the market calendar.
+		 */
+		BARS,
+		/**
+		 * One multi-symbol stock snapshots call, which carries the latest trade and the daily bars.
+		 */
+		SNAPSHOT
+	}
+
+	@Data
+	public static class Refresh {
+		/**
+		 * The engine used to fetch prices on every polling refresh.
+		 */
+		private RefreshEngine engine = RefreshEngine.BARS;
+
+		/**
+		 * Whether prices should be pushed over the Alpaca market data websocket instead of being polled.
+		 * Polling is still used for the initial load and as a fallback whenever the stream is disconnected.
+		 */
+		private boolean streaming = false;
+
+		/**
+		 * How often (in milliseconds) streamed prices are flushed to the UI. Trades arrive far faster than
+		 * anyone can read them, so they are coalesced per symbol and only the latest price is shown.
+		 */
+		private long streamFlushMillis = 250;
+
+		/**
+		 * How long (in seconds) to wait before trying to reconnect a dropped stream.
+		 */
+		private long streamReconnectSeconds = 5;
+
+		/**
+		 * Whether polling follows the trading calendar: the user's refresh interval during regular hours,
+		 * {@link #extendedHoursIntervalSeconds} in pre-market and after-hours trading, and no polling at
+		 * all while the market is closed. When disabled, the refresh interval is used around the clock.
+		 */
+		private boolean adaptive = true;
+
+		/**
+		 * How often (in seconds) to poll during extended hours. 0 stops polling from 15 minutes after the
+		 * close until the next open.
+		 */
+		private long extendedHoursIntervalSeconds = 0;
+
+		/**
+		 * Whether refresh cycles only fetch the tickers visible on the board (plus {@link #prefetchRows}
+		 * rows around them), fetching the off-screen ones every {@link #offscreenIntervalSeconds}
+		 * instead. Rows scrolled into view are fetched immediately.
+		 */
+		private boolean visibilityDriven = false;
+
+		/**
+		 * How often (in seconds) off-screen tickers are fetched when refreshes are visibility-driven.
+		 */
+		private long offscreenIntervalSeconds = 300;
+
+		/**
+		 * How many rows above and below the visible ones count as visible, so rows about to be scrolled
+		 * into view are already fresh.
+		 */
+		private int prefetchRows = 2;
+
+		/**
+		 * How long (in seconds) the concurrent requests of one bars refresh cycle may take. When the
+		 * deadline passes, the requests still running are cancelled and the cycle is skipped.
+		 */
+		private long cycleDeadlineSeconds = 20;
+	}
+
+	@Data
+	public static class Alpaca {
+		/**
+		 * Maximum number of symbols sent in a single multi-symbol request. Larger symbol sets are split
+		 * into chunks of this size to stay clear of URL length limits.
+		 */
+		private int chunkSize = 200;
+
+		/**
+		 * Maximum number of chunks requested at the same time.
+		 */
+		private int parallelism = 4;
+
+		/**
+		 * Requests per minute the client-side rate limiter allows across all Alpaca REST calls. Alpaca's
+		 * free plan allows 200.
+		 */
+		private int requestsPerMinute = 200;
+
+		/**
+		 * How many requests may go out at once before the rate limiter starts spacing them.
+		 */
+		private int rateLimitBurst = 20;
+
+		/**
+		 * How many times a request answered with 429 (Too Many Requests) is retried.
+		 */
+		private int maxRetries = 3;
+
+		/**
+		 * Root URL that the trader and market data REST requests are sent to instead of Alpaca's, e.g. a
+		 * stand-in server started by another process. Blank means the live Alpaca endpoints. Ignored when
+		 * {@code stand-in.enabled} is set.
+		 */
+		private String baseUrl = "";
+
+		private final StandIn standIn = new StandIn();
+	}
+
+	/**
+	 * The local Alpaca stand-in server ({@link com.iyer.vinayaka.util.AlpacaStandInServer}), for load and
+	 * failure testing without network access.
+	 */
+	@Data
+	public static class StandIn {
+		/**
+		 * Whether to start the stand-in server and send all Alpaca REST requests to it. Any API key and
+		 * secret of the right length are accepted. The streaming refresh mode streams its prices over an
+		 * in-process stand-in websocket.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Port on the loopback interface; 0 picks a free one.
+		 */
+		private int port = 0;
+
+		/**
+		 * Number of tradable assets it lists. Alpaca lists about 12,000 active US equities.
+		 */
+		private int assets = 12_000;
+
+		/**
+		 * How long (in milliseconds) every response is held back.
+		 */
+		private long latencyMillis = 0;
+
+		/**
+		 * Up to how many milliseconds of random delay are added on top of {@link #latencyMillis}.
+		 */
+		private long latencyJitterMillis = 0;
+
+		/**
+		 * Fraction (0 to 1) of requests answered with 500 Internal Server Error.
+		 */
+		private double errorRate = 0;
+
+		/**
+		 * Requests per minute it allows before answering with 429 Too Many Requests; 0 means no limit.
+		 */
+		private int requestsPerMinute = 0;
+
+		/**
+		 * Seed of the synthetic prices, so runs are repeatable.
+		 */
+		private long seed = 42;
+	}
+
+	@Data
+	public static class BarStore {
+		/**
+		 * Whether chart ranges (1W through 5Y) are served from the local bar store, fetching only the
+		 * bars newer than the stored ones.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Where the bar files are kept. When blank, a "bars" directory under the config directory is used.
+		 */
+		private String directory = "";
+
+		/**
+		 * After how many days a stored series is downloaded again in full. Bars are split and dividend
+		 * adjusted, so a corporate action changes history that was already stored.
+		 */
+		private long revalidateDays = 7;
+	}
+
+	@Data
+	public static class AssetCache {
+		/**
+		 * Where the tradable asset universe is stored. When blank, "assets.tsv" in the config directory
+		 * is used.
+		 */
+		private String file = "";
+
+		/**
+		 * After how many hours the stored universe is downloaded again in the background to pick up new
+		 * listings, delistings and renames.
+		 */
+		private long refreshHours = 24;
+	}
+
+	@Data
+	public static class Prefetch {
+		/**
+		 * Whether the chart ranges of the whole watchlist are downloaded into the bar store in the
+		 * background at startup (and those of each added ticker when it's added). Needs the bar store.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of prefetch requests in flight at the same time.
+		 */
+		private int concurrency = 4;
+
+		/**
+		 * Maximum number of prefetch requests per minute, pages included. Alpaca's free plan allows
+		 * 200 requests per minute in total, so this leaves room for the price refreshes.
+		 */
+		private int requestsPerMinute = 100;
+	}
+
+	@Data
+	public static class Watchlist {
+		/**
+		 * How long (in milliseconds) watchlist changes are held before being stored together in one
+		 * transaction. The in-memory watchlist is updated immediately either way.
+		 */
+		private long writeDelayMillis = 250;
+	}
+
+	@Data
+	public static class Ui {
+		/**
+		 * Whether to log how long the CSS and layout pass after each ticker board refresh takes. On a
+		 * refresh that only moves prices, this should come down to re-rendering the changed labels.
+		 */
+		private boolean logLayoutTiming = false;
+
+		/**
+		 * Whether to watch the JavaFX Application Thread: measure how long tasks posted to it wait and
+		 * how far apart its pulses are, and log its stack whenever it's blocked for longer than
+		 * {@link #stallThresholdMillis}.
+		 */
+		private boolean stallWatchdog = true;
+
+		/**
+		 * How often (in milliseconds) the watchdog posts a probe to the JavaFX Application Thread.
+		 */
+		private long watchdogIntervalMillis = 100;
+
+		/**
+		 * How long (in milliseconds) the JavaFX Application Thread may be busy before the UI counts as
+		 * frozen and its stack is logged.
+		 */
+		private long stallThresholdMillis = 500;
+	}
+}
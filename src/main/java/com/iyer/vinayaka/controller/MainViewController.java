@@ -1,38 +1,59 @@
 package com.iyer.vinayaka.controller;
 
+import com.iyer.vinayaka.config.VinayakaProperties;
 import com.iyer.vinayaka.entities.UserSettings;
 import com.iyer.vinayaka.entities.UserTickers;
+import com.iyer.vinayaka.model.AssetInfo;
+import com.iyer.vinayaka.model.TickerPrice;
 import com.iyer.vinayaka.service.AlpacaMarketDataService;
+import com.iyer.vinayaka.service.AlpacaRateLimiter;
+import com.iyer.vinayaka.service.AssetUniverse;
+import com.iyer.vinayaka.service.HistoricalPrefetchService;
 import com.iyer.vinayaka.service.UserSettingsService;
-import com.iyer.vinayaka.service.UserTickersService;
+import com.iyer.vinayaka.service.WatchlistService;
+import com.iyer.vinayaka.util.BoardUpdateMailbox;
 import com.iyer.vinayaka.util.DataHolder;
+import com.iyer.vinayaka.util.LayoutPassTimer;
+import com.iyer.vinayaka.util.PipelineMetrics;
+import com.iyer.vinayaka.util.RefreshEvents;
 import com.iyer.vinayaka.util.TickerRefresher;
+import com.iyer.vinayaka.util.TickerStreamer;
 import com.iyer.vinayaka.util.UIUtils;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import javafx.animation.FadeTransition;
 import javafx.application.Platform;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Side;
 import javafx.scene.Cursor;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.IndexedCell;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.MenuItem;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.control.Tooltip;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
 import javafx.util.Duration;
-import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBar;
-import net.jacobpeterson.alpaca.openapi.trader.model.Assets;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Component
@@ -47,30 +68,65 @@ public class MainViewController implements Initializable {
 	private final UserSettingsService userSettingsService;
 	private final UIUtils uiUtils;
 	private final DataHolder dataHolder;
-	private final UserTickersService userTickersService;
+	private final WatchlistService watchlistService;
 	private final AlpacaMarketDataService alpacaMarketDataService;
-	private final List<Assets> assets;
+	private final AssetUniverse assetUniverse;
+	private final HistoricalPrefetchService prefetchService;
 	private final ApplicationContext context;
 	private TickerRefresher tickerRefresher;
 
-	// Cached UI components for reuse - avoids recreation on every refresh
-	private GridPane tickerGrid;
+	// Type-ahead: queries run on their own thread; only the latest keystroke's suggestions are shown.
+	private static final int MAX_SUGGESTIONS = 8;
+	private final ExecutorService searchExecutor;
+	private final AtomicLong searchGeneration = new AtomicLong();
+	private ContextMenu suggestionsMenu;
+
+	// The network work behind watchlist actions runs on this thread, one action at a time, so the FX
+	// thread never waits on it. See submitWatchlistCommand().
+	private final ExecutorService commandExecutor;
+
+	// Virtualized board: one ListView row per MAX_COLUMNS tickers, cells only for the visible rows
+	private ListView<List<UserTickers>> tickerBoard;
 	private static final int MAX_COLUMNS = 3;
+	private static final double ROW_HEIGHT = 150;
+
+	// Latest price of every ticker on the board, read when a recycled tile is bound to a ticker
+	private final Map<String, TickerPrice> latestPrices = new HashMap<>();
+
+	// Symbols on the board, and those in the viewport plus its prefetch margin (read by the refresher)
+	private Set<String> boardSymbols = Set.of();
+	private volatile Set<String> viewportSymbols = Set.of();
+	private final int prefetchRows;
+	private VirtualFlow<?> boardFlow;
+
+	// Fingerprint of the ticker order on the board; rows are only diffed when it changes
+	private long boardFingerprint = 0;
+
+	// Logs the CSS and layout pass that follows each board refresh (vinayaka.ui.log-layout-timing), and
+	// records it for JFR while a recording asks for it
+	private final boolean logLayoutTiming;
+	private final LayoutPassTimer layoutPassTimer;
+
+	// Board and price updates from any thread, coalesced and applied at most once per pulse
+	private final BoardUpdateMailbox boardUpdates = new BoardUpdateMailbox(
+			(tickers, prices) -> this.populateGrid(prices, tickers), this::updatePrices);
 
 	// Cached images loaded once at startup - avoids repeated resource loading
 	private Image deleteIconImage;
 	private Image favoriteFilledImage;
 	private Image favoriteOutlineImage;
 
-	// Map of ticker symbol -> its UI components for in-place updates
+	// Map of ticker symbol -> the visible tile currently showing it, for in-place updates
 	private final Map<String, TickerUIComponents> tickerUICache = new HashMap<>();
 
 	/**
-	 * Holds references to all UI components for a single ticker.
-	 * Enables in-place updates without recreating nodes.
+	 * Holds references to all UI components for a single ticker tile.
+	 * Tiles belong to a row cell and are re-bound to another ticker when the cell is recycled.
 	 */
-	@SuppressWarnings("unused") // deleteIcon and infoBox are stored for structural completeness
+	@SuppressWarnings("unused") // infoBox is stored for structural completeness
 	private static class TickerUIComponents {
+		// The ticker this tile currently shows, or null while it's unused
+		UserTickers ticker;
 		final StackPane container;
 		final Label nameLabel;
 		final Label priceLabel;
@@ -91,16 +147,36 @@ public class MainViewController implements Initializable {
 		}
 	}
 
-	public MainViewController(UserSettingsService userSettingsService, UserTickersService service,
+	public MainViewController(UserSettingsService userSettingsService, WatchlistService watchlistService,
 							  UIUtils uiUtils, DataHolder dataHolder, AlpacaMarketDataService alpacaMarketDataService,
-							  ApplicationContext context) {
+							  AssetUniverse assetUniverse, HistoricalPrefetchService prefetchService,
+							  VinayakaProperties properties, ApplicationContext context) {
 		this.userSettingsService = userSettingsService;
-		this.userTickersService = service;
+		this.watchlistService = watchlistService;
 		this.uiUtils = uiUtils;
 		this.dataHolder = dataHolder;
 		this.alpacaMarketDataService = alpacaMarketDataService;
 		this.context = context;
-		this.assets = this.alpacaMarketDataService.getAllAssets();
+		this.assetUniverse = assetUniverse;
+		this.prefetchService = prefetchService;
+		this.logLayoutTiming = properties.getUi().isLogLayoutTiming();
+		this.layoutPassTimer = new LayoutPassTimer(this.logLayoutTiming);
+		this.prefetchRows = properties.getRefresh().getPrefetchRows();
+		this.searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ticker-search");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.commandExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "watchlist-commands");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// Watchlist changes are stored in the background; tell the user when that keeps failing.
+		this.watchlistService.addWriteFailureListener(unsaved -> Platform.runLater(() ->
+				this.uiUtils.showAlert("Watchlist Not Saved", "Changes to " + unsaved + " ticker(s) could not be "
+						+ "saved yet. They will be retried, but may be lost if the application is closed.",
+						Alert.AlertType.ERROR)));
 	}
 
 	/**
@@ -122,9 +198,11 @@ public class MainViewController implements Initializable {
 		// Initialize cached images at startup
 		this.initializeCachedImages();
 
-		// Initialize GridPane once - reused on every refresh
-		this.tickerGrid = this.createTickerGrid();
-		this.tickerScrollPane.setContent(this.tickerGrid);
+		// Initialize the board once - reused on every refresh
+		this.tickerBoard = this.createTickerBoard();
+		this.tickerScrollPane.setContent(this.tickerBoard);
+
+		this.initializeTypeAhead();
 
 		// Handle window resizing for elements
 		this.mainAnchorPane.widthProperty().addListener((obs, oldVal, newVal) -> {
@@ -138,8 +216,13 @@ public class MainViewController implements Initializable {
 			this.dataHolder.setUserSettings(settings);
 
 			this.setBackground(settings.getDark_mode());
-			List<UserTickers> tickers = this.userTickersService.getAllTickersWithFavoritesFirst();
-			this.fetchInfoAndPopulate(tickers);
+			List<UserTickers> tickers = this.watchlistService.getTickers();
+			// The first fetch is a network call; don't hold up showing the window for it.
+			this.commandExecutor.execute(() -> {
+				this.fetchInfoAndPopulate(tickers);
+				// Warm the charts once the board is up (if vinayaka.prefetch.enabled is set).
+				this.prefetchService.prefetch(tickers.stream().map(UserTickers::getSymbol).toList());
+			});
 
 			Platform.runLater(() -> {
 				this.tickerRefresher.startRefresh();
@@ -154,6 +237,88 @@ public class MainViewController implements Initializable {
 		}
 	}
 
+	@PreDestroy
+	public void stopExecutors() {
+		this.searchExecutor.shutdownNow();
+		this.commandExecutor.shutdownNow();
+	}
+
+	/**
+	 * Sets up the type-ahead suggestions of the search field. Every keystroke queries the asset universe
+	 * on the search thread, and the suggestions are shown in a menu below the field. Pressing Enter
+	 * searches for exactly what was typed, as clicking the search icon does.
+	 */
+	private void initializeTypeAhead() {
+		this.suggestionsMenu = new ContextMenu();
+		this.searchTickerTextField.textProperty().addListener((obs, oldText, newText) -> this.suggestTickers(newText));
+		this.searchTickerTextField.focusedProperty().addListener((obs, wasFocused, focused) -> {
+			if (!focused) {
+				this.suggestionsMenu.hide();
+			}
+		});
+		this.searchTickerTextField.setOnAction(event -> {
+			this.suggestionsMenu.hide();
+			this.searchTicker(null);
+		});
+	}
+
+	/**
+	 * Queries the suggestions for the given text off the FX thread. A query is skipped if another
+	 * keystroke came in while it was queued, and its results are dropped if one came in while it ran.
+	 *
+	 * @param query The text in the search field.
+	 */
+	private void suggestTickers(String query) {
+		long generation = this.searchGeneration.incrementAndGet();
+		if (query == null || query.isBlank()) {
+			this.suggestionsMenu.hide();
+			return;
+		}
+
+		this.searchExecutor.execute(() -> {
+			if (generation != this.searchGeneration.get()) {
+				return;
+			}
+			List<AssetInfo> suggestions = this.assetUniverse.search(query, MAX_SUGGESTIONS);
+			Platform.runLater(() -> {
+				if (generation == this.searchGeneration.get()) {
+					this.showSuggestions(suggestions);
+				}
+			});
+		});
+	}
+
+	/**
+	 * Shows the suggestions below the search field. Picking one adds that ticker.
+	 *
+	 * @param suggestions The suggestions, best match first.
+	 */
+	private void showSuggestions(List<AssetInfo> suggestions) {
+		if (suggestions.isEmpty() || !this.searchTickerTextField.isFocused()) {
+			this.suggestionsMenu.hide();
+			return;
+		}
+
+		List<MenuItem> items = new ArrayList<>(suggestions.size());
+		for (AssetInfo suggestion : suggestions) {
+			MenuItem item = new MenuItem(suggestion.symbol() + "    " + Objects.requireNonNullElse(suggestion.name(), ""));
+			item.setMnemonicParsing(false);
+			item.setOnAction(event -> {
+				this.searchTickerTextField.setText(suggestion.symbol());
+				// Drop the suggestions for the text that was just set.
+				this.searchGeneration.incrementAndGet();
+				this.suggestionsMenu.hide();
+				this.searchTicker(null);
+			});
+			items.add(item);
+		}
+
+		this.suggestionsMenu.getItems().setAll(items);
+		if (!this.suggestionsMenu.isShowing()) {
+			this.suggestionsMenu.show(this.searchTickerTextField, Side.BOTTOM, 0, 0);
+		}
+	}
+
 	/**
 	 * Loads and caches icon images at startup.
 	 */
@@ -167,18 +332,78 @@ public class MainViewController implements Initializable {
 	}
 
 	/**
-	 * Creates and configures the ticker GridPane with column constraints.
-	 * Called once at initialization; the GridPane is reused on every refresh.
+	 * Creates the virtualized ticker board. Each item of the ListView is one row of up to
+	 * {@link #MAX_COLUMNS} tickers, and the ListView only creates cells for the rows that are visible,
+	 * recycling them while scrolling. Called once at initialization; the board is reused on every refresh.
+	 *
+	 * @return A configured ListView ready for ticker rows.
+	 */
+	private ListView<List<UserTickers>> createTickerBoard() {
+		ListView<List<UserTickers>> board = new ListView<>();
+		board.getStyleClass().add("tickerBoard");
+		// Every row has the same height, which lets the VirtualFlow skip measuring cells.
+		board.setFixedCellSize(ROW_HEIGHT);
+		board.setFocusTraversable(false);
+		board.setCellFactory(listView -> new TickerRowCell());
+		// The VirtualFlow only exists once the skin is created, when the board is first shown.
+		board.skinProperty().addListener((obs, oldSkin, newSkin) -> this.trackViewport());
+		return board;
+	}
+
+	/**
+	 * Follows the rows visible in the board, recomputing them whenever it scrolls or is laid out.
+	 */
+	private void trackViewport() {
+		if (!(this.tickerBoard.lookup(".virtual-flow") instanceof VirtualFlow<?> flow) || flow == this.boardFlow) {
+			return;
+		}
+		this.boardFlow = flow;
+		flow.positionProperty().addListener(obs -> this.updateViewport());
+		flow.needsLayoutProperty().addListener((obs, wasDirty, dirty) -> {
+			if (!dirty) {
+				this.updateViewport();
+			}
+		});
+	}
+
+	/**
+	 * Recomputes the symbols in the viewport and its prefetch margin. If rows came into view, the
+	 * refresher is told so it can fetch them right away.
+	 */
+	private void updateViewport() {
+		IndexedCell<?> first = this.boardFlow.getFirstVisibleCell();
+		IndexedCell<?> last = this.boardFlow.getLastVisibleCell();
+		List<List<UserTickers>> rows = this.tickerBoard.getItems();
+		if (first == null || last == null || rows.isEmpty()) {
+			return;
+		}
+
+		int from = Math.max(0, first.getIndex() - this.prefetchRows);
+		int to = Math.min(rows.size() - 1, last.getIndex() + this.prefetchRows);
+		Set<String> symbols = new HashSet<>();
+		for (int i = from; i <= to; i++) {
+			for (UserTickers ticker : rows.get(i)) {
+				symbols.add(ticker.getSymbol());
+			}
+		}
+
+		boolean rowsCameIntoView = !this.viewportSymbols.containsAll(symbols);
+		this.viewportSymbols = Collections.unmodifiableSet(symbols);
+		if (rowsCameIntoView && this.tickerRefresher != null) {
+			this.tickerRefresher.viewportChanged();
+		}
+	}
+
+	/**
+	 * Creates the GridPane laying out the tiles of one board row in {@link #MAX_COLUMNS} equal columns.
 	 *
-	 * @return A configured GridPane ready for ticker content.
+	 * @return A configured single-row GridPane.
 	 */
-	private GridPane createTickerGrid() {
+	private GridPane createRowGrid() {
 		GridPane grid = new GridPane(10, 10);
 		grid.setAlignment(Pos.CENTER);
-		grid.setPrefSize(Region.USE_COMPUTED_SIZE, Region.USE_COMPUTED_SIZE);
-		grid.setMaxHeight(Region.USE_COMPUTED_SIZE);
 		grid.setHgap(50);
-		grid.setVgap(50);
+		grid.setPadding(new Insets(0, 0, 50, 0));
 
 		for (int i = 0; i < MAX_COLUMNS; i++) {
 			ColumnConstraints column = new ColumnConstraints();
@@ -187,9 +412,41 @@ public class MainViewController implements Initializable {
 			grid.getColumnConstraints().add(column);
 		}
 
+		RowConstraints row = new RowConstraints();
+		row.setVgrow(Priority.ALWAYS);
+		row.setMinHeight(100); // Ensure minimum height for readability
+		grid.getRowConstraints().add(row);
+
 		return grid;
 	}
 
+	/**
+	 * A board row. The cell creates its {@link #MAX_COLUMNS} tiles once and, whenever the ListView
+	 * assigns it another row, re-binds them to that row's tickers instead of creating new nodes.
+	 */
+	private final class TickerRowCell extends ListCell<List<UserTickers>> {
+		private final GridPane rowGrid = createRowGrid();
+		private final TickerUIComponents[] tiles = new TickerUIComponents[MAX_COLUMNS];
+
+		TickerRowCell() {
+			for (int i = 0; i < MAX_COLUMNS; i++) {
+				this.tiles[i] = createTickerUIComponents();
+				this.rowGrid.add(this.tiles[i].container, i, 0);
+			}
+			this.setText(null);
+		}
+
+		@Override
+		protected void updateItem(List<UserTickers> row, boolean empty) {
+			super.updateItem(row, empty);
+			boolean hasRow = !empty && row != null;
+			for (int i = 0; i < MAX_COLUMNS; i++) {
+				bindTile(this.tiles[i], hasRow && i < row.size() ? row.get(i) : null);
+			}
+			this.setGraphic(hasRow ? this.rowGrid : null);
+		}
+	}
+
 	/**
 	 * Navigates to the settings page.
 	 *
@@ -202,57 +459,60 @@ public class MainViewController implements Initializable {
 	/**
 	 * Searches for a ticker symbol and adds it to the user's list of tickers if it exists.
 	 *
+	 * <p>
+	 * The ticker is looked up and its price fetched on the command thread. As soon as it's known to
+	 * exist, it's added to the watchlist and shown on the board, and its price follows.
+	 * </p>
+	 *
 	 * @param event The mouse event that triggered the search.
 	 */
 	public void searchTicker(MouseEvent event) {
 		String tickerSymbol = this.searchTickerTextField.getText().toUpperCase();
 		if (tickerSymbol.isBlank()) {
 			this.uiUtils.showAlert("No ticker entered", "Please enter a ticker symbol to search for.", Alert.AlertType.ERROR);
+		} else if (this.watchlistService.contains(tickerSymbol)) {
+			this.uiUtils.showAlert("Ticker Already Added",
+					"You have already added " + "\"" + tickerSymbol + "\"!", Alert.AlertType.INFORMATION);
 		} else {
-			// Determine if the searched ticker symbol is a valid ticker whose information is available on Alpaca Markets
-			boolean tickerExists = this.assets.parallelStream().anyMatch(asset -> asset.getSymbol().equals(tickerSymbol));
-			if (tickerExists) {
-				boolean tickerAlreadyAdded = this.userTickersService.getAllTickersWithFavoritesFirst().parallelStream()
-						.anyMatch(ticker -> ticker.getSymbol().equals(tickerSymbol));
-				if (!tickerAlreadyAdded) {
-					Map<String, String> nameAndExchange = this.alpacaMarketDataService.getTickerNameAndExchange(tickerSymbol);
-					UserTickers ticker = new UserTickers(tickerSymbol,nameAndExchange.get("officialName"),
-							nameAndExchange.get("listedExchange"), false);
-					this.userTickersService.addTicker(ticker);
-
-					// Invalidate the ticker cache since we've added a new ticker
-					this.tickerRefresher.invalidateTickerCache();
-					this.fetchInfoAndPopulate(this.userTickersService.getAllTickersWithFavoritesFirst());
-				} else {
-					this.uiUtils.showAlert("Ticker Already Added",
-							"You have already added " + "\"" + tickerSymbol + "\"!", Alert.AlertType.INFORMATION);
+			this.submitWatchlistCommand("add " + tickerSymbol, () -> {
+				// Determine if the searched ticker symbol is a valid ticker whose information is available on Alpaca Markets.
+				// This is a lookup in the in-memory asset index, which also has its name and exchange (or an API
+				// call, before the index has been loaded).
+				Optional<AssetInfo> asset = this.assetUniverse.find(tickerSymbol);
+				if (asset.isEmpty()) {
+					Platform.runLater(() -> this.uiUtils.showAlert("Ticker Not Found",
+							"The ticker symbol " + "\"" + tickerSymbol + "\"" + " was not found.", Alert.AlertType.ERROR));
+					return;
 				}
-			} else {
-				this.uiUtils.showAlert("Ticker Not Found",
-						"The ticker symbol " + "\"" + tickerSymbol + "\"" + " was not found.", Alert.AlertType.ERROR);
-			}
+
+				UserTickers ticker = new UserTickers(tickerSymbol, asset.get().name(), asset.get().exchange(), false);
+				if (this.watchlistService.addTicker(ticker)) {
+					// Show the ticker right away; its price follows once it's been fetched.
+					this.showWatchlist();
+					this.boardUpdates.postPrices(this.alpacaMarketDataService.getLatestTickerPrices(List.of(tickerSymbol)));
+					this.prefetchService.prefetch(List.of(tickerSymbol));
+				}
+			});
 		}
 	}
 
 	/**
-	 * Updates the ticker grid UI with current price data using in-place updates
-	 * when possible.
+	 * Updates the ticker board with current price data.
 	 *
 	 * <p>
-	 * <b>OPTIMIZATION STRATEGY:</b> This method uses a caching strategy to
-	 * dramatically reduce
-	 * object creation during periodic refreshes. Instead of destroying and
-	 * recreating all UI nodes
-	 * on every refresh (which happened every 10 seconds by default), this method:
+	 * <b>VIRTUALIZATION:</b> The board is a ListView whose items are rows of up to
+	 * {@link #MAX_COLUMNS} tickers. The ListView only creates cells for the rows that
+	 * are on screen (plus a few spare ones), and recycles them while scrolling, so
+	 * a watchlist of thousands of tickers costs about as many nodes and as much
+	 * layout as one screenful. This method:
 	 * </p>
 	 * <ol>
-	 * <li>Reuses the same GridPane instance (created once at initialization)</li>
-	 * <li>Maintains a cache (tickerUICache) mapping each ticker symbol to its UI
-	 * components</li>
-	 * <li>For existing tickers: updates only the text and styles of existing
-	 * Labels</li>
-	 * <li>For new tickers: creates UI components and adds them to the cache</li>
-	 * <li>For removed tickers: removes components from both grid and cache</li>
+	 * <li>Stores the prices in a model (latestPrices) that tiles read whenever they
+	 * are bound to a ticker</li>
+	 * <li>Splits the tickers into rows and hands them to the ListView, which
+	 * re-binds only its visible cells</li>
+	 * <li>Never creates nodes for tickers that aren't visible, and never creates new
+	 * nodes for visible ones: each cell re-binds its existing tiles</li>
 	 * </ol>
 	 *
 	 * <p>
@@ -273,145 +533,113 @@ public class MainViewController implements Initializable {
 	 * then non-favorites (both sorted alphabetically).
 	 * </p>
 	 *
-	 * @param latestBars  Map of ticker symbols to their latest stock bars (1-minute
-	 *                    bars).
-	 *                    Each list should contain at least one bar.
-	 * @param priceChange Map of ticker symbols to their price change percentages
-	 *                    compared
-	 *                    to the previous trading day's close. Values are already
-	 *                    rounded to 2 decimals.
+	 * @param prices      Map of ticker symbols to their latest price and price
+	 *                    change percentage compared to the previous trading day's
+	 *                    close. Percentages are already rounded to 2 decimals.
 	 * @param tickers     The list of tickers in display order (favorites first,
 	 *                    then alphabetical).
 	 *                    This is passed in from fetchInfoAndPopulate() to avoid a
 	 *                    redundant database query
 	 *                    that was previously happening on every refresh.
 	 */
-	private void populateGrid(Map<String, List<StockBar>> latestBars, Map<String, Double> priceChange,
-			List<UserTickers> tickers) {
-
-		// Build a lookup map from the ticker list
-		// Purpose: Convert the List<UserTickers> into a Map for O(1) lookups by symbol.
-		// Why this is important: We need to quickly access ticker metadata (like
-		// isFavorite)
-		// when processing each ticker. Using a Map avoids O(n) list searches.
-		// Note: The tickers list is passed in from fetchInfoAndPopulate(), which
-		// already
-		// fetched it from the database. Previously, this method called
-		// getAllTickersWithFavoritesFirst()
-		// again, causing a redundant database query on every refresh cycle.
-		Map<String, UserTickers> tickerMap = tickers.stream()
-				.collect(Collectors.toMap(UserTickers::getSymbol, ticker -> ticker));
-
-		// Identify and remove tickers that no longer exist
-		// Purpose: Clean up the cache and grid when a user deletes a ticker.
-		// Why this is important: Without this cleanup, deleted tickers would remain in
-		// the cache
-		// forever, causing memory leaks and potentially showing stale data if the
-		// ticker is re-added.
-		// Process:
-		// 1. Get all symbols currently in our UI cache (these are tickers we're
-		// displaying)
-		// 2. Remove from that set all symbols that are in the current ticker list
-		// 3. What remains are symbols that were deleted and need cleanup
-		Set<String> currentSymbols = tickerMap.keySet();
-		Set<String> removedSymbols = new HashSet<>(this.tickerUICache.keySet());
-		removedSymbols.removeAll(currentSymbols);
-
-		// For each removed ticker, clean up its UI components from both the cache and
-		// the grid.
-		// This ensures we don't have orphaned UI components or memory leaks.
-		for (String symbol : removedSymbols) {
-			TickerUIComponents removed = this.tickerUICache.remove(symbol);
-			if (removed != null) {
-				// Remove the StackPane container from the GridPane's children list.
-				// This is necessary because the GridPane still holds a reference to it.
-				this.tickerGrid.getChildren().remove(removed.container);
-			}
+	private void populateGrid(Map<String, TickerPrice> prices, List<UserTickers> tickers) {
+		long start = System.nanoTime();
+		RefreshEvents.BoardUpdate updateEvent = new RefreshEvents.BoardUpdate();
+		updateEvent.begin();
+		// Update the price model. Tickers that were deleted drop out of it here, tickers
+		// that weren't fetched this time keep their last price, and tiles bound later
+		// (while scrolling) read their prices from it.
+		this.boardSymbols = tickers.stream().map(UserTickers::getSymbol).collect(Collectors.toUnmodifiableSet());
+		this.latestPrices.keySet().retainAll(this.boardSymbols);
+		this.latestPrices.putAll(prices);
+
+		// The order only changes when a ticker is added, deleted or (un)favorited. On a
+		// pure price refresh the fingerprint matches and the rows are left alone.
+		int rowsReplaced = 0;
+		long fingerprint = orderFingerprint(tickers);
+		if (fingerprint != this.boardFingerprint) {
+			rowsReplaced = this.applyRowDiff(layoutRows(tickers));
+			this.boardFingerprint = fingerprint;
 		}
 
-		// Update existing or create new UI components for each ticker
-		// Purpose: Reuse existing UI components when possible.
-		// Why this is important: Creating JavaFX nodes (Labels, VBoxes, StackPanes) is
-		// expensive.
-		// Each node creation involves:
-		// - Memory allocation for the node object
-		// - CSS styling computation
-		// - Scene graph integration
-		// - Event handler setup
-		// By reusing nodes, we avoid all of this overhead on every refresh.
-		for (UserTickers ticker : tickers) {
-			String tickerSymbol = ticker.getSymbol();
-
-			// Extract the price data for this ticker from the API response maps.
-			// These maps were populated by fetchInfoAndPopulate() from the Alpaca API.
-			List<StockBar> bars = latestBars.get(tickerSymbol);
-
-			// Safe access: If no bar data exists (e.g., market is closed or API issue),
-			// default to 0.0 to prevent NullPointerException or NoSuchElementException.
-			Double latestTradePrice = (bars != null && !bars.isEmpty()) ? bars.getLast().getC() : 0.0;
-
-			// getOrDefault prevents NPE if the ticker wasn't in the price change map for
-			// any reason.
-			Double priceChangePercentage = priceChange.getOrDefault(tickerSymbol, 0.0);
+		// Cells whose row is unchanged aren't re-bound by the ListView, so update the
+		// prices of the visible tiles in place. Labels whose price didn't move aren't touched.
+		int tilesUpdated = 0;
+		for (Map.Entry<String, TickerUIComponents> entry : this.tickerUICache.entrySet()) {
+			TickerPrice tickerPrice = this.latestPrices.get(entry.getKey());
+			if (tickerPrice != null
+					&& this.updateTickerLabels(entry.getValue(), tickerPrice.price(), tickerPrice.changePercentage())) {
+				tilesUpdated++;
+			}
+		}
+		PipelineMetrics.recordPopulateGrid(System.nanoTime() - start);
+		updateEvent.end();
+		if (updateEvent.shouldCommit()) {
+			updateEvent.tickers = tickers.size();
+			updateEvent.rowsReplaced = rowsReplaced;
+			updateEvent.tilesUpdated = tilesUpdated;
+			updateEvent.commit();
+		}
 
-			// Check if we already have UI components cached for this ticker
-			TickerUIComponents components = this.tickerUICache.get(tickerSymbol);
+		if (this.logLayoutTiming || LayoutPassTimer.isEventEnabled()) {
+			this.layoutPassTimer.measureNextPass(this.tickerBoard.getScene(), "Board refresh of " + tickers.size()
+					+ " tickers (" + rowsReplaced + " rows replaced, " + tilesUpdated + " visible tiles updated)");
+		}
+	}
 
-			if (components != null) {
-				// =========================================================================
-				// FAST PATH: IN-PLACE UPDATE (most common case during periodic refresh)
-				// =========================================================================
-				// Purpose: Update only the dynamic data (price, change %, styles) without
-				// touching the node structure.
-				// Why this is important: During normal operation, most tickers already
-				// exist in the cache. Updating a Label's text is essentially
-				// just changing a String reference - orders of magnitude faster than creating
-				// a new Label, adding it to a VBox, wrapping in a StackPane, etc.
-				updateTickerLabels(components, latestTradePrice, priceChangePercentage);
-
-				// Also update the favorite icon in case the user toggled it.
-				// This swaps the Image reference if needed, but reuses the same ImageView.
-				updateFavoriteIcon(components.favoriteIcon, ticker.isFavorite());
-			} else {
-				// =========================================================================
-				// SLOW PATH: CREATE NEW COMPONENTS (only when a new ticker is added)
-				// =========================================================================
-				// Purpose: Create a complete set of UI components for a ticker that doesn't
-				// exist in our cache yet (user just added it).
-				// Why this is important: New tickers need full UI setup - we can't avoid this.
-				// However, this only happens when the user explicitly adds a ticker, not on
-				// every refresh cycle. So the cost is acceptable.
-				components = createTickerUIComponents(ticker, latestTradePrice, priceChangePercentage);
-
-				// Add to cache so future refreshes can use the fast path above.
-				// The cache key is the ticker symbol (e.g., "AAPL") for O(1) lookups.
-				this.tickerUICache.put(tickerSymbol, components);
+	/**
+	 * Replaces only the board rows that differ from the new layout, then adds or removes rows at the end.
+	 * The ListView re-binds a cell only when the row at its index was replaced, so adding a ticker near
+	 * the end of the list, for instance, leaves every row above it untouched.
+	 *
+	 * @param rows The new rows, top to bottom.
+	 * @return The number of rows replaced, added or removed.
+	 */
+	private int applyRowDiff(List<List<UserTickers>> rows) {
+		ObservableList<List<UserTickers>> items = this.tickerBoard.getItems();
+		int changed = 0;
+		int common = Math.min(items.size(), rows.size());
+		for (int i = 0; i < common; i++) {
+			// UserTickers equality covers the symbol and the favorite flag.
+			if (!items.get(i).equals(rows.get(i))) {
+				items.set(i, rows.get(i));
+				changed++;
 			}
 		}
+		if (rows.size() > items.size()) {
+			changed += rows.size() - items.size();
+			items.addAll(rows.subList(items.size(), rows.size()));
+		} else if (rows.size() < items.size()) {
+			changed += items.size() - rows.size();
+			items.remove(rows.size(), items.size());
+		}
+		return changed;
+	}
 
-		// Rebuild the Grid layout to ensure correct display order
-		// =====================================================================================
-		// Purpose: Position all ticker containers in the grid in the correct order.
-		// Why this is important: The order matters for user experience - favorites
-		// should
-		// appear first, followed by non-favorites. When a user toggles a favorite, the
-		// ticker
-		// should move to its new position.
-		// Note: This clears and re-adds children to the GridPane, but it's NOT
-		// recreating the
-		// children themselves - it's just changing their position in the grid. The
-		// actual
-		// StackPane, Label, etc. objects remain the same (identity preserved).
-		rebuildGridLayout(tickers);
+	/**
+	 * Hashes the display order of the tickers and their favorite flags into 64 bits, so an unchanged
+	 * order is recognised without comparing the rows.
+	 *
+	 * @param tickers The tickers in display order.
+	 * @return The fingerprint.
+	 */
+	private static long orderFingerprint(List<UserTickers> tickers) {
+		long hash = tickers.size();
+		for (UserTickers ticker : tickers) {
+			hash = hash * 0x9E3779B97F4A7C15L + ticker.getSymbol().hashCode();
+			hash = hash * 0x9E3779B97F4A7C15L + (ticker.isFavorite() ? 1 : 2);
+		}
+		return hash ^ (hash >>> 31);
 	}
 
 	/**
 	 * Updates the text and style classes for an existing ticker's Labels.
 	 * We simply update the text property of existing ones.
 	 *
-	 * <b>Why this is efficient:</b> Updating Label.setText() is essentially just
-	 * changing a String reference internally. JavaFX handles the minimal repaint
-	 * needed.
+	 * <b>Why this is efficient:</b> Only labels whose text actually changed are
+	 * touched, and the style classes are only swapped when the price direction
+	 * flips. An untouched label isn't marked for CSS or layout, so a refresh where
+	 * a price didn't move costs nothing in the next pulse.
 	 *
 	 * @param components            The cached UI components for the ticker
 	 *                              (contains Label references).
@@ -419,14 +647,15 @@ public class MainViewController implements Initializable {
 	 *                              API response).
 	 * @param priceChangePercentage The price change percentage (positive, negative,
 	 *                              or zero).
+	 * @return Whether anything changed.
 	 */
-	private void updateTickerLabels(TickerUIComponents components, Double price, Double priceChangePercentage) {
+	private boolean updateTickerLabels(TickerUIComponents components, Double price, Double priceChangePercentage) {
 		// Update the price label with the new value.
 		// The ticker name label doesn't change (it's always the symbol), so we skip it.
-		components.priceLabel.setText(Double.toString(price));
+		boolean changed = setTextIfChanged(components.priceLabel, Double.toString(price));
 
 		// Update the change percentage label (e.g., "2.5%" or "-1.3%")
-		components.changeLabel.setText(priceChangePercentage + "%");
+		changed |= setTextIfChanged(components.changeLabel, priceChangePercentage + "%");
 
 		// Update the CSS style classes for all three labels to reflect the new price
 		// direction.
@@ -435,6 +664,19 @@ public class MainViewController implements Initializable {
 		updateLabelStyleClass(components.nameLabel, priceChangePercentage);
 		updateLabelStyleClass(components.priceLabel, priceChangePercentage);
 		updateLabelStyleClass(components.changeLabel, priceChangePercentage);
+		return changed;
+	}
+
+	/**
+	 * Sets a Label's text unless it already shows it. Label text is compared by reference, so setting
+	 * an equal but new String would still invalidate the label.
+	 */
+	private static boolean setTextIfChanged(Label label, String text) {
+		if (text.equals(label.getText())) {
+			return false;
+		}
+		label.setText(text);
+		return true;
 	}
 
 	/**
@@ -447,20 +689,19 @@ public class MainViewController implements Initializable {
 	 *                              which style to apply.
 	 */
 	private void updateLabelStyleClass(Label label, Double priceChangePercentage) {
-		// Remove any existing price-direction style classes.
-		// This is necessary because the price direction can change between refreshes
-		label.getStyleClass().removeAll("tickerPositive", "tickerNegative", "tickerZero");
-
-		// Apply the appropriate style class based on the price change direction.
+		// Pick the appropriate style class based on the price change direction.
 		// These classes are defined in the application's CSS stylesheet and control the
 		// text color.
-		if (priceChangePercentage > 0) {
-			label.getStyleClass().add("tickerPositive");
-		} else if (priceChangePercentage < 0) {
-			label.getStyleClass().add("tickerNegative");
-		} else {
-			label.getStyleClass().add("tickerZero");
+		String styleClass = priceChangePercentage > 0 ? "tickerPositive"
+				: priceChangePercentage < 0 ? "tickerNegative" : "tickerZero";
+
+		// Changing the style classes makes JavaFX re-apply CSS to the label, so leave
+		// them alone unless the price direction changed since the last refresh.
+		if (label.getStyleClass().contains(styleClass)) {
+			return;
 		}
+		label.getStyleClass().removeAll("tickerPositive", "tickerNegative", "tickerZero");
+		label.getStyleClass().add(styleClass);
 	}
 
 	/**
@@ -480,11 +721,10 @@ public class MainViewController implements Initializable {
 	}
 
 	/**
-	 * Creates a complete set of UI components for a new ticker. Called only when a
-	 * user
-	 * adds a new ticker that doesn't exist in our cache. Not called during normal
-	 * periodic
-	 * refreshes.
+	 * Creates a complete set of UI components for one ticker tile. Called only when
+	 * the board creates a new row cell, which happens for the visible rows, not
+	 * for every ticker and not during periodic refreshes. The tile starts unbound;
+	 * {@link #bindTile(TickerUIComponents, UserTickers)} fills it in.
 	 *
 	 * <p>
 	 * <b>What it creates:</b>
@@ -497,37 +737,28 @@ public class MainViewController implements Initializable {
 	 * <li>StackPane container to layer everything together</li>
 	 * </ul>
 	 *
-	 * @param ticker                The UserTickers entity with symbol and favorite
-	 *                              status.
-	 * @param price                 The current price to display.
-	 * @param priceChangePercentage The price change percentage.
 	 * @return A TickerUIComponents object containing references to all created UI
 	 *         nodes.
 	 */
-	private TickerUIComponents createTickerUIComponents(UserTickers ticker, Double price,
-			Double priceChangePercentage) {
-		String tickerSymbol = ticker.getSymbol();
-
+	private TickerUIComponents createTickerUIComponents() {
 		// Create the three labels that display ticker information.
-		Label tickerNameLabel = new Label(tickerSymbol);
-		Label tickerPriceLabel = new Label(Double.toString(price));
-		Label tickerChangeLabel = new Label(priceChangePercentage + "%");
+		Label tickerNameLabel = new Label();
+		Label tickerPriceLabel = new Label();
+		Label tickerChangeLabel = new Label();
 
 		// Create a VBox to stack the labels vertically (symbol on top, then price, then
 		// change %)
 		VBox tickerInfoBox = new VBox(tickerNameLabel, tickerPriceLabel, tickerChangeLabel);
 		tickerInfoBox.setAlignment(Pos.CENTER);
 
-		// Apply padding and initial style classes to all labels.
-		// The style class determines the color based on price direction.
+		// Apply padding to all labels.
 		for (Label label : List.of(tickerNameLabel, tickerPriceLabel, tickerChangeLabel)) {
 			label.setPadding(new Insets(0, 0, 5, 0));
-			updateLabelStyleClass(label, priceChangePercentage);
 		}
 
 		// Create the delete and favorite icons.
-		ImageView deleteIcon = createDeleteIcon(tickerSymbol);
-		ImageView favoriteIcon = createFavoriteIcon(ticker);
+		ImageView deleteIcon = createIcon(this.deleteIconImage);
+		ImageView favoriteIcon = createIcon(this.favoriteOutlineImage);
 
 		// Create a StackPane to layer the components
 		StackPane tickerContainer = new StackPane(tickerInfoBox, deleteIcon, favoriteIcon);
@@ -540,9 +771,6 @@ public class MainViewController implements Initializable {
 		StackPane.setMargin(deleteIcon, new Insets(0, 10, 10, 0));
 		StackPane.setMargin(favoriteIcon, new Insets(0, 0, 10, 10));
 
-		// Add margin around the entire container for spacing in the grid
-		StackPane.setMargin(tickerContainer, new Insets(50, 50, 50, 50));
-
 		// Change cursor to hand on hover to indicate the container is interactive
 		tickerContainer.setCursor(Cursor.HAND);
 
@@ -556,149 +784,114 @@ public class MainViewController implements Initializable {
 			favoriteIcon.setVisible(false);
 		});
 
-		return new TickerUIComponents(tickerContainer, tickerNameLabel, tickerPriceLabel,
+		TickerUIComponents components = new TickerUIComponents(tickerContainer, tickerNameLabel, tickerPriceLabel,
 				tickerChangeLabel, deleteIcon, favoriteIcon, tickerInfoBox);
+
+		// The click handlers act on whichever ticker the tile shows at the time of the click.
+		deleteIcon.setOnMouseClicked(event -> {
+			if (components.ticker != null) {
+				handleDeleteTicker(components.ticker.getSymbol(), event);
+			}
+			event.consume(); // Prevent event propagation to parent containers
+		});
+		favoriteIcon.setOnMouseClicked(event -> {
+			if (components.ticker != null) {
+				handleToggleFavorite(components.ticker.getSymbol(), event);
+			}
+			event.consume(); // Prevent event propagation to parent containers
+		});
+
+		return components;
 	}
 
 	/**
-	 * Rebuilds the grid layout by repositioning all ticker containers in the
-	 * correct order (favorites first, then non-favorites, both alphabetically
-	 * sorted
-	 * within their groups).
-	 *
-	 * When a user toggles a ticker's favorite status, that ticker needs to move to
-	 * a
-	 * new position in the grid. Simply updating the labels isn't enough as we need
-	 * to
-	 * physically reposition the container in the GridPane.
+	 * Points a tile at a ticker (or at nothing, hiding it) and registers it in
+	 * tickerUICache, so streamed prices reach the tile while it's on screen.
 	 *
-	 * @param tickers The list of tickers in the desired display order.
+	 * @param components The tile.
+	 * @param ticker     The ticker to show, or null to leave the tile empty.
 	 */
-	private void rebuildGridLayout(List<UserTickers> tickers) {
-		// Clear all children from the grid. This removes the node references from the
-		// GridPane's internal child list, but does NOT destroy the nodes themselves.
-		// The nodes are still referenced by our tickerUICache and will be re-added
-		// below.
-		this.tickerGrid.getChildren().clear();
+	private void bindTile(TickerUIComponents components, UserTickers ticker) {
+		UserTickers previous = components.ticker;
+		if (previous != null && this.tickerUICache.get(previous.getSymbol()) == components) {
+			this.tickerUICache.remove(previous.getSymbol());
+		}
 
-		// Clear row constraints so we can rebuild them based on how many rows we need.
-		// Row constraints control the height behavior of each row.
-		this.tickerGrid.getRowConstraints().clear();
+		components.ticker = ticker;
+		if (ticker == null) {
+			components.container.setVisible(false);
+			return;
+		}
 
-		// Track our position in the grid as we add tickers
-		int col = 0;
-		int row = 0;
+		TickerPrice tickerPrice = this.latestPrices.get(ticker.getSymbol());
+		// Safe access: If no price data exists (e.g., market is closed or API issue),
+		// default to 0.0 to prevent NullPointerException.
+		Double latestTradePrice = tickerPrice != null ? tickerPrice.price() : 0.0;
+		Double priceChangePercentage = tickerPrice != null ? tickerPrice.changePercentage() : 0.0;
 
-		// Add each ticker's container to the grid in order.
-		// The tickers list is already sorted (favorites first, then alphabetically) by
-		// the caller.
-		for (UserTickers ticker : tickers) {
-			// Get the cached UI components for this ticker
-			TickerUIComponents components = this.tickerUICache.get(ticker.getSymbol());
+		components.nameLabel.setText(ticker.getSymbol());
+		this.updateTickerLabels(components, latestTradePrice, priceChangePercentage);
+		this.updateFavoriteIcon(components.favoriteIcon, ticker.isFavorite());
 
-			if (components != null) {
-				// Add the container to the grid at the current position.
-				// GridPane.add(node, column, row) places the node at the specified cell.
-				this.tickerGrid.add(components.container, col, row);
-
-				// Move to the next column
-				col++;
-
-				// If we've filled all columns in this row, move to the next row
-				if (col == MAX_COLUMNS) {
-					col = 0;
-					row++;
-
-					// Add row constraints for the new row.
-					// This ensures each row has a minimum height and can grow if needed.
-					RowConstraints constraints = new RowConstraints();
-					constraints.setVgrow(Priority.ALWAYS); // Allow row to grow to fill available space
-					constraints.setMinHeight(100); // Ensure minimum height for readability
-					this.tickerGrid.getRowConstraints().add(constraints);
-				}
-			}
-		}
+		// A recycled tile may have been faded out by a delete, or hovered when it was re-bound.
+		components.container.setOpacity(1.0);
+		components.container.setVisible(true);
+		components.deleteIcon.setVisible(components.container.isHover());
+		components.favoriteIcon.setVisible(components.container.isHover());
+
+		this.tickerUICache.put(ticker.getSymbol(), components);
 	}
 
 	/**
-	 * Creates a delete icon ImageView for the specified ticker symbol.
+	 * Splits the tickers into board rows of up to {@link #MAX_COLUMNS}, keeping
+	 * their order (favorites first, then non-favorites, both alphabetically sorted
+	 * within their groups).
 	 *
-	 * @param tickerSymbol The symbol of the ticker this delete icon is associated
-	 *                     with.
-	 * @return An ImageView configured as a delete button.
+	 * @param tickers The list of tickers in the desired display order.
+	 * @return The rows, top to bottom.
 	 */
-	private ImageView createDeleteIcon(String tickerSymbol) {
-		// Use the cached image instead of loading from resources.
-		ImageView deleteIcon = new ImageView(this.deleteIconImage);
-
-		// Configure the icon's display properties
-		deleteIcon.setFitWidth(UIUtils.ICON_SIZE);
-		deleteIcon.setFitHeight(UIUtils.ICON_SIZE);
-		deleteIcon.setPreserveRatio(true);
-
-		// Use the full bounds as the hit target for reliable clicks.
-		// Without this, clicks on transparent pixels would not register.
-		deleteIcon.setPickOnBounds(true);
-
-		// Start hidden - will be shown on hover via the container's mouse handlers
-		deleteIcon.setVisible(false);
-
-		// Visual feedback that this is clickable
-		deleteIcon.setCursor(Cursor.HAND);
-
-		// Set up the click handler to delete the ticker
-		deleteIcon.setOnMouseClicked(event -> {
-			handleDeleteTicker(tickerSymbol, event);
-			event.consume(); // Prevent event propagation to parent containers
-		});
-
-		return deleteIcon;
+	private static List<List<UserTickers>> layoutRows(List<UserTickers> tickers) {
+		List<List<UserTickers>> rows = new ArrayList<>((tickers.size() + MAX_COLUMNS - 1) / MAX_COLUMNS);
+		for (int i = 0; i < tickers.size(); i += MAX_COLUMNS) {
+			rows.add(List.copyOf(tickers.subList(i, Math.min(i + MAX_COLUMNS, tickers.size()))));
+		}
+		return rows;
 	}
 
 	/**
-	 * Creates a favorite icon ImageView for the specified ticker.
+	 * Creates a hover icon ImageView (delete or favorite) for a ticker tile.
 	 *
-	 * @param ticker The ticker this favorite icon is associated with.
-	 * @return An ImageView configured as a favorite toggle button.
+	 * @param image The cached image to show.
+	 * @return An ImageView configured as a button.
 	 */
-	private ImageView createFavoriteIcon(UserTickers ticker) {
-		// Select the appropriate cached image based on the ticker's current favorite
-		// status.
-		Image favoriteImage = ticker.isFavorite() ? this.favoriteFilledImage : this.favoriteOutlineImage;
-
-		// Create a new ImageView using the cached Image
-		ImageView favoriteIcon = new ImageView(favoriteImage);
+	private ImageView createIcon(Image image) {
+		// Use the cached image instead of loading from resources.
+		ImageView icon = new ImageView(image);
 
 		// Configure the icon's display properties
-		favoriteIcon.setFitWidth(UIUtils.ICON_SIZE);
-		favoriteIcon.setFitHeight(UIUtils.ICON_SIZE);
-		favoriteIcon.setPreserveRatio(true);
+		icon.setFitWidth(UIUtils.ICON_SIZE);
+		icon.setFitHeight(UIUtils.ICON_SIZE);
+		icon.setPreserveRatio(true);
 
-		// Use bounds hit-testing because the outline icon has transparent pixels.
-		// Without this, clicks would only register on the visible heart outline pixels,
+		// Use bounds hit-testing because the icons have transparent pixels.
+		// Without this, clicks would only register on the visible pixels,
 		// making it frustrating to click the non-favorite state.
-		favoriteIcon.setPickOnBounds(true);
+		icon.setPickOnBounds(true);
 
 		// Start hidden - will be shown on hover via the container's mouse handlers
-		favoriteIcon.setVisible(false);
+		icon.setVisible(false);
 
 		// Visual feedback that this is clickable
-		favoriteIcon.setCursor(Cursor.HAND);
-
-		// Set up the click handler to toggle favorite status
-		favoriteIcon.setOnMouseClicked(event -> {
-			handleToggleFavorite(ticker.getSymbol(), event);
-			event.consume(); // Prevent event propagation to parent containers
-		});
+		icon.setCursor(Cursor.HAND);
 
-		return favoriteIcon;
+		return icon;
 	}
 
 	/**
 	 *
 	 * Handles the deletion of a ticker. Shows a confirmation dialog, and if the
 	 * user confirms, animates the ticker fading out, then removes it from the
-	 * database and
+	 * watchlist (it's deleted from the database in the background) and
 	 * refreshes the grid.
 	 *
 	 * @param tickerSymbol The symbol of the ticker to delete.
@@ -726,13 +919,10 @@ public class MainViewController implements Initializable {
 		fadeOut.setFromValue(1.0);
 		fadeOut.setToValue(0.0);
 
-		// Delete from database and refresh grid after animation completes
+		// Delete from the watchlist and refresh grid after animation completes
 		fadeOut.setOnFinished(e -> {
-			this.userTickersService.deleteTicker(tickerSymbol);
-			// Invalidate the ticker cache since we've deleted a ticker
-			this.tickerRefresher.invalidateTickerCache();
-			List<UserTickers> updatedTickers = this.userTickersService.getAllTickersWithFavoritesFirst();
-			this.fetchInfoAndPopulate(updatedTickers);
+			this.watchlistService.deleteTicker(tickerSymbol);
+			this.showWatchlist();
 		});
 
 		fadeOut.play();
@@ -740,7 +930,8 @@ public class MainViewController implements Initializable {
 
 	/**
 	 * Handles toggling the favorite status of a ticker.
-	 * Updates the database and refreshes the grid with a brief pulse animation.
+	 * Updates the watchlist (it's stored in the background) and the icon right
+	 * away, and moves the ticker to its new place after a brief pulse animation.
 	 *
 	 * @param tickerSymbol The symbol of the ticker to toggle.
 	 * @param event        The mouse event that triggered the toggle.
@@ -752,9 +943,10 @@ public class MainViewController implements Initializable {
 		// Keep icon visible during the operation to prevent hover interference
 		favoriteIcon.setVisible(true);
 
-		// Toggle in database immediately
-		UserTickers toggledTicker = this.userTickersService.toggleFavorite(tickerSymbol);
+		// Toggle in the watchlist immediately; the tiles are only re-bound once the pulse finishes.
+		UserTickers toggledTicker = this.watchlistService.toggleFavorite(tickerSymbol);
 		if (toggledTicker != null) {
+			this.updateFavoriteIcon(favoriteIcon, toggledTicker.isFavorite());
 			Tooltip tooltip = new Tooltip(toggledTicker.isFavorite() ? "Unfavorite" : "Favorite");
 			Tooltip.install(favoriteIcon, tooltip);
 		}
@@ -766,17 +958,54 @@ public class MainViewController implements Initializable {
 		pulse.setCycleCount(1); // Run the fade down + up twice total.
 		pulse.setAutoReverse(true); // Reverse at the end of each cycle (fade back up).
 
-		// Refresh grid after quick animation
-		pulse.setOnFinished(e -> {
-			// Invalidate the ticker cache since the favorite order has changed
-			this.tickerRefresher.invalidateTickerCache();
-			List<UserTickers> updatedTickers = this.userTickersService.getAllTickersWithFavoritesFirst();
-			this.fetchInfoAndPopulate(updatedTickers);
-		});
+		// Reorder the board after quick animation
+		pulse.setOnFinished(e -> this.showWatchlist());
 
 		pulse.play();
 	}
 
+	/**
+	 * Shows the current watchlist on the board. Prices already on the board are kept.
+	 */
+	private void showWatchlist() {
+		this.boardUpdates.postBoard(this.watchlistService.getTickers(), Map.of());
+	}
+
+	/**
+	 * Blocking work behind a watchlist action (lookups and price fetches), run on the command thread.
+	 */
+	@FunctionalInterface
+	private interface WatchlistCommand {
+		/**
+		 * @throws Exception If the action couldn't be completed.
+		 */
+		void run() throws Exception;
+	}
+
+	/**
+	 * Runs the blocking part of a watchlist action off the FX thread. Commands run one at a time, in the
+	 * order they were submitted, so quick successive actions are applied in order. If a command fails,
+	 * the user is told on the FX thread.
+	 *
+	 * @param description What the command does, for error messages (e.g., "add AAPL").
+	 * @param command     The work.
+	 */
+	private void submitWatchlistCommand(String description, WatchlistCommand command) {
+		this.commandExecutor.execute(() -> {
+			try {
+				// The user is waiting on this, so its Alpaca requests go ahead of refreshes and prefetches.
+				AlpacaRateLimiter.inLane(AlpacaRateLimiter.Lane.INTERACTIVE, () -> {
+					command.run();
+					return null;
+				});
+			} catch (Exception e) {
+				System.err.println("Could not " + description + ": " + e.getMessage());
+				Platform.runLater(() -> this.uiUtils.showAlert("Watchlist Not Updated",
+						"Could not " + description + ". Please try again.", Alert.AlertType.ERROR));
+			}
+		});
+	}
+
 	/**
 	 * Sets the background of the application based on the dark mode setting.
 	 *
@@ -809,6 +1038,43 @@ public class MainViewController implements Initializable {
 		this.searchTickerButton.setImage(searchTicker);
 	}
 
+	/**
+	 * Applies prices pushed over the market data websocket, or fetched for rows scrolled into view, to
+	 * the tickers already shown in the grid.
+	 *
+	 * <p>
+	 * Unlike {@link #populateGrid(Map, List)}, this never adds, removes or reorders tickers; it only
+	 * updates the price model and the labels of the tiles on screen. Tickers scrolled out of view show
+	 * the new price when their row is scrolled back in. Tickers that aren't on the board yet are ignored
+	 * and will be picked up by the next full refresh.
+	 * </p>
+	 *
+	 * @param prices Map of ticker symbols to their latest price and change percentage.
+	 *
+	 * @see TickerStreamer
+	 * @see #refreshPrices(List)
+	 */
+	public void applyPrices(Map<String, TickerPrice> prices) {
+		this.boardUpdates.postPrices(prices);
+	}
+
+	/**
+	 * Applies merged price updates from {@link #boardUpdates} on the FX thread.
+	 *
+	 * @param prices Map of ticker symbols to their newest price and change percentage.
+	 */
+	private void updatePrices(Map<String, TickerPrice> prices) {
+		prices.forEach((symbol, price) -> {
+			if (this.boardSymbols.contains(symbol)) {
+				this.latestPrices.put(symbol, price);
+			}
+			TickerUIComponents components = this.tickerUICache.get(symbol);
+			if (components != null) {
+				this.updateTickerLabels(components, price.price(), price.changePercentage());
+			}
+		});
+	}
+
 	/**
 	 * Fetches the latest market data for the given tickers and updates the UI grid.
 	 *
@@ -822,10 +1088,10 @@ public class MainViewController implements Initializable {
 	 * </ul>
 	 *
 	 * <p>
-	 * <b>Data Fetching:</b> Retrieves the latest stock bars and price change
+	 * <b>Data Fetching:</b> Retrieves the latest prices and price change
 	 * percentages from
-	 * {@link AlpacaMarketDataService}, to calculate changes compared to the
-	 * previous trading day.
+	 * {@link AlpacaMarketDataService}, using whichever refresh engine
+	 * ({@code vinayaka.refresh.engine}) is configured.
 	 * </p>
 	 *
 	 * @param tickers The list of tickers to fetch data for and display in the grid.
@@ -833,40 +1099,70 @@ public class MainViewController implements Initializable {
 	 *                order.
 	 *
 	 * @see TickerRefresher#startRefresh()
-	 * @see AlpacaMarketDataService#getPriceChangePercentages(List)
-	 * @see #populateGrid(Map, Map, List)
+	 * @see AlpacaMarketDataService#getLatestTickerPrices(List)
+	 * @see #populateGrid(Map, List)
 	 */
 	public void fetchInfoAndPopulate(List<UserTickers> tickers) {
+		this.fetchInfoAndPopulate(tickers, tickers.stream().map(UserTickers::getSymbol).toList());
+	}
+
+	/**
+	 * Fetches the latest market data for some of the tickers and updates the UI grid with all of them.
+	 * Tickers that aren't fetched keep the price they were last shown with. Used by the refresh cycles
+	 * when {@code vinayaka.refresh.visibility-driven} is enabled, to only fetch what's in (or near) the
+	 * viewport.
+	 *
+	 * @param tickers The list of tickers to display in the grid, favorites first.
+	 * @param symbols The symbols whose prices should be fetched.
+	 *
+	 * @see #fetchInfoAndPopulate(List)
+	 */
+	public void fetchInfoAndPopulate(List<UserTickers> tickers, List<String> symbols) {
 		if (!tickers.isEmpty()) {
 			// Fetch the latest price data from Alpaca Markets API.
-			// This returns a list containing:
-			// - Element 0: Map<String, List<StockBar>> - latest stock bars for each ticker
-			// - Element 1: Map<String, Double> - price change percentages for each ticker
-			List<Map<String, ?>> priceChangeAndTrades = this.alpacaMarketDataService.
-					getPriceChangePercentages((tickers.stream().map(UserTickers::getSymbol).toList()));
-
-			// Check if market data was successfully fetched before accessing elements.
-			// The API might return empty results if the market is closed or there's an
-			// error.
-			if (priceChangeAndTrades.isEmpty() || priceChangeAndTrades.size() < 2) {
+			Map<String, TickerPrice> prices = symbols.isEmpty() ? Map.of()
+					: this.alpacaMarketDataService.getLatestTickerPrices(symbols);
+
+			// Check if market data was successfully fetched.
+			// The API might return empty results if there's an error.
+			if (prices.isEmpty() && !symbols.isEmpty()) {
 				return;
 			}
 
-			// Extract the two maps from the API response.
-			// We use @SuppressWarnings because we know the exact types returned by the
-			// service, but the compiler can't verify generic types at runtime.
-			@SuppressWarnings("unchecked")
-			Map<String, List<StockBar>> latestStockBars = (Map<String, List<StockBar>>) priceChangeAndTrades.getFirst();
-			@SuppressWarnings("unchecked")
-			Map<String, Double> priceChange = (Map<String, Double>) priceChangeAndTrades.getLast();
-
-			// Schedule the UI update on the JavaFX Application Thread.
+			// Post the UI update for the JavaFX Application Thread.
 			// This is critical because:
 			// 1. This method is often called from TickerRefresher's background executor
 			// thread
 			// 2. JavaFX requires all UI modifications to happen on the Application Thread
-			// 3. Platform.runLater() queues the update to run on the correct thread
-			Platform.runLater(() -> this.populateGrid(latestStockBars, priceChange, tickers));
+			// 3. The mailbox applies only the newest board at the next pulse, so updates
+			// posted back to back (a refresh right after a user action) cost one populateGrid
+			this.boardUpdates.postBoard(tickers, prices);
 		}
 	}
+
+	/**
+	 * Fetches the latest prices of the given tickers and shows them, without touching the layout of
+	 * the board. Used to refresh rows as soon as they're scrolled into view.
+	 *
+	 * @param symbols The symbols to fetch. They should already be on the board.
+	 *
+	 * @see #applyPrices(Map)
+	 */
+	public void refreshPrices(List<String> symbols) {
+		if (symbols.isEmpty()) {
+			return;
+		}
+		Map<String, TickerPrice> prices = this.alpacaMarketDataService.getLatestTickerPrices(symbols);
+		if (!prices.isEmpty()) {
+			this.applyPrices(prices);
+		}
+	}
+
+	/**
+	 * @return The symbols in the rows of the board that are visible, plus {@code vinayaka.refresh.prefetch-rows}
+	 *         rows above and below them. Empty until the board has been laid out.
+	 */
+	public Set<String> getViewportSymbols() {
+		return this.viewportSymbols;
+	}
 }
@@ -3,6 +3,7 @@ package com.iyer.vinayaka.controller;
 import com.iyer.vinayaka.entities.UserSettings;
 import com.iyer.vinayaka.service.UserSettingsService;
 import com.iyer.vinayaka.util.DataHolder;
+import com.iyer.vinayaka.util.TickerRefresher;
 import com.iyer.vinayaka.util.UIUtils;
 import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
@@ -34,12 +35,15 @@ public class UpdateSettingsController implements Initializable {
 	private final UserSettingsService userSettingsService;
 	private final UIUtils uiUtils;
 	private final DataHolder dataHolder;
+	private final TickerRefresher tickerRefresher;
 	private UserSettings settings;
 	
-	public UpdateSettingsController(UserSettingsService service,  UIUtils utils,  DataHolder holder) {
+	public UpdateSettingsController(UserSettingsService service,  UIUtils utils,  DataHolder holder,
+									TickerRefresher refresher) {
 		this.userSettingsService = service;
 		this.uiUtils = utils;
 		this.dataHolder = holder;
+		this.tickerRefresher = refresher;
 	}
 	
 	@Override
@@ -84,6 +88,9 @@ public class UpdateSettingsController implements Initializable {
 			);
 		}
 		
+		// Apply the (possibly new) refresh interval to the running refresher right away.
+		this.tickerRefresher.reschedule(this.dataHolder.getUserSettings().getRefresh_interval());
+		
 		this.setBackground(darkModePreference);
 		this.uiUtils.navigateToSpecifiedPage(UIUtils.MAIN_VIEW, this.getClass());
 	}
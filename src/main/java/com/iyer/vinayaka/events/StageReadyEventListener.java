@@ -2,6 +2,7 @@ package com.iyer.vinayaka.events;
 
 import com.iyer.vinayaka.util.DataHolder;
 import com.iyer.vinayaka.util.ExitHandler;
+import com.iyer.vinayaka.util.FxStallWatchdog;
 import com.iyer.vinayaka.util.UIUtils;
 
 import javafx.application.Platform;
@@ -20,10 +21,12 @@ import java.io.IOException;
 public class StageReadyEventListener implements ApplicationListener<StageReadyEvent> {
 	private final ApplicationContext context;
 	private final DataHolder dataHolder;
+	private final FxStallWatchdog stallWatchdog;
 
-	public StageReadyEventListener(ApplicationContext context, DataHolder holder) {
+	public StageReadyEventListener(ApplicationContext context, DataHolder holder, FxStallWatchdog watchdog) {
 		this.context = context;
 		this.dataHolder = holder;
+		this.stallWatchdog = watchdog;
 	}
 
 	@Override
@@ -42,6 +45,7 @@ public class StageReadyEventListener implements ApplicationListener<StageReadyEv
 			throw new RuntimeException(e);
 		}
 		stage.show();
+		this.stallWatchdog.start(stage.getScene());
 	}
 
 	public static void exitHandler(@NonNull Stage stage, @NonNull ConfigurableApplicationContext context) {
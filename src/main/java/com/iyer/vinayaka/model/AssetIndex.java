@@ -0,0 +1,139 @@
+package com.iyer.vinayaka.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable, in-memory index of the tradable asset universe, keyed by symbol.
+ *
+ * <p>
+ * Symbol lookups are a single hash lookup, so checking whether a searched ticker exists and finding its
+ * name and exchange takes microseconds and no network call. The symbols are also kept in a sorted array,
+ * which gives ordered iteration and prefix ranges by binary search.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> Instances never change after they're built, so they can be shared freely.
+ * Updating the universe means building a new index and swapping the reference.
+ * </p>
+ */
+public final class AssetIndex {
+	private static final AssetIndex EMPTY = new AssetIndex(Map.of(), new String[0]);
+
+	private final Map<String, AssetInfo> bySymbol;
+	private final String[] symbols;
+
+	private AssetIndex(Map<String, AssetInfo> bySymbol, String[] symbols) {
+		this.bySymbol = bySymbol;
+		this.symbols = symbols;
+	}
+
+	/**
+	 * @return An index with no assets.
+	 */
+	public static AssetIndex empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Builds an index from the given assets. Symbols are upper-cased; if a symbol appears more than
+	 * once, the last one wins.
+	 *
+	 * @param assets The assets to index.
+	 * @return The index.
+	 */
+	public static AssetIndex of(Collection<AssetInfo> assets) {
+		Map<String, AssetInfo> bySymbol = HashMap.newHashMap(assets.size());
+		for (AssetInfo asset : assets) {
+			if (asset.symbol() != null && !asset.symbol().isBlank()) {
+				String symbol = asset.symbol().toUpperCase();
+				bySymbol.put(symbol, new AssetInfo(symbol, asset.name(), asset.exchange()));
+			}
+		}
+
+		String[] symbols = bySymbol.keySet().toArray(new String[0]);
+		Arrays.sort(symbols);
+		return new AssetIndex(bySymbol, symbols);
+	}
+
+	/**
+	 * @param symbol The ticker symbol, in any case.
+	 * @return The asset with that symbol, or null if there's none.
+	 */
+	public AssetInfo get(String symbol) {
+		return symbol == null ? null : this.bySymbol.get(symbol.toUpperCase());
+	}
+
+	/**
+	 * @param symbol The ticker symbol, in any case.
+	 * @return Whether an asset with that symbol exists.
+	 */
+	public boolean contains(String symbol) {
+		return this.get(symbol) != null;
+	}
+
+	/**
+	 * @return The number of assets.
+	 */
+	public int size() {
+		return this.symbols.length;
+	}
+
+	public boolean isEmpty() {
+		return this.symbols.length == 0;
+	}
+
+	/**
+	 * @param position A position in symbol order, from 0 to {@link #size()} - 1.
+	 * @return The symbol at that position.
+	 */
+	public String symbol(int position) {
+		return this.symbols[position];
+	}
+
+	/**
+	 * @param position A position in symbol order, from 0 to {@link #size()} - 1.
+	 * @return The asset at that position.
+	 */
+	public AssetInfo get(int position) {
+		return this.bySymbol.get(this.symbols[position]);
+	}
+
+	/**
+	 * Finds the first position in symbol order whose symbol is greater than or equal to the given
+	 * string. The symbols starting with a prefix are the ones from {@code lowerBound(prefix)} up to the
+	 * first one that doesn't start with it.
+	 *
+	 * @param symbol The (upper-case) string to search for.
+	 * @return The position, from 0 to {@link #size()}.
+	 */
+	public int lowerBound(String symbol) {
+		int position = Arrays.binarySearch(this.symbols, symbol);
+		return position >= 0 ? position : -position - 1;
+	}
+
+	/**
+	 * Counts how many assets were added, removed or changed (renamed or moved to another exchange)
+	 * between two versions of the universe.
+	 *
+	 * @param previous The previous index.
+	 * @return {added, removed, changed}.
+	 */
+	public int[] diff(AssetIndex previous) {
+		int added = 0;
+		int changed = 0;
+		for (String symbol : this.symbols) {
+			AssetInfo before = previous.bySymbol.get(symbol);
+			if (before == null) {
+				added++;
+			} else if (!Objects.equals(before, this.bySymbol.get(symbol))) {
+				changed++;
+			}
+		}
+		int removed = previous.size() - (this.size() - added);
+		return new int[]{added, removed, changed};
+	}
+}
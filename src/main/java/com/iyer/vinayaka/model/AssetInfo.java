@@ -0,0 +1,11 @@
+package com.iyer.vinayaka.model;
+
+/**
+ * The part of an Alpaca asset the application needs to add a ticker to the watchlist.
+ *
+ * @param symbol   The ticker symbol (e.g., "AAPL").
+ * @param name     The official name of the asset (e.g., "Apple Inc. Common Stock").
+ * @param exchange The exchange the asset is listed on (e.g., "NASDAQ").
+ */
+public record AssetInfo(String symbol, String name, String exchange) {
+}
@@ -0,0 +1,342 @@
+package com.iyer.vinayaka.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A type-ahead index over the symbols and official names of an {@link AssetIndex}.
+ *
+ * <p>
+ * Three structures answer a query together:
+ * </p>
+ * <ul>
+ * <li>The sorted symbols of the {@link AssetIndex}, for symbol prefixes ("NV" finds NVDA)</li>
+ * <li>A sorted array of every word of every name, for word prefixes ("alpha" finds Alphabet)</li>
+ * <li>A trigram index of the name words, for matches inside a word ("soft" finds Microsoft)</li>
+ * </ul>
+ * <p>
+ * Each of these is a binary search or a few posting list intersections over primitive arrays, so a
+ * query over the whole universe takes well under a millisecond.
+ * </p>
+ *
+ * <p>
+ * <b>Ranking:</b> An exact symbol match comes first, then symbol prefixes, then names starting with the
+ * query, then names with a word starting with it, then names containing it. Within each tier, shorter
+ * symbols come first (AAPL before AAPLX), then alphabetical order.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> Immutable once built; queries can run on any thread.
+ * </p>
+ *
+ * @see com.iyer.vinayaka.service.AssetUniverse#search(String, int)
+ */
+public final class AssetSearchIndex {
+	private static final AssetSearchIndex EMPTY = of(AssetIndex.empty());
+
+	private final AssetIndex assets;
+	private final int[] symbolLengths;
+	// The normalized name of every asset, by position in the AssetIndex.
+	private final String[] names;
+	// Every word of every name, sorted, with the position of its asset and whether it's the name's first word.
+	private final String[] words;
+	private final int[] wordPositions;
+	private final boolean[] firstWords;
+	// Trigram (three chars packed into a long) -> sorted positions of the assets whose name has it.
+	private final Map<Long, int[]> trigrams;
+
+	private AssetSearchIndex(AssetIndex assets, int[] symbolLengths, String[] names, String[] words,
+							 int[] wordPositions, boolean[] firstWords, Map<Long, int[]> trigrams) {
+		this.assets = assets;
+		this.symbolLengths = symbolLengths;
+		this.names = names;
+		this.words = words;
+		this.wordPositions = wordPositions;
+		this.firstWords = firstWords;
+		this.trigrams = trigrams;
+	}
+
+	public static AssetSearchIndex empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Builds the type-ahead index of the given assets.
+	 *
+	 * @param assets The asset universe.
+	 * @return The index.
+	 */
+	public static AssetSearchIndex of(AssetIndex assets) {
+		int size = assets.size();
+		int[] symbolLengths = new int[size];
+		String[] names = new String[size];
+		List<WordEntry> wordEntries = new ArrayList<>(size * 4);
+		Map<Long, PostingList> postings = new HashMap<>();
+
+		for (int position = 0; position < size; position++) {
+			symbolLengths[position] = assets.symbol(position).length();
+			String name = normalize(assets.get(position).name());
+			names[position] = name;
+
+			String[] nameWords = name.isEmpty() ? new String[0] : name.split(" ");
+			for (int w = 0; w < nameWords.length; w++) {
+				String word = nameWords[w];
+				wordEntries.add(new WordEntry(word, position, w == 0));
+				for (int i = 0; i + 3 <= word.length(); i++) {
+					postings.computeIfAbsent(trigram(word, i), key -> new PostingList()).add(position);
+				}
+			}
+		}
+
+		wordEntries.sort(Comparator.comparing(WordEntry::word));
+		String[] words = new String[wordEntries.size()];
+		int[] wordPositions = new int[wordEntries.size()];
+		boolean[] firstWords = new boolean[wordEntries.size()];
+		for (int i = 0; i < words.length; i++) {
+			WordEntry entry = wordEntries.get(i);
+			words[i] = entry.word();
+			wordPositions[i] = entry.position();
+			firstWords[i] = entry.first();
+		}
+
+		Map<Long, int[]> trigrams = HashMap.newHashMap(postings.size());
+		postings.forEach((key, list) -> trigrams.put(key, list.toArray()));
+
+		return new AssetSearchIndex(assets, symbolLengths, names, words, wordPositions, firstWords, trigrams);
+	}
+
+	/**
+	 * @return The asset universe this index searches.
+	 */
+	public AssetIndex getAssets() {
+		return this.assets;
+	}
+
+	/**
+	 * Finds the best matches for a (partially typed) symbol or company name.
+	 *
+	 * @param query The text typed so far, in any case.
+	 * @param limit The maximum number of suggestions.
+	 * @return Up to {@code limit} assets, best match first. Empty if the query is blank.
+	 */
+	public List<AssetInfo> search(String query, int limit) {
+		String normalized = normalize(query);
+		List<AssetInfo> results = new ArrayList<>(limit);
+		if (normalized.isEmpty() || limit <= 0) {
+			return results;
+		}
+
+		Set<Integer> selected = new HashSet<>();
+		String symbolQuery = query.strip().toUpperCase();
+
+		// Tiers 0 and 1: exact symbol, then symbol prefixes.
+		Tier exact = new Tier(limit);
+		Tier symbolPrefix = new Tier(limit);
+		for (int position = this.assets.lowerBound(symbolQuery); position < this.assets.size(); position++) {
+			String symbol = this.assets.symbol(position);
+			if (!symbol.startsWith(symbolQuery)) {
+				break;
+			}
+			(symbol.length() == symbolQuery.length() ? exact : symbolPrefix).offer(position);
+		}
+		exact.drainInto(results, selected, limit);
+		symbolPrefix.drainInto(results, selected, limit);
+
+		// Tiers 2 and 3: names starting with the query, then a later word starting with it.
+		String firstQueryWord = normalized.split(" ")[0];
+		Tier namePrefix = new Tier(limit);
+		Tier wordPrefix = new Tier(limit);
+		for (int i = lowerBound(this.words, firstQueryWord); i < this.words.length; i++) {
+			if (!this.words[i].startsWith(firstQueryWord)) {
+				break;
+			}
+			int position = this.wordPositions[i];
+			if (selected.contains(position) || !this.names[position].contains(normalized)) {
+				continue;
+			}
+			(this.firstWords[i] && this.names[position].startsWith(normalized) ? namePrefix : wordPrefix).offer(position);
+		}
+		namePrefix.drainInto(results, selected, limit);
+		wordPrefix.drainInto(results, selected, limit);
+
+		// Tier 4: the query appears inside a word of the name.
+		String longestWord = longestWord(normalized);
+		if (results.size() < limit && longestWord.length() >= 3) {
+			Tier contains = new Tier(limit);
+			for (int position : this.candidates(longestWord)) {
+				if (!selected.contains(position) && this.names[position].contains(normalized)) {
+					contains.offer(position);
+				}
+			}
+			contains.drainInto(results, selected, limit);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Intersects the posting lists of every trigram of a word, starting from the shortest list.
+	 */
+	private int[] candidates(String word) {
+		List<int[]> lists = new ArrayList<>();
+		for (int i = 0; i + 3 <= word.length(); i++) {
+			int[] list = this.trigrams.get(trigram(word, i));
+			if (list == null) {
+				return new int[0];
+			}
+			lists.add(list);
+		}
+		lists.sort(Comparator.comparingInt(list -> list.length));
+
+		int[] result = lists.getFirst();
+		for (int l = 1; l < lists.size() && result.length > 0; l++) {
+			result = intersect(result, lists.get(l));
+		}
+		return result;
+	}
+
+	private static int[] intersect(int[] a, int[] b) {
+		int[] result = new int[Math.min(a.length, b.length)];
+		int i = 0, j = 0, k = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				i++;
+			} else if (a[i] > b[j]) {
+				j++;
+			} else {
+				result[k++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, k);
+	}
+
+	/**
+	 * Lower-cases the text and turns everything but letters and digits into single spaces, so
+	 * "Alphabet Inc. Class A" becomes "alphabet inc class a".
+	 */
+	static String normalize(String text) {
+		if (text == null) {
+			return "";
+		}
+		StringBuilder builder = new StringBuilder(text.length());
+		boolean space = true; // Drops leading separators
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				builder.append(Character.toLowerCase(c));
+				space = false;
+			} else if (!space) {
+				builder.append(' ');
+				space = true;
+			}
+		}
+		int length = builder.length();
+		return length > 0 && builder.charAt(length - 1) == ' ' ? builder.substring(0, length - 1) : builder.toString();
+	}
+
+	private static String longestWord(String normalized) {
+		String longest = "";
+		for (String word : normalized.split(" ")) {
+			if (word.length() > longest.length()) {
+				longest = word;
+			}
+		}
+		return longest;
+	}
+
+	private static long trigram(String word, int offset) {
+		return ((long) word.charAt(offset) << 32) | ((long) word.charAt(offset + 1) << 16) | word.charAt(offset + 2);
+	}
+
+	private static int lowerBound(String[] sorted, String key) {
+		int position = Arrays.binarySearch(sorted, key);
+		if (position < 0) {
+			return -position - 1;
+		}
+		// Words repeat (many names contain "inc"), so step back to the first one.
+		while (position > 0 && sorted[position - 1].equals(key)) {
+			position--;
+		}
+		return position;
+	}
+
+	private record WordEntry(String word, int position, boolean first) {
+	}
+
+	/**
+	 * A growable, sorted list of positions used while building. Positions are added in increasing
+	 * order, and a name with the same trigram twice only adds its position once.
+	 */
+	private static final class PostingList {
+		private int[] positions = new int[4];
+		private int size = 0;
+
+		void add(int position) {
+			if (this.size > 0 && this.positions[this.size - 1] == position) {
+				return;
+			}
+			if (this.size == this.positions.length) {
+				this.positions = Arrays.copyOf(this.positions, this.size * 2);
+			}
+			this.positions[this.size++] = position;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(this.positions, this.size);
+		}
+	}
+
+	/**
+	 * Keeps the best {@code limit} positions of one ranking tier, in order: shorter symbols first, then
+	 * alphabetical (which is position order). The limit is small, so an insertion into a sorted array
+	 * beats a heap and doesn't box.
+	 */
+	private final class Tier {
+		private final int[] kept;
+		private int size = 0;
+
+		Tier(int limit) {
+			this.kept = new int[limit];
+		}
+
+		private boolean before(int a, int b) {
+			int lengthA = AssetSearchIndex.this.symbolLengths[a];
+			int lengthB = AssetSearchIndex.this.symbolLengths[b];
+			return lengthA != lengthB ? lengthA < lengthB : a < b;
+		}
+
+		void offer(int position) {
+			if (this.size == this.kept.length && !this.before(position, this.kept[this.size - 1])) {
+				return;
+			}
+			for (int i = 0; i < this.size; i++) {
+				if (this.kept[i] == position) {
+					return;
+				}
+			}
+
+			int i = this.size < this.kept.length ? this.size++ : this.size - 1;
+			while (i > 0 && this.before(position, this.kept[i - 1])) {
+				this.kept[i] = this.kept[i - 1];
+				i--;
+			}
+			this.kept[i] = position;
+		}
+
+		void drainInto(List<AssetInfo> results, Set<Integer> selected, int limit) {
+			for (int i = 0; i < this.size && results.size() < limit; i++) {
+				if (selected.add(this.kept[i])) {
+					results.add(AssetSearchIndex.this.assets.get(this.kept[i]));
+				}
+			}
+		}
+	}
+}
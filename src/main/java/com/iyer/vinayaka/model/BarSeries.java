@@ -0,0 +1,247 @@
+package com.iyer.vinayaka.model;
+
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBar;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable series of bars stored as primitive columns.
+ *
+ * <p>
+ * A {@code List<StockBar>} costs one object per bar plus a boxed {@code Double} per price and an
+ * {@code OffsetDateTime} per timestamp. A 5Y hourly series runs into tens of thousands of bars. This
+ * class keeps the same data in eight arrays: epoch-second timestamps, OHLC and VWAP as {@code double},
+ * and volume and trade count as {@code long}.
+ * </p>
+ *
+ * <p>
+ * <b>Access:</b> Bars are read by index ({@link #close(int)}, {@link #timestamp(int)}, ...), or with
+ * {@link #forEach(BarVisitor)}. Neither allocates per bar. {@link #slice(int, int)} and
+ * {@link #sliceByTime(long, long)} return views that share the arrays of this series.
+ * </p>
+ *
+ * <p>
+ * Missing prices are stored as {@link Double#NaN} and missing volumes and trade counts as 0.
+ * {@link #toStockBars()} turns missing prices back into null.
+ * </p>
+ */
+public final class BarSeries {
+	private static final BarSeries EMPTY = new BarSeries(new long[0], new double[0], new double[0], new double[0],
+			new double[0], new long[0], new double[0], new long[0], 0, 0);
+
+	private final long[] timestamps;
+	private final double[] open;
+	private final double[] high;
+	private final double[] low;
+	private final double[] close;
+	private final long[] volume;
+	private final double[] vwap;
+	private final long[] tradeCount;
+	private final int offset;
+	private final int size;
+
+	/**
+	 * Receives the bars of a series one at a time, without a bar object being created.
+	 */
+	@FunctionalInterface
+	public interface BarVisitor {
+		void visit(long epochSecond, double open, double high, double low, double close, long volume);
+	}
+
+	/**
+	 * Creates a series over the given columns. The arrays are used as they are (not copied), must all
+	 * have the same length and the timestamps must be in ascending order.
+	 */
+	public BarSeries(long[] timestamps, double[] open, double[] high, double[] low, double[] close, long[] volume,
+					 double[] vwap, long[] tradeCount) {
+		this(timestamps, open, high, low, close, volume, vwap, tradeCount, 0, timestamps.length);
+	}
+
+	private BarSeries(long[] timestamps, double[] open, double[] high, double[] low, double[] close, long[] volume,
+					  double[] vwap, long[] tradeCount, int offset, int size) {
+		this.timestamps = timestamps;
+		this.open = open;
+		this.high = high;
+		this.low = low;
+		this.close = close;
+		this.volume = volume;
+		this.vwap = vwap;
+		this.tradeCount = tradeCount;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	public static BarSeries empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Converts API bars into a series.
+	 *
+	 * @param bars The bars in ascending order. May be null.
+	 * @return The series.
+	 */
+	public static BarSeries fromStockBars(List<StockBar> bars) {
+		if (bars == null || bars.isEmpty()) {
+			return EMPTY;
+		}
+
+		int count = bars.size();
+		long[] timestamps = new long[count];
+		double[] open = new double[count];
+		double[] high = new double[count];
+		double[] low = new double[count];
+		double[] close = new double[count];
+		long[] volume = new long[count];
+		double[] vwap = new double[count];
+		long[] tradeCount = new long[count];
+		for (int i = 0; i < count; i++) {
+			StockBar bar = bars.get(i);
+			timestamps[i] = bar.getT().toEpochSecond();
+			open[i] = valueOf(bar.getO());
+			high[i] = valueOf(bar.getH());
+			low[i] = valueOf(bar.getL());
+			close[i] = valueOf(bar.getC());
+			volume[i] = bar.getV() != null ? bar.getV() : 0L;
+			vwap[i] = valueOf(bar.getVw());
+			tradeCount[i] = bar.getN() != null ? bar.getN() : 0L;
+		}
+
+		return new BarSeries(timestamps, open, high, low, close, volume, vwap, tradeCount);
+	}
+
+	/**
+	 * Converts the series back into API bars, for code that still works with {@code List<StockBar>}.
+	 *
+	 * @return A new list with one StockBar per bar, timestamps in UTC and missing prices null.
+	 */
+	public List<StockBar> toStockBars() {
+		List<StockBar> bars = new ArrayList<>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			bars.add(new StockBar()
+					.t(OffsetDateTime.ofInstant(Instant.ofEpochSecond(this.timestamp(i)), ZoneOffset.UTC))
+					.o(boxed(this.open(i)))
+					.h(boxed(this.high(i)))
+					.l(boxed(this.low(i)))
+					.c(boxed(this.close(i)))
+					.v(this.volume(i))
+					.vw(boxed(this.vwap(i)))
+					.n(this.tradeCount(i)));
+		}
+		return bars;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public long timestamp(int index) {
+		return this.timestamps[this.checkIndex(index)];
+	}
+
+	public double open(int index) {
+		return this.open[this.checkIndex(index)];
+	}
+
+	public double high(int index) {
+		return this.high[this.checkIndex(index)];
+	}
+
+	public double low(int index) {
+		return this.low[this.checkIndex(index)];
+	}
+
+	public double close(int index) {
+		return this.close[this.checkIndex(index)];
+	}
+
+	public long volume(int index) {
+		return this.volume[this.checkIndex(index)];
+	}
+
+	public double vwap(int index) {
+		return this.vwap[this.checkIndex(index)];
+	}
+
+	public long tradeCount(int index) {
+		return this.tradeCount[this.checkIndex(index)];
+	}
+
+	/**
+	 * @return The close of the last bar, or NaN if the series is empty.
+	 */
+	public double lastClose() {
+		return this.size > 0 ? this.close(this.size - 1) : Double.NaN;
+	}
+
+	/**
+	 * @return The epoch second of the last bar, or -1 if the series is empty.
+	 */
+	public long lastTimestamp() {
+		return this.size > 0 ? this.timestamp(this.size - 1) : -1;
+	}
+
+	/**
+	 * Returns a view of the bars in [from, to). The view shares this series' arrays.
+	 */
+	public BarSeries slice(int from, int to) {
+		if (from < 0 || to > this.size || from > to) {
+			throw new IndexOutOfBoundsException("Slice [" + from + ", " + to + ") of " + this.size + " bars");
+		}
+		return new BarSeries(this.timestamps, this.open, this.high, this.low, this.close, this.volume, this.vwap,
+				this.tradeCount, this.offset + from, to - from);
+	}
+
+	/**
+	 * Returns a view of the bars whose timestamps fall in [startEpochSecond, endEpochSecond].
+	 */
+	public BarSeries sliceByTime(long startEpochSecond, long endEpochSecond) {
+		return this.slice(this.lowerBound(startEpochSecond), this.lowerBound(endEpochSecond + 1));
+	}
+
+	/**
+	 * @return The index of the first bar at or after the given epoch second, or {@link #size()} if none.
+	 */
+	public int lowerBound(long epochSecond) {
+		int index = Arrays.binarySearch(this.timestamps, this.offset, this.offset + this.size, epochSecond);
+		if (index < 0) {
+			return -index - 1 - this.offset;
+		}
+		// Walk back over equal timestamps so the first one is returned.
+		while (index > this.offset && this.timestamps[index - 1] == epochSecond) {
+			index--;
+		}
+		return index - this.offset;
+	}
+
+	/**
+	 * Visits every bar in order.
+	 */
+	public void forEach(BarVisitor visitor) {
+		for (int i = this.offset, end = this.offset + this.size; i < end; i++) {
+			visitor.visit(this.timestamps[i], this.open[i], this.high[i], this.low[i], this.close[i], this.volume[i]);
+		}
+	}
+
+	private int checkIndex(int index) {
+		return this.offset + Objects.checkIndex(index, this.size);
+	}
+
+	private static double valueOf(Double value) {
+		return value != null ? value : Double.NaN;
+	}
+
+	private static Double boxed(double value) {
+		return Double.isNaN(value) ? null : value;
+	}
+}
@@ -0,0 +1,12 @@
+package com.iyer.vinayaka.model;
+
+/**
+ * The price of a ticker as shown on the board, along with its change from the previous trading day's close.
+ *
+ * @param symbol           The ticker symbol (e.g., "AAPL").
+ * @param price            The latest price. During market hours this is the latest (possibly delayed) trade
+ *                         or bar close; otherwise it is the most recent close.
+ * @param changePercentage The change from the previous trading day's close in percent, rounded to 2 decimals.
+ */
+public record TickerPrice(String symbol, double price, double changePercentage) {
+}
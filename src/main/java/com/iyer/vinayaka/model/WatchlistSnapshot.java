@@ -0,0 +1,154 @@
+package com.iyer.vinayaka.model;
+
+import com.iyer.vinayaka.entities.UserTickers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable view of the user's watchlist: the tickers in display order (favorites first, then
+ * non-favorites, both sorted by symbol), indexed by symbol.
+ *
+ * <p>
+ * Changes return a new snapshot. The order is kept incrementally: a ticker is inserted at its binary
+ * search position instead of re-sorting the whole list, and the tickers themselves are never mutated,
+ * so a snapshot can be handed to any thread.
+ * </p>
+ *
+ * @see com.iyer.vinayaka.service.WatchlistService
+ */
+public final class WatchlistSnapshot {
+	/**
+	 * The display order: favorites first, then by symbol.
+	 */
+	public static final Comparator<UserTickers> ORDER = Comparator
+			.comparing((UserTickers ticker) -> !ticker.isFavorite()).thenComparing(UserTickers::getSymbol);
+
+	private static final WatchlistSnapshot EMPTY = new WatchlistSnapshot(List.of(), Map.of(), 0);
+
+	private final List<UserTickers> tickers;
+	private final Map<String, UserTickers> bySymbol;
+	private final long version;
+
+	private WatchlistSnapshot(List<UserTickers> tickers, Map<String, UserTickers> bySymbol, long version) {
+		this.tickers = tickers;
+		this.bySymbol = bySymbol;
+		this.version = version;
+	}
+
+	public static WatchlistSnapshot empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Builds a snapshot of the given tickers, in any order. The tickers are copied, so later changes
+	 * to the given objects don't show through.
+	 *
+	 * @param tickers The tickers.
+	 * @return The snapshot.
+	 */
+	public static WatchlistSnapshot of(Collection<UserTickers> tickers) {
+		List<UserTickers> sorted = new ArrayList<>(tickers.size());
+		Map<String, UserTickers> bySymbol = HashMap.newHashMap(tickers.size());
+		for (UserTickers ticker : tickers) {
+			UserTickers copy = copy(ticker, ticker.isFavorite());
+			if (bySymbol.put(copy.getSymbol(), copy) == null) {
+				sorted.add(copy);
+			}
+		}
+		sorted.sort(ORDER);
+		return new WatchlistSnapshot(Collections.unmodifiableList(sorted), bySymbol, 1);
+	}
+
+	/**
+	 * @return The tickers in display order. The list can't be modified, and its tickers must not be.
+	 */
+	public List<UserTickers> tickers() {
+		return this.tickers;
+	}
+
+	/**
+	 * @return The ticker with the given symbol, or null if it isn't on the watchlist.
+	 */
+	public UserTickers get(String symbol) {
+		return this.bySymbol.get(symbol);
+	}
+
+	public boolean contains(String symbol) {
+		return this.bySymbol.containsKey(symbol);
+	}
+
+	public int size() {
+		return this.tickers.size();
+	}
+
+	/**
+	 * @return A number that grows with every change, to tell snapshots apart cheaply.
+	 */
+	public long version() {
+		return this.version;
+	}
+
+	/**
+	 * @param ticker The ticker to add.
+	 * @return A snapshot with the ticker added, or this one if a ticker with that symbol is already on it.
+	 */
+	public WatchlistSnapshot with(UserTickers ticker) {
+		if (this.contains(ticker.getSymbol())) {
+			return this;
+		}
+		return this.insert(new ArrayList<>(this.tickers), copy(ticker, ticker.isFavorite()));
+	}
+
+	/**
+	 * @param symbol The symbol of the ticker to remove.
+	 * @return A snapshot without the ticker, or this one if it isn't on it.
+	 */
+	public WatchlistSnapshot without(String symbol) {
+		UserTickers ticker = this.bySymbol.get(symbol);
+		if (ticker == null) {
+			return this;
+		}
+		List<UserTickers> tickers = new ArrayList<>(this.tickers);
+		tickers.remove(this.indexOf(ticker));
+		Map<String, UserTickers> bySymbol = new HashMap<>(this.bySymbol);
+		bySymbol.remove(symbol);
+		return new WatchlistSnapshot(Collections.unmodifiableList(tickers), bySymbol, this.version + 1);
+	}
+
+	/**
+	 * @param symbol   The symbol of the ticker to change.
+	 * @param favorite Whether it's a favorite.
+	 * @return A snapshot with the ticker moved to its new place, or this one if nothing changes.
+	 */
+	public WatchlistSnapshot withFavorite(String symbol, boolean favorite) {
+		UserTickers ticker = this.bySymbol.get(symbol);
+		if (ticker == null || ticker.isFavorite() == favorite) {
+			return this;
+		}
+		List<UserTickers> tickers = new ArrayList<>(this.tickers);
+		tickers.remove(this.indexOf(ticker));
+		return this.insert(tickers, copy(ticker, favorite));
+	}
+
+	private WatchlistSnapshot insert(List<UserTickers> tickers, UserTickers ticker) {
+		int position = Collections.binarySearch(tickers, ticker, ORDER);
+		tickers.add(position < 0 ? -position - 1 : position, ticker);
+		Map<String, UserTickers> bySymbol = new HashMap<>(this.bySymbol);
+		bySymbol.put(ticker.getSymbol(), ticker);
+		return new WatchlistSnapshot(Collections.unmodifiableList(tickers), bySymbol, this.version + 1);
+	}
+
+	private int indexOf(UserTickers ticker) {
+		return Collections.binarySearch(this.tickers, ticker, ORDER);
+	}
+
+	private static UserTickers copy(UserTickers ticker, boolean favorite) {
+		return new UserTickers(ticker.getSymbol(), ticker.getName(), ticker.getExchange(), favorite);
+	}
+}
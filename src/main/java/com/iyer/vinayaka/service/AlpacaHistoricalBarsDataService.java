@@ -1,22 +1,28 @@
 package com.iyer.vinayaka.service;
 
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.model.BarSeries;
+import com.iyer.vinayaka.util.PipelineMetrics;
+import com.iyer.vinayaka.util.RefreshEvents;
 import net.jacobpeterson.alpaca.AlpacaAPI;
 import net.jacobpeterson.alpaca.openapi.marketdata.ApiException;
 import net.jacobpeterson.alpaca.openapi.marketdata.model.Sort;
 import net.jacobpeterson.alpaca.openapi.marketdata.model.StockAdjustment;
 import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBar;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBarsResp;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBarsRespSingle;
 import net.jacobpeterson.alpaca.openapi.marketdata.model.StockFeed;
-import net.jacobpeterson.alpaca.openapi.trader.model.Calendar;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for fetching historical stock bar data and calculating price changes
@@ -35,11 +41,14 @@ import java.util.stream.Collectors;
  * <b>Key Features:</b>
  * </p>
  * <ul>
- * <li>Market calendar caching to minimize API calls</li>
+ * <li>Market hours, half-days and holidays answered by {@link MarketSessionClock}</li>
+ * <li>Previous close caching for the whole trading day via {@link ReferencePriceCache}</li>
+ * <li>Chart ranges served from the local {@link HistoricalBarStore}, fetching only new bars</li>
  * <li>Intelligent trading day detection (handles pre-market, after-hours,
  * weekends, holidays)</li>
  * <li>NYC timezone-based time calculations for accurate market hours</li>
- * <li>Multiple timeframe support (1D, 1W, 1M, 3M, 1Y, 5Y)</li>
+ * <li>Multiple timeframe support (1D, 1W, 1M, 3M, 1Y, 5Y), as {@code List<StockBar>} or as a
+ * primitive {@link BarSeries}</li>
  * <li>15-minute delayed data compliance for real-time pricing</li>
  * </ul>
  *
@@ -54,7 +63,8 @@ import java.util.stream.Collectors;
  * <p>
  * <b>Thread Safety:</b> This service is a Spring singleton but methods are
  * designed to be
- * thread-safe. The cached market calendar is checked and updated atomically.
+ * thread-safe. The trading calendar lives in {@link MarketSessionClock}, which publishes it
+ * immutably.
  * </p>
  *
  * @see AlpacaMarketDataService
@@ -63,18 +73,37 @@ import java.util.stream.Collectors;
 @Service
 public class AlpacaHistoricalBarsDataService {
 	private final AlpacaAPI alpacaAPI;
+	private final ReferencePriceCache referencePriceCache;
+	private final AlpacaRequestBatcher requestBatcher;
+	private final AlpacaRateLimiter rateLimiter;
+	private final HistoricalBarStore barStore;
+	private final PriceChangeKernel priceChangeKernel = new PriceChangeKernel();
+	private final MarketSessionClock sessionClock;
+	private final boolean barStoreEnabled;
+	private final long cycleDeadlineMillis;
 
 	private final long historicalDataLimit = 10000;
 	private final String currency = "USD";
-	private final String tz = "America/New_York";
-	private final ZoneId zoneId = ZoneId.of(tz);
+	private final ZoneId zoneId;
 
-	// Market calendar cache - invalidates daily at midnight NYC time
-	private List<Calendar> cachedMarketCalendar;
-	private LocalDate marketCalendarCacheDate;
+	// Intraday bars are only available 15 minutes after the fact on the free data plan.
+	private static final long DATA_DELAY_SECONDS = 15 * 60;
+	// How long a refresh or chart load waits for the market calendar when it hasn't been loaded yet.
+	private static final Duration CALENDAR_WAIT = Duration.ofSeconds(10);
 
-	public AlpacaHistoricalBarsDataService(AlpacaAPI api) {
+	public AlpacaHistoricalBarsDataService(AlpacaAPI api, ReferencePriceCache referencePriceCache,
+										   AlpacaRequestBatcher requestBatcher, HistoricalBarStore barStore,
+										   MarketSessionClock sessionClock, AlpacaRateLimiter rateLimiter,
+										   VinayakaProperties properties) {
 		this.alpacaAPI = api;
+		this.referencePriceCache = referencePriceCache;
+		this.requestBatcher = requestBatcher;
+		this.rateLimiter = rateLimiter;
+		this.barStore = barStore;
+		this.sessionClock = sessionClock;
+		this.zoneId = sessionClock.getZone();
+		this.barStoreEnabled = properties.getBarStore().isEnabled();
+		this.cycleDeadlineMillis = properties.getRefresh().getCycleDeadlineSeconds() * 1000;
 	}
 
 	/**
@@ -92,47 +121,10 @@ public class AlpacaHistoricalBarsDataService {
 	 * @return A NYCTimeInfo record containing the current NYC time values.
 	 */
 	private NYCTimeInfo getNYCTimeInfo() {
-		ZonedDateTime now = ZonedDateTime.now(zoneId);
+		ZonedDateTime now = ZonedDateTime.now(this.sessionClock.getClock().withZone(zoneId));
 		return new NYCTimeInfo(now, now.toLocalDate(), now.toLocalTime(), now.getOffset());
 	}
 
-	/**
-	 * Gets the market calendar for the last 7 days, using a daily cache.
-	 * The cache invalidates at midnight NYC time (when the date changes).
-	 *
-	 * @return A list of Calendar objects representing trading days, or null if an error occurs.
-	 */
-	private List<Calendar> getMarketCalendar() {
-		NYCTimeInfo nycTime = getNYCTimeInfo();
-
-		// Return cached calendar if it's from today
-		if (cachedMarketCalendar != null && nycTime.today().equals(marketCalendarCacheDate)) {
-			return cachedMarketCalendar;
-		}
-
-		// Cache is stale or empty - fetch fresh data
-		LocalDate startDay = nycTime.today().minusDays(7);
-		OffsetDateTime rangeStart = OffsetDateTime.of(startDay, LocalTime.MIN, nycTime.offset());
-		OffsetDateTime rangeEnd = OffsetDateTime.of(nycTime.today(), LocalTime.MAX, nycTime.offset());
-
-		try {
-			List<Calendar> fetchedCalendar = this.alpacaAPI.trader().calendar().
-					getCalendar(rangeStart, rangeEnd, "TRADING");
-
-			// Filter out any future trading days (API sometimes includes the next trading day)
-			String todayStr = nycTime.today().toString();
-			cachedMarketCalendar = fetchedCalendar.stream()
-					.filter(cal -> cal.getDate().compareTo(todayStr) <= 0)
-					.toList();
-
-			marketCalendarCacheDate = nycTime.today();
-			return cachedMarketCalendar;
-		} catch (net.jacobpeterson.alpaca.openapi.trader.ApiException e) {
-			System.out.println(e.getCode() + "\n" + e.getMessage());
-			return null;
-		}
-	}
-
 	/**
 	 * Calculates price change percentages for the given tickers compared to the
 	 * previous trading day.
@@ -147,8 +139,8 @@ public class AlpacaHistoricalBarsDataService {
 	 * <b>Time Handling:</b> Intelligently handles different market states:
 	 * </p>
 	 * <ul>
-	 * <li><b>During market hours (9:45 AM - 4:15 PM NYC):</b> Compares current
-	 * price (15 min delayed)
+	 * <li><b>During market hours (from 15 minutes after the open to 15 minutes after the
+	 * close, which is earlier on half-days):</b> Compares current price (15 min delayed)
 	 * with yesterday's close</li>
 	 * <li><b>After market close:</b> Compares today's close with yesterday's
 	 * close</li>
@@ -173,9 +165,21 @@ public class AlpacaHistoricalBarsDataService {
 	 * </ol>
 	 *
 	 * <p>
-	 * <b>Error Handling:</b> If an API error occurs, returns an empty list. Logs
-	 * error details
-	 * to stderr.
+	 * <b>Concurrency:</b> The previous closes and the latest bars are fetched at the same time, each on
+	 * its own virtual thread ({@link FailFastTaskScope}), so a cycle takes as long as the slower fetch
+	 * rather than both. The trading calendar they depend on is held in memory by
+	 * {@link MarketSessionClock}.
+	 * </p>
+	 *
+	 * <p>
+	 * <b>Profiling:</b> Each stage (calendar lookup, previous closes, latest bars and computation) is
+	 * recorded as a {@link RefreshEvents.Stage} JFR event.
+	 * </p>
+	 *
+	 * <p>
+	 * <b>Error Handling:</b> If an API error occurs, or the fetches don't finish within
+	 * {@code vinayaka.refresh.cycle-deadline-seconds}, the other fetch is cancelled and an empty list
+	 * is returned. Logs error details to stderr.
 	 * </p>
 	 *
 	 * @param tickersToGetDataFor List of ticker symbols to fetch data for (e.g.,
@@ -187,116 +191,240 @@ public class AlpacaHistoricalBarsDataService {
 	 *         Tickers with missing data are excluded from the result maps.
 	 */
 	public List<Map<String, ?>> getLatestPriceChangePercentages(List<String> tickersToGetDataFor) {
-		NYCTimeInfo nycTime = this.getNYCTimeInfo();
-
-		// Default time window for fetching close price (3:59 PM - 4:00 PM).
-		// Used for previous day's close and for after-hours/pre-market scenarios.
-		LocalTime fromTime = LocalTime.of(15, 59, 0);
-		LocalTime toTime = LocalTime.of(16, 0, 0);
-
-		Map<String, List<StockBar>> yesterdaysBars;
+		Map<String, Double> yesterdaysCloses;
 		Map<String, List<StockBar>> latestBars;
 		Map<String, Double> priceChangePercentages;
 		List<Map<String, ?>> priceChangeAndTradesList = new ArrayList<>();
 		try {
-			// Get the two most recent trading days (handles weekends, holidays,
-			// pre-market).
-			// Returns [secondLastTradingDay, lastTradingDay] or null if calendar
-			// unavailable.
-			List<LocalDate> dates = this.getLastTwoTradingDays();
-			if (dates == null || dates.size() < 2) {
+			// The most recent session with data (handles weekends, holidays, pre-market and the first
+			// 15 minutes of a session), and the one before it. -1 if the calendar is unavailable.
+			RefreshEvents.Stage calendarStage = RefreshEvents.Stage.start("calendar", tickersToGetDataFor.size());
+			MarketSessionClock.Sessions sessions = this.sessionClock.awaitSessions(CALENDAR_WAIT);
+			int lastSession = this.getLatestDataSessionIndex(sessions);
+			calendarStage.commit();
+			if (lastSession < 1) {
 				return priceChangeAndTradesList;
 			}
-			LocalDate secondLastTradingDay = dates.getFirst();
-			LocalDate lastTradingDay = dates.getLast();
-
-			LocalTime lastTradingDayFromTime;
-			LocalTime lastTradingDayEndTime;
 
 			// Determine the time window for "today's" price data based on market status.
-			// During market hours: use 15-min delayed data; otherwise use closing price.
-			if (lastTradingDay.equals(nycTime.today())) {
-				boolean isAfterMarketOpen = nycTime.time().isAfter(LocalTime.of(9, 45));
-				boolean isBeforeMarketClose = nycTime.time().isBefore(LocalTime.of(16, 15));
-
-				// During market hours: fetch 15-min delayed data to comply with API
-				// restrictions.
-				if (isAfterMarketOpen && isBeforeMarketClose) {
-					lastTradingDayFromTime = nycTime.time().minusMinutes(16);
-					lastTradingDayEndTime = nycTime.time().minusMinutes(15);
-				} else {
-					// Pre-market or after-hours: use closing price window.
-					lastTradingDayFromTime = LocalTime.of(15, 59, 0);
-					lastTradingDayEndTime = LocalTime.of(16, 0, 0);
-				}
-			} else {
-				// Today is not a trading day (weekend/holiday): use closing price of last
-				// trading day.
-				lastTradingDayFromTime = LocalTime.of(15, 59, 0);
-				lastTradingDayEndTime = LocalTime.of(16, 0, 0);
+			// During market hours: use 15-min delayed data; otherwise use the session's real close,
+			// which is earlier on half-days.
+			long delayedNow = this.sessionClock.nowEpochSecond() - DATA_DELAY_SECONDS;
+			long lastSessionEnd = Math.min(delayedNow, sessions.closeTime(lastSession));
+			OffsetDateTime lastTradingDayOffsetStartTime = this.toMarketTime(lastSessionEnd - 60);
+			OffsetDateTime lastTradingDayOffsetEndTime = this.toMarketTime(lastSessionEnd);
+
+			// Both fetches only depend on the calendar, so they run concurrently: the cycle takes as long
+			// as the slower of the two round trips. If either fails or the deadline passes, the other is
+			// cancelled and the cycle is skipped.
+			try (FailFastTaskScope scope = new FailFastTaskScope("refresh-cycle")) {
+				// Yesterday's close can't change during the day, so it comes from the reference price cache.
+				// Only tickers that aren't cached yet (e.g., newly added ones) are fetched.
+				Future<Map<String, Double>> closesTask = scope.fork(() -> {
+					RefreshEvents.Stage stage = RefreshEvents.Stage.start("previous-closes", tickersToGetDataFor.size());
+					Map<String, Double> closes = this.getClosingPrices(tickersToGetDataFor, sessions, lastSession - 1);
+					stage.results = closes.size();
+					stage.commit();
+					return closes;
+				});
+
+				// Fetch the latest 1-minute bars in bulk (chunked and paginated for large watchlists).
+				Future<Map<String, List<StockBar>>> latestBarsTask = scope.fork(() -> {
+					RefreshEvents.Stage stage = RefreshEvents.Stage.start("latest-bars", tickersToGetDataFor.size());
+					Map<String, List<StockBar>> bars = this.fetchMultiSymbolBars(tickersToGetDataFor,
+							lastTradingDayOffsetStartTime, lastTradingDayOffsetEndTime);
+					stage.end();
+					if (stage.shouldCommit()) {
+						stage.results = bars.size();
+						stage.bars = bars.values().stream().mapToInt(List::size).sum();
+						stage.commit();
+					}
+					return bars;
+				});
+
+				scope.joinUntil(Instant.now().plusMillis(this.cycleDeadlineMillis));
+				yesterdaysCloses = closesTask.resultNow();
+				latestBars = latestBarsTask.resultNow();
 			}
 
-			// Build OffsetDateTime objects for the API calls.
-			OffsetDateTime lastTradingDayOffsetStartTime = OffsetDateTime.of(lastTradingDay, lastTradingDayFromTime,
-					nycTime.offset());
-			OffsetDateTime lastTradingDayOffsetEndTime = OffsetDateTime.of(lastTradingDay, lastTradingDayEndTime,
-					nycTime.offset());
-
-			// Yesterday's close is always fetched from the 3:59-4:00 PM window.
-			OffsetDateTime yesterdaysOffsetStartTime = OffsetDateTime.of(secondLastTradingDay, fromTime, nycTime.offset());
-			OffsetDateTime yesterdaysOffsetEndTime = OffsetDateTime.of(secondLastTradingDay, toTime, nycTime.offset());
-
-			String tickers = String.join(",", tickersToGetDataFor);
-
-			// Fetch 1-minute bars for both time periods in bulk (all tickers at once).
-			yesterdaysBars = this.alpacaAPI.marketData().stock().stockBars(tickers, "1Min", yesterdaysOffsetStartTime,
-					yesterdaysOffsetEndTime, this.historicalDataLimit, StockAdjustment.ALL, null, StockFeed.IEX,
-							this.currency, null, Sort.ASC).getBars();
-
-			latestBars = this.alpacaAPI.marketData().stock().stockBars(tickers, "1Min", lastTradingDayOffsetStartTime,
-					lastTradingDayOffsetEndTime, this.historicalDataLimit, StockAdjustment.ALL, null, StockFeed.IEX,
-							this.currency, null, Sort.ASC).getBars();
-
-			// Calculate percentage change for each ticker using parallel streams.
-			// Filter out tickers with missing data to avoid NoSuchElementException.
-			priceChangePercentages = yesterdaysBars.keySet().parallelStream()
-					.filter(ticker -> {
-						List<StockBar> yesterdayBars = yesterdaysBars.get(ticker);
-						List<StockBar> todayBars = latestBars.get(ticker);
-						return yesterdayBars != null && !yesterdayBars.isEmpty()
-								&& todayBars != null && !todayBars.isEmpty();
-					})
-					.collect(Collectors.toMap(
-							ticker -> ticker,
-							ticker -> {
-								// Get closing prices from the last bar in each period.
-								Double yesterdaysClose = yesterdaysBars.get(ticker).getLast().getC();
-								Double currentPrice = latestBars.get(ticker).getLast().getC();
-
-								// Formula: ((current - previous) / previous) * 100, rounded to 2 decimals.
-								return new BigDecimal(Double.toString(((currentPrice - yesterdaysClose) / yesterdaysClose) * 100))
-										.setScale(2, RoundingMode.HALF_UP).doubleValue();
-							}
-					));
+			// Calculate the percentage change of every ticker with both a previous close and a latest bar.
+			RefreshEvents.Stage computeStage = RefreshEvents.Stage.start("compute", tickersToGetDataFor.size());
+			priceChangePercentages = this.computePriceChangePercentages(tickersToGetDataFor, yesterdaysCloses,
+					latestBars);
+			computeStage.results = priceChangePercentages.size();
+			computeStage.commit();
 
 			// Return list: [0] = latest bars (for display), [1] = percentage changes.
 			priceChangeAndTradesList.add(latestBars);
 			priceChangeAndTradesList.add(priceChangePercentages);
 
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ApiException apiException) {
+				System.out.println(apiException.getCode() + "\n" + apiException.getMessage());
+			} else {
+				System.err.println("Refresh cycle failed: " + e.getCause());
+			}
+		} catch (TimeoutException e) {
+			System.err.println("Refresh cycle skipped, Alpaca did not answer within "
+					+ this.cycleDeadlineMillis + " ms: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		return priceChangeAndTradesList;
+	}
+
+	/**
+	 * Gets the closing prices of the previous trading day for the given tickers. This is the reference
+	 * price that daily change percentages are calculated against, and is what streamed trades are
+	 * compared to when prices are pushed over the websocket instead of being polled.
+	 *
+	 * @param tickersToGetDataFor List of ticker symbols to fetch data for (e.g., ["AAPL", "MSFT"])
+	 *
+	 * @return A map of ticker symbols to the previous trading day's closing price. Tickers with missing
+	 * data are excluded. Returns an empty map on API errors or if the market calendar cannot be fetched.
+	 */
+	public Map<String, Double> getPreviousClosePrices(List<String> tickersToGetDataFor) {
+		Map<String, Double> previousCloses = new HashMap<>();
+		MarketSessionClock.Sessions sessions = this.sessionClock.awaitSessions(CALENDAR_WAIT);
+		int lastSession = this.getLatestDataSessionIndex(sessions);
+		if (tickersToGetDataFor.isEmpty() || lastSession < 1) {
+			return previousCloses;
+		}
+
+		try {
+			previousCloses = this.getClosingPrices(tickersToGetDataFor, sessions, lastSession - 1);
 		} catch (ApiException e) {
 			System.out.println(e.getCode() + "\n" + e.getMessage());
 		}
 
-		return priceChangeAndTradesList;
+		return previousCloses;
+	}
+
+	/**
+	 * Gets the closing prices of the given trading session for the given tickers through the
+	 * {@link ReferencePriceCache}. Only tickers that aren't cached for that day are fetched.
+	 *
+	 * @param tickers  The ticker symbols whose closes are needed.
+	 * @param sessions The calendar snapshot the session index belongs to.
+	 * @param session  The index of the session whose close is needed.
+	 * @return A map of ticker symbols to their closing prices. Tickers with no data are excluded.
+	 * @throws ApiException If fetching the missing closes fails.
+	 */
+	private Map<String, Double> getClosingPrices(List<String> tickers, MarketSessionClock.Sessions sessions,
+												 int session) throws ApiException {
+		LocalDate day = sessions.sessionDate(session);
+		return this.referencePriceCache.getReferencePrices(day, tickers, missingTickers -> {
+			Map<String, Double> closes = new HashMap<>();
+			this.fetchClosingBars(missingTickers, sessions.closeTime(session)).forEach((ticker, bars) -> {
+				if (bars != null && !bars.isEmpty()) {
+					closes.put(ticker, bars.getLast().getC());
+				}
+			});
+			return closes;
+		});
+	}
+
+	/**
+	 * Runs the change percentage computation of one refresh cycle on the {@link PriceChangeKernel}.
+	 * The kernel's buffers are reused across cycles, so the only allocations left are the entries of
+	 * the returned map, which is the public shape of {@link #getLatestPriceChangePercentages(List)}.
+	 *
+	 * @param tickers          The tickers of this cycle.
+	 * @param yesterdaysCloses The previous closes of the tickers.
+	 * @param latestBars       The latest 1-minute bars of the tickers. The current price is the close
+	 *                         of the last bar.
+	 * @return A map of ticker symbols to their change percentages. Tickers with missing data are
+	 * 		   excluded.
+	 */
+	private Map<String, Double> computePriceChangePercentages(List<String> tickers,
+																Map<String, Double> yesterdaysCloses,
+																Map<String, List<StockBar>> latestBars) {
+		synchronized (this.priceChangeKernel) {
+			PriceChangeKernel kernel = this.priceChangeKernel;
+			kernel.beginCycle();
+			for (int i = 0, count = tickers.size(); i < count; i++) {
+				String ticker = tickers.get(i);
+				Double yesterdaysClose = yesterdaysCloses.get(ticker);
+				List<StockBar> todayBars = latestBars.get(ticker);
+				if (yesterdaysClose == null || todayBars == null || todayBars.isEmpty()
+						|| todayBars.getLast().getC() == null) {
+					continue;
+				}
+
+				int ordinal = kernel.ordinal(ticker);
+				kernel.setPreviousClose(ordinal, yesterdaysClose);
+				kernel.setCurrentPrice(ordinal, todayBars.getLast().getC());
+			}
+
+			Map<String, Double> priceChangePercentages = HashMap.newHashMap(kernel.compute());
+			for (int ordinal = 0, size = kernel.size(); ordinal < size; ordinal++) {
+				if (kernel.hasResult(ordinal)) {
+					priceChangePercentages.put(kernel.symbol(ordinal), kernel.changePercentage(ordinal));
+				}
+			}
+			return priceChangePercentages;
+		}
+	}
+
+	/**
+	 * Calculates the percentage change between the current price and a reference price.
+	 * Formula: ((current - previous) / previous) * 100, rounded to 2 decimals (half up) with
+	 * integer arithmetic by {@link PriceChangeKernel#roundToHundredths(double)}.
+	 *
+	 * @param currentPrice  The latest price.
+	 * @param previousClose The reference price, usually the previous trading day's close.
+	 * @return The percentage change rounded to 2 decimal places.
+	 */
+	public static double calculateChangePercentage(double currentPrice, double previousClose) {
+		return PriceChangeKernel.changePercentage(currentPrice, previousClose);
+	}
+
+	/**
+	 * Fetches the 1-minute bars in the last minute of the given trading session for the given
+	 * tickers (3:59 PM - 4:00 PM, or 12:59 PM - 1:00 PM on a half-day). The last bar of each ticker
+	 * holds that day's closing price.
+	 *
+	 * @param tickers The ticker symbols whose closes are needed.
+	 * @param close   The epoch second the session whose close is needed closed at.
+	 * @return A map of ticker symbols to their closing bars.
+	 * @throws ApiException If the Alpaca API call fails.
+	 */
+	private Map<String, List<StockBar>> fetchClosingBars(List<String> tickers, long close) throws ApiException {
+		OffsetDateTime startTime = this.toMarketTime(close - 60);
+		OffsetDateTime endTime = this.toMarketTime(close);
+
+		return this.fetchMultiSymbolBars(tickers, startTime, endTime);
+	}
+
+	/**
+	 * Fetches the 1-minute IEX bars of the given tickers between the given times. The tickers are
+	 * split into chunks and every page of every chunk is read by {@link AlpacaRequestBatcher}, so
+	 * large watchlists are neither rejected for URL length nor truncated at the page limit.
+	 *
+	 * @param tickers   The ticker symbols to fetch bars for.
+	 * @param startTime The start of the window.
+	 * @param endTime   The end of the window.
+	 * @return A map of ticker symbols to their bars in ascending order.
+	 * @throws ApiException If any chunk fails.
+	 */
+	private Map<String, List<StockBar>> fetchMultiSymbolBars(List<String> tickers, OffsetDateTime startTime,
+															 OffsetDateTime endTime) throws ApiException {
+		return this.requestBatcher.fetchPaged(tickers, (symbols, pageToken) -> {
+			StockBarsResp response = this.alpacaAPI.marketData().stock().stockBars(symbols, "1Min", startTime,
+					endTime, this.historicalDataLimit, StockAdjustment.ALL, null, StockFeed.IEX, this.currency,
+					pageToken, Sort.ASC);
+			return new AlpacaRequestBatcher.Page<>(response.getBars(), response.getNextPageToken());
+		});
 	}
 
 	/**
 	 * Gets the historical 1-day stock bars for the given ticker.
 	 * <ul>
 	 * <li>If today is a trading day and it's during market hours (9:45 AM - 4:15 PM
-	 * NYC):
+	 * NYC, or until 1:15 PM on a half-day):
 	 * returns bars for today up to (current time - 15 min)</li>
-	 * <li>If today is a trading day and it's after market close (4:15 PM+ NYC):
+	 * <li>If today is a trading day and it's after market close:
 	 * returns all bars for today</li>
 	 * <li>If today is a trading day and it's pre-market (before 9:45 AM NYC):
 	 * returns all bars for the previous trading day</li>
@@ -307,37 +435,96 @@ public class AlpacaHistoricalBarsDataService {
 	 * @param ticker The ticker whose 1-day bars are to be fetched.
 	 *
 	 * @return A list of StockBar objects representing the historical 1-day bars.
-	 *         If the ticker is not found, null is returned.
+	 *         If the ticker is not found, null is returned. If the market calendar is unavailable,
+	 *         the list is empty.
 	 */
 	public List<StockBar> get1DHistoricalStockBars(String ticker) {
-		NYCTimeInfo nycTime = this.getNYCTimeInfo();
 		String timeFrame = "5Min";
 
-		// Get the most recent trading day (accounts for pre-market, weekends, holidays)
-		LocalDate tradingDay = this.getMostRecentTradingDay();
-
-		// Determine the end time based on current time and whether today is the trading
-		// day
-		OffsetDateTime fetchEndTime;
-		boolean isTodayTradingDay = tradingDay.equals(nycTime.today());
-		boolean isDuringMarketHours = nycTime.time().isAfter(LocalTime.of(9, 45))
-				&& nycTime.time().isBefore(LocalTime.of(16, 15));
-
-		if (isTodayTradingDay && isDuringMarketHours) {
-			// During market hours: fetch up to (now - 15 min) due to API restrictions
-			fetchEndTime = nycTime.now().minusMinutes(15).toOffsetDateTime();
-		} else {
-			// After market close, pre-market, weekend, or holiday: fetch full day ending at
-			// 4 PM
-			fetchEndTime = OffsetDateTime.of(tradingDay, LocalTime.of(16, 0), nycTime.offset());
+		// Get the most recent trading session with data (accounts for pre-market, weekends, holidays)
+		MarketSessionClock.Sessions sessions = this.sessionClock.awaitSessions(CALENDAR_WAIT);
+		int session = this.getLatestDataSessionIndex(sessions);
+		if (session < 0) {
+			return new ArrayList<>();
 		}
 
-		// Market opens at 9:30 AM
-		OffsetDateTime fetchStartTime = OffsetDateTime.of(tradingDay, LocalTime.of(9, 30), nycTime.offset());
+		// During market hours: fetch up to (now - 15 min) due to API restrictions.
+		// After the close: fetch the full session, up to its real close.
+		long delayedNow = this.sessionClock.nowEpochSecond() - DATA_DELAY_SECONDS;
+		OffsetDateTime fetchEndTime = this.toMarketTime(Math.min(delayedNow, sessions.closeTime(session)));
+		OffsetDateTime fetchStartTime = this.toMarketTime(sessions.openTime(session));
 
 		return this.fetchHistoricalBars(ticker, fetchStartTime, fetchEndTime, timeFrame);
 	}
 
+	/**
+	 * Gets the historical 1-day bars for the given ticker as a {@link BarSeries}. Covers the same
+	 * window as {@link #get1DHistoricalStockBars(String)}.
+	 *
+	 * @param ticker The ticker whose 1-day bars are to be fetched.
+	 *
+	 * @return The historical 1-day bars. If the ticker is not found, the series is empty.
+	 */
+	public BarSeries get1DHistoricalBarSeries(String ticker) {
+		return BarSeries.fromStockBars(this.get1DHistoricalStockBars(ticker));
+	}
+
+	/**
+	 * Gets the historical 1-Week bars for the given ticker as a {@link BarSeries}.
+	 *
+	 * @param ticker The ticker whose 1-Week bars are to be fetched.
+	 *
+	 * @return The historical 1-Week bars. If the ticker is not found, the series is empty.
+	 */
+	public BarSeries get1WHistoricalBarSeries(String ticker) {
+		return this.getAppropriateHistoricalSeries(ticker, 7, "1H");
+	}
+
+	/**
+	 * Gets the historical 1-month bars for the given ticker as a {@link BarSeries}.
+	 *
+	 * @param ticker The ticker whose 1-month bars are to be fetched.
+	 *
+	 * @return The historical 1-month bars. If the ticker is not found, the series is empty.
+	 */
+	public BarSeries get1MHistoricalBarSeries(String ticker) {
+		return this.getAppropriateHistoricalSeries(ticker, this.daysSince(1, 0), "1H");
+	}
+
+	/**
+	 * Gets the historical 3-month bars for the given ticker as a {@link BarSeries}.
+	 *
+	 * @param ticker The ticker whose 3-month bars are to be fetched.
+	 *
+	 * @return The historical 3-month bars. If the ticker is not found, the series is empty.
+	 */
+	public BarSeries get3MHistoricalBarSeries(String ticker) {
+		return this.getAppropriateHistoricalSeries(ticker, this.daysSince(3, 0), "1D");
+	}
+
+	/**
+	 * Gets the historical 1-year bars for the given ticker as a {@link BarSeries}.
+	 *
+	 * @param ticker The ticker whose 1-year bars are to be fetched.
+	 *
+	 * @return The historical 1-year bars. If the ticker is not found, the series is empty.
+	 */
+	public BarSeries get1YHistoricalBarSeries(String ticker) {
+		return this.getAppropriateHistoricalSeries(ticker, this.daysSince(0, 1), "1D");
+	}
+
+	/**
+	 * Gets the historical 5-year bars for the given ticker as a {@link BarSeries}. A 5Y series is the
+	 * largest the app loads, so this variant avoids one object per bar entirely.
+	 *
+	 * @param ticker The ticker whose 5-year bars are to be fetched.
+	 *
+	 * @return The historical 5-year bars. If the ticker is not found, the series is empty.
+	 */
+	public BarSeries get5YHistoricalBarSeries(String ticker) {
+		return this.getAppropriateHistoricalSeries(ticker, this.daysSince(0, 5), "7D");
+	}
+
 	/**
 	 * Gets the historical 1-Week stock bars for the given ticker.
 	 *
@@ -359,11 +546,7 @@ public class AlpacaHistoricalBarsDataService {
 	 * If the ticker is not found, null is returned.
 	 */
 	public List<StockBar> get1MHistoricalBars(String ticker) {
-		LocalDate todayInNYC = this.getNYCTimeInfo().today();
-		LocalDate nMonthsAgo = todayInNYC.minusMonths(1);
-		long daysToSubtract = ChronoUnit.DAYS.between(nMonthsAgo, todayInNYC);
-
-		return this.getAppropriateHistoricalBars(ticker, daysToSubtract, "1H");
+		return this.getAppropriateHistoricalBars(ticker, this.daysSince(1, 0), "1H");
 	}
 
 	/**
@@ -375,11 +558,7 @@ public class AlpacaHistoricalBarsDataService {
 	 * If the ticker is not found, null is returned.
 	 */
 	public List<StockBar> get3MHistoricalBars(String ticker) {
-		LocalDate todayInNYC = this.getNYCTimeInfo().today();
-		LocalDate nMonthsAgo = todayInNYC.minusMonths(3);
-		long daysToSubtract = ChronoUnit.DAYS.between(nMonthsAgo, todayInNYC);
-
-		return this.getAppropriateHistoricalBars(ticker, daysToSubtract, "1D");
+		return this.getAppropriateHistoricalBars(ticker, this.daysSince(3, 0), "1D");
 	}
 
 	/**
@@ -391,11 +570,7 @@ public class AlpacaHistoricalBarsDataService {
 	 * If the ticker is not found, null is returned.
 	 */
 	public List<StockBar> get1YHistoricalBars(String ticker) {
-		LocalDate todayInNYC = this.getNYCTimeInfo().today();
-		LocalDate nYearsAgo = todayInNYC.minusYears(1);
-		long daysToSubtract = ChronoUnit.DAYS.between(nYearsAgo, todayInNYC);
-
-		return this.getAppropriateHistoricalBars(ticker, daysToSubtract, "1D");
+		return this.getAppropriateHistoricalBars(ticker, this.daysSince(0, 1), "1D");
 	}
 
 	/**
@@ -407,11 +582,7 @@ public class AlpacaHistoricalBarsDataService {
 	 * If the ticker is not found, null is returned.
 	 */
 	public List<StockBar> get5YHistoricalBars(String ticker) {
-		LocalDate todayInNYC = this.getNYCTimeInfo().today();
-		LocalDate nYearsAgo = todayInNYC.minusYears(5);
-		long daysToSubtract = ChronoUnit.DAYS.between(nYearsAgo, todayInNYC);
-
-		return this.getAppropriateHistoricalBars(ticker, daysToSubtract, "7D");
+		return this.getAppropriateHistoricalBars(ticker, this.daysSince(0, 5), "7D");
 	}
 
 	/**
@@ -429,18 +600,40 @@ public class AlpacaHistoricalBarsDataService {
 			String timeFrame) {
 		List<StockBar> historicalBars = new ArrayList<>();
 
+		long start = System.nanoTime();
 		try {
-			historicalBars = this.alpacaAPI.marketData().stock().stockBarSingle(
-					ticker, timeFrame, startTime, endTime,
-					historicalDataLimit, StockAdjustment.ALL, null,
-					StockFeed.SIP, currency, null, Sort.ASC).getBars();
+			historicalBars = this.requestHistoricalBars(ticker, startTime, endTime, timeFrame);
 		} catch (ApiException e) {
 			System.out.println(e.getCode() + "\n" + e.getMessage());
 		}
+		PipelineMetrics.recordChartLoad(timeFrame, System.nanoTime() - start);
 
 		return historicalBars;
 	}
 
+	/**
+	 * Requests the historical bars for the given ticker from the API. Long ranges can exceed the page
+	 * limit, so the page token is followed until all bars are read.
+	 *
+	 * @param ticker    The ticker whose historical bars are to be fetched.
+	 * @param startTime The start time of the historical data to be fetched.
+	 * @param endTime   The end time of the historical data to be fetched.
+	 * @param timeFrame The timeframe (or interval) of the bars to be aggregated.
+	 * @return A list of StockBar objects in ascending order.
+	 * @throws ApiException If the Alpaca API call fails.
+	 */
+	private List<StockBar> requestHistoricalBars(String ticker, OffsetDateTime startTime, OffsetDateTime endTime,
+												 String timeFrame) throws ApiException {
+		return AlpacaRequestBatcher.readAllPages(ticker, (symbol, pageToken) -> {
+			StockBarsRespSingle response = this.rateLimiter.call(() -> this.alpacaAPI.marketData().stock()
+					.stockBarSingle(symbol, timeFrame, startTime, endTime,
+							historicalDataLimit, StockAdjustment.ALL, null,
+							StockFeed.SIP, currency, pageToken, Sort.ASC));
+			List<StockBar> bars = response.getBars() != null ? response.getBars() : List.of();
+			return new AlpacaRequestBatcher.Page<>(Map.of(symbol, bars), response.getNextPageToken());
+		}).getOrDefault(ticker, new ArrayList<>());
+	}
+
 	/**
 	 * Gets the appropriate historical stock bars for the given ticker,
 	 * for the given duration, aggregated by the given timeframe.
@@ -455,95 +648,104 @@ public class AlpacaHistoricalBarsDataService {
 	 *                  months, or years.
 	 *
 	 * @return A list of StockBar objects representing the historical bars.
-	 * If the ticker is not found, null is returned.
+	 * If the ticker is not found, the list is empty.
 	 */
 	private List<StockBar> getAppropriateHistoricalBars(String ticker, long daysToSubtract, String timeFrame) {
-		NYCTimeInfo nycTime = this.getNYCTimeInfo();
-		LocalDate startDay = nycTime.today().minusDays(daysToSubtract);
-
-		OffsetDateTime startTime = OffsetDateTime.of(startDay, LocalTime.of(0, 0, 0), nycTime.offset());
-		OffsetDateTime endTime = OffsetDateTime.of(nycTime.today(), LocalTime.of(23, 59, 59), nycTime.offset());
-
-		return this.fetchHistoricalBars(ticker, startTime, endTime, timeFrame);
+		if (!this.barStoreEnabled) {
+			// The bars as the API returned them, without a round trip through a BarSeries.
+			ChartRange range = this.chartRange(daysToSubtract);
+			return this.fetchHistoricalBars(ticker, range.start(), range.end(), timeFrame);
+		}
+		return this.getAppropriateHistoricalSeries(ticker, daysToSubtract, timeFrame).toStockBars();
 	}
 
 	/**
-	 * Gets the most recent trading day for intraday data, accounting for pre-market hours.
-	 * Uses the cached market calendar.
-	 * <ul>
-	 *   <li>If today is a trading day AND it's before 9:45 AM NYC time → returns previous trading day</li>
-	 *   <li>If today is a trading day AND it's 9:45 AM or later → returns today</li>
-	 *   <li>If today is not a trading day (weekend/holiday) → returns most recent trading day</li>
-	 * </ul>
+	 * Gets the appropriate historical bars for the given ticker as a {@link BarSeries}, for the given
+	 * duration, aggregated by the given timeframe. Unlike {@link #getAppropriateHistoricalBars}, bars
+	 * read from the bar store are never turned into StockBar objects.
+	 *
+	 * @param ticker         The ticker whose bars are to be fetched.
+	 * @param daysToSubtract The number of days to subtract from the current date.
+	 * @param timeFrame      The timeframe to aggregate the bars by.
 	 *
-	 * @return A LocalDate object representing the appropriate trading day for intraday data.
+	 * @return The historical bars. If the ticker is not found, the series is empty.
 	 */
-	private LocalDate getMostRecentTradingDay() {
-		NYCTimeInfo nycTime = this.getNYCTimeInfo();
-		List<Calendar> marketCalendar = this.getMarketCalendar();
-
-		if (marketCalendar == null || marketCalendar.isEmpty()) {
-			return null;
+	private BarSeries getAppropriateHistoricalSeries(String ticker, long daysToSubtract, String timeFrame) {
+		ChartRange range = this.chartRange(daysToSubtract);
+		if (!this.barStoreEnabled) {
+			return BarSeries.fromStockBars(this.fetchHistoricalBars(ticker, range.start(), range.end(), timeFrame));
 		}
 
-		Calendar lastTradingDayCalendar = marketCalendar.getLast();
-		boolean isTodayTradingDay = lastTradingDayCalendar.getDate().equals(nycTime.today().toString());
-		boolean isBeforeMarketOpen = nycTime.time().isBefore(LocalTime.of(9, 45));
-
-		Calendar targetDay;
-		if (isTodayTradingDay && isBeforeMarketOpen) {
-			// Pre-market: use previous trading day
-			targetDay = marketCalendar.get(marketCalendar.size() - 2);
-		} else {
-			// During/after market hours or weekend/holiday: use most recent trading day
-			targetDay = lastTradingDayCalendar;
-		}
+		return this.getStoredHistoricalSeries(ticker, range.start(), range.end(), timeFrame);
+	}
 
-		String[] splitDate = targetDay.getDate().split("-");
-		return LocalDate.of(Integer.parseUnsignedInt(splitDate[0]),
-				Integer.parseUnsignedInt(splitDate[1]), Integer.parseUnsignedInt(splitDate[2]));
+	/**
+	 * The times between which a chart's bars are requested.
+	 */
+	private record ChartRange(OffsetDateTime start, OffsetDateTime end) {
 	}
 
 	/**
-	 * Gets the last two trading days using the cached market calendar.
-	 *
-	 * @return A list of LocalDate objects representing the last two trading days. The older date is given first and
-	 * the later date is given second. If the request is done during pre-market hours, the last trading day is
-	 * yesterday and the second last trading day is the day before yesterday. If an error occurs, null is returned.
+	 * @return From midnight the given number of days ago through the end of today, in NYC.
 	 */
-	private List<LocalDate> getLastTwoTradingDays() {
-		List<LocalDate> dates = new ArrayList<>();
+	private ChartRange chartRange(long daysToSubtract) {
 		NYCTimeInfo nycTime = this.getNYCTimeInfo();
-		List<Calendar> marketCalendar = this.getMarketCalendar();
+		LocalDate startDay = nycTime.today().minusDays(daysToSubtract);
 
-		if (marketCalendar == null || marketCalendar.size() < 3) {
-			return null;
-		}
+		OffsetDateTime startTime = OffsetDateTime.of(startDay, LocalTime.of(0, 0, 0), nycTime.offset());
+		OffsetDateTime endTime = OffsetDateTime.of(nycTime.today(), LocalTime.of(23, 59, 59), nycTime.offset());
+		return new ChartRange(startTime, endTime);
+	}
 
-		// If today (in NYC) is the most recent trading day, and it's before 9:45 AM ET,
-		// the data must be for yesterday and day before yesterday.
-		boolean isTodayLastTradingDay = marketCalendar.getLast().getDate().equals(nycTime.today().toString());
-		boolean isBeforeMarketOpen = nycTime.time().isBefore(LocalTime.of(9, 45));
-
-		Calendar secondLastTradingDay;
-		Calendar lastTradingDay;
-		if (isTodayLastTradingDay && isBeforeMarketOpen) {
-			secondLastTradingDay = marketCalendar.get(marketCalendar.size() - 3);
-			lastTradingDay = marketCalendar.get(marketCalendar.size() - 2);
-		} else {
-			secondLastTradingDay = marketCalendar.get(marketCalendar.size() - 2);
-			lastTradingDay = marketCalendar.getLast();
+	/**
+	 * Gets the historical bars for the given ticker from the bar store. Only the bars newer than the
+	 * stored ones are downloaded.
+	 *
+	 * @return The historical bars, or an empty series if the Alpaca API call fails.
+	 */
+	private BarSeries getStoredHistoricalSeries(String ticker, OffsetDateTime startTime, OffsetDateTime endTime,
+												String timeFrame) {
+		long start = System.nanoTime();
+		try {
+			return this.barStore.getSeries(ticker, timeFrame, startTime, endTime,
+					(fetchStart, fetchEnd) -> this.requestHistoricalBars(ticker, fetchStart, fetchEnd, timeFrame));
+		} catch (ApiException e) {
+			System.out.println(e.getCode() + "\n" + e.getMessage());
+			return BarSeries.empty();
+		} finally {
+			PipelineMetrics.recordChartLoad(timeFrame, System.nanoTime() - start);
 		}
+	}
 
-		String[] splitSecondLast = secondLastTradingDay.getDate().split("-");
-		String[] splitLast = lastTradingDay.getDate().split("-");
+	/**
+	 * Gets the number of days between the given number of months or years ago and today in NYC.
+	 *
+	 * @param months The number of months to go back.
+	 * @param years  The number of years to go back.
+	 * @return The number of days to subtract from today.
+	 */
+	private long daysSince(int months, int years) {
+		LocalDate todayInNYC = this.getNYCTimeInfo().today();
+		return ChronoUnit.DAYS.between(todayInNYC.minusMonths(months).minusYears(years), todayInNYC);
+	}
 
-		dates.add(LocalDate.of(Integer.parseUnsignedInt(splitSecondLast[0]),
-				Integer.parseUnsignedInt(splitSecondLast[1]), Integer.parseUnsignedInt(splitSecondLast[2])));
 
-		dates.add(LocalDate.of(Integer.parseUnsignedInt(splitLast[0]),
-				Integer.parseUnsignedInt(splitLast[1]), Integer.parseUnsignedInt(splitLast[2])));
+	/**
+	 * Gets the most recent session whose intraday data is available, i.e. that opened at least 15
+	 * minutes ago. Before 9:45 AM on a trading day (or 15 minutes after an unusual open), this is the
+	 * previous session. On weekends and holidays, it's the last session before them.
+	 *
+	 * @param sessions The calendar snapshot to look in.
+	 * @return The session index in the snapshot, or -1 if the calendar is unavailable.
+	 */
+	private int getLatestDataSessionIndex(MarketSessionClock.Sessions sessions) {
+		return sessions.latestSessionIndex(this.sessionClock.nowEpochSecond() - DATA_DELAY_SECONDS);
+	}
 
-		return dates;
+	/**
+	 * Converts an epoch second to an OffsetDateTime in NYC time.
+	 */
+	private OffsetDateTime toMarketTime(long epochSecond) {
+		return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zoneId);
 	}
 }
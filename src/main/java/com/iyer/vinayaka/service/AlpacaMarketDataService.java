@@ -1,32 +1,48 @@
 package com.iyer.vinayaka.service;
 
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.model.TickerPrice;
+import com.iyer.vinayaka.util.PipelineMetrics;
 import net.jacobpeterson.alpaca.AlpacaAPI;
 import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBar;
 import net.jacobpeterson.alpaca.openapi.marketdata.model.StockFeed;
 import net.jacobpeterson.alpaca.openapi.marketdata.model.StockQuote;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockSnapshot;
 import net.jacobpeterson.alpaca.openapi.marketdata.model.StockTrade;
 import net.jacobpeterson.alpaca.openapi.trader.model.Account;
 import net.jacobpeterson.alpaca.openapi.trader.model.AssetClass;
 import net.jacobpeterson.alpaca.openapi.trader.model.Assets;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class AlpacaMarketDataService {
+	private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+
 	private final AlpacaAPI alpacaAPI;
 	private final AlpacaHistoricalBarsDataService historicalBarsDataService;
+	private final VinayakaProperties properties;
+	private final AlpacaRequestBatcher requestBatcher;
+	private final AlpacaRateLimiter rateLimiter;
 
 	private final String currency = "USD";
 	private final StockFeed feed = StockFeed.IEX;
 
-	public AlpacaMarketDataService(AlpacaAPI api, AlpacaHistoricalBarsDataService dataService) {
+	public AlpacaMarketDataService(AlpacaAPI api, AlpacaHistoricalBarsDataService dataService,
+								   VinayakaProperties properties, AlpacaRequestBatcher requestBatcher,
+								   AlpacaRateLimiter rateLimiter) {
 		this.alpacaAPI = api;
 		this.historicalBarsDataService = dataService;
+		this.properties = properties;
+		this.requestBatcher = requestBatcher;
+		this.rateLimiter = rateLimiter;
 	}
 
 	/**
@@ -46,15 +62,16 @@ public class AlpacaMarketDataService {
 	}
 
 	/**
-	 * Gets all the valid assets tracked by the Alpaca Markets API.
+	 * Gets all the valid assets tracked by the Alpaca Markets API. This is a large download (10,000+
+	 * assets); the UI reads the universe from {@link AssetUniverse}, which calls this in the background.
 	 *
 	 * @return A list of all the assets tracked by the Alpaca Markets API.
 	 */
 	public List<Assets> getAllAssets() {
 		List<Assets> assets = new ArrayList<>();
 		try {
-			assets = this.alpacaAPI.trader().assets().getV2Assets("active", AssetClass.US_EQUITY.getValue(),
-					null, null);
+			assets = this.rateLimiter.call(() -> this.alpacaAPI.trader().assets().getV2Assets("active",
+					AssetClass.US_EQUITY.getValue(), null, null));
 		} catch (net.jacobpeterson.alpaca.openapi.trader.ApiException e) {
 			System.out.println(e.getCode() + "\n" + e.getMessage());
 		}
@@ -73,13 +90,13 @@ public class AlpacaMarketDataService {
 	 * @return A hashmap of stock tickers to their latest quotes. If any
 	 * of the tickers are invalid, that ticker's data will not be included.
 	 * If all the tickers passed are invalid, an empty HashMap is returned.
+	 * Large ticker lists are requested in chunks by {@link AlpacaRequestBatcher}.
 	 */
 	public Map<String, StockQuote> getLatestStockQuotes(List<String> tickers) {
 		Map<String, StockQuote> quotes = new HashMap<>();
 		try {
-			quotes = alpacaAPI.marketData().stock().stockLatestQuotes(
-					tickers.parallelStream().collect(Collectors.joining(",")),
-					feed, currency).getQuotes();
+			quotes = this.requestBatcher.fetch(tickers, symbols -> this.alpacaAPI.marketData().stock()
+					.stockLatestQuotes(symbols, feed, currency).getQuotes());
 		} catch (net.jacobpeterson.alpaca.openapi.marketdata.ApiException e) {
 			System.out.println(e.getCode() + "\n" + e.getMessage());
 		}
@@ -101,8 +118,8 @@ public class AlpacaMarketDataService {
 	public StockQuote getLatestSingleStockQuote(String ticker) {
 		StockQuote quote = null;
 		try {
-			quote = this.alpacaAPI.marketData().stock().stockLatestQuoteSingle(
-					ticker, feed, currency).getQuote();
+			quote = this.rateLimiter.call(() -> this.alpacaAPI.marketData().stock().stockLatestQuoteSingle(
+					ticker, feed, currency)).getQuote();
 		} catch (net.jacobpeterson.alpaca.openapi.marketdata.ApiException e) {
 			System.out.println(e.getCode() + "\n" + e.getMessage());
 		}
@@ -121,13 +138,13 @@ public class AlpacaMarketDataService {
 	 * @return A hashmap of stock tickers to their latest trades. If any
 	 * of the tickers are invalid, that ticker's data will not be included.
 	 * If all the tickers passed are invalid, an empty HashMap is returned.
+	 * Large ticker lists are requested in chunks by {@link AlpacaRequestBatcher}.
 	 */
 	public Map<String, StockTrade> getLatestStockTrades(List<String> tickers) {
 		Map<String, StockTrade> trades = new HashMap<>();
 		try {
-			trades = this.alpacaAPI.marketData().stock().stockLatestTrades(
-					tickers.parallelStream().collect(Collectors.joining(",")),
-					feed, currency).getTrades();
+			trades = this.requestBatcher.fetch(tickers, symbols -> this.alpacaAPI.marketData().stock()
+					.stockLatestTrades(symbols, feed, currency).getTrades());
 		} catch (net.jacobpeterson.alpaca.openapi.marketdata.ApiException e) {
 			System.out.println(e.getCode() + "\n" + e.getMessage());
 		}
@@ -150,8 +167,8 @@ public class AlpacaMarketDataService {
 	public StockTrade getLatestSingleStockTrade(String ticker) {
 		StockTrade trade = null;
 		try {
-			trade = this.alpacaAPI.marketData().stock().stockLatestTradeSingle(
-					ticker, feed, currency).getTrade();
+			trade = this.rateLimiter.call(() -> this.alpacaAPI.marketData().stock().stockLatestTradeSingle(
+					ticker, feed, currency)).getTrade();
 		} catch (net.jacobpeterson.alpaca.openapi.marketdata.ApiException e) {
 			System.out.println(e.getCode() + "\n" + e.getMessage());
 		}
@@ -172,8 +189,8 @@ public class AlpacaMarketDataService {
 	public Map<String, String> getTickerNameAndExchange(String ticker) {
 		Map<String, String> tickerNameAndExchange = new HashMap<>();
 		try {
-			Assets assets = this.alpacaAPI.trader().assets().
-					getV2AssetsSymbolOrAssetId(ticker);
+			Assets assets = this.rateLimiter.call(() -> this.alpacaAPI.trader().assets().
+					getV2AssetsSymbolOrAssetId(ticker));
 
 			tickerNameAndExchange.put("officialName", assets.getName());
 			tickerNameAndExchange.put("listedExchange", assets.getExchange().getValue());
@@ -199,8 +216,8 @@ public class AlpacaMarketDataService {
 	public StockBar getSingleStockBar(String ticker) {
 		StockBar bar = null;
 		try {
-			bar = alpacaAPI.marketData().stock().stockLatestBarSingle(
-					ticker, feed, currency).getBar();
+			bar = this.rateLimiter.call(() -> alpacaAPI.marketData().stock().stockLatestBarSingle(
+					ticker, feed, currency)).getBar();
 		} catch (net.jacobpeterson.alpaca.openapi.marketdata.ApiException e) {
 			System.out.println(e.getCode() + "\n" + e.getMessage());
 		}
@@ -252,6 +269,171 @@ public class AlpacaMarketDataService {
 		return this.historicalBarsDataService.getLatestPriceChangePercentages(tickersToGetDataFor);
 	}
 
+	/**
+	 * Gets the latest price and daily change percentage of the given tickers using the refresh engine
+	 * selected by {@code vinayaka.refresh.engine}.
+	 *
+	 * <p>
+	 * Both engines produce the same typed result, so they can be swapped (and benchmarked against each
+	 * other) without touching the callers:
+	 * </p>
+	 * <ul>
+	 * <li>{@link VinayakaProperties.RefreshEngine#BARS}: {@link #getPriceChangePercentages(List)}, i.e. the
+	 * market calendar plus two 1-minute stockBars queries</li>
+	 * <li>{@link VinayakaProperties.RefreshEngine#SNAPSHOT}: {@link #getSnapshotTickerPrices(List)}, i.e. a
+	 * single multi-symbol snapshots call</li>
+	 * </ul>
+	 *
+	 * <p>
+	 * The duration of each lookup and the number of requested and missing symbols are recorded with
+	 * {@link PipelineMetrics#recordPriceFetch}.
+	 * </p>
+	 *
+	 * @param tickersToGetDataFor List of ticker symbols to fetch data for (e.g., ["AAPL", "MSFT"])
+	 *
+	 * @return A map of ticker symbols to their latest price and change percentage. Tickers with missing
+	 * data are excluded. Returns an empty map if an error occurs.
+	 */
+	public Map<String, TickerPrice> getLatestTickerPrices(List<String> tickersToGetDataFor) {
+		VinayakaProperties.RefreshEngine engine = this.properties.getRefresh().getEngine();
+		long start = System.nanoTime();
+		Map<String, TickerPrice> prices = switch (engine) {
+			case SNAPSHOT -> this.getSnapshotTickerPrices(tickersToGetDataFor);
+			case BARS -> this.getBarsTickerPrices(tickersToGetDataFor);
+		};
+		PipelineMetrics.recordPriceFetch(engine, System.nanoTime() - start, tickersToGetDataFor.size(), prices.size());
+		return prices;
+	}
+
+	/**
+	 * Gets the latest price and daily change percentage of the given tickers from Alpaca's multi-symbol
+	 * stock snapshots endpoint.
+	 *
+	 * <p>
+	 * A snapshot carries the latest trade, the latest minute bar, the current daily bar and the previous
+	 * daily bar in one response, so no market calendar lookup or time-window logic is needed:
+	 * </p>
+	 * <ul>
+	 * <li><b>Price:</b> the latest trade, falling back to the latest minute bar and then the daily bar's
+	 * close</li>
+	 * <li><b>Reference:</b> the previous daily bar's close, unless the price is from a later trading day
+	 * than the daily bar. That happens before the open, when the daily bar is still the last completed
+	 * session and the pre-market trades are measured against its close.</li>
+	 * </ul>
+	 *
+	 * @param tickersToGetDataFor List of ticker symbols to fetch data for (e.g., ["AAPL", "MSFT"])
+	 *
+	 * @return A map of ticker symbols to their latest price and change percentage. Tickers without a price
+	 * or a previous close are excluded. Returns an empty map on API errors.
+	 */
+	public Map<String, TickerPrice> getSnapshotTickerPrices(List<String> tickersToGetDataFor) {
+		Map<String, TickerPrice> prices = new HashMap<>();
+		if (tickersToGetDataFor.isEmpty()) {
+			return prices;
+		}
+
+		try {
+			Map<String, StockSnapshot> snapshots = this.requestBatcher.fetch(tickersToGetDataFor,
+					symbols -> this.alpacaAPI.marketData().stock().stockSnapshots(symbols, feed, currency));
+
+			snapshots.forEach((ticker, snapshot) -> {
+				TickerPrice price = toTickerPrice(ticker, snapshot);
+				if (price != null) {
+					prices.put(ticker, price);
+				}
+			});
+		} catch (net.jacobpeterson.alpaca.openapi.marketdata.ApiException e) {
+			System.out.println(e.getCode() + "\n" + e.getMessage());
+		}
+
+		return prices;
+	}
+
+	/**
+	 * Adapts the bars-based result of {@link #getPriceChangePercentages(List)} to typed prices.
+	 *
+	 * @param tickersToGetDataFor List of ticker symbols to fetch data for.
+	 * @return A map of ticker symbols to their latest price and change percentage.
+	 */
+	@SuppressWarnings("unchecked") // The bars engine documents the exact types of both maps
+	private Map<String, TickerPrice> getBarsTickerPrices(List<String> tickersToGetDataFor) {
+		Map<String, TickerPrice> prices = new HashMap<>();
+		List<Map<String, ?>> priceChangeAndTrades = this.getPriceChangePercentages(tickersToGetDataFor);
+		if (priceChangeAndTrades.size() < 2) {
+			return prices;
+		}
+
+		Map<String, List<StockBar>> latestBars = (Map<String, List<StockBar>>) priceChangeAndTrades.getFirst();
+		Map<String, Double> priceChange = (Map<String, Double>) priceChangeAndTrades.getLast();
+		priceChange.forEach((ticker, changePercentage) -> {
+			List<StockBar> bars = latestBars.get(ticker);
+			if (bars != null && !bars.isEmpty()) {
+				prices.put(ticker, new TickerPrice(ticker, bars.getLast().getC(), changePercentage));
+			}
+		});
+
+		return prices;
+	}
+
+	/**
+	 * Computes the price and change percentage of a single snapshot.
+	 *
+	 * @param ticker   The ticker the snapshot belongs to.
+	 * @param snapshot The snapshot returned by Alpaca.
+	 * @return The ticker's price, or null if the snapshot has no price or no reference close.
+	 */
+	static TickerPrice toTickerPrice(String ticker, StockSnapshot snapshot) {
+		if (snapshot == null) {
+			return null;
+		}
+
+		Double price = null;
+		OffsetDateTime priceTime = null;
+		if (snapshot.getLatestTrade() != null && snapshot.getLatestTrade().getP() != null) {
+			price = snapshot.getLatestTrade().getP();
+			priceTime = snapshot.getLatestTrade().getT();
+		} else if (snapshot.getMinuteBar() != null && snapshot.getMinuteBar().getC() != null) {
+			price = snapshot.getMinuteBar().getC();
+			priceTime = snapshot.getMinuteBar().getT();
+		} else if (snapshot.getDailyBar() != null && snapshot.getDailyBar().getC() != null) {
+			price = snapshot.getDailyBar().getC();
+			priceTime = snapshot.getDailyBar().getT();
+		}
+		if (price == null) {
+			return null;
+		}
+
+		Double previousClose = referenceClose(snapshot, priceTime);
+		if (previousClose == null) {
+			return null;
+		}
+		return new TickerPrice(ticker, price,
+				AlpacaHistoricalBarsDataService.calculateChangePercentage(price, previousClose));
+	}
+
+	/**
+	 * Gets the close a snapshot's price is measured against: the close of the session before the one
+	 * the price belongs to.
+	 *
+	 * @param snapshot  The snapshot returned by Alpaca.
+	 * @param priceTime When the snapshot's price was set, or null if unknown.
+	 * @return The daily bar's close if the price is from a later trading day than the daily bar,
+	 * 		   otherwise the previous daily bar's close. Null if that bar is missing.
+	 */
+	private static Double referenceClose(StockSnapshot snapshot, OffsetDateTime priceTime) {
+		StockBar dailyBar = snapshot.getDailyBar();
+		if (priceTime != null && dailyBar != null && dailyBar.getC() != null && dailyBar.getT() != null) {
+			LocalDate priceDay = priceTime.atZoneSameInstant(MARKET_ZONE).toLocalDate();
+			LocalDate dailyBarDay = dailyBar.getT().atZoneSameInstant(MARKET_ZONE).toLocalDate();
+			if (dailyBarDay.isBefore(priceDay)) {
+				return dailyBar.getC();
+			}
+		}
+
+		StockBar prevDailyBar = snapshot.getPrevDailyBar();
+		return prevDailyBar == null ? null : prevDailyBar.getC();
+	}
+
 	/**
 	 * Gets the historical 1-day stock bars for the given ticker.
 	 *
@@ -0,0 +1,361 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.util.PipelineMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A client-side token bucket shared by every outbound Alpaca REST call, so that bulk work (chart
+ * prefetch, asset sync) and the price refreshes together stay within Alpaca's per-minute quota.
+ *
+ * <p>
+ * The bucket holds up to {@code vinayaka.alpaca.rate-limit-burst} tokens and refills at
+ * {@code vinayaka.alpaca.requests-per-minute}. Every request takes one token, waiting for it if the
+ * bucket is empty.
+ * </p>
+ *
+ * <p>
+ * <b>Priority Lanes:</b> Waiting requests are served by {@link Lane}, highest first: a request only gets
+ * a token while no request of a higher lane is waiting. Interactive work (search, adding a ticker)
+ * therefore goes ahead of the price refreshes, which go ahead of background downloads. The lane is
+ * taken from the calling thread, set with {@link #inLane(Lane, AlpacaCall)}, and is inherited by the
+ * threads that thread starts. Calls made outside of any lane count as {@link Lane#REFRESH}.
+ * </p>
+ *
+ * <p>
+ * <b>Throttling:</b> When Alpaca answers 429 (Too Many Requests) anyway (e.g., because another client
+ * shares the API key), the whole bucket is paused: until the time given by {@code Retry-After} or
+ * {@code X-RateLimit-Reset}, or with exponential backoff if neither is sent. The request is then retried,
+ * up to {@code vinayaka.alpaca.max-retries} times, before the error is passed on to the caller.
+ * </p>
+ *
+ * <p>
+ * <b>Metrics:</b> The number of waiting requests per lane ({@code vinayaka.alpaca.limiter.queue.depth})
+ * and the number of 429 answers ({@code vinayaka.alpaca.limiter.throttled}) are registered with
+ * Micrometer. Each request is also timed by outcome; see {@link PipelineMetrics}.
+ * </p>
+ */
+@Component
+public class AlpacaRateLimiter implements MeterBinder {
+	// Backoff after a 429 without a usable header: 1 s, 2 s, 4 s, ... (plus jitter), capped at a minute.
+	private static final long BASE_BACKOFF_MILLIS = 1_000;
+	private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+	/**
+	 * The priority of a request, highest first.
+	 */
+	public enum Lane {
+		/**
+		 * Work the user is waiting on: search lookups and adding a ticker.
+		 */
+		INTERACTIVE,
+		/**
+		 * Refresh cycles and the other work that keeps the board up to date.
+		 */
+		REFRESH,
+		/**
+		 * Bulk downloads nobody is waiting on: chart prefetch and asset sync.
+		 */
+		BACKGROUND
+	}
+
+	/**
+	 * A single Alpaca request.
+	 *
+	 * @param <T> The type of the response.
+	 * @param <E> The type of exception the request throws (the market data or trader ApiException).
+	 */
+	@FunctionalInterface
+	public interface AlpacaCall<T, E extends Exception> {
+		T call() throws E;
+	}
+
+	private static final InheritableThreadLocal<Lane> LANE = new InheritableThreadLocal<>() {
+		@Override
+		protected Lane initialValue() {
+			return Lane.REFRESH;
+		}
+	};
+
+	private final double capacity;
+	private final double nanosPerToken;
+	private final int maxRetries;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = this.lock.newCondition();
+	// The following are guarded by lock.
+	private final int[] waiting = new int[Lane.values().length];
+	private double tokens;
+	private long lastRefillNanos;
+	private long pausedUntilNanos;
+
+	private final AtomicLong throttled = new AtomicLong();
+
+	public AlpacaRateLimiter(VinayakaProperties properties) {
+		VinayakaProperties.Alpaca alpaca = properties.getAlpaca();
+		this.capacity = Math.max(1, alpaca.getRateLimitBurst());
+		this.nanosPerToken = (double) TimeUnit.MINUTES.toNanos(1) / Math.max(1, alpaca.getRequestsPerMinute());
+		this.maxRetries = Math.max(0, alpaca.getMaxRetries());
+		this.tokens = this.capacity;
+		this.lastRefillNanos = System.nanoTime();
+		this.pausedUntilNanos = this.lastRefillNanos;
+	}
+
+	/**
+	 * Runs work in the given lane: every Alpaca call it makes, on this thread or on threads it starts,
+	 * is queued in that lane.
+	 *
+	 * @param lane The lane.
+	 * @param work The work.
+	 * @return The work's result.
+	 */
+	public static <T, E extends Exception> T inLane(Lane lane, AlpacaCall<T, E> work) throws E {
+		Lane previous = LANE.get();
+		LANE.set(lane);
+		try {
+			return work.call();
+		} finally {
+			LANE.set(previous);
+		}
+	}
+
+	/**
+	 * @return The lane of the calling thread.
+	 */
+	public static Lane currentLane() {
+		return LANE.get();
+	}
+
+	/**
+	 * Sends a request once a token is available in the calling thread's lane, retrying it if Alpaca
+	 * answers 429.
+	 *
+	 * @param call The request.
+	 * @return The response.
+	 * @throws E The request's error, or the 429 once the retries are used up.
+	 */
+	public <T, E extends Exception> T call(AlpacaCall<T, E> call) throws E {
+		Lane lane = currentLane();
+		for (int attempt = 0; ; attempt++) {
+			this.acquire(lane);
+			long start = System.nanoTime();
+			try {
+				T response = call.call();
+				PipelineMetrics.recordAlpacaRequest(lane, "success", System.nanoTime() - start);
+				return response;
+			} catch (Exception e) {
+				Map<String, List<String>> headers = throttledResponseHeaders(e);
+				if (headers == null || attempt >= this.maxRetries) {
+					PipelineMetrics.recordAlpacaRequest(lane, "error", System.nanoTime() - start);
+					throw e;
+				}
+				PipelineMetrics.recordAlpacaRequest(lane, "throttled", System.nanoTime() - start);
+				long delayMillis = retryDelayMillis(headers, attempt, System.currentTimeMillis());
+				this.throttled.incrementAndGet();
+				System.out.println("Alpaca rate limit reached; pausing requests for " + delayMillis + " ms");
+				this.pause(delayMillis);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of requests waiting for a token in the given lane.
+	 */
+	public int getQueueDepth(Lane lane) {
+		this.lock.lock();
+		try {
+			return this.waiting[lane.ordinal()];
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The number of requests waiting for a token in any lane.
+	 */
+	public int getQueueDepth() {
+		this.lock.lock();
+		try {
+			int depth = 0;
+			for (int count : this.waiting) {
+				depth += count;
+			}
+			return depth;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return How many times Alpaca answered 429.
+	 */
+	public long getThrottledCount() {
+		return this.throttled.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		for (Lane lane : Lane.values()) {
+			Gauge.builder("vinayaka.alpaca.limiter.queue.depth", this, limiter -> limiter.getQueueDepth(lane))
+					.description("Alpaca requests waiting for the client-side rate limiter")
+					.tag("lane", lane.name().toLowerCase(Locale.ROOT))
+					.register(registry);
+		}
+		FunctionCounter.builder("vinayaka.alpaca.limiter.throttled", this, AlpacaRateLimiter::getThrottledCount)
+				.description("Alpaca requests answered with 429 Too Many Requests")
+				.register(registry);
+	}
+
+	/**
+	 * Takes a token, waiting while the bucket is empty or paused, or while a higher lane is waiting.
+	 */
+	void acquire(Lane lane) {
+		this.lock.lock();
+		try {
+			this.waiting[lane.ordinal()]++;
+			try {
+				while (true) {
+					long now = System.nanoTime();
+					this.refill(now);
+					if (now - this.pausedUntilNanos < 0) {
+						this.changed.awaitNanos(this.pausedUntilNanos - now);
+					} else if (this.higherLaneWaiting(lane)) {
+						// Woken up when a higher lane takes its token.
+						this.changed.await();
+					} else if (this.tokens >= 1) {
+						this.tokens -= 1;
+						return;
+					} else {
+						this.changed.awaitNanos((long) Math.ceil((1 - this.tokens) * this.nanosPerToken));
+					}
+				}
+			} finally {
+				this.waiting[lane.ordinal()]--;
+				this.changed.signalAll();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for the Alpaca rate limiter", e);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops handing out tokens for the given time and empties the bucket, so the requests that were
+	 * waiting don't all go out at once when the pause ends.
+	 */
+	private void pause(long delayMillis) {
+		this.lock.lock();
+		try {
+			long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+			if (until - this.pausedUntilNanos > 0) {
+				this.pausedUntilNanos = until;
+			}
+			this.tokens = 0;
+			this.lastRefillNanos = this.pausedUntilNanos;
+			this.changed.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void refill(long now) {
+		if (now - this.lastRefillNanos > 0) {
+			this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefillNanos) / this.nanosPerToken);
+			this.lastRefillNanos = now;
+		}
+	}
+
+	private boolean higherLaneWaiting(Lane lane) {
+		for (int i = 0; i < lane.ordinal(); i++) {
+			if (this.waiting[i] > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The response headers of the given error if it's a 429 from either Alpaca API, otherwise null.
+	 */
+	private static Map<String, List<String>> throttledResponseHeaders(Exception e) {
+		if (e instanceof net.jacobpeterson.alpaca.openapi.marketdata.ApiException apiException
+				&& apiException.getCode() == 429) {
+			return apiException.getResponseHeaders() != null ? apiException.getResponseHeaders() : Map.of();
+		}
+		if (e instanceof net.jacobpeterson.alpaca.openapi.trader.ApiException apiException
+				&& apiException.getCode() == 429) {
+			return apiException.getResponseHeaders() != null ? apiException.getResponseHeaders() : Map.of();
+		}
+		return null;
+	}
+
+	/**
+	 * Works out how long to wait after a 429: {@code Retry-After} (seconds or an HTTP date) if present,
+	 * otherwise Alpaca's {@code X-RateLimit-Reset} (epoch seconds), otherwise exponential backoff with
+	 * jitter.
+	 *
+	 * @param headers   The response headers of the 429.
+	 * @param attempt   How many times the request was retried already.
+	 * @param nowMillis The current time.
+	 * @return The delay in milliseconds, at most a minute.
+	 */
+	static long retryDelayMillis(Map<String, List<String>> headers, int attempt, long nowMillis) {
+		Long delay = null;
+		String retryAfter = header(headers, "Retry-After");
+		if (retryAfter != null) {
+			try {
+				delay = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+			} catch (NumberFormatException e) {
+				try {
+					delay = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+							.toInstant().toEpochMilli() - nowMillis;
+				} catch (DateTimeParseException ignored) {
+					// Fall through to the other header.
+				}
+			}
+		}
+		String reset = header(headers, "X-RateLimit-Reset");
+		if (delay == null && reset != null) {
+			try {
+				delay = TimeUnit.SECONDS.toMillis(Long.parseLong(reset.trim())) - nowMillis;
+			} catch (NumberFormatException ignored) {
+				// Fall through to the backoff.
+			}
+		}
+		if (delay == null) {
+			long backoff = BASE_BACKOFF_MILLIS << Math.min(attempt, 6);
+			delay = backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+		}
+		return Math.clamp(delay, 0, MAX_BACKOFF_MILLIS);
+	}
+
+	/**
+	 * @return The first value of the given header (names are case-insensitive), or null.
+	 */
+	private static String header(Map<String, List<String>> headers, String name) {
+		for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+			if (name.equalsIgnoreCase(header.getKey()) && header.getValue() != null && !header.getValue().isEmpty()) {
+				return header.getValue().getFirst();
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,225 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import jakarta.annotation.PreDestroy;
+import net.jacobpeterson.alpaca.openapi.marketdata.ApiException;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Splits multi-symbol Alpaca requests into bounded chunks, follows pagination and runs the chunks
+ * concurrently.
+ *
+ * <p>
+ * Alpaca's multi-symbol endpoints take every symbol as one comma-separated query parameter, and the
+ * bars endpoints cap each response at a page limit. With large watchlists, a single request risks
+ * URL-length failures and silently truncated results. This batcher:
+ * </p>
+ * <ul>
+ * <li>Splits symbol lists into chunks of at most {@code vinayaka.alpaca.chunk-size} symbols</li>
+ * <li>Follows {@code next_page_token} until every page of a chunk has been read</li>
+ * <li>Runs up to {@code vinayaka.alpaca.parallelism} chunks at the same time</li>
+ * <li>Merges the results into a single map</li>
+ * </ul>
+ * <p>
+ * Every request, page by page, goes through the {@link AlpacaRateLimiter} in the caller's lane.
+ * </p>
+ *
+ * <p>
+ * <b>Error Handling:</b> If any chunk fails, the remaining chunks are cancelled and the first
+ * {@link ApiException} is rethrown, so callers never mistake a partial result for a complete one.
+ * </p>
+ */
+@Component
+public class AlpacaRequestBatcher {
+	private final int chunkSize;
+	private final ExecutorService executor;
+	private final AlpacaRateLimiter rateLimiter;
+
+	/**
+	 * Fetches the data of one chunk of symbols from an endpoint without pagination.
+	 *
+	 * @param <V> The type of the per-symbol value (e.g., StockQuote).
+	 */
+	@FunctionalInterface
+	public interface ChunkFetcher<V> {
+		/**
+		 * @param symbols Comma separated symbols of this chunk.
+		 * @return A map of symbols to their values.
+		 */
+		Map<String, V> fetch(String symbols) throws ApiException;
+	}
+
+	/**
+	 * Fetches one page of one chunk of symbols from a paginated endpoint.
+	 *
+	 * @param <V> The type of the per-symbol list elements (e.g., StockBar).
+	 */
+	@FunctionalInterface
+	public interface PageFetcher<V> {
+		/**
+		 * @param symbols   Comma separated symbols of this chunk.
+		 * @param pageToken The page token returned by the previous page, or null for the first page.
+		 * @return The page.
+		 */
+		Page<V> fetch(String symbols, String pageToken) throws ApiException;
+	}
+
+	/**
+	 * One page of a paginated multi-symbol response.
+	 *
+	 * @param values        A map of symbols to the values on this page.
+	 * @param nextPageToken The token of the next page, or null/blank if this is the last page.
+	 */
+	public record Page<V>(Map<String, List<V>> values, String nextPageToken) {
+	}
+
+	/**
+	 * The work done for one chunk: a single request, or every page of a paginated request.
+	 */
+	@FunctionalInterface
+	private interface ChunkTask<R> {
+		R run(String symbols) throws ApiException;
+	}
+
+	public AlpacaRequestBatcher(VinayakaProperties properties, AlpacaRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+		VinayakaProperties.Alpaca alpaca = properties.getAlpaca();
+		this.chunkSize = Math.max(1, alpaca.getChunkSize());
+		int parallelism = Math.max(1, alpaca.getParallelism());
+		this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, "Alpaca-Batch");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Fetches a non-paginated multi-symbol endpoint (latest quotes, trades, snapshots) in chunks.
+	 *
+	 * @param symbols The symbols to fetch. Duplicates are requested once.
+	 * @param fetcher Performs the request for one chunk.
+	 * @return The merged map of symbols to their values.
+	 * @throws ApiException If any chunk fails.
+	 */
+	public <V> Map<String, V> fetch(List<String> symbols, ChunkFetcher<V> fetcher) throws ApiException {
+		List<Map<String, V>> results = this.runChunks(symbols,
+				chunk -> this.rateLimiter.call(() -> fetcher.fetch(chunk)));
+
+		Map<String, V> merged = new HashMap<>();
+		results.forEach(merged::putAll);
+		return merged;
+	}
+
+	/**
+	 * Fetches a paginated multi-symbol endpoint (bars) in chunks, reading every page of every chunk.
+	 *
+	 * @param symbols The symbols to fetch. Duplicates are requested once.
+	 * @param fetcher Performs the request for one page of one chunk.
+	 * @return The merged map of symbols to their values, in the order the pages were returned.
+	 * @throws ApiException If any page of any chunk fails.
+	 */
+	public <V> Map<String, List<V>> fetchPaged(List<String> symbols, PageFetcher<V> fetcher) throws ApiException {
+		List<Map<String, List<V>>> results = this.runChunks(symbols, chunk -> readAllPages(chunk,
+				(pageSymbols, pageToken) -> this.rateLimiter.call(() -> fetcher.fetch(pageSymbols, pageToken))));
+
+		Map<String, List<V>> merged = new HashMap<>();
+		results.forEach(merged::putAll);
+		return merged;
+	}
+
+	/**
+	 * Reads every page of a single request, concatenating the per-symbol lists. A symbol's values can
+	 * be split across a page boundary, so lists are appended rather than replaced.
+	 *
+	 * @param symbols Comma separated symbols of the request.
+	 * @param fetcher Performs the request for one page.
+	 * @return A map of symbols to all of their values across pages.
+	 * @throws ApiException If any page fails.
+	 */
+	public static <V> Map<String, List<V>> readAllPages(String symbols, PageFetcher<V> fetcher) throws ApiException {
+		Map<String, List<V>> values = new HashMap<>();
+		String pageToken = null;
+		do {
+			Page<V> page = fetcher.fetch(symbols, pageToken);
+			if (page.values() != null) {
+				page.values().forEach((symbol, pageValues) -> {
+					if (pageValues != null) {
+						values.computeIfAbsent(symbol, key -> new ArrayList<>()).addAll(pageValues);
+					}
+				});
+			}
+			pageToken = page.nextPageToken();
+		} while (pageToken != null && !pageToken.isBlank());
+
+		return values;
+	}
+
+	/**
+	 * Splits the symbols into chunks and runs the given task for each chunk. A single chunk runs on the
+	 * calling thread; more chunks run on the batch executor.
+	 *
+	 * @param symbols The symbols to split.
+	 * @param task    The task to run for each comma separated chunk.
+	 * @return The results of every chunk.
+	 * @throws ApiException The first failure of any chunk.
+	 */
+	private <R> List<R> runChunks(List<String> symbols, ChunkTask<R> task) throws ApiException {
+		List<String> chunks = this.chunk(symbols);
+		if (chunks.isEmpty()) {
+			return List.of();
+		}
+		if (chunks.size() == 1) {
+			return List.of(task.run(chunks.getFirst()));
+		}
+
+		// The pool threads queue their requests in the caller's rate limiter lane.
+		AlpacaRateLimiter.Lane lane = AlpacaRateLimiter.currentLane();
+		List<Future<R>> futures = new ArrayList<>();
+		for (String chunk : chunks) {
+			futures.add(this.executor.submit(() -> AlpacaRateLimiter.inLane(lane, () -> task.run(chunk))));
+		}
+
+		List<R> results = new ArrayList<>();
+		try {
+			for (Future<R> future : futures) {
+				results.add(future.get());
+			}
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			if (e.getCause() instanceof ApiException apiException) {
+				throw apiException;
+			}
+			throw new RuntimeException("Batched Alpaca request failed", e.getCause());
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for batched Alpaca request", e);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Splits the symbols into comma separated chunks of at most {@code chunkSize} symbols, dropping
+	 * duplicates.
+	 *
+	 * @param symbols The symbols to split.
+	 * @return The comma separated chunks.
+	 */
+	List<String> chunk(List<String> symbols) {
+		List<String> unique = new ArrayList<>(new LinkedHashSet<>(symbols));
+		List<String> chunks = new ArrayList<>();
+		for (int start = 0; start < unique.size(); start += this.chunkSize) {
+			chunks.add(String.join(",", unique.subList(start, Math.min(start + this.chunkSize, unique.size()))));
+		}
+		return chunks;
+	}
+}
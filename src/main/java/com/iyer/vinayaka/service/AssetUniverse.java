@@ -0,0 +1,259 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.DatabaseConfiguration;
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.model.AssetIndex;
+import com.iyer.vinayaka.model.AssetInfo;
+import com.iyer.vinayaka.model.AssetSearchIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.jacobpeterson.alpaca.openapi.trader.model.Assets;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tradable US equity universe, persisted locally and indexed in memory by symbol.
+ *
+ * <p>
+ * Downloading every active asset (10,000+ of them) used to happen synchronously while the main view
+ * was being constructed, on every startup, just so searches could check that a symbol exists. The
+ * universe is now kept in {@code assets.tsv} in the config directory and loaded into an
+ * {@link AssetIndex} in the background, so startup doesn't wait for it and searches need no network.
+ * </p>
+ *
+ * <p>
+ * <b>Search:</b> Alongside the index, an {@link AssetSearchIndex} over the symbols and official names
+ * answers type-ahead queries ({@link #search(String, int)}), so "alphabet" finds GOOGL and GOOG.
+ * </p>
+ *
+ * <p>
+ * <b>Refresh:</b> The assets endpoint has no "changed since" filter, so once the file is older than
+ * {@code vinayaka.asset-cache.refresh-hours}, the universe is downloaded again in the background and
+ * the differences (listings, delistings, renames) are applied by swapping in a new index and
+ * rewriting the file. Searches keep using the previous index meanwhile.
+ * </p>
+ *
+ * <p>
+ * <b>Fallback:</b> Until the first index is available (the very first run, before the download
+ * finishes), {@link #find(String)} looks a symbol up with a single API call, as before.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> The index is immutable and published through a volatile field. Loading and
+ * refreshing run on a single background thread.
+ * </p>
+ *
+ * @see AssetIndex
+ */
+@Component
+public class AssetUniverse {
+	private static final String HEADER = "#vinayaka-assets\t1";
+	// How often to check whether the universe is due for a refresh.
+	private static final long CHECK_INTERVAL_MINUTES = 60;
+
+	private final AlpacaMarketDataService alpacaMarketDataService;
+	private final Path file;
+	private final long refreshMillis;
+	private final ScheduledExecutorService executor;
+
+	private volatile AssetIndex index = AssetIndex.empty();
+	private volatile AssetSearchIndex searchIndex = AssetSearchIndex.empty();
+	private volatile long fetchedAtMillis = 0;
+
+	public AssetUniverse(AlpacaMarketDataService alpacaMarketDataService, VinayakaProperties properties) {
+		this.alpacaMarketDataService = alpacaMarketDataService;
+		VinayakaProperties.AssetCache assetCache = properties.getAssetCache();
+		this.file = assetCache.getFile() == null || assetCache.getFile().isBlank()
+				? DatabaseConfiguration.getConfigDirectory().resolve("assets.tsv")
+				: Path.of(assetCache.getFile());
+		this.refreshMillis = TimeUnit.HOURS.toMillis(assetCache.getRefreshHours());
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "asset-universe");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Loads the stored universe and schedules the refresh checks, all in the background.
+	 */
+	@PostConstruct
+	public void start() {
+		this.executor.execute(() -> {
+			this.loadFromDisk();
+			this.refreshIfStale();
+		});
+		this.executor.scheduleWithFixedDelay(this::refreshIfStale, CHECK_INTERVAL_MINUTES, CHECK_INTERVAL_MINUTES,
+				TimeUnit.MINUTES);
+	}
+
+	@PreDestroy
+	public void stop() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * @return The current index. Empty until the universe has been loaded for the first time.
+	 */
+	public AssetIndex getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * Finds an asset by symbol in the index. If no index has been loaded yet, falls back to asking the
+	 * API about that one symbol.
+	 *
+	 * @param symbol The ticker symbol, in any case.
+	 * @return The asset, or an empty Optional if no tradable asset has that symbol.
+	 */
+	public Optional<AssetInfo> find(String symbol) {
+		AssetIndex current = this.index;
+		if (!current.isEmpty()) {
+			return Optional.ofNullable(current.get(symbol));
+		}
+
+		Map<String, String> nameAndExchange = this.alpacaMarketDataService.getTickerNameAndExchange(symbol);
+		if (nameAndExchange.isEmpty()) {
+			return Optional.empty();
+		}
+		return Optional.of(new AssetInfo(symbol.toUpperCase(), nameAndExchange.get("officialName"),
+				nameAndExchange.get("listedExchange")));
+	}
+
+	/**
+	 * Finds the assets whose symbol or official name best match a partially typed query. Only the
+	 * loaded universe is searched; there are no suggestions before it's available.
+	 *
+	 * @param query The text typed so far.
+	 * @param limit The maximum number of suggestions.
+	 * @return Up to {@code limit} assets, best match first.
+	 * @see AssetSearchIndex#search(String, int)
+	 */
+	public List<AssetInfo> search(String query, int limit) {
+		return this.searchIndex.search(query, limit);
+	}
+
+	/**
+	 * Downloads the universe again if the stored one is older than the refresh interval.
+	 */
+	void refreshIfStale() {
+		if (System.currentTimeMillis() - this.fetchedAtMillis >= this.refreshMillis) {
+			this.refresh();
+		}
+	}
+
+	/**
+	 * Downloads the universe, swaps in the new index and stores it. If the download fails (it comes back
+	 * empty), the current index is kept and the download is retried at the next check.
+	 *
+	 * @return Whether the universe was updated.
+	 */
+	public boolean refresh() {
+		// A 10,000+ asset download nobody is waiting on; it yields to searches and refreshes.
+		List<Assets> assets = AlpacaRateLimiter.inLane(AlpacaRateLimiter.Lane.BACKGROUND,
+				this.alpacaMarketDataService::getAllAssets);
+		if (assets.isEmpty()) {
+			return false;
+		}
+
+		List<AssetInfo> infos = new ArrayList<>(assets.size());
+		for (Assets asset : assets) {
+			infos.add(new AssetInfo(asset.getSymbol(), asset.getName(),
+					asset.getExchange() != null ? asset.getExchange().getValue() : null));
+		}
+		AssetIndex updated = AssetIndex.of(infos);
+		int[] delta = updated.diff(this.index);
+		this.publish(updated);
+		this.fetchedAtMillis = System.currentTimeMillis();
+		System.out.println("Asset universe refreshed: " + updated.size() + " assets, " + delta[0] + " added, "
+				+ delta[1] + " removed, " + delta[2] + " changed.");
+
+		try {
+			this.writeToDisk(updated, this.fetchedAtMillis);
+		} catch (IOException e) {
+			System.err.println("Could not store the asset universe in " + this.file + ": " + e.getMessage());
+		}
+		return true;
+	}
+
+	/**
+	 * Loads the stored universe, if there is one. A missing or unreadable file just leaves the index
+	 * empty, so it's downloaded instead.
+	 */
+	void loadFromDisk() {
+		if (!Files.exists(this.file)) {
+			return;
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8)) {
+			String header = reader.readLine();
+			if (header == null || !header.startsWith(HEADER + "\t")) {
+				return;
+			}
+			long fetchedAt = Long.parseLong(header.substring(HEADER.length() + 1));
+
+			List<AssetInfo> infos = new ArrayList<>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", -1);
+				if (fields.length == 3) {
+					infos.add(new AssetInfo(fields[0], emptyToNull(fields[1]), emptyToNull(fields[2])));
+				}
+			}
+
+			this.publish(AssetIndex.of(infos));
+			this.fetchedAtMillis = fetchedAt;
+		} catch (IOException | NumberFormatException e) {
+			System.err.println("Could not read the asset universe from " + this.file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Builds the search index of a new universe and swaps both in.
+	 */
+	private void publish(AssetIndex updated) {
+		this.searchIndex = AssetSearchIndex.of(updated);
+		this.index = updated;
+	}
+
+	/**
+	 * Writes the index to a temporary file and moves it over the stored one, so a crash mid-write never
+	 * leaves a truncated universe behind.
+	 */
+	private void writeToDisk(AssetIndex index, long fetchedAt) throws IOException {
+		Files.createDirectories(this.file.toAbsolutePath().getParent());
+		Path temporary = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+			writer.write(HEADER + "\t" + fetchedAt);
+			writer.newLine();
+			for (int i = 0, size = index.size(); i < size; i++) {
+				AssetInfo asset = index.get(i);
+				writer.write(asset.symbol() + "\t" + sanitize(asset.name()) + "\t" + sanitize(asset.exchange()));
+				writer.newLine();
+			}
+		}
+		Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static String sanitize(String value) {
+		return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+	}
+
+	private static String emptyToNull(String value) {
+		return value.isEmpty() ? null : value;
+	}
+}
@@ -0,0 +1,133 @@
+package com.iyer.vinayaka.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a handful of independent blocking calls (typically Alpaca round trips) concurrently, each on
+ * its own virtual thread, and waits for all of them under a deadline.
+ *
+ * <p>
+ * This follows the shape of {@code StructuredTaskScope.ShutdownOnFailure}, which is still a preview API
+ * in Java 21: subtasks are forked inside a try-with-resources block, {@link #joinUntil(Instant)} waits
+ * for them, and no subtask outlives the block. The wall-clock time of the block is therefore that of
+ * the slowest call rather than the sum of all of them.
+ * </p>
+ *
+ * <p>
+ * <b>Fail-Fast:</b> As soon as one subtask fails, the others are cancelled (their threads are
+ * interrupted, which aborts blocking socket I/O on a virtual thread) and {@link #joinUntil(Instant)}
+ * rethrows the failure. The same happens when the deadline passes first. {@link #close()} cancels
+ * whatever is still running and waits for it to finish.
+ * </p>
+ *
+ * <pre>{@code
+ * try (FailFastTaskScope scope = new FailFastTaskScope("refresh")) {
+ *     Future<Map<String, Double>> closes = scope.fork(() -> fetchCloses());
+ *     Future<Map<String, List<StockBar>>> bars = scope.fork(() -> fetchBars());
+ *     scope.joinUntil(deadline);
+ *     use(closes.resultNow(), bars.resultNow());
+ * }
+ * }</pre>
+ *
+ * <p>
+ * <b>Thread Safety:</b> Subtasks may be forked and joined only by the thread that created the scope.
+ * </p>
+ */
+public final class FailFastTaskScope implements AutoCloseable {
+	private final ExecutorService executor;
+	private final List<Future<?>> subtasks = new ArrayList<>();
+
+	// Counts finished subtasks and holds the first failure. Guarded by this scope's monitor.
+	private int finished = 0;
+	private Throwable failure;
+
+	/**
+	 * @param name The name prefix of the subtask threads, e.g. "refresh".
+	 */
+	public FailFastTaskScope(String name) {
+		this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+	}
+
+	/**
+	 * Starts a subtask on a new virtual thread.
+	 *
+	 * @param task The subtask.
+	 * @return The subtask's future. Its result can be read with {@link Future#resultNow()} once
+	 *         {@link #joinUntil(Instant)} has returned normally.
+	 */
+	public <T> Future<T> fork(Callable<T> task) {
+		// done() runs once the result is set, so a joined scope can always read it.
+		FutureTask<T> subtask = new FutureTask<>(task) {
+			@Override
+			protected void done() {
+				FailFastTaskScope.this.finished(this);
+			}
+		};
+		this.subtasks.add(subtask);
+		this.executor.execute(subtask);
+		return subtask;
+	}
+
+	/**
+	 * Waits until every subtask has finished, one of them has failed, or the deadline has passed.
+	 *
+	 * @param deadline When to give up.
+	 * @throws ExecutionException   If a subtask failed. The cause is the first failure; the other
+	 *                              subtasks have been cancelled.
+	 * @throws TimeoutException     If the deadline passed first. Every subtask has been cancelled.
+	 * @throws InterruptedException If the waiting thread was interrupted. Every subtask has been
+	 *                              cancelled.
+	 */
+	public void joinUntil(Instant deadline) throws ExecutionException, TimeoutException, InterruptedException {
+		try {
+			synchronized (this) {
+				while (this.failure == null && this.finished < this.subtasks.size()) {
+					long remainingMillis = deadline.toEpochMilli() - System.currentTimeMillis();
+					if (remainingMillis <= 0) {
+						throw new TimeoutException("Deadline passed with " + (this.subtasks.size() - this.finished)
+								+ " of " + this.subtasks.size() + " tasks still running");
+					}
+					this.wait(remainingMillis);
+				}
+				if (this.failure != null) {
+					throw new ExecutionException(this.failure);
+				}
+			}
+		} catch (ExecutionException | TimeoutException | InterruptedException e) {
+			this.cancelAll();
+			throw e;
+		}
+	}
+
+	/**
+	 * Cancels the subtasks that are still running and waits for their threads to end.
+	 */
+	@Override
+	public void close() {
+		this.cancelAll();
+		this.executor.close();
+	}
+
+	private synchronized void finished(Future<?> subtask) {
+		this.finished++;
+		if (this.failure == null && subtask.state() == Future.State.FAILED) {
+			this.failure = subtask.exceptionNow();
+		}
+		this.notifyAll();
+	}
+
+	private void cancelAll() {
+		for (Future<?> subtask : this.subtasks) {
+			subtask.cancel(true);
+		}
+	}
+}
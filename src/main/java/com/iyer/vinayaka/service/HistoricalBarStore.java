@@ -0,0 +1,513 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.DatabaseConfiguration;
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.model.BarSeries;
+import com.iyer.vinayaka.util.PipelineMetrics;
+import net.jacobpeterson.alpaca.openapi.marketdata.ApiException;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBar;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A persistent, memory-mapped store of historical bars, laid out as one column per field.
+ *
+ * <p>
+ * Chart ranges (1W through 5Y) used to be downloaded in full on every request, even though every bar
+ * except the last one or two can no longer change. This store keeps each (symbol, timeframe) series on
+ * disk so a request only has to fetch the bars newer than the last stored one. Re-opening a 5Y chart
+ * becomes a read from the OS page cache instead of a multi-second download.
+ * </p>
+ *
+ * <p>
+ * <b>Layout:</b> Each series lives in {@code <bars dir>/<SYMBOL>/<timeframe>/} and consists of:
+ * </p>
+ * <ul>
+ * <li>{@code meta}: magic, version, bar count, generation, the earliest time the series covers and the
+ * day it was last downloaded in full</li>
+ * <li>{@code bars.<generation>}: the primitive columns one after the other, each {@code count * 8}
+ * bytes long: epoch seconds {@code t}, prices {@code o}, {@code h}, {@code l}, {@code c} as doubles,
+ * volume {@code v} as a long, {@code vw} as a double and the trade count {@code n} as a long</li>
+ * </ul>
+ * <p>
+ * Committed files are never written to. Every write (a full download or a new tail) goes to the file of
+ * the next generation: the stored bars before the first new one are copied over, the new bars are
+ * appended, and the file is forced to disk before a new {@code meta} atomically replaces the old one. A
+ * crash therefore leaves either the old or the new series, never a mix of both. Files of older
+ * generations are deleted afterwards. Chart series are at most a few thousand bars, so the copy is cheap
+ * next to the download it saves.
+ * </p>
+ *
+ * <p>
+ * <b>Mappings:</b> A series maps a single file, and only the {@value #MAX_OPEN_SERIES} most recently
+ * used series are kept open. Prefetching the charts of a large watchlist touches tens of thousands of
+ * series, which would otherwise run into the operating system's limit on mappings per process (65530
+ * by default on Linux). Closed series are mapped again when next used; unmapping is left to the GC.
+ * </p>
+ *
+ * <p>
+ * <b>Revalidation:</b> Bars are requested split and dividend adjusted, so a corporate action rewrites
+ * history that was already stored. Series are downloaded in full again after
+ * {@code vinayaka.bar-store.revalidate-days}, counted in New York days on the
+ * {@link MarketSessionClock}'s clock.
+ * </p>
+ *
+ * <p>
+ * <b>Error Handling:</b> The store is only an optimization. If the files can't be read or written, the
+ * error is logged and the bars are fetched directly as before.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> Each series has its own lock, which is only held while its files are read or
+ * written. Bars are fetched from the API outside of it, so a slow download doesn't hold up other
+ * charts or the prefetch.
+ * </p>
+ *
+ * @see AlpacaHistoricalBarsDataService#get5YHistoricalBars(String)
+ */
+@Component
+public class HistoricalBarStore {
+	// How many series are kept mapped at most.
+	static final int MAX_OPEN_SERIES = 256;
+
+	private final Path directory;
+	private final long revalidateDays;
+	private final MarketSessionClock sessionClock;
+	private final int maxOpenSeries;
+	// Series handles in least recently used order. Guarded by this map's monitor, as is Series.users.
+	private final LinkedHashMap<String, Series> openSeries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Fetches the bars of one series between two times from the API.
+	 */
+	@FunctionalInterface
+	public interface BarFetcher {
+		List<StockBar> fetch(OffsetDateTime startTime, OffsetDateTime endTime) throws ApiException;
+	}
+
+	public HistoricalBarStore(VinayakaProperties properties, MarketSessionClock sessionClock) {
+		this(properties, sessionClock, MAX_OPEN_SERIES);
+	}
+
+	HistoricalBarStore(VinayakaProperties properties, MarketSessionClock sessionClock, int maxOpenSeries) {
+		VinayakaProperties.BarStore barStore = properties.getBarStore();
+		this.directory = barStore.getDirectory() == null || barStore.getDirectory().isBlank()
+				? DatabaseConfiguration.getConfigDirectory().resolve("bars")
+				: Path.of(barStore.getDirectory());
+		this.revalidateDays = barStore.getRevalidateDays();
+		this.sessionClock = sessionClock;
+		this.maxOpenSeries = maxOpenSeries;
+	}
+
+	/**
+	 * Gets the bars of a series between two times. The stored bars are used when they cover the start
+	 * time, and only the bars from the last stored one onwards are fetched (the last bar may still have
+	 * been forming when it was stored). Otherwise, the whole range is fetched and stored.
+	 *
+	 * @param symbol    The ticker symbol.
+	 * @param timeFrame The timeframe of the bars (e.g., "1H", "1D").
+	 * @param startTime The start of the range.
+	 * @param endTime   The end of the range.
+	 * @param fetcher   Fetches bars from the API.
+	 * @return The bars between the start and end times in ascending order, copied out of the mapped
+	 * 		   columns in bulk.
+	 * @throws ApiException If the fetcher fails. The stored series is left unchanged in that case.
+	 */
+	public BarSeries getSeries(String symbol, String timeFrame, OffsetDateTime startTime, OffsetDateTime endTime,
+							   BarFetcher fetcher) throws ApiException {
+		long start = startTime.toEpochSecond();
+		long end = endTime.toEpochSecond();
+		long today = this.today();
+		Series series = this.acquire(symbol, timeFrame);
+		List<StockBar> bars = null;
+
+		try {
+			long lastStored;
+			synchronized (series) {
+				series.load();
+				boolean covered = this.covers(series, start, today);
+				PipelineMetrics.recordCacheLookup("bar-store", covered ? 1 : 0, covered ? 0 : 1);
+				lastStored = covered ? series.timestamp(series.count() - 1) : Long.MIN_VALUE;
+			}
+
+			if (lastStored != Long.MIN_VALUE) {
+				List<StockBar> tail = fetcher.fetch(
+						OffsetDateTime.ofInstant(Instant.ofEpochSecond(lastStored), startTime.getOffset()), endTime);
+				synchronized (series) {
+					if (!tail.isEmpty()) {
+						// Replace from the first fetched bar on, including the possibly incomplete last bar.
+						series.write(series.lowerBound(tail.getFirst().getT().toEpochSecond()), tail,
+								series.coveredFrom(), series.fetchedDay());
+					}
+					return series.read(series.lowerBound(start), series.lowerBound(end + 1));
+				}
+			}
+
+			bars = fetcher.fetch(startTime, endTime);
+			if (bars.isEmpty()) {
+				return BarSeries.empty();
+			}
+			synchronized (series) {
+				series.write(0, bars, start, today);
+				return series.read(series.lowerBound(start), series.lowerBound(end + 1));
+			}
+		} catch (IOException e) {
+			System.err.println("Bar store unavailable for " + symbol + " " + timeFrame + ": " + e.getMessage());
+			return BarSeries.fromStockBars(bars != null ? bars : fetcher.fetch(startTime, endTime));
+		} finally {
+			this.release(series);
+		}
+	}
+
+	/**
+	 * Whether the stored bars of a series cover the given start time and are recent enough to be used,
+	 * i.e. whether {@link #getSeries} would only have to fetch the newest bars.
+	 *
+	 * @param symbol    The ticker symbol.
+	 * @param timeFrame The timeframe of the bars.
+	 * @param startTime The start of the range.
+	 * @return Whether the series is stored. False if the files can't be read.
+	 */
+	public boolean isStored(String symbol, String timeFrame, OffsetDateTime startTime) {
+		Series series = this.acquire(symbol, timeFrame);
+		try {
+			synchronized (series) {
+				series.load();
+				return this.covers(series, startTime.toEpochSecond(), this.today());
+			}
+		} catch (IOException e) {
+			System.err.println("Bar store unavailable for " + symbol + " " + timeFrame + ": " + e.getMessage());
+			return false;
+		} finally {
+			this.release(series);
+		}
+	}
+
+	/**
+	 * Stores a series that was downloaded in full elsewhere (e.g., by a bulk prefetch), replacing the
+	 * stored bars. A later {@link #getSeries} call for a range starting at or after the start time then
+	 * only fetches the newest bars.
+	 *
+	 * @param symbol    The ticker symbol.
+	 * @param timeFrame The timeframe of the bars.
+	 * @param startTime The start of the range the bars were fetched for.
+	 * @param bars      Every bar of the range in ascending order. Nothing is stored if it's empty.
+	 */
+	public void storeSeries(String symbol, String timeFrame, OffsetDateTime startTime, List<StockBar> bars) {
+		if (bars.isEmpty()) {
+			return;
+		}
+		Series series = this.acquire(symbol, timeFrame);
+		try {
+			synchronized (series) {
+				series.load();
+				series.write(0, bars, startTime.toEpochSecond(), this.today());
+			}
+		} catch (IOException e) {
+			System.err.println("Bar store unavailable for " + symbol + " " + timeFrame + ": " + e.getMessage());
+		} finally {
+			this.release(series);
+		}
+	}
+
+	/**
+	 * @return Today's epoch day in New York, from the session clock.
+	 */
+	private long today() {
+		return LocalDate.ofInstant(this.sessionClock.getClock().instant(), this.sessionClock.getZone()).toEpochDay();
+	}
+
+	/**
+	 * @return Whether the series has bars from the given start time on and isn't due for revalidation.
+	 */
+	private boolean covers(Series series, long start, long today) {
+		return series.count() > 0 && series.coveredFrom() <= start && today - series.fetchedDay() < this.revalidateDays;
+	}
+
+	/**
+	 * Gets the (cached) handle of a series and marks it in use, closing the least recently used series
+	 * that aren't in use beyond the limit. A series in use is never closed, so there is only ever one
+	 * handle (and one lock) per series. Its files are only read on {@link Series#load()}.
+	 */
+	private Series acquire(String symbol, String timeFrame) {
+		synchronized (this.openSeries) {
+			Series series = this.openSeries.computeIfAbsent(symbol + "/" + timeFrame,
+					key -> new Series(this.directory.resolve(symbol).resolve(timeFrame)));
+			series.users++;
+			Iterator<Series> eldest = this.openSeries.values().iterator();
+			while (this.openSeries.size() > this.maxOpenSeries && eldest.hasNext()) {
+				if (eldest.next().users == 0) {
+					eldest.remove();
+				}
+			}
+			return series;
+		}
+	}
+
+	private void release(Series series) {
+		synchronized (this.openSeries) {
+			series.users--;
+		}
+	}
+
+	/**
+	 * @return How many series are open.
+	 */
+	int openSeriesCount() {
+		synchronized (this.openSeries) {
+			return this.openSeries.size();
+		}
+	}
+
+	/**
+	 * The memory-mapped file of a single (symbol, timeframe) series. Callers hold the series' lock.
+	 */
+	private static final class Series {
+		private static final int MAGIC = 0x56424152; // "VBAR"
+		private static final int VERSION = 3;
+		private static final int META_SIZE = 40;
+		private static final int COUNT_OFFSET = 8;
+		private static final int GENERATION_OFFSET = 16;
+		private static final int COVERED_FROM_OFFSET = 24;
+		private static final int FETCHED_DAY_OFFSET = 32;
+		private static final String META = "meta";
+		private static final String BARS = "bars";
+		private static final int COLUMNS = 8;
+		private static final int T = 0, O = 1, H = 2, L = 3, C = 4, V = 5, VW = 6, N = 7;
+
+		private final Path directory;
+		// How many callers are using this series. Guarded by the open series map's monitor.
+		private int users = 0;
+		private MappedByteBuffer bars;
+		private boolean loaded = false;
+		private int count = 0;
+		private long generation = 0;
+		private long coveredFrom = Long.MAX_VALUE;
+		private long fetchedDay = 0;
+
+		Series(Path directory) {
+			this.directory = directory;
+		}
+
+		/**
+		 * Reads the meta file and maps the bars file it points to, on first use. A series that doesn't
+		 * exist, was written by another version or points to a missing or short file starts out empty.
+		 */
+		void load() throws IOException {
+			if (this.loaded) {
+				return;
+			}
+
+			Path metaFile = this.directory.resolve(META);
+			if (Files.isRegularFile(metaFile)) {
+				ByteBuffer meta = ByteBuffer.wrap(Files.readAllBytes(metaFile));
+				if (meta.capacity() == META_SIZE && meta.getInt(0) == MAGIC && meta.getInt(4) == VERSION
+						&& this.hasBars(meta.getLong(GENERATION_OFFSET), meta.getInt(COUNT_OFFSET))) {
+					this.count = meta.getInt(COUNT_OFFSET);
+					this.generation = meta.getLong(GENERATION_OFFSET);
+					this.coveredFrom = meta.getLong(COVERED_FROM_OFFSET);
+					this.fetchedDay = meta.getLong(FETCHED_DAY_OFFSET);
+					this.bars = map(this.file(this.generation), size(this.count), false);
+				}
+				this.deleteOtherGenerations();
+			}
+			this.loaded = true;
+		}
+
+		int count() {
+			return this.count;
+		}
+
+		long coveredFrom() {
+			return this.coveredFrom;
+		}
+
+		long fetchedDay() {
+			return this.fetchedDay;
+		}
+
+		long timestamp(int index) {
+			return this.bars.getLong(offset(T, this.count, index));
+		}
+
+		/**
+		 * @return The index of the first bar at or after the given epoch second, or the count if none.
+		 */
+		int lowerBound(long epochSecond) {
+			int low = 0;
+			int high = this.count;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (this.timestamp(mid) < epochSecond) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * Commits a new generation made of the stored bars before the given index followed by the given
+		 * bars, covering the given range.
+		 */
+		void write(int from, List<StockBar> bars, long newCoveredFrom, long newFetchedDay) throws IOException {
+			Files.createDirectories(this.directory);
+			long nextGeneration = this.generation + 1;
+			int newCount = from + bars.size();
+
+			MappedByteBuffer next = map(this.file(nextGeneration), size(newCount), true);
+			if (from > 0) {
+				for (int column = 0; column < COLUMNS; column++) {
+					next.put(offset(column, newCount, 0), this.bars, offset(column, this.count, 0), from * 8);
+				}
+			}
+			for (int i = 0; i < bars.size(); i++) {
+				StockBar bar = bars.get(i);
+				int index = from + i;
+				next.putLong(offset(T, newCount, index), bar.getT().toEpochSecond());
+				next.putDouble(offset(O, newCount, index), valueOf(bar.getO()));
+				next.putDouble(offset(H, newCount, index), valueOf(bar.getH()));
+				next.putDouble(offset(L, newCount, index), valueOf(bar.getL()));
+				next.putDouble(offset(C, newCount, index), valueOf(bar.getC()));
+				next.putLong(offset(V, newCount, index), bar.getV() != null ? bar.getV() : 0L);
+				next.putDouble(offset(VW, newCount, index), valueOf(bar.getVw()));
+				next.putLong(offset(N, newCount, index), bar.getN() != null ? bar.getN() : 0L);
+			}
+			next.force();
+
+			// Commit by swapping in a meta file that points to the new file, once it is on disk.
+			ByteBuffer meta = ByteBuffer.allocate(META_SIZE)
+					.putInt(0, MAGIC).putInt(4, VERSION).putInt(COUNT_OFFSET, newCount)
+					.putLong(GENERATION_OFFSET, nextGeneration).putLong(COVERED_FROM_OFFSET, newCoveredFrom)
+					.putLong(FETCHED_DAY_OFFSET, newFetchedDay);
+			Path pending = this.directory.resolve(META + ".tmp");
+			Files.write(pending, meta.array(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+			Files.move(pending, this.directory.resolve(META), StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+
+			this.bars = next;
+			this.count = newCount;
+			this.generation = nextGeneration;
+			this.coveredFrom = newCoveredFrom;
+			this.fetchedDay = newFetchedDay;
+			this.deleteOtherGenerations();
+		}
+
+		/**
+		 * Copies the bars in [from, to) out of the mapped file into a BarSeries.
+		 */
+		BarSeries read(int from, int to) {
+			int count = Math.max(0, to - from);
+			if (count == 0) {
+				return BarSeries.empty();
+			}
+			long[] timestamps = new long[count];
+			double[] open = new double[count];
+			double[] high = new double[count];
+			double[] low = new double[count];
+			double[] close = new double[count];
+			long[] volume = new long[count];
+			double[] vwap = new double[count];
+			long[] tradeCount = new long[count];
+
+			this.longs(T, from, timestamps);
+			this.doubles(O, from, open);
+			this.doubles(H, from, high);
+			this.doubles(L, from, low);
+			this.doubles(C, from, close);
+			this.longs(V, from, volume);
+			this.doubles(VW, from, vwap);
+			this.longs(N, from, tradeCount);
+
+			return new BarSeries(timestamps, open, high, low, close, volume, vwap, tradeCount);
+		}
+
+		private void longs(int column, int from, long[] into) {
+			this.bars.slice(offset(column, this.count, from), into.length * 8).asLongBuffer().get(into);
+		}
+
+		private void doubles(int column, int from, double[] into) {
+			this.bars.slice(offset(column, this.count, from), into.length * 8).asDoubleBuffer().get(into);
+		}
+
+		private Path file(long generation) {
+			return this.directory.resolve(BARS + "." + generation);
+		}
+
+		/**
+		 * @return Whether the file of the given generation holds at least the given number of bars.
+		 */
+		private boolean hasBars(long generation, int count) throws IOException {
+			Path file = this.file(generation);
+			return Files.isRegularFile(file) && Files.size(file) >= size(count);
+		}
+
+		/**
+		 * @return The byte offset of a bar's value in the given column of a file of count bars.
+		 */
+		private static int offset(int column, int count, int index) {
+			return (column * count + index) * 8;
+		}
+
+		private static long size(int count) {
+			return (long) COLUMNS * count * 8;
+		}
+
+		/**
+		 * Deletes the bar files of other generations, including those of a write that crashed before
+		 * committing. Files that can't be deleted yet (e.g., still mapped on Windows) are left for later.
+		 */
+		private void deleteOtherGenerations() {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+				String suffix = "." + this.generation;
+				for (Path file : files) {
+					String name = file.getFileName().toString();
+					if (!name.equals(META) && !(this.count > 0 && name.endsWith(suffix))) {
+						try {
+							Files.deleteIfExists(file);
+						} catch (IOException e) {
+							// Retried after the next write.
+						}
+					}
+				}
+			} catch (IOException e) {
+				System.err.println("Could not clean up " + this.directory + ": " + e.getMessage());
+			}
+		}
+
+		private static MappedByteBuffer map(Path file, long size, boolean create) throws IOException {
+			if (!create) {
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+					return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				}
+			}
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				// Mapping past the end of the file extends it; the mapping stays valid after the channel closes.
+				return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			}
+		}
+
+		private static double valueOf(Double value) {
+			return value != null ? value : Double.NaN;
+		}
+	}
+}
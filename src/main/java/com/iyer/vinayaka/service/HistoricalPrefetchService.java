@@ -0,0 +1,277 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import jakarta.annotation.PreDestroy;
+import net.jacobpeterson.alpaca.AlpacaAPI;
+import net.jacobpeterson.alpaca.openapi.marketdata.ApiException;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.Sort;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockAdjustment;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBar;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBarsResp;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockFeed;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Warms the chart ranges of the whole watchlist in the background, so opening a chart is a read from
+ * the {@link HistoricalBarStore} instead of a download.
+ *
+ * <p>
+ * The chart methods of {@link AlpacaHistoricalBarsDataService} take one symbol each, so warming every
+ * range of a 200-symbol watchlist one chart at a time would take a thousand sequential calls. This
+ * service instead:
+ * </p>
+ * <ul>
+ * <li>Fetches only the longest range of each timeframe the bar store keeps (1M of hourly bars also
+ * covers 1W, and 1Y of daily bars also covers 3M), and only for the series that aren't stored yet</li>
+ * <li>Requests them with the multi-symbol stockBars endpoint, in chunks of
+ * {@code vinayaka.alpaca.chunk-size} symbols, following every page of each chunk</li>
+ * <li>Runs every chunk on its own virtual thread, at most {@code vinayaka.prefetch.concurrency} at a
+ * time</li>
+ * <li>Spaces the requests (pages included) to stay within {@code vinayaka.prefetch.requests-per-minute},
+ * leaving the rest of Alpaca's rate limit to the price refreshes. The requests also queue in the
+ * {@link AlpacaRateLimiter}'s background lane, behind everything the user is waiting on</li>
+ * <li>Writes each symbol's bars into the bar store, where the chart methods pick them up</li>
+ * </ul>
+ * <p>
+ * 1D charts aren't prefetched: they show the intraday session, which changes every few minutes and
+ * isn't kept in the bar store.
+ * </p>
+ *
+ * <p>
+ * <b>Progress:</b> Each finished chunk is logged with the running count of prefetched series, and the
+ * latest counts are available from {@link #getProgress()}.
+ * </p>
+ *
+ * <p>
+ * <b>Error Handling:</b> A chunk that fails is logged and counted as failed. The other chunks carry on,
+ * and the charts of the failed symbols are downloaded when they are opened, as before.
+ * </p>
+ */
+@Service
+public class HistoricalPrefetchService {
+	private final AlpacaAPI alpacaAPI;
+	private final HistoricalBarStore barStore;
+	private final AlpacaRequestBatcher requestBatcher;
+	private final MarketSessionClock sessionClock;
+	private final AlpacaRateLimiter rateLimiter;
+	private final boolean enabled;
+	private final int concurrency;
+	private final long requestIntervalNanos;
+
+	// Runs one prefetch at a time; each fans out over virtual threads.
+	private final ExecutorService executor;
+	private volatile Progress progress = new Progress(0, 0, 0, 0);
+
+	// When the next request may be sent, in System.nanoTime() terms. Guarded by this service's monitor.
+	private long nextRequestNanos = System.nanoTime();
+
+	private final long historicalDataLimit = 10000;
+	private final String currency = "USD";
+
+	/**
+	 * A range the charts show, identified by the timeframe it's stored under and how far back it goes.
+	 * Must match the ranges of {@link AlpacaHistoricalBarsDataService}.
+	 */
+	private record ChartRange(String timeFrame, int months, int years) {
+	}
+
+	// The longest range of each stored timeframe: 1M (also covers 1W), 1Y (also covers 3M) and 5Y.
+	private static final List<ChartRange> RANGES = List.of(
+			new ChartRange("1H", 1, 0),
+			new ChartRange("1D", 0, 1),
+			new ChartRange("7D", 0, 5));
+
+	/**
+	 * Counts of one prefetch run.
+	 *
+	 * @param totalSeries     The number of (symbol, timeframe) series the run had to fetch.
+	 * @param fetchedSeries   The number of those that were fetched (including those Alpaca had no bars for).
+	 * @param failedSeries    The number of those whose chunk failed.
+	 * @param requests        The number of requests sent so far.
+	 */
+	public record Progress(int totalSeries, int fetchedSeries, int failedSeries, int requests) {
+		/**
+		 * @return Whether every series was either fetched or failed.
+		 */
+		public boolean isDone() {
+			return this.fetchedSeries + this.failedSeries >= this.totalSeries;
+		}
+	}
+
+	public HistoricalPrefetchService(AlpacaAPI alpacaAPI, HistoricalBarStore barStore,
+									 AlpacaRequestBatcher requestBatcher, MarketSessionClock sessionClock,
+									 AlpacaRateLimiter rateLimiter, VinayakaProperties properties) {
+		this.alpacaAPI = alpacaAPI;
+		this.barStore = barStore;
+		this.requestBatcher = requestBatcher;
+		this.sessionClock = sessionClock;
+		this.rateLimiter = rateLimiter;
+		VinayakaProperties.Prefetch prefetch = properties.getPrefetch();
+		this.enabled = prefetch.isEnabled() && properties.getBarStore().isEnabled();
+		this.concurrency = Math.max(1, prefetch.getConcurrency());
+		this.requestIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, prefetch.getRequestsPerMinute());
+		this.executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "chart-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Prefetches the chart ranges of the given symbols in the background, if
+	 * {@code vinayaka.prefetch.enabled} is set (and the bar store is enabled). Runs queue up behind each
+	 * other; a run skips the series that earlier runs already stored.
+	 *
+	 * @param symbols The symbols to prefetch, typically the whole watchlist or a newly added ticker.
+	 * @return Completes with the final counts of the run, or right away with zero counts when disabled.
+	 */
+	public CompletableFuture<Progress> prefetch(List<String> symbols) {
+		if (!this.enabled || symbols.isEmpty() || this.executor.isShutdown()) {
+			return CompletableFuture.completedFuture(new Progress(0, 0, 0, 0));
+		}
+		return CompletableFuture.supplyAsync(
+				() -> AlpacaRateLimiter.inLane(AlpacaRateLimiter.Lane.BACKGROUND, () -> this.run(List.copyOf(symbols))),
+				this.executor);
+	}
+
+	/**
+	 * @return The counts of the current (or last) run.
+	 */
+	public Progress getProgress() {
+		return this.progress;
+	}
+
+	@PreDestroy
+	public void stop() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Fetches every missing series of the given symbols and waits until all chunks have finished.
+	 */
+	private Progress run(List<String> symbols) {
+		ZonedDateTime now = ZonedDateTime.now(this.sessionClock.getClock().withZone(this.sessionClock.getZone()));
+		LocalDate today = now.toLocalDate();
+		OffsetDateTime endTime = OffsetDateTime.of(today, LocalTime.of(23, 59, 59), now.getOffset());
+
+		// Plan the chunks: per range, the symbols whose series isn't stored yet.
+		record Chunk(ChartRange range, OffsetDateTime startTime, String symbols, int size) {
+		}
+		List<Chunk> chunks = new ArrayList<>();
+		int totalSeries = 0;
+		for (ChartRange range : RANGES) {
+			LocalDate startDay = today.minusMonths(range.months()).minusYears(range.years());
+			OffsetDateTime startTime = OffsetDateTime.of(startDay, LocalTime.MIDNIGHT, now.getOffset());
+			List<String> missing = symbols.stream()
+					.filter(symbol -> !this.barStore.isStored(symbol, range.timeFrame(), startTime))
+					.toList();
+			for (String chunk : this.requestBatcher.chunk(missing)) {
+				int size = chunk.split(",").length;
+				chunks.add(new Chunk(range, startTime, chunk, size));
+				totalSeries += size;
+			}
+		}
+		if (chunks.isEmpty()) {
+			return this.progress = new Progress(0, 0, 0, 0);
+		}
+
+		AtomicInteger fetched = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		AtomicInteger requests = new AtomicInteger();
+		int total = totalSeries;
+		this.progress = new Progress(total, 0, 0, 0);
+		System.out.println("Prefetching " + total + " chart series for " + symbols.size() + " symbols in "
+				+ chunks.size() + " chunks");
+
+		Semaphore permits = new Semaphore(this.concurrency);
+		long startNanos = System.nanoTime();
+		try (ExecutorService virtualThreads = Executors.newThreadPerTaskExecutor(
+				Thread.ofVirtual().name("chart-prefetch-", 0).factory())) {
+			for (Chunk chunk : chunks) {
+				virtualThreads.execute(() -> {
+					try {
+						permits.acquire();
+						try {
+							Map<String, List<StockBar>> bars = this.fetchChunk(chunk.symbols(), chunk.range().timeFrame(),
+									chunk.startTime(), endTime, requests);
+							bars.forEach((symbol, symbolBars) ->
+									this.barStore.storeSeries(symbol, chunk.range().timeFrame(), chunk.startTime(), symbolBars));
+							fetched.addAndGet(chunk.size());
+						} finally {
+							permits.release();
+						}
+					} catch (ApiException e) {
+						failed.addAndGet(chunk.size());
+						System.out.println(e.getCode() + "\n" + e.getMessage());
+					} catch (InterruptedException e) {
+						failed.addAndGet(chunk.size());
+						Thread.currentThread().interrupt();
+						return;
+					} catch (RuntimeException e) {
+						failed.addAndGet(chunk.size());
+						System.err.println("Could not prefetch " + chunk.range().timeFrame() + " bars of "
+								+ chunk.symbols() + ": " + e.getMessage());
+					}
+
+					this.progress = new Progress(total, fetched.get(), failed.get(), requests.get());
+					System.out.println("Prefetched " + (fetched.get() + failed.get()) + "/" + total
+							+ " chart series (" + failed.get() + " failed, " + requests.get() + " requests)");
+				});
+			}
+		}
+
+		this.progress = new Progress(total, fetched.get(), failed.get(), requests.get());
+		System.out.printf("Chart prefetch finished in %d ms%n",
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+		return this.progress;
+	}
+
+	/**
+	 * Fetches every page of one chunk from the multi-symbol stockBars endpoint, with the same feed and
+	 * adjustment as the chart methods.
+	 */
+	private Map<String, List<StockBar>> fetchChunk(String symbols, String timeFrame, OffsetDateTime startTime,
+												   OffsetDateTime endTime, AtomicInteger requests)
+			throws ApiException {
+		return AlpacaRequestBatcher.readAllPages(symbols, (chunk, pageToken) -> {
+			this.awaitRequestSlot();
+			requests.incrementAndGet();
+			StockBarsResp response = this.rateLimiter.call(() -> this.alpacaAPI.marketData().stock().stockBars(
+					chunk, timeFrame, startTime, endTime, this.historicalDataLimit, StockAdjustment.ALL, null,
+					StockFeed.SIP, this.currency, pageToken, Sort.ASC));
+			return new AlpacaRequestBatcher.Page<>(response.getBars(), response.getNextPageToken());
+		});
+	}
+
+	/**
+	 * Waits until the next request fits in the rate budget. Requests are spaced evenly, one every
+	 * {@code 60 s / requests-per-minute}, across all chunks. If the thread is interrupted (on shutdown),
+	 * it stops waiting and the request that follows fails.
+	 */
+	private void awaitRequestSlot() {
+		long slot;
+		synchronized (this) {
+			slot = Math.max(System.nanoTime(), this.nextRequestNanos);
+			this.nextRequestNanos = slot + this.requestIntervalNanos;
+		}
+		long waitNanos = slot - System.nanoTime();
+		if (waitNanos > 0) {
+			LockSupport.parkNanos(waitNanos);
+		}
+	}
+}
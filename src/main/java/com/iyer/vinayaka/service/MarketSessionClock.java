@@ -0,0 +1,411 @@
+package com.iyer.vinayaka.service;
+
+import net.jacobpeterson.alpaca.AlpacaAPI;
+import net.jacobpeterson.alpaca.openapi.trader.model.Calendar;
+import org.springframework.stereotype.Component;
+
+import java.time.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Answers market-hours questions ("is the market open", "which were the last N sessions", "when is the
+ * next open") from an index of the Alpaca trading calendar.
+ *
+ * <p>
+ * The calendar from one year back to one year ahead is fetched once and stored as sorted primitive
+ * arrays: the epoch day of every session plus its real regular open/close and extended session
+ * open/close as epoch seconds. Early closes (e.g., the day after Thanksgiving) therefore close at the
+ * time the exchange actually closes, instead of a hardcoded 4:00 PM. Every query is a binary search
+ * over these arrays: O(log n), with no allocation.
+ * </p>
+ *
+ * <p>
+ * <b>Sessions:</b> The loaded calendar is an immutable {@link Sessions} snapshot. Sessions are
+ * addressed by index within a snapshot, oldest first. {@link Sessions#latestSessionIndex(long)} gives
+ * the most recent session that has opened at a given time, so the last N sessions are the indexes
+ * {@code [latest - N + 1, latest]}. An index is only meaningful for the snapshot it came from, so
+ * callers that work with indexes take one snapshot with {@link #sessions()} and ask it everything.
+ * </p>
+ *
+ * <p>
+ * <b>Loading:</b> The calendar is loaded on a background thread on first use, and loaded again 30 days
+ * before the loaded one runs out (or a few minutes after a failed load). Until the first load finishes,
+ * the snapshot is empty; background threads that can't do anything without the calendar wait for it
+ * with {@link #awaitSessions(Duration)}.
+ * </p>
+ *
+ * <p>
+ * <b>Time:</b> "Now" always comes from the injected {@link Clock}, so tests can pin the time to, say,
+ * a pre-market Monday or the afternoon of a half-day.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> Snapshots are immutable and published through a volatile field. Only
+ * {@link #awaitSessions(Duration)} blocks; every other query returns at once.
+ * </p>
+ */
+@Component
+public class MarketSessionClock {
+	private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+	// Reload when the loaded calendar runs out in less than this many days.
+	private static final long RELOAD_MARGIN_DAYS = 30;
+	// After a failed load, wait this long before asking Alpaca again.
+	private static final long RETRY_SECONDS = 300;
+
+	private final AlpacaAPI alpacaAPI;
+	private final Clock clock;
+	private final AlpacaRateLimiter rateLimiter;
+	private volatile Sessions sessions = Sessions.EMPTY;
+	// The load in progress, or null. Guarded by this.
+	private CompletableFuture<Sessions> pendingLoad;
+
+	/**
+	 * An immutable snapshot of the trading calendar. All arrays are sorted and have one entry per
+	 * session; session indexes refer to positions in them.
+	 */
+	public static final class Sessions {
+		private static final Sessions EMPTY = new Sessions(new long[0], new long[0], new long[0], new long[0],
+				new long[0], Long.MIN_VALUE);
+
+		private final long[] days;
+		private final long[] opens;
+		private final long[] closes;
+		private final long[] sessionOpens;
+		private final long[] sessionCloses;
+		private final long reloadAtEpochSecond;
+
+		private Sessions(long[] days, long[] opens, long[] closes, long[] sessionOpens, long[] sessionCloses,
+						 long reloadAtEpochSecond) {
+			this.days = days;
+			this.opens = opens;
+			this.closes = closes;
+			this.sessionOpens = sessionOpens;
+			this.sessionCloses = sessionCloses;
+			this.reloadAtEpochSecond = reloadAtEpochSecond;
+		}
+
+		private Sessions withReloadAt(long epochSecond) {
+			return new Sessions(this.days, this.opens, this.closes, this.sessionOpens, this.sessionCloses,
+					epochSecond);
+		}
+
+		/**
+		 * @return Whether the regular session is open at the given epoch second.
+		 */
+		public boolean isOpen(long epochSecond) {
+			int session = this.latestSessionIndex(epochSecond);
+			return session >= 0 && epochSecond < this.closes[session];
+		}
+
+		/**
+		 * @return Whether the given epoch second falls in pre-market or after-hours trading of a session.
+		 */
+		public boolean isExtendedHours(long epochSecond) {
+			int session = upperBound(this.sessionOpens, epochSecond) - 1;
+			if (session < 0 || epochSecond >= this.sessionCloses[session]) {
+				return false;
+			}
+			return epochSecond < this.opens[session] || epochSecond >= this.closes[session];
+		}
+
+		/**
+		 * @return The epoch second of the next regular open strictly after the given time, or -1 if it
+		 * is beyond the loaded calendar.
+		 */
+		public long nextOpen(long epochSecond) {
+			int session = upperBound(this.opens, epochSecond);
+			return session < this.opens.length ? this.opens[session] : -1;
+		}
+
+		/**
+		 * @return The epoch second the next extended session (pre-market) opens strictly after the given
+		 * time, or -1 if it is beyond the loaded calendar.
+		 */
+		public long nextExtendedOpen(long epochSecond) {
+			int session = upperBound(this.sessionOpens, epochSecond);
+			return session < this.sessionOpens.length ? this.sessionOpens[session] : -1;
+		}
+
+		/**
+		 * Gets the most recent session whose regular open is at or before the given time. If the market
+		 * is open, that is today's session.
+		 *
+		 * @param epochSecond The time to look back from.
+		 * @return The session index, or -1 if no loaded session has opened yet.
+		 */
+		public int latestSessionIndex(long epochSecond) {
+			return upperBound(this.opens, epochSecond) - 1;
+		}
+
+		/**
+		 * Gets the index of the session on the given day.
+		 *
+		 * @param day The day in New York.
+		 * @return The session index, or -1 if the market isn't open that day (or it isn't loaded).
+		 */
+		public int sessionIndex(LocalDate day) {
+			int session = Arrays.binarySearch(this.days, day.toEpochDay());
+			return session >= 0 ? session : -1;
+		}
+
+		/**
+		 * @return The number of loaded sessions. 0 until the calendar has been loaded.
+		 */
+		public int count() {
+			return this.days.length;
+		}
+
+		/**
+		 * @return The epoch day (New York date) of the given session.
+		 */
+		public long sessionDay(int session) {
+			return this.days[session];
+		}
+
+		/**
+		 * @return The New York date of the given session.
+		 */
+		public LocalDate sessionDate(int session) {
+			return LocalDate.ofEpochDay(this.days[session]);
+		}
+
+		/**
+		 * @return The epoch second the regular session opens on the given session.
+		 */
+		public long openTime(int session) {
+			return this.opens[session];
+		}
+
+		/**
+		 * @return The epoch second the regular session closes on the given session.
+		 */
+		public long closeTime(int session) {
+			return this.closes[session];
+		}
+	}
+
+	public MarketSessionClock(AlpacaAPI alpacaAPI, Clock clock, AlpacaRateLimiter rateLimiter) {
+		this.alpacaAPI = alpacaAPI;
+		this.clock = clock;
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * @return The clock all market-hours logic runs on.
+	 */
+	public Clock getClock() {
+		return this.clock;
+	}
+
+	/**
+	 * @return The time zone US markets operate in (America/New_York).
+	 */
+	public ZoneId getZone() {
+		return MARKET_ZONE;
+	}
+
+	/**
+	 * @return The current time as an epoch second, read from the injected clock.
+	 */
+	public long nowEpochSecond() {
+		return Math.floorDiv(this.clock.millis(), 1000);
+	}
+
+	/**
+	 * Gets the current calendar snapshot without waiting. Starts a background load when the calendar
+	 * hasn't been loaded yet or is due for a reload.
+	 *
+	 * @return The latest loaded snapshot; empty until the first load has finished.
+	 */
+	public Sessions sessions() {
+		Sessions current = this.sessions;
+		if (this.nowEpochSecond() >= current.reloadAtEpochSecond) {
+			this.startLoad();
+		}
+		return current;
+	}
+
+	/**
+	 * Gets the current calendar snapshot, waiting for a load in progress if nothing has been loaded
+	 * yet. Never call this on the JavaFX thread.
+	 *
+	 * @param timeout How long to wait for the first load at most.
+	 * @return The latest loaded snapshot. Empty if the calendar couldn't be loaded in time.
+	 */
+	public Sessions awaitSessions(Duration timeout) {
+		Sessions current = this.sessions();
+		if (current.count() > 0) {
+			return current;
+		}
+
+		CompletableFuture<Sessions> load;
+		synchronized (this) {
+			load = this.pendingLoad;
+		}
+		if (load != null) {
+			try {
+				return load.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException | TimeoutException e) {
+				// Fall through to whatever is loaded.
+			}
+		}
+		return this.sessions;
+	}
+
+	/**
+	 * @return Whether the regular session is open right now.
+	 */
+	public boolean isOpen() {
+		return this.sessions().isOpen(this.nowEpochSecond());
+	}
+
+	/**
+	 * @return Whether the regular session is open at the given epoch second.
+	 */
+	public boolean isOpen(long epochSecond) {
+		return this.sessions().isOpen(epochSecond);
+	}
+
+	/**
+	 * @return Whether the given epoch second falls in pre-market or after-hours trading of a session.
+	 */
+	public boolean isExtendedHours(long epochSecond) {
+		return this.sessions().isExtendedHours(epochSecond);
+	}
+
+	/**
+	 * @return The epoch second of the next regular open strictly after the given time, or -1 if it is
+	 * beyond the loaded calendar.
+	 */
+	public long nextOpen(long epochSecond) {
+		return this.sessions().nextOpen(epochSecond);
+	}
+
+	/**
+	 * @return The epoch second of the next regular open strictly after now, or -1 if unknown.
+	 */
+	public long nextOpen() {
+		return this.nextOpen(this.nowEpochSecond());
+	}
+
+	/**
+	 * @return The epoch second the next extended session (pre-market) opens strictly after the given
+	 * time, or -1 if it is beyond the loaded calendar.
+	 */
+	public long nextExtendedOpen(long epochSecond) {
+		return this.sessions().nextExtendedOpen(epochSecond);
+	}
+
+	/**
+	 * Starts loading the calendar on a background thread, unless a load is already in progress.
+	 */
+	private synchronized void startLoad() {
+		if (this.pendingLoad != null) {
+			return;
+		}
+
+		CompletableFuture<Sessions> load = new CompletableFuture<>();
+		this.pendingLoad = load;
+		Thread.ofVirtual().name("market-calendar").start(() -> {
+			Sessions loaded = this.sessions;
+			try {
+				loaded = this.load();
+			} finally {
+				synchronized (this) {
+					this.sessions = loaded;
+					this.pendingLoad = null;
+				}
+				load.complete(loaded);
+			}
+		});
+	}
+
+	/**
+	 * Fetches the calendar from one year before to one year after today. If the fetch fails, the
+	 * previous snapshot is kept and the fetch is retried after a few minutes.
+	 */
+	private Sessions load() {
+		long now = this.nowEpochSecond();
+		LocalDate today = LocalDate.ofInstant(Instant.ofEpochSecond(now), MARKET_ZONE);
+		LocalDate from = today.minusYears(1);
+		LocalDate through = today.plusYears(1);
+		try {
+			List<Calendar> calendar = this.rateLimiter.call(() -> this.alpacaAPI.trader().calendar().getCalendar(
+					from.atStartOfDay(MARKET_ZONE).toOffsetDateTime(),
+					through.atTime(LocalTime.MAX).atZone(MARKET_ZONE).toOffsetDateTime(), "TRADING"));
+			long reloadAt = through.minusDays(RELOAD_MARGIN_DAYS).atStartOfDay(MARKET_ZONE).toEpochSecond();
+			return buildSessions(calendar, reloadAt);
+		} catch (net.jacobpeterson.alpaca.openapi.trader.ApiException e) {
+			System.out.println(e.getCode() + "\n" + e.getMessage());
+		} catch (RuntimeException e) {
+			System.err.println("Error loading the market calendar: " + e.getMessage());
+		}
+
+		return this.sessions.withReloadAt(now + RETRY_SECONDS);
+	}
+
+	/**
+	 * Builds the primitive index from the calendar returned by Alpaca.
+	 */
+	private static Sessions buildSessions(List<Calendar> calendar, long reloadAtEpochSecond) {
+		List<Calendar> sorted = calendar.stream()
+				.filter(day -> day.getDate() != null && day.getOpen() != null && day.getClose() != null)
+				.sorted((a, b) -> a.getDate().compareTo(b.getDate()))
+				.toList();
+
+		int count = sorted.size();
+		long[] days = new long[count];
+		long[] opens = new long[count];
+		long[] closes = new long[count];
+		long[] sessionOpens = new long[count];
+		long[] sessionCloses = new long[count];
+		for (int i = 0; i < count; i++) {
+			Calendar day = sorted.get(i);
+			LocalDate date = LocalDate.parse(day.getDate());
+			days[i] = date.toEpochDay();
+			opens[i] = toEpochSecond(date, day.getOpen());
+			closes[i] = toEpochSecond(date, day.getClose());
+			// Extended hours default to 4:00 AM - 8:00 PM when the calendar doesn't carry them.
+			sessionOpens[i] = day.getSessionOpen() != null
+					? toEpochSecond(date, day.getSessionOpen()) : toEpochSecond(date, "04:00");
+			sessionCloses[i] = day.getSessionClose() != null
+					? toEpochSecond(date, day.getSessionClose()) : toEpochSecond(date, "20:00");
+		}
+
+		return new Sessions(days, opens, closes, sessionOpens, sessionCloses, reloadAtEpochSecond);
+	}
+
+	/**
+	 * Converts a New York date and an "HH:mm" (or "HHmm") time to an epoch second.
+	 */
+	private static long toEpochSecond(LocalDate date, String time) {
+		String digits = time.replace(":", "");
+		LocalTime localTime = LocalTime.of(Integer.parseInt(digits.substring(0, 2)),
+				Integer.parseInt(digits.substring(2, 4)));
+		return date.atTime(localTime).atZone(MARKET_ZONE).toEpochSecond();
+	}
+
+	/**
+	 * @return The index of the first element strictly greater than the key.
+	 */
+	private static int upperBound(long[] sorted, long key) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] <= key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,172 @@
+package com.iyer.vinayaka.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes daily change percentages over primitive arrays, without allocating on the refresh hot path.
+ *
+ * <p>
+ * Every symbol gets a stable ordinal the first time it's seen, and its previous close, current price
+ * and change percentage live at that ordinal in {@code double[]} buffers. The buffers are reused on
+ * every refresh and only grow when new symbols are added, so a refresh cycle over a known watchlist
+ * allocates nothing here: no stream pipeline, no boxing, no BigDecimal.
+ * </p>
+ *
+ * <p>
+ * <b>Usage:</b> call {@link #beginCycle()}, set the inputs of each symbol with
+ * {@link #setPreviousClose(int, double)} and {@link #setCurrentPrice(int, double)}, call
+ * {@link #compute()}, then read {@link #changePercentage(int)} for the ordinals that
+ * {@link #hasResult(int)}.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> Not thread-safe. Callers must hold a lock for a whole cycle.
+ * </p>
+ *
+ * @see AlpacaHistoricalBarsDataService#getLatestPriceChangePercentages(java.util.List)
+ */
+public final class PriceChangeKernel {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final Map<String, Integer> ordinals = new HashMap<>();
+	private String[] symbols = new String[INITIAL_CAPACITY];
+	private double[] previousCloses = new double[INITIAL_CAPACITY];
+	private double[] currentPrices = new double[INITIAL_CAPACITY];
+	private double[] changePercentages = new double[INITIAL_CAPACITY];
+	private int size = 0;
+
+	/**
+	 * Gets the ordinal of a symbol, assigning the next free one if the symbol is new.
+	 *
+	 * @param symbol The ticker symbol.
+	 * @return The symbol's stable ordinal.
+	 */
+	public int ordinal(String symbol) {
+		Integer ordinal = this.ordinals.get(symbol);
+		if (ordinal != null) {
+			return ordinal;
+		}
+
+		if (this.size == this.symbols.length) {
+			int capacity = this.size * 2;
+			this.symbols = Arrays.copyOf(this.symbols, capacity);
+			this.previousCloses = Arrays.copyOf(this.previousCloses, capacity);
+			this.currentPrices = Arrays.copyOf(this.currentPrices, capacity);
+			this.changePercentages = Arrays.copyOf(this.changePercentages, capacity);
+		}
+
+		int newOrdinal = this.size++;
+		this.symbols[newOrdinal] = symbol;
+		this.previousCloses[newOrdinal] = Double.NaN;
+		this.currentPrices[newOrdinal] = Double.NaN;
+		this.changePercentages[newOrdinal] = Double.NaN;
+		this.ordinals.put(symbol, newOrdinal);
+		return newOrdinal;
+	}
+
+	/**
+	 * Clears the inputs and results of the previous cycle. Ordinals are kept.
+	 */
+	public void beginCycle() {
+		Arrays.fill(this.previousCloses, 0, this.size, Double.NaN);
+		Arrays.fill(this.currentPrices, 0, this.size, Double.NaN);
+		Arrays.fill(this.changePercentages, 0, this.size, Double.NaN);
+	}
+
+	public void setPreviousClose(int ordinal, double previousClose) {
+		this.previousCloses[ordinal] = previousClose;
+	}
+
+	public void setCurrentPrice(int ordinal, double currentPrice) {
+		this.currentPrices[ordinal] = currentPrice;
+	}
+
+	/**
+	 * Computes the change percentage of every symbol that has both a previous close and a current
+	 * price in this cycle.
+	 *
+	 * @return The number of symbols with a result.
+	 */
+	public int compute() {
+		int results = 0;
+		for (int i = 0; i < this.size; i++) {
+			double previousClose = this.previousCloses[i];
+			double currentPrice = this.currentPrices[i];
+			if (previousClose == previousClose && currentPrice == currentPrice) { // Neither is NaN
+				this.changePercentages[i] = changePercentage(currentPrice, previousClose);
+				results++;
+			}
+		}
+		return results;
+	}
+
+	public boolean hasResult(int ordinal) {
+		return !Double.isNaN(this.changePercentages[ordinal]);
+	}
+
+	public double changePercentage(int ordinal) {
+		return this.changePercentages[ordinal];
+	}
+
+	public double currentPrice(int ordinal) {
+		return this.currentPrices[ordinal];
+	}
+
+	public String symbol(int ordinal) {
+		return this.symbols[ordinal];
+	}
+
+	/**
+	 * @return The number of symbols that have an ordinal.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Calculates the percentage change from a reference price to the current price, rounded to 2
+	 * decimal places.
+	 *
+	 * @param currentPrice  The current price.
+	 * @param previousClose The reference price.
+	 * @return The percentage change rounded to 2 decimal places.
+	 */
+	public static double changePercentage(double currentPrice, double previousClose) {
+		return roundToHundredths(((currentPrice - previousClose) / previousClose) * 100);
+	}
+
+	/**
+	 * Rounds to 2 decimal places, half away from zero, using integer arithmetic.
+	 *
+	 * <p>
+	 * The result is identical to {@code new BigDecimal(Double.toString(value)).setScale(2, HALF_UP)}.
+	 * Rounding the decimal representation (rather than {@code Math.round(value * 100)}) matters for
+	 * values such as 1.005, whose nearest double is slightly below 1.005. The value rounds up if and only
+	 * if it is at least the double nearest to the half-way point, which is exactly when its shortest
+	 * decimal representation is at least the half-way point.
+	 * </p>
+	 *
+	 * @param value The value to round.
+	 * @return The rounded value. NaN and infinities are returned as they are.
+	 */
+	public static double roundToHundredths(double value) {
+		double magnitude = Math.abs(value);
+		if (!(magnitude < 1e15)) { // NaN, infinite, or too large for exact cents
+			return value;
+		}
+
+		long cents = (long) (magnitude * 100);
+		if (magnitude >= (cents + 0.5) / 100) {
+			cents++;
+		} else if (cents > 0 && magnitude < (cents - 0.5) / 100) {
+			// magnitude * 100 was rounded up to the next integer.
+			cents--;
+		}
+
+		double rounded = cents / 100.0;
+		// BigDecimal has no negative zero, so -0.001 rounds to 0.0 rather than -0.0.
+		return value < 0 && cents > 0 ? -rounded : rounded;
+	}
+}
@@ -0,0 +1,113 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.util.PipelineMetrics;
+import net.jacobpeterson.alpaca.openapi.marketdata.ApiException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches the reference prices (previous trading day closes) that daily change percentages are
+ * calculated against.
+ *
+ * <p>
+ * A reference price can't change once its trading day has closed, so each (symbol, trading day) pair
+ * only needs to be fetched once per session. Prices are kept for a single reference day at a time: when
+ * the market calendar advances and a newer day is requested, the cache rolls over and starts empty.
+ * Only symbols that aren't cached yet (for example, newly added tickers) are passed to the loader.
+ * </p>
+ *
+ * <p>
+ * Symbols the loader returned no price for (for example, tickers that didn't trade that day) are
+ * remembered for the day as well, so they aren't requested again on every refresh. They are retried
+ * once the day rolls over or the cache is cleared.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> All access is synchronized. Loading happens while holding the lock so that
+ * concurrent refreshes for the same day don't fetch the same symbols twice.
+ * </p>
+ *
+ * @see AlpacaHistoricalBarsDataService#getLatestPriceChangePercentages(List)
+ */
+@Component
+public class ReferencePriceCache {
+	private LocalDate referenceDay;
+	private final Map<String, Double> referencePrices = new HashMap<>();
+	// Symbols the loader had no price for on the reference day.
+	private final Set<String> absentSymbols = new HashSet<>();
+
+	/**
+	 * Loads the reference prices of the given symbols for a trading day. Implementations should
+	 * leave out symbols they have no data for.
+	 */
+	@FunctionalInterface
+	public interface ReferencePriceLoader {
+		Map<String, Double> load(List<String> symbols) throws ApiException;
+	}
+
+	/**
+	 * Gets the reference prices of the given symbols for the given trading day, loading only the
+	 * symbols that aren't cached yet and weren't already found to have no price that day.
+	 *
+	 * @param day     The trading day the reference prices belong to.
+	 * @param symbols The symbols whose reference prices are needed.
+	 * @param loader  Fetches the reference prices of the symbols missing from the cache.
+	 * @return A map of symbols to their reference prices. Symbols the loader had no data for are
+	 * 		   excluded.
+	 * @throws ApiException If the loader fails. Nothing is cached in that case.
+	 */
+	public synchronized Map<String, Double> getReferencePrices(LocalDate day, List<String> symbols,
+															   ReferencePriceLoader loader) throws ApiException {
+		if (!day.equals(this.referenceDay)) {
+			// The calendar has moved on; yesterday's references are no longer needed.
+			this.referencePrices.clear();
+			this.absentSymbols.clear();
+			this.referenceDay = day;
+		}
+
+		List<String> missingSymbols = new ArrayList<>();
+		for (String symbol : symbols) {
+			if (!this.referencePrices.containsKey(symbol) && !this.absentSymbols.contains(symbol)) {
+				missingSymbols.add(symbol);
+			}
+		}
+
+		PipelineMetrics.recordCacheLookup("reference-prices", symbols.size() - missingSymbols.size(),
+				missingSymbols.size());
+		if (!missingSymbols.isEmpty()) {
+			Map<String, Double> loaded = loader.load(missingSymbols);
+			this.referencePrices.putAll(loaded);
+			for (String symbol : missingSymbols) {
+				if (!loaded.containsKey(symbol)) {
+					this.absentSymbols.add(symbol);
+				}
+			}
+		}
+
+		Map<String, Double> prices = new HashMap<>();
+		for (String symbol : symbols) {
+			Double price = this.referencePrices.get(symbol);
+			if (price != null) {
+				prices.put(symbol, price);
+			}
+		}
+
+		return prices;
+	}
+
+	/**
+	 * Empties the cache, forcing every reference price to be fetched again.
+	 */
+	public synchronized void clear() {
+		this.referencePrices.clear();
+		this.absentSymbols.clear();
+		this.referenceDay = null;
+	}
+}
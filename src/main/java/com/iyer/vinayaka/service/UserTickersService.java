@@ -148,6 +148,24 @@ public class UserTickersService {
 		return null;
 	}
 
+	/**
+	 * Stores a batch of watchlist changes in one transaction.
+	 *
+	 * @param upserts The tickers to add or update.
+	 * @param deletes The symbols of the tickers to delete.
+	 *
+	 * @see WatchlistService
+	 */
+	@Transactional
+	public void applyChanges(List<UserTickers> upserts, List<String> deletes) {
+		if (!upserts.isEmpty()) {
+			this.userTickersRepository.saveAll(upserts);
+		}
+		if (!deletes.isEmpty()) {
+			this.userTickersRepository.deleteAllById(deletes);
+		}
+	}
+
 	/**
 	 * Deletes all tickers stored by the user.
 	 */
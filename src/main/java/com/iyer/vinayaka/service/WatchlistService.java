@@ -0,0 +1,283 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.entities.UserTickers;
+import com.iyer.vinayaka.model.WatchlistSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * The authoritative, in-memory watchlist, written through to SQLite in the background.
+ *
+ * <p>
+ * Every refresh cycle and every user action used to read the watchlist from the database (two queries
+ * plus two sorts per read), and the refresher kept its own unsynchronized copy on top. The watchlist
+ * is now loaded once into an immutable {@link WatchlistSnapshot}, published through an
+ * {@link AtomicReference}. Reads never touch the database, and every reader sees a complete, consistent
+ * snapshot on any thread.
+ * </p>
+ *
+ * <p>
+ * <b>Write-Behind:</b> A change swaps in a new snapshot right away and queues the affected ticker for
+ * storage. Changes are stored in batches, one transaction per batch,
+ * {@code vinayaka.watchlist.write-delay-millis} after the first change of the batch. Only the symbols
+ * are queued: each is stored as it is in the snapshot at the time of the write (or deleted if it's no
+ * longer there), so toggling a favorite twice in a row writes the ticker once, and threads that queue
+ * in a different order than they changed the snapshot can't store an older state over a newer one.
+ * If a batch can't be stored, it's retried every few seconds, and the listeners registered with
+ * {@link #addWriteFailureListener(Consumer)} are told once it has failed several times in a row.
+ * Pending changes are stored before the application exits, after any write in progress finishes.
+ * </p>
+ *
+ * <p>
+ * <b>Listeners:</b> Components that follow the watchlist (e.g., the websocket subscriptions) register
+ * with {@link #addListener(Consumer)} and are called with each new snapshot, on the thread that made
+ * the change. Write failure listeners are called on the writer thread.
+ * </p>
+ */
+@Service
+public class WatchlistService {
+	// How long to wait before retrying a batch that couldn't be stored.
+	private static final long RETRY_DELAY_MILLIS = 5_000;
+	// How many batches in a row must fail before the write failure listeners are told.
+	static final int FAILURES_BEFORE_ALERT = 3;
+	// How long shutdown waits for a write in progress before storing what's left.
+	private static final long SHUTDOWN_WAIT_SECONDS = 10;
+
+	private final UserTickersService userTickersService;
+	private final long writeDelayMillis;
+	private final ScheduledThreadPoolExecutor writer;
+
+	private final AtomicReference<WatchlistSnapshot> snapshot = new AtomicReference<>();
+	private final List<Consumer<WatchlistSnapshot>> listeners = new CopyOnWriteArrayList<>();
+	private final List<Consumer<Integer>> writeFailureListeners = new CopyOnWriteArrayList<>();
+
+	// Symbols changed since they were last stored. Guarded by this set's monitor, as are the fields below.
+	private final Set<String> pendingWrites = new LinkedHashSet<>();
+	private boolean writeScheduled = false;
+	private int consecutiveFailures = 0;
+
+	public WatchlistService(UserTickersService userTickersService, VinayakaProperties properties) {
+		this.userTickersService = userTickersService;
+		this.writeDelayMillis = properties.getWatchlist().getWriteDelayMillis();
+		this.writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "watchlist-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// On shutdown, scheduled writes are dropped; stop() stores their changes itself.
+		this.writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+	}
+
+	/**
+	 * @return The current watchlist. Loaded from the database on the first call.
+	 */
+	public WatchlistSnapshot getSnapshot() {
+		WatchlistSnapshot current = this.snapshot.get();
+		return current != null ? current : this.load();
+	}
+
+	/**
+	 * @return The tickers in display order (favorites first, then alphabetical). Can't be modified.
+	 */
+	public List<UserTickers> getTickers() {
+		return this.getSnapshot().tickers();
+	}
+
+	public boolean contains(String symbol) {
+		return this.getSnapshot().contains(symbol);
+	}
+
+	/**
+	 * Adds a ticker to the watchlist.
+	 *
+	 * @param ticker The ticker to add.
+	 * @return Whether it was added; false if it was already on the watchlist.
+	 */
+	public boolean addTicker(UserTickers ticker) {
+		return this.update(ticker.getSymbol(), snapshot -> snapshot.with(ticker));
+	}
+
+	/**
+	 * Removes a ticker from the watchlist.
+	 *
+	 * @param symbol The symbol of the ticker to delete.
+	 * @return Whether it was removed; false if it wasn't on the watchlist.
+	 */
+	public boolean deleteTicker(String symbol) {
+		return this.update(symbol, snapshot -> snapshot.without(symbol));
+	}
+
+	/**
+	 * Toggles the favorite status of a ticker, which moves it to its new place in the display order.
+	 *
+	 * @param symbol The symbol of the ticker to toggle.
+	 * @return The updated ticker, or null if it isn't on the watchlist.
+	 */
+	public UserTickers toggleFavorite(String symbol) {
+		this.update(symbol, snapshot -> {
+			UserTickers ticker = snapshot.get(symbol);
+			return ticker == null ? snapshot : snapshot.withFavorite(symbol, !ticker.isFavorite());
+		});
+		return this.getSnapshot().get(symbol);
+	}
+
+	/**
+	 * Registers a listener called with every new snapshot.
+	 *
+	 * @param listener The listener.
+	 */
+	public void addListener(Consumer<WatchlistSnapshot> listener) {
+		this.listeners.add(listener);
+	}
+
+	/**
+	 * Registers a listener called when changes have failed to be stored {@value #FAILURES_BEFORE_ALERT}
+	 * times in a row. It's called once per run of failures, on the writer thread, with the number of
+	 * tickers whose changes aren't stored yet. They're still retried.
+	 *
+	 * @param listener The listener.
+	 */
+	public void addWriteFailureListener(Consumer<Integer> listener) {
+		this.writeFailureListeners.add(listener);
+	}
+
+	/**
+	 * Applies a change to the current snapshot (retrying if another thread changed it meanwhile),
+	 * queues the affected ticker for storage and notifies the listeners.
+	 *
+	 * @return Whether anything changed.
+	 */
+	private boolean update(String symbol, UnaryOperator<WatchlistSnapshot> change) {
+		WatchlistSnapshot before;
+		WatchlistSnapshot after;
+		do {
+			before = this.getSnapshot();
+			after = change.apply(before);
+			if (after == before) {
+				return false;
+			}
+		} while (!this.snapshot.compareAndSet(before, after));
+
+		this.queueWrite(symbol);
+		for (Consumer<WatchlistSnapshot> listener : this.listeners) {
+			try {
+				listener.accept(after);
+			} catch (Exception e) {
+				System.err.println("Error notifying a watchlist listener: " + e.getMessage());
+			}
+		}
+		return true;
+	}
+
+	private synchronized WatchlistSnapshot load() {
+		WatchlistSnapshot current = this.snapshot.get();
+		if (current == null) {
+			current = WatchlistSnapshot.of(this.userTickersService.getAllTickersWithFavoritesFirst());
+			this.snapshot.set(current);
+		}
+		return current;
+	}
+
+	/**
+	 * Queues a ticker for storage. Its state is read from the snapshot when it's written.
+	 *
+	 * @param symbol The ticker's symbol.
+	 */
+	private void queueWrite(String symbol) {
+		synchronized (this.pendingWrites) {
+			this.pendingWrites.add(symbol);
+			if (!this.writeScheduled && !this.writer.isShutdown()) {
+				this.writeScheduled = true;
+				this.writer.schedule(this::flush, this.writeDelayMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Stores every pending change in one transaction. Runs on the writer thread, and once more on
+	 * shutdown.
+	 */
+	void flush() {
+		List<String> batch;
+		synchronized (this.pendingWrites) {
+			this.writeScheduled = false;
+			if (this.pendingWrites.isEmpty()) {
+				return;
+			}
+			batch = new ArrayList<>(this.pendingWrites);
+			this.pendingWrites.clear();
+		}
+
+		// Symbols are only queued after their change is in the snapshot, so this is at least as new.
+		WatchlistSnapshot current = this.getSnapshot();
+		List<UserTickers> upserts = new ArrayList<>();
+		List<String> deletes = new ArrayList<>();
+		for (String symbol : batch) {
+			UserTickers ticker = current.get(symbol);
+			if (ticker != null) {
+				upserts.add(ticker);
+			} else {
+				deletes.add(symbol);
+			}
+		}
+
+		try {
+			this.userTickersService.applyChanges(upserts, deletes);
+			synchronized (this.pendingWrites) {
+				this.consecutiveFailures = 0;
+			}
+		} catch (Exception e) {
+			System.err.println("Could not store " + batch.size() + " watchlist changes, retrying: " + e.getMessage());
+			int failures;
+			int unsaved;
+			synchronized (this.pendingWrites) {
+				// Symbols changed since this batch was taken are already queued again.
+				this.pendingWrites.addAll(batch);
+				failures = ++this.consecutiveFailures;
+				unsaved = this.pendingWrites.size();
+				if (!this.writeScheduled && !this.writer.isShutdown()) {
+					this.writeScheduled = true;
+					this.writer.schedule(this::flush, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+				}
+			}
+			if (failures == FAILURES_BEFORE_ALERT) {
+				for (Consumer<Integer> listener : this.writeFailureListeners) {
+					try {
+						listener.accept(unsaved);
+					} catch (Exception listenerError) {
+						System.err.println("Error notifying a watchlist listener: " + listenerError.getMessage());
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stores the pending changes before the application exits. A write in progress is allowed to
+	 * finish first, rather than being interrupted in the middle of its transaction.
+	 */
+	@PreDestroy
+	public void stop() {
+		this.writer.shutdown();
+		try {
+			if (!this.writer.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+				System.err.println("Watchlist writer did not finish in time; storing pending changes anyway");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.flush();
+	}
+}
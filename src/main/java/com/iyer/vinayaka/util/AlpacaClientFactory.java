@@ -0,0 +1,112 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import jakarta.annotation.PreDestroy;
+import net.jacobpeterson.alpaca.AlpacaAPI;
+import net.jacobpeterson.alpaca.model.util.apitype.MarketDataWebsocketSourceType;
+import net.jacobpeterson.alpaca.model.util.apitype.TraderAPIEndpointType;
+import net.jacobpeterson.alpaca.websocket.marketdata.streams.stock.StockMarketDataWebsocketInterface;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Creates the {@link AlpacaAPI} clients of the application: the one used for everything (see
+ * {@link AlpacaConfiguration}) and the throwaway ones that check API keys entered by the user, and the
+ * stock market data websocket.
+ *
+ * <p>
+ * Their REST requests go to the live Alpaca endpoints, unless:
+ * </p>
+ * <ul>
+ * <li>{@code vinayaka.alpaca.stand-in.enabled} is set: an {@link AlpacaStandInServer} is started on first
+ * use and stopped with the application, and every client is pointed at it. The websocket is then an
+ * {@link AlpacaStandInStream} that streams the stand-in's prices.</li>
+ * <li>{@code vinayaka.alpaca.base-url} is set: every REST client is pointed at that URL. The websocket
+ * still connects to Alpaca, since the client has no setting for its URL.</li>
+ * </ul>
+ */
+@Component
+public class AlpacaClientFactory {
+	// How often the stand-in stream checks for moved prices. Its prices change once a minute.
+	private static final long STAND_IN_TICK_MILLIS = 1000;
+
+	private final VinayakaProperties.Alpaca settings;
+	private AlpacaStandInServer standInServer;
+	private AlpacaStandInStream standInStream;
+
+	public AlpacaClientFactory(VinayakaProperties properties) {
+		this.settings = properties.getAlpaca();
+	}
+
+	/**
+	 * Creates a client for the live account with the given API details.
+	 *
+	 * @param apiKey    The API Key.
+	 * @param apiSecret The API Secret.
+	 * @return A client whose REST requests go to the configured endpoints.
+	 */
+	public AlpacaAPI create(String apiKey, String apiSecret) {
+		AlpacaAPI api = new AlpacaAPI(apiKey, apiSecret, TraderAPIEndpointType.LIVE,
+				MarketDataWebsocketSourceType.IEX);
+		String baseUrl = this.getRestBaseUrl();
+		if (!baseUrl.isBlank()) {
+			// Setting the base path also clears the server index, which would otherwise pick Alpaca's URL.
+			api.trader().getInternalAPIClient().setBasePath(baseUrl);
+			api.marketData().getInternalAPIClient().setBasePath(baseUrl);
+		}
+
+		return api;
+	}
+
+	/**
+	 * Gets the stock market data websocket: the client's own, or a stand-in streaming the prices of the
+	 * stand-in server when that is enabled.
+	 *
+	 * @param api The client whose websocket is used when the stand-in isn't.
+	 * @return The websocket. Creating it doesn't connect it.
+	 */
+	public synchronized StockMarketDataWebsocketInterface createStockStream(AlpacaAPI api) {
+		if (!this.settings.getStandIn().isEnabled()) {
+			return api.stockMarketDataStream();
+		}
+		if (this.standInStream == null) {
+			this.getRestBaseUrl(); // Starts the server.
+			AlpacaStandInServer server = this.standInServer;
+			this.standInStream = new AlpacaStandInStream(server::latestTradePrice, STAND_IN_TICK_MILLIS);
+		}
+		return this.standInStream.getStream();
+	}
+
+	/**
+	 * @return The root URL REST requests are sent to, or a blank string for the live Alpaca endpoints.
+	 */
+	public synchronized String getRestBaseUrl() {
+		if (this.settings.getStandIn().isEnabled()) {
+			if (this.standInServer == null) {
+				try {
+					this.standInServer = AlpacaStandInServer.start(this.settings.getStandIn());
+				} catch (IOException e) {
+					throw new UncheckedIOException("Could not start the Alpaca stand-in server", e);
+				}
+				System.out.println("Alpaca stand-in server listening on " + this.standInServer.getBaseUrl());
+			}
+			return this.standInServer.getBaseUrl();
+		}
+
+		return this.settings.getBaseUrl() == null ? "" : this.settings.getBaseUrl().strip();
+	}
+
+	@PreDestroy
+	public synchronized void stop() {
+		if (this.standInStream != null) {
+			this.standInStream.close();
+			this.standInStream = null;
+		}
+		if (this.standInServer != null) {
+			this.standInServer.close();
+			this.standInServer = null;
+		}
+	}
+}
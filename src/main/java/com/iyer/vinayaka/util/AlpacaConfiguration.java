@@ -2,29 +2,53 @@ package com.iyer.vinayaka.util;
 
 import com.iyer.vinayaka.service.UserSettingsService;
 import net.jacobpeterson.alpaca.AlpacaAPI;
-import net.jacobpeterson.alpaca.model.util.apitype.MarketDataWebsocketSourceType;
-import net.jacobpeterson.alpaca.model.util.apitype.TraderAPIEndpointType;
+import net.jacobpeterson.alpaca.websocket.marketdata.streams.stock.StockMarketDataWebsocketInterface;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 
+import java.time.Clock;
 import java.util.List;
 
 @Configuration
 public class AlpacaConfiguration {
 	
 	private final UserSettingsService userSettingsService;
+	private final AlpacaClientFactory alpacaClientFactory;
 	
-	public AlpacaConfiguration(@Lazy UserSettingsService service) {
+	public AlpacaConfiguration(@Lazy UserSettingsService service, AlpacaClientFactory alpacaClientFactory) {
 		this.userSettingsService = service;
+		this.alpacaClientFactory = alpacaClientFactory;
 	}
 	
+	/**
+	 * The client used for all Alpaca requests. {@link AlpacaClientFactory} decides where its REST requests
+	 * go: Alpaca, or a stand-in server when one is configured.
+	 */
 	@Bean
 	public AlpacaAPI alpacaAPI() {
 		List<String> settings = this.userSettingsService.getAPISecrets();
 		
-		return new AlpacaAPI(settings.getFirst(), settings.getLast(),
-				TraderAPIEndpointType.LIVE,
-				MarketDataWebsocketSourceType.IEX);
+		return this.alpacaClientFactory.create(settings.getFirst(), settings.getLast());
+	}
+	
+	/**
+	 * The stock market data websocket of the {@link AlpacaAPI} bean, or an {@link AlpacaStandInStream}
+	 * when the stand-in server is enabled. Exposed as its own bean so that the streaming refresh mode
+	 * can be pointed at a stand-in implementation in tests.
+	 * Creating it does not open a connection; {@link TickerStreamer} connects on demand.
+	 */
+	@Bean
+	public StockMarketDataWebsocketInterface stockMarketDataStream(AlpacaAPI alpacaAPI) {
+		return this.alpacaClientFactory.createStockStream(alpacaAPI);
+	}
+
+	/**
+	 * The clock that market-hours logic ({@link com.iyer.vinayaka.service.MarketSessionClock}) runs on.
+	 * Exposed as a bean so that tests can pin the time to a specific session.
+	 */
+	@Bean
+	public Clock clock() {
+		return Clock.systemUTC();
 	}
 }
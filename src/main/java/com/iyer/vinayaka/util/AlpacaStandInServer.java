@@ -0,0 +1,852 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local HTTP server that answers the Alpaca REST endpoints this application uses, with synthetic data,
+ * so that load, scale and failure handling can be tested without network access or real API keys.
+ *
+ * <p>
+ * Serves the trader API paths ({@code /v2/account}, {@code /v2/assets}, {@code /v2/calendar}) and the
+ * market data paths ({@code /v2/stocks/bars}, latest bars, quotes and trades, and snapshots, both
+ * multi-symbol and single-symbol) in the JSON shape Alpaca returns, so the client's own models decode
+ * them. Point the {@code AlpacaAPI} at {@link #getBaseUrl()} through {@link AlpacaClientFactory}.
+ * </p>
+ *
+ * <p>
+ * <b>Data:</b>
+ * </p>
+ * <ul>
+ * <li>The asset universe is a fixed list of well-known tickers followed by generated ones (A..Z, AA..),
+ * {@code vinayaka.alpaca.stand-in.assets} in total. Symbols outside it get no data, as with Alpaca.</li>
+ * <li>Every weekday is a trading day with a 9:30 AM - 4:00 PM New York session.</li>
+ * <li>Prices are a seeded random walk of each symbol over time, built from layered value noise, so the
+ * same bar always has the same prices no matter which request, time frame or page it comes from, and
+ * the latest trade, the latest bar and the snapshot agree with each other.</li>
+ * </ul>
+ * <p>
+ * <b>Faults:</b> each request waits {@code latency-millis} plus up to {@code latency-jitter-millis}, a
+ * fraction {@code error-rate} of them fails with 500, and once more than {@code requests-per-minute}
+ * arrive in a minute the rest get 429 with Alpaca's {@code X-RateLimit-*} headers.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> requests are handled concurrently on virtual threads. Everything but the rate
+ * limit window is immutable or atomic.
+ * </p>
+ */
+public final class AlpacaStandInServer implements AutoCloseable {
+	private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+	private static final LocalTime OPEN = LocalTime.of(9, 30);
+	private static final int SESSION_MINUTES = 390;
+	private static final int DEFAULT_LIMIT = 1000;
+	private static final int MAX_LIMIT = 10_000;
+	private static final Pattern TIME_FRAME = Pattern.compile("(\\d+)(Min|T|Hour|H|Day|D|Week|W|Month|M)");
+	private static final Pattern SINGLE_SYMBOL = Pattern.compile("/v2/stocks/([^/]+)/(bars|bars/latest"
+			+ "|quotes/latest|trades/latest|snapshot)");
+	// Noise layers at 1, 4, 16, ... 4^9 minutes (about six months of calendar time)
+	private static final int OCTAVES = 10;
+	// Standard deviation of the log price over one minute, about 2% a day
+	private static final double MINUTE_VOLATILITY = 0.001;
+	private static final String[] KNOWN_SYMBOLS = {"AAPL", "MSFT", "NVDA", "GOOGL", "AMZN", "META", "TSLA",
+			"AVGO", "JPM", "V", "WMT", "XOM", "UNH", "MA", "COST", "NFLX", "AMD", "INTC", "SPY", "QQQ"};
+	private static final String[] NAME_WORDS = {"Global", "Holdings", "Micro", "Systems", "Energy", "Capital",
+			"Therapeutics", "Financial", "Semiconductor", "Software", "Brands", "Industries", "Pacific",
+			"Resources", "Networks", "Biosciences", "Realty", "Motors", "Foods", "Aerospace"};
+	private static final String[] EXCHANGES = {"NASDAQ", "NYSE", "ARCA", "AMEX"};
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Clock clock;
+	private final long seed;
+	private final long latencyMillis;
+	private final long latencyJitterMillis;
+	private final double errorRate;
+	private final int requestsPerMinute;
+	private final List<String> symbols;
+	private final Map<String, Integer> symbolIndex;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong throttled = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	// Fixed one-minute rate limit window, guarded by this
+	private long windowStartMillis = 0;
+	private int windowCount = 0;
+
+	private AlpacaStandInServer(VinayakaProperties.StandIn settings, Clock clock) throws IOException {
+		this.clock = clock;
+		this.seed = settings.getSeed();
+		this.latencyMillis = Math.max(0, settings.getLatencyMillis());
+		this.latencyJitterMillis = Math.max(0, settings.getLatencyJitterMillis());
+		this.errorRate = settings.getErrorRate();
+		this.requestsPerMinute = settings.getRequestsPerMinute();
+		this.symbols = universe(Math.max(1, settings.getAssets()));
+		this.symbolIndex = new HashMap<>(this.symbols.size() * 2);
+		for (int i = 0; i < this.symbols.size(); i++) {
+			this.symbolIndex.put(this.symbols.get(i), i);
+		}
+
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+				settings.getPort()), 0);
+		this.executor = Executors.newVirtualThreadPerTaskExecutor();
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/", this::handle);
+		this.server.start();
+	}
+
+	/**
+	 * Starts a server on the loopback interface.
+	 *
+	 * @param settings The port, data and fault settings.
+	 * @return The running server.
+	 * @throws IOException If the port can't be bound.
+	 */
+	public static AlpacaStandInServer start(VinayakaProperties.StandIn settings) throws IOException {
+		return start(settings, Clock.systemUTC());
+	}
+
+	/**
+	 * Starts a server whose "now" (the latest trade, quote and bar) comes from the given clock.
+	 */
+	static AlpacaStandInServer start(VinayakaProperties.StandIn settings, Clock clock) throws IOException {
+		return new AlpacaStandInServer(settings, clock);
+	}
+
+	/**
+	 * @return The root URL to use as the base path of both the trader and the market data clients.
+	 */
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + this.server.getAddress().getPort();
+	}
+
+	/**
+	 * @return The symbols of the asset universe, well-known tickers first.
+	 */
+	public List<String> getSymbols() {
+		return this.symbols;
+	}
+
+	/**
+	 * Gets the price of a symbol's latest trade, the same one the latest trades endpoint returns. Used
+	 * by {@link AlpacaStandInStream} to stream trades that agree with the REST data.
+	 *
+	 * @param symbol The symbol.
+	 * @return The price, or null if the symbol isn't in the asset universe.
+	 */
+	public Double latestTradePrice(String symbol) {
+		if (!this.symbolIndex.containsKey(symbol)) {
+			return null;
+		}
+		return this.price(symbol, lastMinute(this.clock.instant()) + 1);
+	}
+
+	/**
+	 * @return How many requests arrived, including throttled and failed ones.
+	 */
+	public long getRequestCount() {
+		return this.requests.get();
+	}
+
+	/**
+	 * @return How many requests were answered with 429.
+	 */
+	public long getThrottledCount() {
+		return this.throttled.get();
+	}
+
+	/**
+	 * @return How many requests were answered with an injected 500.
+	 */
+	public long getErrorCount() {
+		return this.failed.get();
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			this.requests.incrementAndGet();
+			long now = this.clock.millis();
+			int remaining = this.admit(now, exchange);
+			if (remaining < 0) {
+				this.throttled.incrementAndGet();
+				send(exchange, 429, error(42910000, "too many requests"));
+				return;
+			}
+			this.delay();
+			if (this.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < this.errorRate) {
+				this.failed.incrementAndGet();
+				send(exchange, 500, error(50010000, "internal server error (injected)"));
+				return;
+			}
+			if (exchange.getRequestHeaders().getFirst("APCA-API-KEY-ID") == null) {
+				send(exchange, 401, error(40110000, "request is not authorized"));
+				return;
+			}
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, error(40510000, "method not allowed"));
+				return;
+			}
+
+			try {
+				this.route(exchange, Instant.ofEpochMilli(now));
+			} catch (IllegalArgumentException e) {
+				send(exchange, 422, error(42210000, e.getMessage()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Counts the request against the rate limit window and sets Alpaca's rate limit headers.
+	 *
+	 * @return The requests left in the window, or -1 if this one is over the limit.
+	 */
+	private int admit(long nowMillis, HttpExchange exchange) {
+		if (this.requestsPerMinute <= 0) {
+			return Integer.MAX_VALUE;
+		}
+		long resetMillis;
+		int remaining;
+		synchronized (this) {
+			if (this.windowCount == 0 || nowMillis - this.windowStartMillis >= 60_000) {
+				this.windowStartMillis = nowMillis;
+				this.windowCount = 0;
+			}
+			this.windowCount++;
+			resetMillis = this.windowStartMillis + 60_000;
+			remaining = this.requestsPerMinute - this.windowCount;
+		}
+		exchange.getResponseHeaders().set("X-RateLimit-Limit", Integer.toString(this.requestsPerMinute));
+		exchange.getResponseHeaders().set("X-RateLimit-Remaining", Integer.toString(Math.max(0, remaining)));
+		exchange.getResponseHeaders().set("X-RateLimit-Reset", Long.toString((resetMillis + 999) / 1000));
+		return remaining;
+	}
+
+	private void delay() throws InterruptedException {
+		long millis = this.latencyMillis;
+		if (this.latencyJitterMillis > 0) {
+			millis += ThreadLocalRandom.current().nextLong(this.latencyJitterMillis + 1);
+		}
+		if (millis > 0) {
+			Thread.sleep(millis);
+		}
+	}
+
+	private void route(HttpExchange exchange, Instant now) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+		String body = switch (path) {
+			case "/v2/account" -> account();
+			case "/v2/assets" -> this.assets();
+			case "/v2/calendar" -> calendar(query, now);
+			case "/v2/stocks/bars" -> this.bars(query, now);
+			case "/v2/stocks/bars/latest" -> this.latest(query, now, "bars");
+			case "/v2/stocks/quotes/latest" -> this.latest(query, now, "quotes");
+			case "/v2/stocks/trades/latest" -> this.latest(query, now, "trades");
+			case "/v2/stocks/snapshots" -> this.snapshots(query, now);
+			default -> null;
+		};
+		if (body == null && path.startsWith("/v2/assets/")) {
+			String symbol = path.substring("/v2/assets/".length()).toUpperCase(Locale.ROOT);
+			Integer index = this.symbolIndex.get(symbol);
+			if (index == null) {
+				send(exchange, 404, error(40410000, "asset not found"));
+				return;
+			}
+			body = this.asset(new StringBuilder(), index).toString();
+		}
+		if (body == null) {
+			Matcher matcher = SINGLE_SYMBOL.matcher(path);
+			if (matcher.matches()) {
+				String symbol = matcher.group(1).toUpperCase(Locale.ROOT);
+				if (!this.symbolIndex.containsKey(symbol) && !"bars".equals(matcher.group(2))) {
+					send(exchange, 404, error(40410000, "no data found for " + symbol));
+					return;
+				}
+				body = this.single(symbol, matcher.group(2), query, now);
+			}
+		}
+
+		if (body == null) {
+			send(exchange, 404, error(40410000, "endpoint not found"));
+		} else {
+			send(exchange, 200, body);
+		}
+	}
+
+	// --- Trader API ---
+
+	private static String account() {
+		return "{\"id\":\"00000000-0000-4000-8000-000000000000\",\"account_number\":\"STANDIN01\","
+				+ "\"status\":\"ACTIVE\",\"crypto_status\":\"INACTIVE\",\"currency\":\"USD\","
+				+ "\"buying_power\":\"0\",\"regt_buying_power\":\"0\",\"daytrading_buying_power\":\"0\","
+				+ "\"non_marginable_buying_power\":\"0\",\"cash\":\"0\",\"accrued_fees\":\"0\","
+				+ "\"portfolio_value\":\"0\",\"pattern_day_trader\":false,\"trading_blocked\":false,"
+				+ "\"transfers_blocked\":false,\"account_blocked\":false,\"created_at\":\"2020-01-01T00:00:00Z\","
+				+ "\"trade_suspended_by_user\":false,\"multiplier\":\"1\",\"shorting_enabled\":false,"
+				+ "\"equity\":\"0\",\"last_equity\":\"0\",\"long_market_value\":\"0\",\"short_market_value\":\"0\","
+				+ "\"initial_margin\":\"0\",\"maintenance_margin\":\"0\",\"last_maintenance_margin\":\"0\","
+				+ "\"sma\":\"0\",\"daytrade_count\":0}";
+	}
+
+	private String assets() {
+		StringBuilder json = new StringBuilder(this.symbols.size() * 320).append('[');
+		for (int i = 0; i < this.symbols.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			this.asset(json, i);
+		}
+		return json.append(']').toString();
+	}
+
+	private StringBuilder asset(StringBuilder json, int index) {
+		String symbol = this.symbols.get(index);
+		long hash = this.symbolHash(symbol);
+		String name = index < KNOWN_SYMBOLS.length ? symbol + " Inc."
+				: NAME_WORDS[(int) Long.remainderUnsigned(hash, NAME_WORDS.length)] + " "
+				+ NAME_WORDS[(int) Long.remainderUnsigned(hash >>> 20, NAME_WORDS.length)] + " Inc.";
+		return json.append(String.format(Locale.ROOT, "{\"id\":\"%08x-0000-4000-8000-%012x\",\"class\":\"us_equity\","
+						+ "\"exchange\":\"%s\",\"symbol\":\"%s\",\"name\":\"%s\",\"status\":\"active\","
+						+ "\"tradable\":true,\"marginable\":true,\"maintenance_margin_requirement\":30,"
+						+ "\"shortable\":true,\"easy_to_borrow\":true,\"fractionable\":true,\"attributes\":[]}",
+				index, hash & 0xFFFF_FFFF_FFFFL, EXCHANGES[(int) Long.remainderUnsigned(hash >>> 40, EXCHANGES.length)],
+				symbol, name));
+	}
+
+	private static String calendar(Map<String, String> query, Instant now) {
+		LocalDate today = LocalDate.ofInstant(now, MARKET_ZONE);
+		LocalDate from = query.containsKey("start") ? date(query.get("start")) : today;
+		LocalDate through = query.containsKey("end") ? date(query.get("end")) : today;
+		StringBuilder json = new StringBuilder().append('[');
+		for (LocalDate day = from; !day.isAfter(through); day = day.plusDays(1)) {
+			if (isTradingDay(day)) {
+				if (json.length() > 1) {
+					json.append(',');
+				}
+				json.append("{\"date\":\"").append(day).append("\",\"open\":\"09:30\",\"close\":\"16:00\","
+						+ "\"session_open\":\"0400\",\"session_close\":\"2000\",\"settlement_date\":\"")
+						.append(nextTradingDay(day)).append("\"}");
+			}
+		}
+		return json.append(']').toString();
+	}
+
+	// --- Market data API ---
+
+	/**
+	 * The multi-symbol historical bars, paged like Alpaca: at most {@code limit} bars in total, symbols
+	 * in alphabetical order, and a {@code next_page_token} to resume from.
+	 */
+	private String bars(Map<String, String> query, Instant now) {
+		List<String> requested = this.knownSymbols(query);
+		Page page = this.page(query, requested, now);
+		StringBuilder json = new StringBuilder(page.bars() * 110 + 64).append("{\"bars\":{");
+		boolean firstSymbol = true;
+		for (Map.Entry<String, List<Bar>> entry : page.bySymbol().entrySet()) {
+			if (!firstSymbol) {
+				json.append(',');
+			}
+			firstSymbol = false;
+			json.append('"').append(entry.getKey()).append("\":");
+			appendBars(json, entry.getValue());
+		}
+		json.append("},\"next_page_token\":");
+		return appendToken(json, page.nextToken()).append('}').toString();
+	}
+
+	private String single(String symbol, String endpoint, Map<String, String> query, Instant now) {
+		StringBuilder json = new StringBuilder(256).append("{\"symbol\":\"").append(symbol).append("\",");
+		switch (endpoint) {
+			case "bars" -> {
+				Page page = this.page(query, this.symbolIndex.containsKey(symbol) ? List.of(symbol) : List.of(), now);
+				json.append("\"bars\":");
+				appendBars(json, page.bySymbol().getOrDefault(symbol, List.of()));
+				appendToken(json.append(",\"next_page_token\":"), page.nextToken());
+			}
+			case "bars/latest" -> {
+				json.append("\"bar\":");
+				appendBar(json, this.latestBar(symbol, now));
+			}
+			case "quotes/latest" -> this.appendQuote(json.append("\"quote\":"), symbol, now);
+			case "trades/latest" -> this.appendTrade(json.append("\"trade\":"), symbol, now);
+			default -> this.appendSnapshotFields(json, symbol, now);
+		}
+		return json.append('}').toString();
+	}
+
+	private String latest(Map<String, String> query, Instant now, String kind) {
+		List<String> requested = this.knownSymbols(query);
+		StringBuilder json = new StringBuilder(requested.size() * 160 + 32).append("{\"").append(kind)
+				.append("\":{");
+		for (int i = 0; i < requested.size(); i++) {
+			String symbol = requested.get(i);
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append('"').append(symbol).append("\":");
+			switch (kind) {
+				case "bars" -> appendBar(json, this.latestBar(symbol, now));
+				case "quotes" -> this.appendQuote(json, symbol, now);
+				default -> this.appendTrade(json, symbol, now);
+			}
+		}
+		return json.append("}}").toString();
+	}
+
+	private String snapshots(Map<String, String> query, Instant now) {
+		List<String> requested = this.knownSymbols(query);
+		StringBuilder json = new StringBuilder(requested.size() * 700 + 8).append('{');
+		for (int i = 0; i < requested.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append('"').append(requested.get(i)).append("\":{");
+			this.appendSnapshotFields(json, requested.get(i), now);
+			json.append('}');
+		}
+		return json.append('}').toString();
+	}
+
+	private void appendSnapshotFields(StringBuilder json, String symbol, Instant now) {
+		json.append("\"latestTrade\":");
+		this.appendTrade(json, symbol, now);
+		json.append(",\"latestQuote\":");
+		this.appendQuote(json, symbol, now);
+		json.append(",\"minuteBar\":");
+		appendBar(json, this.latestBar(symbol, now));
+		LocalDate day = latestSessionDay(now);
+		long dayOpen = openMinute(day);
+		json.append(",\"dailyBar\":");
+		appendBar(json, this.bar(symbol, midnightMinute(day), dayOpen,
+				Math.min(lastMinute(now) + 1, dayOpen + SESSION_MINUTES)));
+		LocalDate previous = previousTradingDay(day);
+		json.append(",\"prevDailyBar\":");
+		appendBar(json, this.bar(symbol, midnightMinute(previous), openMinute(previous),
+				openMinute(previous) + SESSION_MINUTES));
+	}
+
+	private void appendTrade(StringBuilder json, String symbol, Instant now) {
+		long minute = lastMinute(now);
+		double price = this.price(symbol, minute + 1);
+		json.append(String.format(Locale.ROOT, "{\"c\":[\"@\"],\"i\":%d,\"p\":%.2f,\"s\":%d,\"t\":\"%s\","
+						+ "\"x\":\"V\",\"z\":\"C\"}", minute, price, 1 + (this.symbolHash(symbol) & 0xFF),
+				Instant.ofEpochSecond(minute * 60 + 59)));
+	}
+
+	private void appendQuote(StringBuilder json, String symbol, Instant now) {
+		long minute = lastMinute(now);
+		double price = this.price(symbol, minute + 1);
+		double spread = Math.max(0.01, Math.round(price * 0.0005 * 100) / 100.0);
+		json.append(String.format(Locale.ROOT, "{\"ap\":%.2f,\"as\":%d,\"ax\":\"V\",\"bp\":%.2f,\"bs\":%d,"
+						+ "\"bx\":\"V\",\"c\":[\"R\"],\"t\":\"%s\",\"z\":\"C\"}", price + spread / 2, 1 + (minute & 7),
+				Math.max(0.01, price - spread / 2), 1 + (minute & 3), Instant.ofEpochSecond(minute * 60 + 59)));
+	}
+
+	private Bar latestBar(String symbol, Instant now) {
+		long minute = lastMinute(now);
+		return this.bar(symbol, minute, minute, minute + 1);
+	}
+
+	/**
+	 * Collects the bars of one page: for each symbol in order, the bars between {@code start} and
+	 * {@code end} that have started by {@code now}, resuming from the page token if one is given.
+	 */
+	private Page page(Map<String, String> query, List<String> requested, Instant now) {
+		TimeFrame timeFrame = TimeFrame.parse(query.getOrDefault("timeframe", "1Min"));
+		long start = query.containsKey("start") ? instant(query.get("start")).getEpochSecond()
+				: openMinute(LocalDate.ofInstant(now, MARKET_ZONE)) * 60;
+		long end = Math.min(now.getEpochSecond(), query.containsKey("end")
+				? instant(query.get("end")).getEpochSecond() : Long.MAX_VALUE);
+		int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_LIMIT;
+		if (limit < 1 || limit > MAX_LIMIT) {
+			throw new IllegalArgumentException("invalid limit: must be between 1 and " + MAX_LIMIT);
+		}
+		boolean descending = "desc".equalsIgnoreCase(query.get("sort"));
+
+		// The page token is "<symbol>:<epoch second of the bar to resume at>".
+		String resumeSymbol = null;
+		long resumeAt = 0;
+		if (query.containsKey("page_token")) {
+			String token = new String(Base64.getUrlDecoder().decode(query.get("page_token")), StandardCharsets.UTF_8);
+			int colon = token.lastIndexOf(':');
+			if (colon < 0) {
+				throw new IllegalArgumentException("invalid page token");
+			}
+			resumeSymbol = token.substring(0, colon);
+			resumeAt = Long.parseLong(token.substring(colon + 1));
+		}
+
+		Map<String, List<Bar>> bySymbol = new LinkedHashMap<>();
+		int count = 0;
+		for (String symbol : requested) {
+			if (resumeSymbol != null && symbol.compareTo(resumeSymbol) < 0) {
+				continue;
+			}
+			List<Bar> bars = this.history(symbol, timeFrame, start, end);
+			if (descending) {
+				bars = bars.reversed();
+			}
+			int from = 0;
+			if (symbol.equals(resumeSymbol)) {
+				while (from < bars.size() && bars.get(from).epochSecond() != resumeAt) {
+					from++;
+				}
+			}
+			for (int i = from; i < bars.size(); i++) {
+				if (count == limit) {
+					String token = symbol + ":" + bars.get(i).epochSecond();
+					return new Page(bySymbol, count, Base64.getUrlEncoder().withoutPadding()
+							.encodeToString(token.getBytes(StandardCharsets.UTF_8)));
+				}
+				bySymbol.computeIfAbsent(symbol, s -> new ArrayList<>()).add(bars.get(i));
+				count++;
+			}
+		}
+		return new Page(bySymbol, count, null);
+	}
+
+	/**
+	 * @return The bars of a symbol that start within {@code [start, end]}, oldest first.
+	 */
+	private List<Bar> history(String symbol, TimeFrame timeFrame, long start, long end) {
+		List<Bar> bars = new ArrayList<>();
+		if (end < start) {
+			return bars;
+		}
+		long endMinute = Math.floorDiv(end, 60);
+		LocalDate first = LocalDate.ofInstant(Instant.ofEpochSecond(start), MARKET_ZONE);
+		LocalDate last = LocalDate.ofInstant(Instant.ofEpochSecond(end), MARKET_ZONE);
+		if (timeFrame.minutes() > 0) {
+			for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+				if (!isTradingDay(day)) {
+					continue;
+				}
+				long open = openMinute(day);
+				for (long minute = open; minute < open + SESSION_MINUTES; minute += timeFrame.minutes()) {
+					if (minute * 60 >= start && minute <= endMinute) {
+						long close = Math.min(minute + timeFrame.minutes(), open + SESSION_MINUTES);
+						bars.add(this.bar(symbol, minute, minute, Math.min(close, endMinute + 1)));
+					}
+				}
+			}
+			return bars;
+		}
+
+		// Daily and longer bars group a fixed number of trading days, counted from the epoch so that the
+		// groups don't depend on the requested range. They are stamped at midnight New York time.
+		long groupStart = -1;
+		long groupOpen = 0;
+		long groupClose = 0;
+		for (LocalDate day = first.minusDays(timeFrame.days() * 7L / 5 + 2); !day.isAfter(last); day = day.plusDays(1)) {
+			if (!isTradingDay(day)) {
+				continue;
+			}
+			long open = openMinute(day);
+			if (open > endMinute) {
+				break;
+			}
+			if (groupStart < 0 || tradingDayIndex(day) % timeFrame.days() == 0) {
+				if (groupStart >= start) {
+					bars.add(this.bar(symbol, groupStart / 60, groupOpen, groupClose));
+				}
+				groupStart = midnightMinute(day) * 60;
+				groupOpen = open;
+			}
+			groupClose = Math.min(open + SESSION_MINUTES, endMinute + 1);
+		}
+		if (groupStart >= start && groupStart <= end) {
+			bars.add(this.bar(symbol, groupStart / 60, groupOpen, groupClose));
+		}
+		return bars;
+	}
+
+	/**
+	 * Builds the bar stamped at {@code stampMinute} that runs from {@code fromMinute} to {@code toMinute}.
+	 */
+	private Bar bar(String symbol, long stampMinute, long fromMinute, long toMinute) {
+		long span = Math.max(1, toMinute - fromMinute);
+		double open = this.price(symbol, fromMinute);
+		double close = this.price(symbol, toMinute);
+		long hash = mix(this.symbolHash(symbol) ^ stampMinute * 0x9E3779B97F4A7C15L);
+		double wick = MINUTE_VOLATILITY * Math.sqrt(span);
+		double high = Math.max(open, close) * (1 + wick * unit(hash));
+		double low = Math.min(open, close) * (1 - wick * unit(hash >>> 21));
+		long volume = span * (100 + Long.remainderUnsigned(this.symbolHash(symbol), 5000))
+				* (50 + Long.remainderUnsigned(hash >>> 42, 100)) / 100;
+		return new Bar(stampMinute * 60, open, high, low, close, volume);
+	}
+
+	/**
+	 * The price of a symbol at the start of a minute: a base price between $5 and $505 times the
+	 * exponential of a sum of value noise layers, each four times longer than the last with twice the
+	 * amplitude, which makes the walk's variance grow in proportion to time, like a random walk.
+	 */
+	private double price(String symbol, long epochMinute) {
+		long symbolHash = this.symbolHash(symbol);
+		double base = 5 + Long.remainderUnsigned(symbolHash, 50_000) / 100.0;
+		double logOffset = 0;
+		long scale = 1;
+		double amplitude = MINUTE_VOLATILITY / Math.sqrt(2);
+		for (int octave = 0; octave < OCTAVES; octave++) {
+			long cell = Math.floorDiv(epochMinute, scale);
+			double t = (double) (epochMinute - cell * scale) / scale;
+			double smooth = t * t * (3 - 2 * t);
+			long layer = symbolHash + octave * 0xC2B2AE3D27D4EB4FL;
+			double a = unit(mix(layer ^ cell * 0x9E3779B97F4A7C15L)) * 2 - 1;
+			double b = unit(mix(layer ^ (cell + 1) * 0x9E3779B97F4A7C15L)) * 2 - 1;
+			logOffset += amplitude * Math.sqrt(3) * (a + (b - a) * smooth);
+			scale *= 4;
+			amplitude *= 2;
+		}
+		return Math.max(0.01, Math.round(base * Math.exp(logOffset) * 100) / 100.0);
+	}
+
+	private long symbolHash(String symbol) {
+		long hash = this.seed;
+		for (int i = 0; i < symbol.length(); i++) {
+			hash = mix(hash ^ symbol.charAt(i));
+		}
+		return hash;
+	}
+
+	private List<String> knownSymbols(Map<String, String> query) {
+		String list = query.get("symbols");
+		if (list == null || list.isBlank()) {
+			throw new IllegalArgumentException("missing symbols");
+		}
+		TreeSet<String> sorted = new TreeSet<>();
+		for (String symbol : list.split(",")) {
+			String upper = symbol.trim().toUpperCase(Locale.ROOT);
+			if (this.symbolIndex.containsKey(upper)) {
+				sorted.add(upper);
+			}
+		}
+		return List.copyOf(sorted);
+	}
+
+	// --- Helpers ---
+
+	private record Bar(long epochSecond, double open, double high, double low, double close, long volume) {
+	}
+
+	private record Page(Map<String, List<Bar>> bySymbol, int bars, String nextToken) {
+	}
+
+	/**
+	 * A bar length of either {@code minutes} within a session or a number of trading {@code days}.
+	 */
+	private record TimeFrame(int minutes, int days) {
+		static TimeFrame parse(String value) {
+			Matcher matcher = TIME_FRAME.matcher(value);
+			if (!matcher.matches() || Integer.parseInt(matcher.group(1)) < 1) {
+				throw new IllegalArgumentException("invalid timeframe: " + value);
+			}
+			int amount = Integer.parseInt(matcher.group(1));
+			return switch (matcher.group(2)) {
+				case "Min", "T" -> new TimeFrame(amount, 0);
+				case "Hour", "H" -> new TimeFrame(amount * 60, 0);
+				case "Day", "D" -> new TimeFrame(0, amount);
+				case "Week", "W" -> new TimeFrame(0, amount * 5);
+				default -> new TimeFrame(0, amount * 21);
+			};
+		}
+	}
+
+	private static void appendBars(StringBuilder json, List<Bar> bars) {
+		json.append('[');
+		for (int i = 0; i < bars.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			appendBar(json, bars.get(i));
+		}
+		json.append(']');
+	}
+
+	private static void appendBar(StringBuilder json, Bar bar) {
+		json.append(String.format(Locale.ROOT,
+				"{\"c\":%.2f,\"h\":%.2f,\"l\":%.2f,\"n\":%d,\"o\":%.2f,\"t\":\"%s\",\"v\":%d,\"vw\":%.4f}",
+				bar.close(), bar.high(), bar.low(), 1 + bar.volume() / 80, bar.open(),
+				Instant.ofEpochSecond(bar.epochSecond()), bar.volume(),
+				(bar.open() + bar.high() + bar.low() + bar.close()) / 4));
+	}
+
+	private static StringBuilder appendToken(StringBuilder json, String token) {
+		return token == null ? json.append("null") : json.append('"').append(token).append('"');
+	}
+
+	private static String error(int code, String message) {
+		return "{\"code\":" + code + ",\"message\":\"" + message.replace("\"", "'") + "\"}";
+	}
+
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static Map<String, String> query(String rawQuery) {
+		Map<String, String> params = new HashMap<>();
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return params;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int equals = pair.indexOf('=');
+			if (equals > 0) {
+				params.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return params;
+	}
+
+	private static Instant instant(String value) {
+		try {
+			return OffsetDateTime.parse(value).toInstant();
+		} catch (DateTimeParseException e) {
+			return date(value).atStartOfDay(MARKET_ZONE).toInstant();
+		}
+	}
+
+	private static LocalDate date(String value) {
+		try {
+			return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("invalid date: " + value);
+		}
+	}
+
+	private static boolean isTradingDay(LocalDate day) {
+		return day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY;
+	}
+
+	private static LocalDate nextTradingDay(LocalDate day) {
+		LocalDate next = day.plusDays(1);
+		while (!isTradingDay(next)) {
+			next = next.plusDays(1);
+		}
+		return next;
+	}
+
+	private static LocalDate previousTradingDay(LocalDate day) {
+		LocalDate previous = day.minusDays(1);
+		while (!isTradingDay(previous)) {
+			previous = previous.minusDays(1);
+		}
+		return previous;
+	}
+
+	/**
+	 * @return The number of trading days between the Monday before the epoch and the given day.
+	 */
+	private static long tradingDayIndex(LocalDate day) {
+		long daysSinceMonday = day.toEpochDay() + 3;
+		return Math.floorDiv(daysSinceMonday, 7) * 5 + Math.floorMod(daysSinceMonday, 7);
+	}
+
+	private static long midnightMinute(LocalDate day) {
+		return day.atStartOfDay(MARKET_ZONE).toEpochSecond() / 60;
+	}
+
+	private static long openMinute(LocalDate day) {
+		return day.atTime(OPEN).atZone(MARKET_ZONE).toEpochSecond() / 60;
+	}
+
+	/**
+	 * @return The last trading day whose session has opened by the given time.
+	 */
+	private static LocalDate latestSessionDay(Instant now) {
+		LocalDate day = LocalDate.ofInstant(now, MARKET_ZONE);
+		if (!isTradingDay(day) || now.getEpochSecond() / 60 < openMinute(day)) {
+			day = previousTradingDay(day);
+		}
+		return day;
+	}
+
+	/**
+	 * @return The minute of the latest bar at the given time: the current minute during a session,
+	 *         otherwise the last minute of the latest session.
+	 */
+	private static long lastMinute(Instant now) {
+		long open = openMinute(latestSessionDay(now));
+		return Math.min(now.getEpochSecond() / 60, open + SESSION_MINUTES - 1);
+	}
+
+	private static List<String> universe(int size) {
+		List<String> symbols = new ArrayList<>(size);
+		for (int i = 0; i < Math.min(size, KNOWN_SYMBOLS.length); i++) {
+			symbols.add(KNOWN_SYMBOLS[i]);
+		}
+		TreeSet<String> taken = new TreeSet<>(symbols);
+		for (int i = 0; symbols.size() < size; i++) {
+			StringBuilder symbol = new StringBuilder();
+			int n = i;
+			do {
+				symbol.insert(0, (char) ('A' + n % 26));
+				n = n / 26 - 1;
+			} while (n >= 0);
+			if (taken.add(symbol.toString())) {
+				symbols.add(symbol.toString());
+			}
+		}
+		return List.copyOf(symbols);
+	}
+
+	/**
+	 * SplitMix64's finalizer.
+	 */
+	private static long mix(long value) {
+		long z = value + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * @return A value in [0, 1) from the top bits of a hash.
+	 */
+	private static double unit(long hash) {
+		return (hash >>> 11) * 0x1.0p-53;
+	}
+}
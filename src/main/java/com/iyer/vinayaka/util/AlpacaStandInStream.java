@@ -0,0 +1,272 @@
+package com.iyer.vinayaka.util;
+
+import net.jacobpeterson.alpaca.model.websocket.marketdata.streams.stock.model.bar.StockBarMessage;
+import net.jacobpeterson.alpaca.model.websocket.marketdata.streams.stock.model.trade.StockTradeMessage;
+import net.jacobpeterson.alpaca.websocket.AlpacaWebsocketStateListener;
+import net.jacobpeterson.alpaca.websocket.marketdata.streams.stock.StockMarketDataListener;
+import net.jacobpeterson.alpaca.websocket.marketdata.streams.stock.StockMarketDataWebsocketInterface;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * An in-process stand-in for the Alpaca stock market data websocket, so that the streaming refresh mode
+ * can run against {@link AlpacaStandInServer} and be tested without a network.
+ *
+ * <p>
+ * {@link #getStream()} behaves like the client's websocket as far as {@link TickerStreamer} can tell:
+ * connecting authenticates at once and reports {@code onOpen}, subscriptions are kept per channel, and
+ * trades and minute bars are delivered to the listener on the caller's thread. In addition:
+ * </p>
+ * <ul>
+ * <li>{@link #emitTrade(String, double)} and {@link #emitMinuteBar(String, double)} deliver a message
+ * for a subscribed symbol</li>
+ * <li>{@link #drop(int, String)} closes the connection from the "server" side, like a network
+ * failure</li>
+ * <li>When created with a price source, every subscribed symbol whose price moved is streamed as a
+ * trade at a fixed interval while connected</li>
+ * </ul>
+ * <p>
+ * The stream is a dynamic proxy, so it implements whatever methods the client's interface has: the ones
+ * above are handled, all others do nothing and return an empty or false value.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> Connecting and disconnecting are synchronized, everything else is volatile or
+ * atomic; messages may be emitted from any thread.
+ * </p>
+ */
+public final class AlpacaStandInStream implements AutoCloseable {
+	private final StockMarketDataWebsocketInterface stream;
+	private final Function<String, Double> prices;
+	private final long tickMillis;
+	// The last price streamed per symbol, so that only moves are sent. Only used by the ticker thread.
+	private final Map<String, Double> lastTicked = new HashMap<>();
+
+	private volatile StockMarketDataListener listener;
+	private volatile AlpacaWebsocketStateListener stateListener;
+	private volatile boolean connected = false;
+	private volatile Set<String> tradeSubscriptions = Set.of();
+	private volatile Set<String> minuteBarSubscriptions = Set.of();
+	private final AtomicInteger connects = new AtomicInteger();
+	private final AtomicInteger subscriptionChanges = new AtomicInteger();
+	private ScheduledExecutorService ticker;
+
+	/**
+	 * Creates a stream that only delivers the messages emitted through this object.
+	 */
+	public AlpacaStandInStream() {
+		this(symbol -> null, 0);
+	}
+
+	/**
+	 * Creates a stream that also sends a trade for every subscribed symbol whose price moved.
+	 *
+	 * @param prices     The current price of a symbol, or null if there is none.
+	 * @param tickMillis How often prices are checked; 0 to never stream them on its own.
+	 */
+	public AlpacaStandInStream(Function<String, Double> prices, long tickMillis) {
+		this.prices = prices;
+		this.tickMillis = tickMillis;
+		this.stream = (StockMarketDataWebsocketInterface) Proxy.newProxyInstance(
+				StockMarketDataWebsocketInterface.class.getClassLoader(),
+				new Class<?>[] {StockMarketDataWebsocketInterface.class},
+				(proxy, method, args) -> this.invoke(proxy, method, args));
+	}
+
+	/**
+	 * @return The websocket to hand to {@link TickerStreamer}.
+	 */
+	public StockMarketDataWebsocketInterface getStream() {
+		return this.stream;
+	}
+
+	/**
+	 * @return How many times the stream was connected.
+	 */
+	public int getConnectCount() {
+		return this.connects.get();
+	}
+
+	/**
+	 * @return How many times the trade or minute bar subscriptions were set.
+	 */
+	public int getSubscriptionChangeCount() {
+		return this.subscriptionChanges.get();
+	}
+
+	/**
+	 * @return The symbols subscribed to trades.
+	 */
+	public Set<String> getTradeSubscriptions() {
+		return this.tradeSubscriptions;
+	}
+
+	/**
+	 * Delivers a trade to the listener, if connected and the symbol is subscribed to trades.
+	 */
+	public void emitTrade(String symbol, double price) {
+		StockMarketDataListener current = this.listener;
+		if (this.connected && current != null && this.tradeSubscriptions.contains(symbol)) {
+			StockTradeMessage trade = new StockTradeMessage();
+			trade.setSymbol(symbol);
+			trade.setPrice(price);
+			current.onTrade(trade);
+		}
+	}
+
+	/**
+	 * Delivers a minute bar to the listener, if connected and the symbol is subscribed to minute bars.
+	 */
+	public void emitMinuteBar(String symbol, double close) {
+		StockMarketDataListener current = this.listener;
+		if (this.connected && current != null && this.minuteBarSubscriptions.contains(symbol)) {
+			StockBarMessage bar = new StockBarMessage();
+			bar.setSymbol(symbol);
+			bar.setClose(close);
+			current.onMinuteBar(bar);
+		}
+	}
+
+	/**
+	 * Closes the connection as if the server had dropped it, and reports it to the state listener.
+	 */
+	public void drop(int code, String reason) {
+		this.closeConnection(code, reason);
+	}
+
+	@Override
+	public void close() {
+		this.closeConnection(1000, "closed");
+	}
+
+	private Object invoke(Object proxy, Method method, Object[] args) {
+		switch (method.getName()) {
+			case "connect" -> {
+				this.openConnection();
+				return null;
+			}
+			case "disconnect" -> {
+				this.closeConnection(1000, "disconnected");
+				return null;
+			}
+			case "isConnected", "isAuthenticated", "isValid" -> {
+				return this.connected;
+			}
+			case "setListener" -> {
+				this.listener = (StockMarketDataListener) args[0];
+				return null;
+			}
+			case "setAlpacaWebsocketStateListener" -> {
+				this.stateListener = (AlpacaWebsocketStateListener) args[0];
+				return null;
+			}
+			case "setTradeSubscriptions" -> {
+				this.tradeSubscriptions = copy(args[0]);
+				this.subscriptionChanges.incrementAndGet();
+				return null;
+			}
+			case "getTradeSubscriptions" -> {
+				return this.tradeSubscriptions;
+			}
+			case "setMinuteBarSubscriptions" -> {
+				this.minuteBarSubscriptions = copy(args[0]);
+				this.subscriptionChanges.incrementAndGet();
+				return null;
+			}
+			case "getMinuteBarSubscriptions" -> {
+				return this.minuteBarSubscriptions;
+			}
+			case "toString" -> {
+				return "AlpacaStandInStream";
+			}
+			case "hashCode" -> {
+				return System.identityHashCode(proxy);
+			}
+			case "equals" -> {
+				return proxy == args[0];
+			}
+			default -> {
+				return emptyValue(method.getReturnType());
+			}
+		}
+	}
+
+	private synchronized void openConnection() {
+		if (this.connected) {
+			return;
+		}
+		this.connected = true;
+		this.connects.incrementAndGet();
+		AlpacaWebsocketStateListener current = this.stateListener;
+		if (current != null) {
+			current.onOpen(null);
+		}
+		if (this.tickMillis > 0) {
+			this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "stand-in-stream");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.ticker.scheduleWithFixedDelay(this::tick, this.tickMillis, this.tickMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void closeConnection(int code, String reason) {
+		synchronized (this) {
+			if (!this.connected) {
+				return;
+			}
+			this.connected = false;
+			if (this.ticker != null) {
+				this.ticker.shutdownNow();
+				this.ticker = null;
+			}
+		}
+		AlpacaWebsocketStateListener current = this.stateListener;
+		if (current != null) {
+			current.onClosed(code, reason);
+		}
+	}
+
+	private void tick() {
+		try {
+			for (String symbol : this.tradeSubscriptions) {
+				Double price = this.prices.apply(symbol);
+				if (price != null && !price.equals(this.lastTicked.put(symbol, price))) {
+					this.emitTrade(symbol, price);
+				}
+			}
+		} catch (RuntimeException e) {
+			// Never let a bad tick kill the scheduled task.
+			System.err.println("Error streaming stand-in trades: " + e.getMessage());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Set<String> copy(Object symbols) {
+		return symbols == null ? Set.of() : Set.copyOf((Collection<String>) symbols);
+	}
+
+	/**
+	 * @return The zero value of a primitive type, an empty set, or null.
+	 */
+	private static Object emptyValue(Class<?> type) {
+		if (type == void.class) {
+			return null;
+		} else if (type.isPrimitive()) {
+			return Array.get(Array.newInstance(type, 1), 0);
+		}
+		return type == Set.class ? Set.of() : null;
+	}
+}
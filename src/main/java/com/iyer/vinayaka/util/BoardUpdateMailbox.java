@@ -0,0 +1,185 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.entities.UserTickers;
+import com.iyer.vinayaka.model.TickerPrice;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A latest-wins mailbox between the threads producing ticker board updates and the JavaFX Application
+ * Thread, drained at most once per pulse.
+ *
+ * <p>
+ * Refresh cycles, user actions, scroll fetches and the websocket stream all produce board updates, and
+ * posting each of them with {@link Platform#runLater} means every one is applied, even when a newer one
+ * is already waiting right behind it. Instead, updates are merged here until the next pulse:
+ * </p>
+ * <ul>
+ * <li>A board update (the full ticker order plus prices) replaces any pending one; prices the newer
+ * update doesn't carry are kept from the older one</li>
+ * <li>Price updates are merged per symbol, keeping only the newest price of each</li>
+ * </ul>
+ * <p>
+ * An {@link AnimationTimer}, started only while something is pending, then applies the newest state
+ * once per pulse. However fast data arrives, the FX thread does at most one board update and one price
+ * per ticker each frame.
+ * </p>
+ *
+ * <p>
+ * The time a board update waits here for the FX thread is recorded as a
+ * {@link RefreshEvents.BoardQueueWait} JFR event.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> {@link #postBoard(List, Map)} and {@link #postPrices(Map)} can be called from
+ * any thread. The appliers are only called on the JavaFX Application Thread.
+ * </p>
+ */
+public class BoardUpdateMailbox {
+	private final BiConsumer<List<UserTickers>, Map<String, TickerPrice>> boardApplier;
+	private final Consumer<Map<String, TickerPrice>> priceApplier;
+	private final Consumer<Runnable> fxExecutor;
+
+	private final AtomicReference<BoardUpdate> pendingBoard = new AtomicReference<>();
+	private final Map<String, TickerPrice> pendingPrices = new ConcurrentHashMap<>();
+	// Whether the timer is running or about to be started; set by whoever posts first after a drain
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private AnimationTimer timer;
+
+	// queueWait times the wait of the oldest update merged into this one, for JFR.
+	private record BoardUpdate(List<UserTickers> tickers, Map<String, TickerPrice> prices,
+							   RefreshEvents.BoardQueueWait queueWait) {
+	}
+
+	/**
+	 * @param boardApplier Applies a board update (ticker order and prices) on the FX thread.
+	 * @param priceApplier Applies price updates to the tickers already on the board, on the FX thread.
+	 */
+	public BoardUpdateMailbox(BiConsumer<List<UserTickers>, Map<String, TickerPrice>> boardApplier,
+							  Consumer<Map<String, TickerPrice>> priceApplier) {
+		this(boardApplier, priceApplier, Platform::runLater);
+	}
+
+	/**
+	 * @param fxExecutor Runs a task on the FX thread; {@link Platform#runLater} outside of tests.
+	 */
+	BoardUpdateMailbox(BiConsumer<List<UserTickers>, Map<String, TickerPrice>> boardApplier,
+					   Consumer<Map<String, TickerPrice>> priceApplier, Consumer<Runnable> fxExecutor) {
+		this.boardApplier = boardApplier;
+		this.priceApplier = priceApplier;
+		this.fxExecutor = fxExecutor;
+	}
+
+	/**
+	 * Posts the full board: the tickers in display order and the prices that were fetched for them.
+	 *
+	 * @param tickers The tickers in display order.
+	 * @param prices  The fetched prices, possibly for only some of the tickers.
+	 */
+	public void postBoard(List<UserTickers> tickers, Map<String, TickerPrice> prices) {
+		RefreshEvents.BoardQueueWait queueWait = new RefreshEvents.BoardQueueWait();
+		queueWait.begin();
+		this.pendingBoard.accumulateAndGet(new BoardUpdate(tickers, prices, queueWait), (older, newer) -> {
+			if (older == null) {
+				return newer;
+			}
+			if (older.prices().isEmpty()) {
+				return new BoardUpdate(newer.tickers(), newer.prices(), older.queueWait());
+			}
+			Map<String, TickerPrice> merged = new HashMap<>(older.prices());
+			merged.putAll(newer.prices());
+			return new BoardUpdate(newer.tickers(), merged, older.queueWait());
+		});
+		// The board's prices are newer than the pending per-symbol prices of the same tickers.
+		this.pendingPrices.keySet().removeAll(prices.keySet());
+		this.requestDrain();
+	}
+
+	/**
+	 * Posts prices for tickers already on the board, e.g. streamed trades.
+	 *
+	 * @param prices The new prices.
+	 */
+	public void postPrices(Map<String, TickerPrice> prices) {
+		this.pendingPrices.putAll(prices);
+		this.requestDrain();
+	}
+
+	/**
+	 * Starts the timer unless it's already running or about to be started.
+	 */
+	private void requestDrain() {
+		if (this.draining.compareAndSet(false, true)) {
+			this.fxExecutor.accept(this::startTimer);
+		}
+	}
+
+	private void startTimer() {
+		if (this.timer == null) {
+			this.timer = new AnimationTimer() {
+				@Override
+				public void handle(long now) {
+					if (!BoardUpdateMailbox.this.drain()) {
+						this.stop();
+					}
+				}
+			};
+		}
+		this.timer.start();
+	}
+
+	/**
+	 * Applies everything that's pending. Runs on the FX thread, once per pulse while the timer runs.
+	 *
+	 * @return Whether the timer should keep running: false once nothing was pending, so an idle board
+	 *         doesn't keep requesting pulses.
+	 */
+	boolean drain() {
+		BoardUpdate board = this.pendingBoard.getAndSet(null);
+		Map<String, TickerPrice> prices = this.takePendingPrices();
+		if (board == null && prices.isEmpty()) {
+			this.draining.set(false);
+			// Something may have been posted after the checks above, while draining was still set.
+			return (this.pendingBoard.get() != null || !this.pendingPrices.isEmpty())
+					&& this.draining.compareAndSet(false, true);
+		}
+
+		if (board != null) {
+			RefreshEvents.BoardQueueWait queueWait = board.queueWait();
+			queueWait.end();
+			if (queueWait.shouldCommit()) {
+				queueWait.tickers = board.tickers().size();
+				queueWait.prices = board.prices().size();
+				queueWait.commit();
+			}
+			this.boardApplier.accept(board.tickers(), board.prices());
+		}
+		if (!prices.isEmpty()) {
+			this.priceApplier.accept(prices);
+		}
+		return true;
+	}
+
+	private Map<String, TickerPrice> takePendingPrices() {
+		if (this.pendingPrices.isEmpty()) {
+			return Map.of();
+		}
+		Map<String, TickerPrice> prices = new HashMap<>();
+		for (String symbol : this.pendingPrices.keySet()) {
+			TickerPrice price = this.pendingPrices.remove(symbol);
+			if (price != null) {
+				prices.put(symbol, price);
+			}
+		}
+		return prices;
+	}
+}
@@ -0,0 +1,164 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import jakarta.annotation.PreDestroy;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Watches the JavaFX Application Thread and reports when the UI stops responding.
+ *
+ * <p>
+ * A background thread posts a probe to the FX thread every {@code vinayaka.ui.watchdog-interval-millis}
+ * and waits for it to run before posting the next one. From that it measures:
+ * </p>
+ * <ul>
+ * <li><b>Queue latency:</b> how long each probe waited for the FX thread, i.e. how long any
+ * {@code Platform.runLater} task (and any click or key press) would have waited at that moment</li>
+ * <li><b>Pulse intervals:</b> the time between consecutive pulses of the main scene, while it's being
+ * updated or animated. Gaps longer than the stall threshold are left out: either nothing needed to be
+ * drawn, or the FX thread was stalled, which is reported on its own.</li>
+ * <li><b>Stalls:</b> when a probe has been waiting for longer than
+ * {@code vinayaka.ui.stall-threshold-millis}, the FX thread's stack is logged, showing the handler that
+ * is blocking it. When the probe finally runs, the total time the thread was blocked is logged.</li>
+ * </ul>
+ * <p>
+ * Everything is recorded with {@link PipelineMetrics}, so it's available over JMX next to the refresh
+ * pipeline metrics.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> {@link #start(Scene)} must be called on the JavaFX Application Thread. The
+ * checks run on the watchdog's own thread.
+ * </p>
+ */
+@Component
+public class FxStallWatchdog {
+	private static final long NO_PROBE = Long.MIN_VALUE;
+
+	private final Consumer<Runnable> fxExecutor;
+	private final boolean enabled;
+	private final long intervalMillis;
+	private final long stallThresholdNanos;
+
+	private ScheduledExecutorService executor;
+	// The FX thread, learned from the first probe that runs on it
+	private volatile Thread fxThread;
+	// When the probe that's waiting for the FX thread was posted, or NO_PROBE
+	private final AtomicLong pendingProbeNanos = new AtomicLong(NO_PROBE);
+	// Whether the current stall has been logged. Only used by the watchdog thread.
+	private boolean stallReported = false;
+	private final AtomicLong stalls = new AtomicLong();
+	// Time of the last pulse of the main scene. Only used on the FX thread.
+	private long lastPulseNanos = 0;
+
+	public FxStallWatchdog(VinayakaProperties properties) {
+		this(properties, Platform::runLater);
+	}
+
+	/**
+	 * @param fxExecutor Runs a task on the FX thread. Tests pass one that just collects the tasks.
+	 */
+	FxStallWatchdog(VinayakaProperties properties, Consumer<Runnable> fxExecutor) {
+		VinayakaProperties.Ui ui = properties.getUi();
+		this.fxExecutor = fxExecutor;
+		this.enabled = ui.isStallWatchdog();
+		this.intervalMillis = Math.max(1, ui.getWatchdogIntervalMillis());
+		this.stallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(ui.getStallThresholdMillis());
+	}
+
+	/**
+	 * Starts watching the FX thread and the pulses of the given scene. Does nothing if the watchdog is
+	 * disabled or already running.
+	 *
+	 * @param scene The main scene.
+	 */
+	public synchronized void start(Scene scene) {
+		if (!this.enabled || this.executor != null) {
+			return;
+		}
+		scene.addPreLayoutPulseListener(this::onPulse);
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "fx-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.scheduleWithFixedDelay(this::check, this.intervalMillis, this.intervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public synchronized void stop() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return How many times the FX thread was blocked for longer than the stall threshold.
+	 */
+	public long getStallCount() {
+		return this.stalls.get();
+	}
+
+	/**
+	 * Posts a probe if none is waiting, or logs the FX thread's stack if the waiting one has been
+	 * waiting for longer than the stall threshold.
+	 */
+	void check() {
+		long now = System.nanoTime();
+		long posted = this.pendingProbeNanos.get();
+		if (posted == NO_PROBE) {
+			this.stallReported = false;
+			this.pendingProbeNanos.set(now);
+			this.fxExecutor.accept(() -> this.probeArrived(now));
+		} else if (!this.stallReported && now - posted >= this.stallThresholdNanos) {
+			this.stallReported = true;
+			this.stalls.incrementAndGet();
+			this.logStall(TimeUnit.NANOSECONDS.toMillis(now - posted));
+		}
+	}
+
+	/**
+	 * Runs on the FX thread when a probe gets there.
+	 */
+	private void probeArrived(long postedNanos) {
+		this.fxThread = Thread.currentThread();
+		long latency = System.nanoTime() - postedNanos;
+		PipelineMetrics.recordFxLatency(latency);
+		if (latency >= this.stallThresholdNanos) {
+			PipelineMetrics.recordFxStall(latency);
+			System.err.println("JavaFX Application Thread was blocked for "
+					+ TimeUnit.NANOSECONDS.toMillis(latency) + " ms");
+		}
+		this.pendingProbeNanos.set(NO_PROBE);
+	}
+
+	private void onPulse() {
+		long now = System.nanoTime();
+		if (this.lastPulseNanos != 0 && now - this.lastPulseNanos < this.stallThresholdNanos) {
+			PipelineMetrics.recordPulseInterval(now - this.lastPulseNanos);
+		}
+		this.lastPulseNanos = now;
+	}
+
+	private void logStall(long blockedMillis) {
+		StringBuilder message = new StringBuilder("JavaFX Application Thread blocked for ")
+				.append(blockedMillis).append(" ms so far");
+		Thread thread = this.fxThread;
+		if (thread != null) {
+			message.append(", at:");
+			for (StackTraceElement frame : thread.getStackTrace()) {
+				message.append(System.lineSeparator()).append("\tat ").append(frame);
+			}
+		}
+		System.err.println(message);
+	}
+}
@@ -0,0 +1,107 @@
+package com.iyer.vinayaka.util;
+
+import javafx.scene.Scene;
+import jdk.jfr.EventType;
+
+/**
+ * Measures how long the CSS and layout pass of a scene takes in the pulse that follows a UI update.
+ *
+ * <p>
+ * JavaFX applies CSS and lays out a scene once per pulse, after the code that changed the scene graph
+ * has returned, so timing the update itself misses most of its cost. This timer hooks the scene's pre-
+ * and post-layout pulse listeners, which run right before and right after that pass, and reports the
+ * pass that follows each {@link #measureNextPass(Scene, String)} call.
+ * </p>
+ *
+ * <p>
+ * Each measured pass is recorded as a {@link RefreshEvents.LayoutPass} JFR event, and printed if the
+ * timer was created with logging enabled.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> Must only be used on the JavaFX Application Thread.
+ * </p>
+ */
+public final class LayoutPassTimer {
+	private static final EventType LAYOUT_PASS_EVENT = EventType.getEventType(RefreshEvents.LayoutPass.class);
+
+	private final boolean log;
+	private Scene scene;
+	private long passStartNanos;
+	private RefreshEvents.LayoutPass passEvent;
+	// Description of the update waiting for its pass to be measured, or null if there's none
+	private String pending;
+
+	private long measuredPasses = 0;
+	private long totalNanos = 0;
+
+	/**
+	 * @param log Whether to print each measured pass.
+	 */
+	public LayoutPassTimer(boolean log) {
+		this.log = log;
+	}
+
+	/**
+	 * @return Whether a running JFR recording has enabled {@link RefreshEvents.LayoutPass} events, i.e.
+	 *         whether passes are worth measuring even with logging disabled.
+	 */
+	public static boolean isEventEnabled() {
+		return LAYOUT_PASS_EVENT.isEnabled();
+	}
+
+	/**
+	 * Reports the duration of the next CSS and layout pass of the given scene. If another update is
+	 * already waiting for that pass, only the latest description is printed. If the update didn't
+	 * change anything on screen, JavaFX skips the pass and nothing is reported until the next one.
+	 *
+	 * @param scene       The scene the update was made in. Nothing is measured if it's null.
+	 * @param description What was updated, printed with the measurement.
+	 */
+	public void measureNextPass(Scene scene, String description) {
+		if (scene == null) {
+			return;
+		}
+		if (this.scene != scene) {
+			this.install(scene);
+		}
+		this.pending = description;
+	}
+
+	/**
+	 * @see #measureNextPass(Scene, String)
+	 */
+	private void install(Scene scene) {
+		this.scene = scene;
+		scene.addPreLayoutPulseListener(() -> {
+			// Passes without an update waiting to be measured aren't timed, so nothing is allocated.
+			if (this.scene == scene && this.pending != null) {
+				this.passStartNanos = System.nanoTime();
+				this.passEvent = new RefreshEvents.LayoutPass();
+				this.passEvent.begin();
+			}
+		});
+		scene.addPostLayoutPulseListener(() -> {
+			if (this.scene == scene && this.pending != null && this.passEvent != null) {
+				this.report(System.nanoTime() - this.passStartNanos);
+			}
+		});
+	}
+
+	private void report(long elapsedNanos) {
+		this.passEvent.end();
+		if (this.passEvent.shouldCommit()) {
+			this.passEvent.update = this.pending;
+			this.passEvent.commit();
+		}
+		this.measuredPasses++;
+		this.totalNanos += elapsedNanos;
+		if (this.log) {
+			System.out.printf("%s: CSS and layout pass took %.3f ms (average %.3f ms over %d refreshes)%n",
+					this.pending, elapsedNanos / 1_000_000.0, this.totalNanos / 1_000_000.0 / this.measuredPasses,
+					this.measuredPasses);
+		}
+		this.pending = null;
+		this.passEvent = null;
+	}
+}
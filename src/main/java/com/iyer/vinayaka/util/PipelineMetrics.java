@@ -0,0 +1,265 @@
+package com.iyer.vinayaka.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Micrometer meters of the refresh pipeline, from the Alpaca requests up to the board update on the
+ * JavaFX Application Thread.
+ *
+ * <p>
+ * Meters are registered with Micrometer's global registry, to which Spring Boot adds the application's
+ * own registry at startup. The services, the refresher and the controller can therefore record
+ * measurements without a registry being passed to them, and in unit tests (where the global registry
+ * has no registries) every measurement is a no-op.
+ * </p>
+ *
+ * <p>
+ * <b>Meters:</b>
+ * </p>
+ * <ul>
+ * <li>{@code vinayaka.alpaca.requests}: timer of every Alpaca REST request, tagged with the limiter
+ * {@code lane} and the {@code outcome} ({@code success}, {@code error}, or {@code throttled} for a 429
+ * that is retried). The error rate is the {@code error} count over the total.</li>
+ * <li>{@code vinayaka.prices.fetch}: timer of each price lookup of the refresh pipeline, tagged with the
+ * refresh {@code engine}</li>
+ * <li>{@code vinayaka.prices.symbols} and {@code vinayaka.prices.missing}: distribution summaries of how
+ * many symbols each lookup asked for, and how many of them came back without a price</li>
+ * <li>{@code vinayaka.refresh.cycle}: timer of a whole scheduled refresh cycle, tagged with its
+ * {@code outcome}</li>
+ * <li>{@code vinayaka.ui.populate}: timer of the board update on the JavaFX Application Thread</li>
+ * <li>{@code vinayaka.ui.fx.latency}, {@code vinayaka.ui.pulse.interval} and {@code vinayaka.ui.fx.stalls}:
+ * how long tasks posted to the JavaFX Application Thread wait, how far apart its pulses are, and how
+ * long it was blocked when it stalled; see {@link FxStallWatchdog}</li>
+ * <li>{@code vinayaka.cache.requests} and {@code vinayaka.cache.hit.ratio}: lookups of the local caches,
+ * tagged with the {@code cache} and (for the counter) the {@code result}, {@code hit} or {@code miss}</li>
+ * <li>{@code vinayaka.chart.load}: timer of loading the historical bars of a chart, tagged with their
+ * {@code timeframe}</li>
+ * </ul>
+ *
+ * <p>
+ * Timers and the symbol summaries publish their 50th and 99th percentiles, which are computed in the
+ * client so that they're available over JMX (as {@code <name>.percentile} gauges tagged {@code phi}).
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> All methods can be called from any thread.
+ * </p>
+ */
+public final class PipelineMetrics {
+	private static final double[] PERCENTILES = {0.5, 0.99};
+
+	// Hit and miss counts per cache name, read by the hit ratio gauges
+	private static final Map<String, AtomicLong[]> CACHE_COUNTS = new ConcurrentHashMap<>();
+
+	private static volatile MeterRegistry registry = Metrics.globalRegistry;
+
+	private PipelineMetrics() {
+	}
+
+	/**
+	 * Records one Alpaca REST request.
+	 *
+	 * @param lane    The limiter lane the request was sent in.
+	 * @param outcome {@code success}, {@code error} or {@code throttled}.
+	 * @param nanos   How long the request took, not counting the wait for the rate limiter.
+	 */
+	public static void recordAlpacaRequest(Enum<?> lane, String outcome, long nanos) {
+		Timer.builder("vinayaka.alpaca.requests")
+				.description("Alpaca REST requests")
+				.tag("lane", tagValue(lane))
+				.tag("outcome", outcome)
+				.publishPercentiles(PERCENTILES)
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records one price lookup of the refresh pipeline.
+	 *
+	 * @param engine    The refresh engine that was used.
+	 * @param nanos     How long the lookup took.
+	 * @param requested The number of symbols asked for.
+	 * @param received  The number of symbols a price was returned for.
+	 */
+	public static void recordPriceFetch(Enum<?> engine, long nanos, int requested, int received) {
+		String engineTag = tagValue(engine);
+		Timer.builder("vinayaka.prices.fetch")
+				.description("Latest price lookups of the refresh pipeline")
+				.tag("engine", engineTag)
+				.publishPercentiles(PERCENTILES)
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+		DistributionSummary.builder("vinayaka.prices.symbols")
+				.description("Symbols asked for per price lookup")
+				.baseUnit("symbols")
+				.tag("engine", engineTag)
+				.publishPercentiles(PERCENTILES)
+				.register(registry)
+				.record(requested);
+		DistributionSummary.builder("vinayaka.prices.missing")
+				.description("Symbols returned without a price per price lookup")
+				.baseUnit("symbols")
+				.tag("engine", engineTag)
+				.register(registry)
+				.record(Math.max(0, requested - received));
+	}
+
+	/**
+	 * Records one scheduled refresh cycle.
+	 *
+	 * @param nanos     How long the cycle took, from fetching the prices to posting the board update.
+	 * @param succeeded Whether the cycle ended without an exception.
+	 */
+	public static void recordRefreshCycle(long nanos, boolean succeeded) {
+		Timer.builder("vinayaka.refresh.cycle")
+				.description("Scheduled refresh cycles")
+				.tag("outcome", succeeded ? "success" : "error")
+				.publishPercentiles(PERCENTILES)
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records one board update on the JavaFX Application Thread.
+	 *
+	 * @param nanos How long the update took, not counting the CSS and layout pass that follows it.
+	 */
+	public static void recordPopulateGrid(long nanos) {
+		Timer.builder("vinayaka.ui.populate")
+				.description("Ticker board updates on the JavaFX Application Thread")
+				.publishPercentiles(PERCENTILES)
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records how long a task posted with {@code Platform.runLater} waited for the JavaFX Application
+	 * Thread.
+	 *
+	 * @param nanos The wait.
+	 */
+	public static void recordFxLatency(long nanos) {
+		Timer.builder("vinayaka.ui.fx.latency")
+				.description("Wait of tasks posted to the JavaFX Application Thread")
+				.publishPercentiles(PERCENTILES)
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records the time between two consecutive pulses of the JavaFX Application Thread.
+	 *
+	 * @param nanos The interval.
+	 */
+	public static void recordPulseInterval(long nanos) {
+		Timer.builder("vinayaka.ui.pulse.interval")
+				.description("Time between consecutive JavaFX pulses")
+				.publishPercentiles(PERCENTILES)
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records a stall of the JavaFX Application Thread.
+	 *
+	 * @param nanos How long the thread was blocked.
+	 */
+	public static void recordFxStall(long nanos) {
+		Timer.builder("vinayaka.ui.fx.stalls")
+				.description("Stalls of the JavaFX Application Thread")
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records the lookups of a local cache. A lookup that asks for several keys at once counts once per
+	 * key.
+	 *
+	 * @param cache  The cache, e.g. "reference-prices".
+	 * @param hits   The number of keys that were found in the cache.
+	 * @param misses The number of keys that had to be fetched.
+	 */
+	public static void recordCacheLookup(String cache, long hits, long misses) {
+		AtomicLong[] counts = CACHE_COUNTS.computeIfAbsent(cache, PipelineMetrics::registerHitRatio);
+		counts[0].addAndGet(hits);
+		counts[1].addAndGet(misses);
+		if (hits > 0) {
+			cacheCounter(cache, "hit").increment(hits);
+		}
+		if (misses > 0) {
+			cacheCounter(cache, "miss").increment(misses);
+		}
+	}
+
+	/**
+	 * Records loading the historical bars of one chart.
+	 *
+	 * @param timeFrame The timeframe of the bars, e.g. "1H".
+	 * @param nanos     How long loading the bars took, from the bar store and/or the API.
+	 */
+	public static void recordChartLoad(String timeFrame, long nanos) {
+		Timer.builder("vinayaka.chart.load")
+				.description("Loading the historical bars of a chart")
+				.tag("timeframe", timeFrame)
+				.publishPercentiles(PERCENTILES)
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return The share of the keys looked up in the given cache that were found in it, or NaN if there
+	 *         were no lookups yet.
+	 */
+	public static double getHitRatio(String cache) {
+		AtomicLong[] counts = CACHE_COUNTS.get(cache);
+		return counts == null ? Double.NaN : hitRatio(counts);
+	}
+
+	/**
+	 * Records into the given registry instead of the global one, and forgets the cache counts. Only
+	 * meant for tests.
+	 */
+	static void useRegistry(MeterRegistry meterRegistry) {
+		registry = meterRegistry;
+		CACHE_COUNTS.clear();
+	}
+
+	private static AtomicLong[] registerHitRatio(String cache) {
+		AtomicLong[] counts = {new AtomicLong(), new AtomicLong()};
+		Gauge.builder("vinayaka.cache.hit.ratio", counts, PipelineMetrics::hitRatio)
+				.description("Share of cache lookups that were hits")
+				.tag("cache", cache)
+				.strongReference(true)
+				.register(registry);
+		return counts;
+	}
+
+	private static double hitRatio(AtomicLong[] counts) {
+		long hits = counts[0].get();
+		long total = hits + counts[1].get();
+		return total == 0 ? Double.NaN : (double) hits / total;
+	}
+
+	private static Counter cacheCounter(String cache, String result) {
+		return Counter.builder("vinayaka.cache.requests")
+				.description("Keys looked up in the local caches")
+				.tag("cache", cache)
+				.tag("result", result)
+				.register(registry);
+	}
+
+	private static String tagValue(Enum<?> value) {
+		return value.name().toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,152 @@
+package com.iyer.vinayaka.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JDK Flight Recorder events of the refresh pipeline. Together they split a slow refresh into its
+ * stages: the market calendar lookup, the previous closes and latest bars requests, the change
+ * percentage computation, the wait for the JavaFX Application Thread, the board update and the CSS and
+ * layout pass that follows it.
+ *
+ * <p>
+ * The events are disabled unless a recording enables them, and then cost about as much as a
+ * {@code System.nanoTime()} call. {@code src/main/resources/jfr/vinayaka.jfc} is a recording profile
+ * that enables them along with the JDK's own low-overhead events, so a recording can be kept running
+ * on a desk at all times:
+ * </p>
+ *
+ * <pre>{@code
+ * java -XX:StartFlightRecording:settings=src/main/resources/jfr/vinayaka.jfc,maxage=6h,dumponexit=true ...
+ * }</pre>
+ *
+ * <p>
+ * The recordings can be opened in JDK Mission Control, where the events are listed under
+ * "Vinayaka". Stage events are committed on the threads that ran the stage, so they line up with that
+ * thread's socket reads ({@code jdk.SocketRead}, which carries the bytes read) in the thread view.
+ * </p>
+ */
+public final class RefreshEvents {
+	private RefreshEvents() {
+	}
+
+	/**
+	 * One scheduled refresh cycle of the {@link TickerRefresher}, from fetching the prices to posting
+	 * the board update.
+	 */
+	@Name("vinayaka.RefreshCycle")
+	@Label("Refresh Cycle")
+	@Category({"Vinayaka", "Refresh"})
+	@Description("A scheduled refresh of the ticker board")
+	@StackTrace(false)
+	public static final class Cycle extends Event {
+		@Label("Tickers")
+		@Description("Tickers on the board")
+		public int tickers;
+
+		@Label("Symbols Fetched")
+		@Description("Symbols whose prices were requested in this cycle")
+		public int symbols;
+
+		@Label("Visibility Driven")
+		public boolean visibilityDriven;
+
+		@Label("Succeeded")
+		public boolean succeeded;
+	}
+
+	/**
+	 * One stage of a bars refresh in {@link com.iyer.vinayaka.service.AlpacaHistoricalBarsDataService}.
+	 */
+	@Name("vinayaka.RefreshStage")
+	@Label("Refresh Stage")
+	@Category({"Vinayaka", "Refresh"})
+	@Description("A stage of a bars refresh: calendar, previous-closes, latest-bars or compute")
+	@StackTrace(false)
+	public static final class Stage extends Event {
+		@Label("Stage")
+		public String stage;
+
+		@Label("Symbols")
+		@Description("Symbols the stage was run for")
+		public int symbols;
+
+		@Label("Results")
+		@Description("Symbols the stage returned data for")
+		public int results;
+
+		@Label("Bars")
+		@Description("Bars received from Alpaca")
+		public int bars;
+
+		/**
+		 * Begins timing a stage.
+		 *
+		 * @param stage   The name of the stage.
+		 * @param symbols The number of symbols the stage is run for.
+		 * @return The event, to be committed when the stage ends.
+		 */
+		public static Stage start(String stage, int symbols) {
+			Stage event = new Stage();
+			event.stage = stage;
+			event.symbols = symbols;
+			event.begin();
+			return event;
+		}
+	}
+
+	/**
+	 * The wait of a board update between being posted to the {@link BoardUpdateMailbox} and being
+	 * applied on the JavaFX Application Thread.
+	 */
+	@Name("vinayaka.BoardQueueWait")
+	@Label("Board Queue Wait")
+	@Category({"Vinayaka", "UI"})
+	@Description("Time a board update waited for the JavaFX Application Thread")
+	@StackTrace(false)
+	public static final class BoardQueueWait extends Event {
+		@Label("Tickers")
+		public int tickers;
+
+		@Label("Prices")
+		public int prices;
+	}
+
+	/**
+	 * One board update ({@code populateGrid}) on the JavaFX Application Thread.
+	 */
+	@Name("vinayaka.BoardUpdate")
+	@Label("Board Update")
+	@Category({"Vinayaka", "UI"})
+	@Description("An update of the ticker board on the JavaFX Application Thread")
+	@StackTrace(false)
+	public static final class BoardUpdate extends Event {
+		@Label("Tickers")
+		public int tickers;
+
+		@Label("Rows Replaced")
+		public int rowsReplaced;
+
+		@Label("Tiles Updated")
+		@Description("Visible tiles whose price labels changed")
+		public int tilesUpdated;
+	}
+
+	/**
+	 * The CSS and layout pass that follows a board update, measured by the {@link LayoutPassTimer}.
+	 */
+	@Name("vinayaka.LayoutPass")
+	@Label("Layout Pass")
+	@Category({"Vinayaka", "UI"})
+	@Description("The CSS and layout pass of the pulse after a board update")
+	@StackTrace(false)
+	public static final class LayoutPass extends Event {
+		@Label("Update")
+		@Description("The update the pass followed")
+		public String update;
+	}
+}
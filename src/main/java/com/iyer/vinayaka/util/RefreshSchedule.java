@@ -0,0 +1,135 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.service.MarketSessionClock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides when the next refresh cycle should run, based on the trading calendar.
+ *
+ * <p>
+ * Polling the same closing prices all night and all weekend only burns API calls and redraws
+ * unchanged numbers, so the refresh rate follows the market:
+ * </p>
+ * <ul>
+ * <li><b>Regular hours:</b> every refresh interval the user picked. Because prices are 15 minutes
+ * delayed, this lasts until 15 minutes after the close (which is earlier on half-days).</li>
+ * <li><b>Extended hours:</b> every {@code vinayaka.refresh.extended-hours-interval-seconds}, or not
+ * at all when it's 0.</li>
+ * <li><b>Closed (nights, weekends, holidays):</b> no polling. The next cycle runs exactly at the next
+ * open (or the next pre-market open when extended hours are polled).</li>
+ * </ul>
+ *
+ * <p>
+ * <b>Fallback:</b> If the calendar can't be loaded, or {@code vinayaka.refresh.adaptive} is disabled,
+ * the user's refresh interval is used around the clock, as before.
+ * </p>
+ *
+ * @see TickerRefresher
+ * @see MarketSessionClock
+ */
+@Component
+public class RefreshSchedule {
+	// Prices are 15 minutes delayed, so the close only shows up 15 minutes after the bell.
+	private static final long DATA_DELAY_MILLIS = 15 * 60 * 1000;
+	// When the calendar ends before the next open is known, look again after an hour.
+	private static final long UNKNOWN_OPEN_RECHECK_MILLIS = 60 * 60 * 1000;
+
+	private final MarketSessionClock sessionClock;
+	private final VinayakaProperties properties;
+
+	/**
+	 * The market state a refresh cycle runs in.
+	 */
+	public enum Phase {
+		REGULAR,
+		EXTENDED,
+		CLOSED
+	}
+
+	public RefreshSchedule(MarketSessionClock sessionClock, VinayakaProperties properties) {
+		this.sessionClock = sessionClock;
+		this.properties = properties;
+	}
+
+	/**
+	 * @return The current time in epoch milliseconds, from the market session clock.
+	 */
+	public long nowMillis() {
+		return this.sessionClock.getClock().millis();
+	}
+
+	/**
+	 * Gets the market state at the given time, as far as polling is concerned.
+	 *
+	 * @param epochMillis The time to check.
+	 * @return REGULAR while regular-hours prices are still coming in, EXTENDED during pre-market and
+	 * after-hours trading, CLOSED otherwise.
+	 */
+	public Phase phaseAt(long epochMillis) {
+		return this.phaseAt(this.sessionClock.sessions(), epochMillis);
+	}
+
+	private Phase phaseAt(MarketSessionClock.Sessions sessions, long epochMillis) {
+		if (!this.properties.getRefresh().isAdaptive() || sessions.count() == 0) {
+			return Phase.REGULAR;
+		}
+
+		long epochSecond = Math.floorDiv(epochMillis, 1000);
+		int session = sessions.latestSessionIndex(epochSecond);
+		if (session >= 0 && epochMillis < sessions.closeTime(session) * 1000 + DATA_DELAY_MILLIS) {
+			return Phase.REGULAR;
+		}
+		return sessions.isExtendedHours(epochSecond) ? Phase.EXTENDED : Phase.CLOSED;
+	}
+
+	/**
+	 * Gets the time the refresh cycle after one that started at the given time should run.
+	 *
+	 * @param cycleStartMillis       When the current cycle started, in epoch milliseconds. Intervals are
+	 *                               measured from here so the fetch time doesn't add up.
+	 * @param refreshIntervalSeconds The user's refresh interval for regular hours.
+	 * @return The epoch millisecond of the next cycle.
+	 */
+	public long nextCycleAt(long cycleStartMillis, int refreshIntervalSeconds) {
+		// One snapshot for the whole decision, so a calendar reload can't change it halfway.
+		MarketSessionClock.Sessions sessions = this.sessionClock.sessions();
+		long extendedIntervalSeconds = this.properties.getRefresh().getExtendedHoursIntervalSeconds();
+		Phase phase = this.phaseAt(sessions, cycleStartMillis);
+		if (phase == Phase.REGULAR) {
+			return this.regularCycleAt(sessions, cycleStartMillis, refreshIntervalSeconds);
+		}
+		if (phase == Phase.EXTENDED && extendedIntervalSeconds > 0) {
+			long next = cycleStartMillis + extendedIntervalSeconds * 1000;
+			// Don't sleep through the open bell.
+			long nextOpen = sessions.nextOpen(Math.floorDiv(cycleStartMillis, 1000));
+			return nextOpen > 0 ? Math.min(next, nextOpen * 1000) : next;
+		}
+
+		// Closed (or extended hours that aren't polled): wake at the next open.
+		long epochSecond = Math.floorDiv(cycleStartMillis, 1000);
+		long nextOpen = extendedIntervalSeconds > 0
+				? sessions.nextExtendedOpen(epochSecond) : sessions.nextOpen(epochSecond);
+		return nextOpen > 0 ? nextOpen * 1000 : cycleStartMillis + UNKNOWN_OPEN_RECHECK_MILLIS;
+	}
+
+	/**
+	 * The next regular-hours cycle, which is one refresh interval later unless the session's prices
+	 * stop coming in before then; in that case the last cycle runs right when they do, so the final
+	 * close is shown.
+	 */
+	private long regularCycleAt(MarketSessionClock.Sessions sessions, long cycleStartMillis,
+								int refreshIntervalSeconds) {
+		long next = cycleStartMillis + refreshIntervalSeconds * 1000L;
+		if (!this.properties.getRefresh().isAdaptive() || sessions.count() == 0) {
+			return next;
+		}
+
+		int session = sessions.latestSessionIndex(Math.floorDiv(cycleStartMillis, 1000));
+		if (session < 0) {
+			return next;
+		}
+		long dataEnd = sessions.closeTime(session) * 1000 + DATA_DELAY_MILLIS;
+		return cycleStartMillis < dataEnd ? Math.min(next, dataEnd) : next;
+	}
+}
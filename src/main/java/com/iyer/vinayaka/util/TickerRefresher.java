@@ -1,20 +1,24 @@
 package com.iyer.vinayaka.util;
 
+import com.iyer.vinayaka.config.VinayakaProperties;
 import com.iyer.vinayaka.controller.MainViewController;
 import com.iyer.vinayaka.entities.UserSettings;
 import com.iyer.vinayaka.entities.UserTickers;
 import com.iyer.vinayaka.service.UserSettingsService;
-import com.iyer.vinayaka.service.UserTickersService;
+import com.iyer.vinayaka.service.WatchlistService;
 import javafx.application.Platform;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Manages the periodic refresh of stock ticker data in the application.
@@ -29,6 +33,13 @@ import java.util.concurrent.TimeUnit;
  * </p>
  *
  * <p>
+ * <b>Scheduling:</b> Each cycle schedules the next one, at the time {@link RefreshSchedule} picks
+ * from the trading calendar: the user's interval during regular hours, and nothing while the market
+ * is closed, waking up right at the next open. Long sleeps are broken into naps of at most 15
+ * minutes, since the executor's timer doesn't count time the computer spends suspended.
+ * </p>
+ *
+ * <p>
  * <b>Threading Model:</b>
  * </p>
  * <ul>
@@ -41,12 +52,12 @@ import java.util.concurrent.TimeUnit;
  * </ul>
  *
  * <p>
- * <b>Caching Strategy:</b>
+ * <b>Watchlist:</b>
  * </p>
  * <ul>
- * <li>Ticker lists are cached to minimize database queries during refresh
- * cycles</li>
- * <li>Cache is invalidated when tickers are added, deleted, or favorited</li>
+ * <li>The tickers come from the in-memory {@link WatchlistService} snapshot, so
+ * refresh cycles never query the database</li>
+ * <li>Every cycle sees the latest complete watchlist, whichever thread changed it</li>
  * <li>Price data is fetched fresh on every refresh cycle</li>
  * </ul>
  *
@@ -66,23 +77,54 @@ import java.util.concurrent.TimeUnit;
  * <li>Started by {@link MainViewController} after initialization</li>
  * <li>Stopped automatically on application shutdown via
  * {@link ContextClosedEvent}</li>
- * <li>Can be manually stopped without closing the application</li>
+ * <li>Can be manually stopped without closing the application, and started again</li>
+ * <li>Rescheduled live when the refresh interval changes ({@link #reschedule(int)})</li>
  * </ul>
  *
+ * <p>
+ * <b>Visibility-Driven Mode:</b> When {@code vinayaka.refresh.visibility-driven} is enabled, each cycle
+ * only fetches the tickers in the board's viewport (plus a prefetch margin), and the off-screen ones
+ * at the much slower {@code vinayaka.refresh.offscreen-interval-seconds}. Rows scrolled into view are
+ * fetched right away. See {@link ViewportRefreshPolicy}.
+ * </p>
+ *
+ * <p>
+ * <b>Streaming Mode:</b> When {@code vinayaka.refresh.streaming} is enabled, prices are pushed by
+ * {@link TickerStreamer} instead. The polling schedule stays in place but only polls the tickers the
+ * stream can't show (no previous close yet) while the stream is live, so a dropped connection falls
+ * back to polling without any extra coordination.
+ * </p>
+ *
  * @see MainViewController#fetchInfoAndPopulate(List)
  * @see UserSettings#getRefresh_interval()
  */
 @Component
 public class TickerRefresher {
 	private final UserSettingsService userSettingsService;
-	private final UserTickersService userTickersService;
+	private final WatchlistService watchlistService;
 	private final ScheduledExecutorService executor;
 	private final ApplicationContext context;
+	private final TickerStreamer tickerStreamer;
+	private final VinayakaProperties properties;
+	private final RefreshSchedule refreshSchedule;
+
+	// Naps are capped so a suspended computer doesn't wake up late; see the class documentation.
+	private static final long MAX_SLEEP_MILLIS = 15 * 60 * 1000;
+	// Scroll events come in bursts; rows scrolled into view are fetched once the burst settles.
+	private static final long SCROLL_FETCH_DELAY_MILLIS = 150;
+
+	// The scheduling state is guarded by this object's monitor. Every start and reschedule bumps the
+	// generation, so a cycle that was already running when it happened doesn't schedule a second chain.
+	private ScheduledFuture<?> scheduledCycle;
+	private long generation = 0;
+	private long nextCycleAtMillis = 0;
+	private long lastCycleStartMillis = 0;
+	private volatile int refreshIntervalSeconds;
+	private volatile MainViewController mainViewController;
 
-	// Cache for ticker list to avoid repeated database queries on every refresh
-	// cycle.
-	// This cache is invalidated when tickers are added, removed, or favorited.
-	private List<UserTickers> cachedTickers = null;
+	// Which tickers to fetch when refreshes follow the viewport. Only used on the refresh thread.
+	private final ViewportRefreshPolicy viewportPolicy;
+	private final AtomicBoolean scrollFetchPending = new AtomicBoolean();
 
 	/**
 	 * Constructs a new TickerRefresher with the required dependencies.
@@ -97,16 +139,26 @@ public class TickerRefresher {
 	 *
 	 * @param service        The user settings service for retrieving refresh
 	 *                       interval configuration
-	 * @param tickersService The user tickers service for fetching the list of
-	 *                       tracked tickers
+	 * @param watchlist      The in-memory watchlist of tracked tickers
 	 * @param context        The Spring application context for accessing other
 	 *                       beans (MainViewController)
+	 * @param streamer       The websocket streamer used when streaming mode is
+	 *                       enabled
+	 * @param properties     The application properties selecting the refresh mode
+	 * @param schedule       The calendar-aware policy deciding when each cycle runs
 	 */
-	public TickerRefresher(UserSettingsService service, UserTickersService tickersService, ApplicationContext context) {
+	public TickerRefresher(UserSettingsService service, WatchlistService watchlist, ApplicationContext context,
+						   TickerStreamer streamer, VinayakaProperties properties, RefreshSchedule schedule) {
 		this.userSettingsService = service;
-		this.userTickersService = tickersService;
+		this.watchlistService = watchlist;
 		this.executor = Executors.newSingleThreadScheduledExecutor();
 		this.context = context;
+		this.tickerStreamer = streamer;
+		this.properties = properties;
+		this.refreshSchedule = schedule;
+		this.viewportPolicy = new ViewportRefreshPolicy(
+				TimeUnit.SECONDS.toMillis(properties.getRefresh().getOffscreenIntervalSeconds()));
+		watchlist.addListener(snapshot -> this.updateStreamSubscriptions());
 	}
 
 	/**
@@ -126,28 +178,83 @@ public class TickerRefresher {
 	@EventListener
 	public void handleContextCloseEvent(ContextClosedEvent event) {
 		System.out.println("Context closed. Stopping refresh.");
-		this.stopRefresh();
+		this.tickerStreamer.stop();
+		this.shutdown();
 	}
 
 	/**
-	 * Invalidates the cached ticker list, forcing a fresh database query on the
-	 * next refresh.
-	 * This method should be called whenever the ticker list changes (add, delete,
-	 * or favorite operations).
+	 * Called whenever the watchlist changes (add, delete, or favorite operations).
 	 */
-	public void invalidateTickerCache() {
-		this.cachedTickers = null;
+	private void updateStreamSubscriptions() {
+		// Keep the websocket subscriptions in line with the watchlist. This runs on the refresh thread
+		// since fetching the previous close of a newly added ticker is a network call.
+		if (this.isStreamingEnabled() && !this.executor.isShutdown()) {
+			this.executor.execute(() -> this.tickerStreamer.updateSubscriptions(this.getTickersForRefresh()));
+		}
 	}
 
 	/**
-	 * Gets the ticker list for refresh, using the cache if available.
-	 * If the cache is empty, it queries the database and populates the cache.
+	 * Whether the user has opted into pushing prices over the market data websocket.
+	 *
+	 * @return True if {@code vinayaka.refresh.streaming} is enabled.
+	 */
+	private boolean isStreamingEnabled() {
+		return this.properties.getRefresh().isStreaming();
+	}
+
+	/**
+	 * Whether only the tickers in and near the viewport are refreshed at the refresh interval.
+	 *
+	 * @return True if {@code vinayaka.refresh.visibility-driven} is enabled.
+	 */
+	private boolean isVisibilityDriven() {
+		return this.properties.getRefresh().isVisibilityDriven();
+	}
+
+	/**
+	 * Called by {@link MainViewController} when rows were scrolled into view. When refreshes follow the
+	 * viewport, the rows whose prices are older than the refresh interval are fetched right away,
+	 * instead of at the next cycle. Bursts of scroll events are coalesced into one fetch.
+	 */
+	public void viewportChanged() {
+		if (!this.isVisibilityDriven() || this.executor.isShutdown()
+				|| !this.scrollFetchPending.compareAndSet(false, true)) {
+			return;
+		}
+		this.executor.schedule(this::fetchScrolledIntoView, SCROLL_FETCH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Fetches the stale tickers of the current viewport. Runs on the refresh thread, so it never overlaps
+	 * a refresh cycle.
+	 */
+	private void fetchScrolledIntoView() {
+		this.scrollFetchPending.set(false);
+		synchronized (this) {
+			// Not while stopped, e.g. on the settings page.
+			if (this.scheduledCycle == null) {
+				return;
+			}
+		}
+
+		try {
+			if (!(this.isStreamingEnabled() && this.tickerStreamer.isStreaming())) {
+				List<String> stale = this.viewportPolicy.staleInViewport(this.mainViewController.getViewportSymbols(),
+						TimeUnit.SECONDS.toMillis(this.refreshIntervalSeconds), this.refreshSchedule.nowMillis());
+				this.mainViewController.refreshPrices(stale);
+			}
+		} catch (Exception e) {
+			System.err.println("Error refreshing tickers scrolled into view: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the ticker list for refresh from the in-memory watchlist.
 	 *
 	 * @return A list of UserTickers objects, sorted with favorites first.
 	 */
 	private List<UserTickers> getTickersForRefresh() {
-		return this.cachedTickers != null ? this.cachedTickers
-				: (this.cachedTickers = this.userTickersService.getAllTickersWithFavoritesFirst());
+		return this.watchlistService.getTickers();
 	}
 
 	/**
@@ -155,11 +262,12 @@ public class TickerRefresher {
 	 * refresh interval.
 	 *
 	 * <p>
-	 * This method schedules a background task that runs at a fixed rate, fetching
-	 * the latest
-	 * ticker data and updating the UI. The refresh task begins immediately (0
-	 * delay) and continues
-	 * at the interval specified in {@link UserSettings#getRefresh_interval()}.
+	 * The first cycle runs immediately (0 delay). After that, each cycle schedules
+	 * the next one at the time {@link RefreshSchedule#nextCycleAt(long, int)} picks:
+	 * every {@link UserSettings#getRefresh_interval()} seconds during regular hours,
+	 * and at the next open while the market is closed. Calling this again (e.g.,
+	 * when the main view is shown again) replaces the running schedule instead of
+	 * adding a second one.
 	 * </p>
 	 *
 	 * <p>
@@ -183,7 +291,7 @@ public class TickerRefresher {
 	 * @throws RuntimeException if user settings cannot be found in the database
 	 *
 	 * @see #stopRefresh()
-	 * @see #invalidateTickerCache()
+	 * @see #reschedule(int)
 	 * @see UserSettings#getRefresh_interval()
 	 * @see MainViewController#fetchInfoAndPopulate(List)
 	 */
@@ -195,39 +303,174 @@ public class TickerRefresher {
 			throw new RuntimeException("User settings not found. Cannot start refresh.");
 		}
 
-		MainViewController mainViewController = this.context.getBean(MainViewController.class);
+		this.mainViewController = this.context.getBean(MainViewController.class);
+		this.refreshIntervalSeconds = settings.getRefresh_interval();
+
+		// In streaming mode, connect the websocket from the refresh thread; subscribing needs the previous
+		// closes, which is a network call that shouldn't block the caller.
+		if (this.isStreamingEnabled()) {
+			this.executor.execute(() -> {
+				try {
+					this.tickerStreamer.start(this.getTickersForRefresh());
+				} catch (Exception e) {
+					System.err.println("Error starting market data stream, falling back to polling: " + e.getMessage());
+				}
+			});
+		}
 
-		int refreshInterval = settings.getRefresh_interval();
+		// Schedule the first cycle on a background thread. Scheduling itself doesn't need to run on the FX
+		// thread - only the UI updates inside the task do. fetchInfoAndPopulate() already handles FX
+		// thread management via Platform.runLater().
+		synchronized (this) {
+			this.cancelScheduledCycle();
+			this.nextCycleAtMillis = 0;
+			this.scheduleWake(this.generation, this.refreshSchedule.nowMillis());
+		}
+	}
 
-		// Schedule the refresh task on a background thread. The scheduleAtFixedRate()
-		// method itself doesn't need to run on the FX thread - only the UI updates
-		// inside the
-		// task do. fetchInfoAndPopulate() already handles FX thread management via
-		// Platform.runLater().
-		this.executor.scheduleAtFixedRate(() -> {
-			try {
-				// Get ticker list using cache to minimize database queries
-				// Cache is invalidated when tickers are added/removed/favorited
-				List<UserTickers> tickers = this.getTickersForRefresh();
+	/**
+	 * Applies a new refresh interval to the running schedule, without a restart. The next cycle moves
+	 * to one new interval after the last one started (immediately, if that's already past). If the
+	 * refresh isn't running, the interval is just remembered for the next start.
+	 *
+	 * @param refreshIntervalSeconds The new refresh interval, in seconds.
+	 */
+	public void reschedule(int refreshIntervalSeconds) {
+		this.refreshIntervalSeconds = refreshIntervalSeconds;
+		synchronized (this) {
+			if (this.scheduledCycle == null || this.executor.isShutdown()) {
+				return;
+			}
+			this.cancelScheduledCycle();
+			long now = this.refreshSchedule.nowMillis();
+			this.nextCycleAtMillis = this.lastCycleStartMillis > 0
+					? this.refreshSchedule.nextCycleAt(this.lastCycleStartMillis, refreshIntervalSeconds) : now;
+			this.scheduleWake(this.generation, now);
+		}
+	}
+
+	/**
+	 * Runs one scheduled wake-up. If the next cycle isn't due yet (the wake-up was one of the naps of a
+	 * long sleep), it just goes back to sleep. Otherwise it refreshes the grid and schedules the next
+	 * cycle.
+	 *
+	 * @param generation The schedule this wake-up belongs to.
+	 */
+	private void runCycle(long generation) {
+		long cycleStart = this.refreshSchedule.nowMillis();
+		synchronized (this) {
+			if (generation != this.generation) {
+				return;
+			}
+			if (cycleStart < this.nextCycleAtMillis) {
+				this.scheduleWake(generation, cycleStart);
+				return;
+			}
+			this.lastCycleStartMillis = cycleStart;
+		}
+
+		long cycleStartNanos = System.nanoTime();
+		RefreshEvents.Cycle cycleEvent = new RefreshEvents.Cycle();
+		cycleEvent.begin();
+		try {
+			// Get ticker list from the in-memory watchlist; no database query
+			List<UserTickers> tickers = this.getTickersForRefresh();
+			cycleEvent.tickers = tickers.size();
+			// Prices are being pushed over the websocket; polling is only a fallback, and for the symbols
+			// whose streamed trades can't be shown since their previous close is missing.
+			if (this.isStreamingEnabled() && this.tickerStreamer.isStreaming()) {
+				List<String> unreferenced = this.tickerStreamer.retryMissingReferences();
+				cycleEvent.symbols = unreferenced.size();
+				if (!unreferenced.isEmpty()) {
+					this.mainViewController.refreshPrices(unreferenced);
+				}
+			} else {
 				// Update the UI with the latest ticker data. This method handles FX thread
 				// safety internally.
-				mainViewController.fetchInfoAndPopulate(tickers);
-			} catch (Exception e) {
-				// Log the error but continue with the next refresh cycle
-				// This prevents the entire refresh mechanism from stopping due to a single
-				// error
-				System.err.println("Error during ticker refresh: " + e.getMessage());
-				e.printStackTrace();
+				if (this.isVisibilityDriven()) {
+					// Only what's in or near the viewport, plus off-screen tickers that are due.
+					List<String> due = this.viewportPolicy.dueForCycle(tickers,
+							this.mainViewController.getViewportSymbols(), cycleStart);
+					cycleEvent.visibilityDriven = true;
+					cycleEvent.symbols = due.size();
+					this.mainViewController.fetchInfoAndPopulate(tickers, due);
+				} else {
+					cycleEvent.symbols = tickers.size();
+					this.mainViewController.fetchInfoAndPopulate(tickers);
+				}
 			}
-		}, 0, refreshInterval, TimeUnit.SECONDS);
+			cycleEvent.succeeded = true;
+		} catch (Exception e) {
+			// Log the error but continue with the next refresh cycle
+			// This prevents the entire refresh mechanism from stopping due to a single
+			// error
+			System.err.println("Error during ticker refresh: " + e.getMessage());
+			e.printStackTrace();
+		} finally {
+			cycleEvent.commit();
+			PipelineMetrics.recordRefreshCycle(System.nanoTime() - cycleStartNanos, cycleEvent.succeeded);
+		}
+
+		long nextCycleAt = this.refreshSchedule.nextCycleAt(cycleStart, this.refreshIntervalSeconds);
+		RefreshSchedule.Phase phase = this.refreshSchedule.phaseAt(cycleStart);
+		if (phase != RefreshSchedule.Phase.REGULAR && this.refreshSchedule.phaseAt(nextCycleAt) != phase) {
+			System.out.println("Market " + phase.name().toLowerCase() + ". Next refresh at "
+					+ Instant.ofEpochMilli(nextCycleAt) + ".");
+		}
+
+		synchronized (this) {
+			if (generation == this.generation) {
+				this.nextCycleAtMillis = nextCycleAt;
+				this.scheduleWake(generation, this.refreshSchedule.nowMillis());
+			}
+		}
 	}
 
 	/**
-	 * Stops the ticker refresh process and gracefully shuts down the executor.
+	 * Schedules the next wake-up of the given schedule, at the next cycle or after a nap of at most
+	 * {@link #MAX_SLEEP_MILLIS}, whichever comes first. Must be called holding this object's monitor.
+	 */
+	private void scheduleWake(long generation, long nowMillis) {
+		if (this.executor.isShutdown()) {
+			return;
+		}
+		long delay = Math.max(0, Math.min(this.nextCycleAtMillis - nowMillis, MAX_SLEEP_MILLIS));
+		this.scheduledCycle = this.executor.schedule(() -> this.runCycle(generation), delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Cancels the pending wake-up, if any, and starts a new generation. Must be called holding this
+	 * object's monitor.
+	 */
+	private void cancelScheduledCycle() {
+		if (this.scheduledCycle != null) {
+			this.scheduledCycle.cancel(false);
+		}
+		this.generation++;
+	}
+
+	/**
+	 * Stops the ticker refresh process without shutting down the executor, so it can be started again
+	 * with {@link #startRefresh()}. A cycle that's already running finishes, but doesn't schedule
+	 * another one.
+	 *
+	 * <p>
+	 * <b>Thread Safety:</b> This method is safe to call multiple times.
+	 * </p>
+	 *
+	 * @see #startRefresh()
+	 * @see #shutdown()
+	 */
+	public synchronized void stopRefresh() {
+		this.cancelScheduledCycle();
+		this.scheduledCycle = null;
+	}
+
+	/**
+	 * Stops the ticker refresh process and gracefully shuts down the executor. Called when the
+	 * application closes; the refresher can't be started again afterwards.
 	 *
 	 * <p>
-	 * This method terminates the scheduled refresh tasks but does NOT close the
-	 * application.
 	 * It follows the recommended {@link ExecutorService} shutdown pattern:
 	 * </p>
 	 * <ol>
@@ -249,11 +492,11 @@ public class TickerRefresher {
 	 * calls after the first successful shutdown will be no-ops.
 	 * </p>
 	 *
-	 * @see #startRefresh()
 	 * @see ScheduledExecutorService#shutdown()
 	 * @see ScheduledExecutorService#shutdownNow()
 	 */
-	public void stopRefresh() {
+	public void shutdown() {
+		this.stopRefresh();
 		// Only shutdown if not already shut down
 		if (!this.executor.isShutdown()) {
 			this.executor.shutdown();
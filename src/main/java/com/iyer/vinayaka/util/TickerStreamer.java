@@ -0,0 +1,313 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.controller.MainViewController;
+import com.iyer.vinayaka.entities.UserTickers;
+import com.iyer.vinayaka.model.TickerPrice;
+import com.iyer.vinayaka.service.AlpacaHistoricalBarsDataService;
+import net.jacobpeterson.alpaca.model.websocket.marketdata.streams.stock.model.bar.StockBarMessage;
+import net.jacobpeterson.alpaca.model.websocket.marketdata.streams.stock.model.trade.StockTradeMessage;
+import net.jacobpeterson.alpaca.websocket.AlpacaWebsocketStateListener;
+import net.jacobpeterson.alpaca.websocket.marketdata.streams.stock.StockMarketDataListenerAdapter;
+import net.jacobpeterson.alpaca.websocket.marketdata.streams.stock.StockMarketDataWebsocketInterface;
+import okhttp3.Response;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pushes live prices into the ticker grid over the Alpaca stock market data websocket.
+ *
+ * <p>
+ * This is the streaming counterpart of the polling done by {@link TickerRefresher}. It subscribes to
+ * trades and minute bars for every ticker on the watchlist and updates the grid as they arrive, instead
+ * of re-requesting every symbol on a fixed interval.
+ * </p>
+ *
+ * <p>
+ * <b>Threading Model:</b>
+ * </p>
+ * <ul>
+ * <li>Websocket callbacks arrive on the websocket client's threads and only record the latest price per
+ * symbol</li>
+ * <li>A single background thread flushes the recorded prices to {@link MainViewController} every
+ * {@code vinayaka.refresh.stream-flush-millis}, so a burst of trades results in one UI update</li>
+ * <li>Subscription changes and reconnects also run on that thread</li>
+ * </ul>
+ *
+ * <p>
+ * <b>Reference Prices:</b> Change percentages are calculated against the previous session's close, which
+ * is looked up on every flush through {@link AlpacaHistoricalBarsDataService#getPreviousClosePrices(List)}.
+ * That is backed by the day-keyed {@link com.iyer.vinayaka.service.ReferencePriceCache}, so lookups are
+ * in-memory, except once per session when the calendar moves on and the new closes are fetched. A
+ * stream that stays up overnight therefore never compares against a stale close. Symbols whose close
+ * couldn't be found (the calendar wasn't loaded yet, a 429, no data) aren't shown from the stream; they
+ * are retried and polled by {@link TickerRefresher} instead (see {@link #retryMissingReferences()}).
+ * </p>
+ *
+ * <p>
+ * <b>Fallback:</b> {@link TickerRefresher} keeps its polling schedule while streaming and only polls
+ * the symbols without a reference price while {@link #isStreaming()} is true. When the stream drops,
+ * polling of every ticker resumes on the next cycle and a reconnect is attempted every
+ * {@code vinayaka.refresh.stream-reconnect-seconds}.
+ * </p>
+ *
+ * @see TickerRefresher
+ * @see AlpacaConfiguration#stockMarketDataStream(net.jacobpeterson.alpaca.AlpacaAPI)
+ */
+@Component
+public class TickerStreamer {
+	private final StockMarketDataWebsocketInterface stream;
+	private final AlpacaHistoricalBarsDataService historicalBarsDataService;
+	private final VinayakaProperties properties;
+	private final Consumer<Map<String, TickerPrice>> priceSink;
+	private final ScheduledExecutorService executor;
+
+	// Subscribed symbols whose previous close couldn't be looked up; polled until it can.
+	private final Set<String> unreferencedSymbols = ConcurrentHashMap.newKeySet();
+	// Latest streamed price per symbol that hasn't been flushed to the UI yet.
+	private final Map<String, Double> pendingPrices = new ConcurrentHashMap<>();
+
+	private volatile Set<String> subscribedSymbols = Set.of();
+	private volatile boolean started = false;
+	private volatile boolean reconnectScheduled = false;
+
+	public TickerStreamer(StockMarketDataWebsocketInterface stream, AlpacaHistoricalBarsDataService dataService,
+						  VinayakaProperties properties, ApplicationContext context) {
+		this(stream, dataService, properties, prices -> context.getBean(MainViewController.class).applyPrices(prices));
+	}
+
+	/**
+	 * @param priceSink Receives the prices of every flush. Tests pass one that just collects them.
+	 */
+	TickerStreamer(StockMarketDataWebsocketInterface stream, AlpacaHistoricalBarsDataService dataService,
+				   VinayakaProperties properties, Consumer<Map<String, TickerPrice>> priceSink) {
+		this.stream = stream;
+		this.historicalBarsDataService = dataService;
+		this.properties = properties;
+		this.priceSink = priceSink;
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Ticker-Streamer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Connects the websocket (if it isn't already), subscribes to the given tickers and starts flushing
+	 * streamed prices to the UI. Calling this again while started only updates the subscriptions.
+	 *
+	 * @param tickers The tickers on the watchlist.
+	 */
+	public synchronized void start(List<UserTickers> tickers) {
+		if (!this.started) {
+			this.started = true;
+			this.stream.setListener(new StockMarketDataListenerAdapter() {
+				@Override
+				public void onTrade(StockTradeMessage trade) {
+					recordPrice(trade.getSymbol(), trade.getPrice());
+				}
+
+				@Override
+				public void onMinuteBar(StockBarMessage bar) {
+					recordPrice(bar.getSymbol(), bar.getClose());
+				}
+			});
+			this.stream.setAlpacaWebsocketStateListener(new AlpacaWebsocketStateListener() {
+				@Override
+				public void onOpen(Response response) {
+					System.out.println("Market data stream connected.");
+				}
+
+				@Override
+				public void onClosed(int code, String reason) {
+					System.out.println("Market data stream closed: " + code + " " + reason);
+					scheduleReconnect();
+				}
+
+				@Override
+				public void onFailure(Throwable cause) {
+					System.err.println("Market data stream failed: " + cause.getMessage());
+					scheduleReconnect();
+				}
+			});
+
+			long flushMillis = this.properties.getRefresh().getStreamFlushMillis();
+			this.executor.scheduleWithFixedDelay(this::flushPrices, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+		}
+
+		if (!this.stream.isConnected()) {
+			this.stream.connect();
+		}
+		this.updateSubscriptions(tickers);
+	}
+
+	/**
+	 * Brings the websocket subscriptions in line with the watchlist. Newly added tickers get their
+	 * previous close looked up and are subscribed; deleted tickers are unsubscribed.
+	 *
+	 * @param tickers The tickers currently on the watchlist.
+	 */
+	public synchronized void updateSubscriptions(List<UserTickers> tickers) {
+		if (!this.started) {
+			return;
+		}
+
+		Set<String> symbols = new HashSet<>();
+		for (UserTickers ticker : tickers) {
+			symbols.add(ticker.getSymbol());
+		}
+
+		// Warm the reference cache, so the first trades of new tickers don't wait for a fetch.
+		List<String> added = symbols.stream()
+				.filter(symbol -> !this.subscribedSymbols.contains(symbol))
+				.toList();
+		if (!added.isEmpty()) {
+			this.lookUpReferences(added);
+		}
+		this.unreferencedSymbols.retainAll(symbols);
+		this.pendingPrices.keySet().retainAll(symbols);
+
+		// The websocket client diffs these against what it has already subscribed to and only sends
+		// the subscribe/unsubscribe messages that are needed.
+		if (!symbols.equals(this.subscribedSymbols)) {
+			this.stream.setTradeSubscriptions(symbols);
+			this.stream.setMinuteBarSubscriptions(symbols);
+			this.subscribedSymbols = Set.copyOf(symbols);
+		}
+	}
+
+	/**
+	 * Looks up the previous close of the symbols that had none at the last attempt. Called by
+	 * {@link TickerRefresher} on every cycle while streaming, on the refresh thread.
+	 *
+	 * @return The symbols that had no reference price before this call. Their streamed trades weren't
+	 * shown, so they should be polled.
+	 */
+	public List<String> retryMissingReferences() {
+		if (this.unreferencedSymbols.isEmpty()) {
+			return List.of();
+		}
+		List<String> symbols = List.copyOf(this.unreferencedSymbols);
+		this.lookUpReferences(symbols);
+		return symbols;
+	}
+
+	/**
+	 * Whether prices are currently being pushed over the websocket. While this is false the polling
+	 * refresh should be used instead.
+	 *
+	 * @return True if the stream is started, connected and authenticated.
+	 */
+	public boolean isStreaming() {
+		return this.started && this.stream.isConnected() && this.stream.isAuthenticated();
+	}
+
+	/**
+	 * Disconnects the websocket and stops flushing prices. Safe to call multiple times.
+	 */
+	public synchronized void stop() {
+		if (this.started) {
+			this.started = false;
+			this.executor.shutdownNow();
+			if (this.stream.isConnected()) {
+				this.stream.disconnect();
+			}
+			System.out.println("Market data stream stopped.");
+		}
+	}
+
+	/**
+	 * Records the latest streamed price of a symbol. Only the most recent price per symbol is kept
+	 * until the next flush.
+	 */
+	private void recordPrice(String symbol, Double price) {
+		if (symbol != null && price != null && this.subscribedSymbols.contains(symbol)) {
+			this.pendingPrices.put(symbol, price);
+		}
+	}
+
+	/**
+	 * Gets the previous session's close of the given symbols and records which ones have none.
+	 *
+	 * @return The reference prices that were found.
+	 */
+	private Map<String, Double> lookUpReferences(List<String> symbols) {
+		Map<String, Double> references = this.historicalBarsDataService.getPreviousClosePrices(symbols);
+		for (String symbol : symbols) {
+			if (references.containsKey(symbol)) {
+				this.unreferencedSymbols.remove(symbol);
+			} else {
+				this.unreferencedSymbols.add(symbol);
+			}
+		}
+		return references;
+	}
+
+	/**
+	 * Sends the prices recorded since the last flush, along with their change percentages, to the grid.
+	 * Prices of symbols without a reference price are dropped; those symbols are polled instead.
+	 */
+	void flushPrices() {
+		if (this.pendingPrices.isEmpty()) {
+			return;
+		}
+
+		try {
+			Map<String, Double> latestPrices = new HashMap<>();
+			for (String symbol : new ArrayList<>(this.pendingPrices.keySet())) {
+				Double price = this.pendingPrices.remove(symbol);
+				if (price != null && !this.unreferencedSymbols.contains(symbol)) {
+					latestPrices.put(symbol, price);
+				}
+			}
+			if (latestPrices.isEmpty()) {
+				return;
+			}
+
+			// Looked up every time, so the reference follows the trading calendar.
+			Map<String, Double> references = this.lookUpReferences(new ArrayList<>(latestPrices.keySet()));
+			Map<String, TickerPrice> prices = new HashMap<>();
+			latestPrices.forEach((symbol, price) -> {
+				Double previousClose = references.get(symbol);
+				if (previousClose != null) {
+					prices.put(symbol, new TickerPrice(symbol, price,
+							AlpacaHistoricalBarsDataService.calculateChangePercentage(price, previousClose)));
+				}
+			});
+
+			if (!prices.isEmpty()) {
+				this.priceSink.accept(prices);
+			}
+		} catch (Exception e) {
+			// Never let a bad flush kill the scheduled task.
+			System.err.println("Error flushing streamed prices: " + e.getMessage());
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Schedules a reconnect attempt after a dropped connection, unless one is already pending or the
+	 * streamer has been stopped.
+	 */
+	private void scheduleReconnect() {
+		if (!this.started || this.reconnectScheduled || this.executor.isShutdown()) {
+			return;
+		}
+
+		this.reconnectScheduled = true;
+		this.executor.schedule(() -> {
+			this.reconnectScheduled = false;
+			if (this.started && !this.stream.isConnected()) {
+				System.out.println("Reconnecting market data stream...");
+				this.stream.connect();
+			}
+		}, this.properties.getRefresh().getStreamReconnectSeconds(), TimeUnit.SECONDS);
+	}
+}
@@ -9,9 +9,6 @@ import javafx.scene.control.ButtonType;
 import javafx.stage.Stage;
 
 import java.util.Optional;
-import net.jacobpeterson.alpaca.AlpacaAPI;
-import net.jacobpeterson.alpaca.model.util.apitype.MarketDataWebsocketSourceType;
-import net.jacobpeterson.alpaca.model.util.apitype.TraderAPIEndpointType;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -44,9 +41,11 @@ public class UIUtils {
 	public static final int API_SECRET_LEN = 44;
 
 	private final DataHolder dataHolder;
+	private final AlpacaClientFactory alpacaClientFactory;
 
-	public UIUtils(DataHolder dataHolder) {
+	public UIUtils(DataHolder dataHolder, AlpacaClientFactory alpacaClientFactory) {
 		this.dataHolder = dataHolder;
+		this.alpacaClientFactory = alpacaClientFactory;
 	}
 
 	/**
@@ -174,9 +173,7 @@ public class UIUtils {
 	 * @param apiSecret The API Secret to check.
 	 * @return True if the API Key and API Secret are from Alpaca, false otherwise.
 	 */
-	private static boolean areAPIKeysFromAlpaca(String apiKey, String apiSecret) {
-		AlpacaAPI api = new AlpacaAPI(apiKey, apiSecret, TraderAPIEndpointType.LIVE,
-				MarketDataWebsocketSourceType.IEX);
-		return AlpacaMarketDataService.checkAPIDetails(api);
+	private boolean areAPIKeysFromAlpaca(String apiKey, String apiSecret) {
+		return AlpacaMarketDataService.checkAPIDetails(this.alpacaClientFactory.create(apiKey, apiSecret));
 	}
 }
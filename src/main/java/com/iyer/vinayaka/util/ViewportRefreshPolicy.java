@@ -0,0 +1,87 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.entities.UserTickers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which tickers to fetch when refreshes follow the scroll viewport
+ * ({@code vinayaka.refresh.visibility-driven}).
+ *
+ * <p>
+ * Tickers in the viewport (plus a few prefetched rows around it) are fetched on every cycle. Tickers
+ * scrolled out of view are only fetched once their last fetch is older than
+ * {@code vinayaka.refresh.offscreen-interval-seconds}, so a board of thousands of tickers costs about
+ * as many API calls per cycle as one screenful. Rows scrolled into view are fetched right away unless
+ * they were fetched less than a refresh interval ago.
+ * </p>
+ *
+ * <p>
+ * <b>Thread Safety:</b> Not thread safe. {@link TickerRefresher} only uses it on its refresh thread.
+ * </p>
+ */
+public class ViewportRefreshPolicy {
+	private final long offscreenIntervalMillis;
+	// Symbol -> when its price was last requested
+	private final Map<String, Long> lastFetchedMillis = new HashMap<>();
+
+	/**
+	 * @param offscreenIntervalMillis How often tickers outside the viewport are fetched.
+	 */
+	public ViewportRefreshPolicy(long offscreenIntervalMillis) {
+		this.offscreenIntervalMillis = offscreenIntervalMillis;
+	}
+
+	/**
+	 * Picks the tickers to fetch on a refresh cycle and records them as fetched. If the viewport isn't
+	 * known (the board hasn't been laid out yet), every ticker is fetched.
+	 *
+	 * @param tickers   Every ticker on the board.
+	 * @param viewport  The symbols in the viewport and its prefetch margin.
+	 * @param nowMillis The current time.
+	 * @return The symbols to fetch, in board order.
+	 */
+	public List<String> dueForCycle(List<UserTickers> tickers, Set<String> viewport, long nowMillis) {
+		Set<String> onBoard = HashSet.newHashSet(tickers.size());
+		List<String> due = new ArrayList<>();
+		for (UserTickers ticker : tickers) {
+			String symbol = ticker.getSymbol();
+			onBoard.add(symbol);
+			Long lastFetched = this.lastFetchedMillis.get(symbol);
+			if (viewport.isEmpty() || viewport.contains(symbol) || lastFetched == null
+					|| nowMillis - lastFetched >= this.offscreenIntervalMillis) {
+				due.add(symbol);
+				this.lastFetchedMillis.put(symbol, nowMillis);
+			}
+		}
+		// Forget deleted tickers.
+		this.lastFetchedMillis.keySet().retainAll(onBoard);
+		return due;
+	}
+
+	/**
+	 * Picks the tickers in the viewport that weren't fetched within the given age, typically the rows
+	 * that were just scrolled into view, and records them as fetched.
+	 *
+	 * @param viewport    The symbols in the viewport and its prefetch margin.
+	 * @param maxAgeMillis How old a price may be and still count as fresh (the refresh interval).
+	 * @param nowMillis   The current time.
+	 * @return The symbols to fetch now.
+	 */
+	public List<String> staleInViewport(Set<String> viewport, long maxAgeMillis, long nowMillis) {
+		List<String> stale = new ArrayList<>();
+		for (String symbol : viewport) {
+			Long lastFetched = this.lastFetchedMillis.get(symbol);
+			if (lastFetched == null || nowMillis - lastFetched >= maxAgeMillis) {
+				stale.add(symbol);
+				this.lastFetchedMillis.put(symbol, nowMillis);
+			}
+		}
+		return stale;
+	}
+}
@@ -0,0 +1,41 @@
+package com.iyer.vinayaka.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class AssetIndexTest {
+	private final AssetIndex index = AssetIndex.of(List.of(
+			new AssetInfo("MSFT", "Microsoft Corporation Common Stock", "NASDAQ"),
+			new AssetInfo("aapl", "Apple Inc. Common Stock", "NASDAQ"),
+			new AssetInfo("AA", "Alcoa Corporation Common Stock", "NYSE")));
+
+	@Test
+	void looksUpSymbolsInAnyCase() {
+		Assertions.assertTrue(index.contains("AAPL"));
+		Assertions.assertEquals("Apple Inc. Common Stock", index.get("aapl").name());
+		Assertions.assertFalse(index.contains("GOOG"));
+		Assertions.assertNull(index.get(null));
+	}
+
+	@Test
+	void keepsSymbolsSorted() {
+		Assertions.assertEquals(3, index.size());
+		Assertions.assertEquals("AA", index.get(0).symbol());
+		Assertions.assertEquals("AAPL", index.get(1).symbol());
+		Assertions.assertEquals(1, index.lowerBound("AAP"));
+		Assertions.assertEquals(3, index.lowerBound("ZZZ"));
+	}
+
+	@Test
+	void countsTheDeltaBetweenVersions() {
+		AssetIndex updated = AssetIndex.of(List.of(
+				new AssetInfo("AAPL", "Apple Inc. Common Stock", "NASDAQ"),
+				new AssetInfo("AA", "Alcoa Corp", "NYSE"),
+				new AssetInfo("NVDA", "NVIDIA Corporation Common Stock", "NASDAQ")));
+
+		Assertions.assertArrayEquals(new int[]{1, 1, 1}, updated.diff(index));
+		Assertions.assertArrayEquals(new int[]{3, 0, 0}, index.diff(AssetIndex.empty()));
+	}
+}
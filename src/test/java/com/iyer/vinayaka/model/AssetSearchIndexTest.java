@@ -0,0 +1,43 @@
+package com.iyer.vinayaka.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class AssetSearchIndexTest {
+	private final AssetSearchIndex index = AssetSearchIndex.of(AssetIndex.of(List.of(
+			new AssetInfo("GOOGL", "Alphabet Inc. Class A Common Stock", "NASDAQ"),
+			new AssetInfo("GOOG", "Alphabet Inc. Class C Capital Stock", "NASDAQ"),
+			new AssetInfo("MSFT", "Microsoft Corporation Common Stock", "NASDAQ"),
+			new AssetInfo("A", "Agilent Technologies, Inc. Common Stock", "NYSE"),
+			new AssetInfo("AAPL", "Apple Inc. Common Stock", "NASDAQ"),
+			new AssetInfo("APLE", "Apple Hospitality REIT, Inc. Common Shares", "NYSE"),
+			new AssetInfo("BRK.B", "Berkshire Hathaway Inc.", "NYSE"))));
+
+	private List<String> symbols(String query, int limit) {
+		return index.search(query, limit).stream().map(AssetInfo::symbol).toList();
+	}
+
+	@Test
+	void ranksExactSymbolThenSymbolPrefixesThenNames() {
+		Assertions.assertEquals(List.of("A", "AAPL", "APLE"), symbols("a", 3));
+		Assertions.assertEquals(List.of("AAPL", "APLE"), symbols("apple", 5));
+		Assertions.assertEquals(List.of("BRK.B"), symbols("brk.b", 5));
+	}
+
+	@Test
+	void findsCompaniesByNamePrefixAndSubstring() {
+		Assertions.assertEquals(List.of("GOOG", "GOOGL"), symbols("alphabet", 5));
+		Assertions.assertEquals(List.of("GOOGL"), symbols("Alphabet Inc. Class A", 5));
+		Assertions.assertEquals(List.of("APLE"), symbols("hosp", 5));
+		Assertions.assertEquals(List.of("MSFT"), symbols("soft", 5));
+	}
+
+	@Test
+	void returnsNothingForBlankOrUnknownQueries() {
+		Assertions.assertTrue(symbols("  ", 5).isEmpty());
+		Assertions.assertTrue(symbols("zzzz", 5).isEmpty());
+		Assertions.assertTrue(AssetSearchIndex.empty().search("a", 5).isEmpty());
+	}
+}
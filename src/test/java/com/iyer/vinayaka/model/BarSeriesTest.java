@@ -0,0 +1,93 @@
+package com.iyer.vinayaka.model;
+
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBar;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+class BarSeriesTest {
+	private final OffsetDateTime start = OffsetDateTime.of(2025, 3, 3, 14, 30, 0, 0, ZoneOffset.UTC);
+
+	private BarSeries series(int count) {
+		List<StockBar> bars = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			bars.add(new StockBar().t(start.plusHours(i)).o(i + 0.5).h(i + 1.0).l((double) i).c(i + 0.75)
+					.v(100L * i).vw(i + 0.6).n(10L * i));
+		}
+		return BarSeries.fromStockBars(bars);
+	}
+
+	@Test
+	void convertsStockBarsToColumns() {
+		BarSeries series = series(3);
+
+		Assertions.assertEquals(3, series.size());
+		Assertions.assertEquals(start.plusHours(2).toEpochSecond(), series.lastTimestamp());
+		Assertions.assertEquals(2.75, series.lastClose());
+		Assertions.assertEquals(200L, series.volume(2));
+	}
+
+	@Test
+	void missingValuesBecomeNaNAndZero() {
+		BarSeries series = BarSeries.fromStockBars(List.of(new StockBar().t(start).c(10.0)));
+
+		Assertions.assertTrue(Double.isNaN(series.open(0)));
+		Assertions.assertEquals(0L, series.volume(0));
+	}
+
+	@Test
+	void slicesShareIndexesRelativeToTheSlice() {
+		BarSeries slice = series(10).slice(3, 6);
+
+		Assertions.assertEquals(3, slice.size());
+		Assertions.assertEquals(3.75, slice.close(0));
+		Assertions.assertEquals(5.75, slice.lastClose());
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> slice.close(3));
+	}
+
+	@Test
+	void slicesByTimeInclusive() {
+		BarSeries series = series(10);
+		BarSeries slice = series.sliceByTime(start.plusHours(2).toEpochSecond(), start.plusHours(4).toEpochSecond());
+
+		Assertions.assertEquals(3, slice.size());
+		Assertions.assertEquals(start.plusHours(2).toEpochSecond(), slice.timestamp(0));
+		Assertions.assertEquals(0, series.sliceByTime(0, 1).size());
+	}
+
+	@Test
+	void visitsEveryBarInOrder() {
+		double[] sum = {0};
+		long[] previous = {Long.MIN_VALUE};
+		series(10).slice(2, 5).forEach((epochSecond, open, high, low, close, volume) -> {
+			Assertions.assertTrue(epochSecond > previous[0]);
+			previous[0] = epochSecond;
+			sum[0] += close;
+		});
+
+		Assertions.assertEquals(2.75 + 3.75 + 4.75, sum[0]);
+	}
+
+	@Test
+	void roundTripsToStockBars() {
+		List<StockBar> bars = series(4).toStockBars();
+
+		Assertions.assertEquals(4, bars.size());
+		Assertions.assertEquals(start.plusHours(3).toEpochSecond(), bars.getLast().getT().toEpochSecond());
+		Assertions.assertEquals(3.75, bars.getLast().getC());
+		Assertions.assertEquals(30L, bars.getLast().getN());
+	}
+
+	@Test
+	void missingPricesRoundTripAsNull() {
+		StockBar bar = BarSeries.fromStockBars(List.of(new StockBar().t(start).c(10.0))).toStockBars().getFirst();
+
+		Assertions.assertNull(bar.getO());
+		Assertions.assertNull(bar.getVw());
+		Assertions.assertEquals(10.0, bar.getC());
+	}
+}
@@ -0,0 +1,54 @@
+package com.iyer.vinayaka.model;
+
+import com.iyer.vinayaka.entities.UserTickers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class WatchlistSnapshotTest {
+	private static UserTickers ticker(String symbol, boolean favorite) {
+		return new UserTickers(symbol, symbol + " Inc.", "NASDAQ", favorite);
+	}
+
+	private static List<String> symbols(WatchlistSnapshot snapshot) {
+		return snapshot.tickers().stream().map(UserTickers::getSymbol).toList();
+	}
+
+	@Test
+	void sortsFavoritesFirstThenBySymbol() {
+		WatchlistSnapshot snapshot = WatchlistSnapshot.of(List.of(ticker("MSFT", false), ticker("TSLA", true),
+				ticker("AAPL", false), ticker("NVDA", true)));
+
+		Assertions.assertEquals(List.of("NVDA", "TSLA", "AAPL", "MSFT"), symbols(snapshot));
+	}
+
+	@Test
+	void keepsTheOrderAcrossChanges() {
+		WatchlistSnapshot snapshot = WatchlistSnapshot.of(List.of(ticker("AAPL", false), ticker("MSFT", true)))
+				.with(ticker("GOOG", false))
+				.with(ticker("AMZN", true));
+		Assertions.assertEquals(List.of("AMZN", "MSFT", "AAPL", "GOOG"), symbols(snapshot));
+
+		snapshot = snapshot.withFavorite("GOOG", true).withFavorite("MSFT", false).without("AAPL");
+		Assertions.assertEquals(List.of("AMZN", "GOOG", "MSFT"), symbols(snapshot));
+		Assertions.assertFalse(snapshot.contains("AAPL"));
+		Assertions.assertTrue(snapshot.get("GOOG").isFavorite());
+	}
+
+	@Test
+	void changesLeaveTheOriginalUntouched() {
+		UserTickers aapl = ticker("AAPL", false);
+		WatchlistSnapshot original = WatchlistSnapshot.of(List.of(aapl));
+		aapl.setFavorite(true);
+
+		WatchlistSnapshot changed = original.withFavorite("AAPL", true).with(ticker("MSFT", false));
+
+		Assertions.assertFalse(original.get("AAPL").isFavorite());
+		Assertions.assertEquals(1, original.size());
+		Assertions.assertEquals(2, changed.size());
+		Assertions.assertTrue(changed.version() > original.version());
+		Assertions.assertSame(changed, changed.with(ticker("MSFT", true)));
+		Assertions.assertSame(changed, changed.without("TSLA"));
+	}
+}
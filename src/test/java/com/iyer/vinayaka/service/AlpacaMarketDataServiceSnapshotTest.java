@@ -0,0 +1,113 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.model.TickerPrice;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBar;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockSnapshot;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockTrade;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Covers the snapshot refresh engine with hand-built snapshots, so no API keys or network are needed.
+ */
+class AlpacaMarketDataServiceSnapshotTest {
+	// Daily bars are stamped at midnight New York time.
+	private static final OffsetDateTime MONDAY = OffsetDateTime.parse("2025-01-06T05:00:00Z");
+	private static final OffsetDateTime TUESDAY = OffsetDateTime.parse("2025-01-07T05:00:00Z");
+	private static final OffsetDateTime WEDNESDAY = OffsetDateTime.parse("2025-01-08T05:00:00Z");
+	// Wednesday 10:00 AM and 8:00 AM in New York.
+	private static final OffsetDateTime WEDNESDAY_MORNING = OffsetDateTime.parse("2025-01-08T15:00:00Z");
+	private static final OffsetDateTime WEDNESDAY_PRE_MARKET = OffsetDateTime.parse("2025-01-08T13:00:00Z");
+
+	private static StockBar bar(OffsetDateTime time, double close) {
+		return new StockBar().t(time).c(close);
+	}
+
+	private static StockTrade trade(OffsetDateTime time, double price) {
+		return new StockTrade().t(time).p(price);
+	}
+
+	/**
+	 * A snapshot taken during Wednesday's session, with Tuesday as the previous daily bar.
+	 */
+	private static StockSnapshot duringSession() {
+		return new StockSnapshot()
+				.latestTrade(trade(WEDNESDAY_MORNING, 110))
+				.minuteBar(bar(WEDNESDAY_MORNING.minusMinutes(1), 109))
+				.dailyBar(bar(WEDNESDAY, 108))
+				.prevDailyBar(bar(TUESDAY, 100));
+	}
+
+	@Test
+	void priceIsTheLatestTrade() {
+		TickerPrice price = AlpacaMarketDataService.toTickerPrice("AAPL", duringSession());
+		Assertions.assertEquals(new TickerPrice("AAPL", 110, 10), price);
+	}
+
+	@Test
+	void priceFallsBackToTheMinuteBarThenTheDailyBar() {
+		StockSnapshot snapshot = duringSession().latestTrade(null);
+		Assertions.assertEquals(109, AlpacaMarketDataService.toTickerPrice("AAPL", snapshot).price());
+
+		snapshot.minuteBar(null);
+		Assertions.assertEquals(new TickerPrice("AAPL", 108, 8), AlpacaMarketDataService.toTickerPrice("AAPL", snapshot));
+
+		snapshot.dailyBar(null);
+		Assertions.assertNull(AlpacaMarketDataService.toTickerPrice("AAPL", snapshot));
+	}
+
+	@Test
+	void missingPreviousDailyBarHasNoPrice() {
+		Assertions.assertNull(AlpacaMarketDataService.toTickerPrice("AAPL", duringSession().prevDailyBar(null)));
+		Assertions.assertNull(AlpacaMarketDataService.toTickerPrice("AAPL", null));
+	}
+
+	@Test
+	void preMarketTradesAreMeasuredAgainstTheLastCompletedSession() {
+		// Before the open, the daily bar is still Tuesday's and the previous one Monday's.
+		StockSnapshot snapshot = new StockSnapshot()
+				.latestTrade(trade(WEDNESDAY_PRE_MARKET, 99))
+				.dailyBar(bar(TUESDAY, 90))
+				.prevDailyBar(bar(MONDAY, 80));
+		Assertions.assertEquals(new TickerPrice("AAPL", 99, 10), AlpacaMarketDataService.toTickerPrice("AAPL", snapshot));
+
+		// Before anything traded on Wednesday, the latest trade is Tuesday's and so is its reference.
+		snapshot.latestTrade(trade(TUESDAY.plusHours(15), 90));
+		Assertions.assertEquals(new TickerPrice("AAPL", 90, 12.5), AlpacaMarketDataService.toTickerPrice("AAPL", snapshot));
+
+		// A ticker with a single session of history has no previous daily bar, but still a reference.
+		snapshot.latestTrade(trade(WEDNESDAY_PRE_MARKET, 99)).prevDailyBar(null);
+		Assertions.assertEquals(10, AlpacaMarketDataService.toTickerPrice("AAPL", snapshot).changePercentage(), 1e-9);
+	}
+
+	@Test
+	void refreshEngineIsSelectedByProperty() {
+		VinayakaProperties properties = new VinayakaProperties();
+		List<String> calls = new ArrayList<>();
+		AlpacaMarketDataService service = new AlpacaMarketDataService(null, null, properties, null, null) {
+			@Override
+			public Map<String, TickerPrice> getSnapshotTickerPrices(List<String> tickers) {
+				calls.add("snapshot");
+				return Map.of("AAPL", new TickerPrice("AAPL", 110, 10));
+			}
+
+			@Override
+			public List<Map<String, ?>> getPriceChangePercentages(List<String> tickers) {
+				calls.add("bars");
+				return List.of(Map.of("AAPL", List.of(bar(WEDNESDAY_MORNING, 121))), Map.of("AAPL", 21.0));
+			}
+		};
+
+		properties.getRefresh().setEngine(VinayakaProperties.RefreshEngine.BARS);
+		Assertions.assertEquals(new TickerPrice("AAPL", 121, 21), service.getLatestTickerPrices(List.of("AAPL")).get("AAPL"));
+		properties.getRefresh().setEngine(VinayakaProperties.RefreshEngine.SNAPSHOT);
+		Assertions.assertEquals(new TickerPrice("AAPL", 110, 10), service.getLatestTickerPrices(List.of("AAPL")).get("AAPL"));
+		Assertions.assertEquals(List.of("bars", "snapshot"), calls);
+	}
+}
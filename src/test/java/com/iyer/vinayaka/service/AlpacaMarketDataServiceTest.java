@@ -1,5 +1,6 @@
 package com.iyer.vinayaka.service;
 
+import com.iyer.vinayaka.config.VinayakaProperties;
 import net.jacobpeterson.alpaca.AlpacaAPI;
 import net.jacobpeterson.alpaca.model.util.apitype.MarketDataWebsocketSourceType;
 import net.jacobpeterson.alpaca.model.util.apitype.TraderAPIEndpointType;
@@ -26,7 +27,10 @@ class AlpacaMarketDataServiceTest {
 		AlpacaAPI api = new AlpacaAPI("",
 				"",
 				TraderAPIEndpointType.LIVE, MarketDataWebsocketSourceType.IEX);
-		marketDataService = new AlpacaMarketDataService(api, historicalBarsDataService);
+		VinayakaProperties properties = new VinayakaProperties();
+		AlpacaRateLimiter rateLimiter = new AlpacaRateLimiter(properties);
+		marketDataService = new AlpacaMarketDataService(api, historicalBarsDataService, properties,
+				new AlpacaRequestBatcher(properties, rateLimiter), rateLimiter);
 	}
 	
 	@Test
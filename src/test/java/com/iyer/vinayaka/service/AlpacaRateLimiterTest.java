@@ -0,0 +1,106 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import net.jacobpeterson.alpaca.openapi.marketdata.ApiException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AlpacaRateLimiterTest {
+	private static AlpacaRateLimiter limiter(int requestsPerMinute, int burst) {
+		VinayakaProperties properties = new VinayakaProperties();
+		properties.getAlpaca().setRequestsPerMinute(requestsPerMinute);
+		properties.getAlpaca().setRateLimitBurst(burst);
+		return new AlpacaRateLimiter(properties);
+	}
+
+	private static Thread acquireInBackground(AlpacaRateLimiter limiter, AlpacaRateLimiter.Lane lane,
+											  List<AlpacaRateLimiter.Lane> order) {
+		Thread thread = Thread.ofVirtual().start(() -> {
+			limiter.acquire(lane);
+			order.add(lane);
+		});
+		return thread;
+	}
+
+	private static void awaitQueueDepth(AlpacaRateLimiter limiter, int depth) throws InterruptedException {
+		while (limiter.getQueueDepth() != depth) {
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	void higherLanesGetTheNextToken() throws InterruptedException {
+		// One token every 200 ms, and the only one in the bucket is taken right away.
+		AlpacaRateLimiter limiter = limiter(300, 1);
+		limiter.acquire(AlpacaRateLimiter.Lane.REFRESH);
+
+		List<AlpacaRateLimiter.Lane> order = new CopyOnWriteArrayList<>();
+		Thread background = acquireInBackground(limiter, AlpacaRateLimiter.Lane.BACKGROUND, order);
+		awaitQueueDepth(limiter, 1);
+		Thread interactive = acquireInBackground(limiter, AlpacaRateLimiter.Lane.INTERACTIVE, order);
+		awaitQueueDepth(limiter, 2);
+		Assertions.assertEquals(1, limiter.getQueueDepth(AlpacaRateLimiter.Lane.BACKGROUND));
+
+		interactive.join();
+		background.join();
+
+		Assertions.assertEquals(List.of(AlpacaRateLimiter.Lane.INTERACTIVE, AlpacaRateLimiter.Lane.BACKGROUND), order);
+		Assertions.assertEquals(0, limiter.getQueueDepth());
+	}
+
+	@Test
+	void retriesThrottledRequests() throws ApiException {
+		AlpacaRateLimiter limiter = limiter(6000, 10);
+		AtomicInteger attempts = new AtomicInteger();
+
+		String response = limiter.call(() -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new ApiException(429, Map.of("retry-after", List.of("0")), "");
+			}
+			return "bars";
+		});
+
+		Assertions.assertEquals("bars", response);
+		Assertions.assertEquals(3, attempts.get());
+		Assertions.assertEquals(2, limiter.getThrottledCount());
+	}
+
+	@Test
+	void passesOnOtherErrors() {
+		AlpacaRateLimiter limiter = limiter(6000, 10);
+		AtomicInteger attempts = new AtomicInteger();
+
+		ApiException error = Assertions.assertThrows(ApiException.class, () -> limiter.call(() -> {
+			attempts.incrementAndGet();
+			throw new ApiException(403, "Forbidden");
+		}));
+
+		Assertions.assertEquals(403, error.getCode());
+		Assertions.assertEquals(1, attempts.get());
+	}
+
+	@Test
+	void readsTheRetryDelayFromTheHeaders() {
+		long now = 1_750_000_000_000L;
+		String inTenSeconds = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+				ZonedDateTime.ofInstant(java.time.Instant.ofEpochMilli(now + 10_000), ZoneOffset.UTC));
+
+		Assertions.assertEquals(3_000, AlpacaRateLimiter.retryDelayMillis(Map.of("Retry-After", List.of("3")), 0, now));
+		Assertions.assertEquals(10_000,
+				AlpacaRateLimiter.retryDelayMillis(Map.of("retry-after", List.of(inTenSeconds)), 0, now));
+		Assertions.assertEquals(5_000, AlpacaRateLimiter.retryDelayMillis(
+				Map.of("x-ratelimit-reset", List.of(String.valueOf(now / 1000 + 5))), 0, now));
+
+		// Without headers: exponential backoff with up to 50% jitter.
+		long backoff = AlpacaRateLimiter.retryDelayMillis(Map.of(), 2, now);
+		Assertions.assertTrue(backoff >= 4_000 && backoff <= 6_000, "backoff was " + backoff);
+	}
+}
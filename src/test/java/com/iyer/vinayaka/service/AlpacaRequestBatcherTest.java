@@ -0,0 +1,68 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import net.jacobpeterson.alpaca.openapi.marketdata.ApiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+class AlpacaRequestBatcherTest {
+	private AlpacaRequestBatcher batcher;
+
+	@BeforeEach
+	void setUp() {
+		VinayakaProperties properties = new VinayakaProperties();
+		properties.getAlpaca().setChunkSize(2);
+		properties.getAlpaca().setParallelism(2);
+		batcher = new AlpacaRequestBatcher(properties, new AlpacaRateLimiter(properties));
+	}
+
+	@AfterEach
+	void tearDown() {
+		batcher.shutdown();
+	}
+
+	@Test
+	void chunksAndDropsDuplicates() {
+		List<String> chunks = batcher.chunk(List.of("AAPL", "NVDA", "AAPL", "MSFT", "TSLA", "AMD"));
+
+		Assertions.assertEquals(List.of("AAPL,NVDA", "MSFT,TSLA", "AMD"), chunks);
+	}
+
+	@Test
+	void mergesResultsOfEveryChunk() throws ApiException {
+		Map<String, Integer> values = batcher.fetch(List.of("AAPL", "NVDA", "MSFT"), symbols -> {
+			Map<String, Integer> chunk = new HashMap<>();
+			for (String symbol : symbols.split(",")) {
+				chunk.put(symbol, symbol.length());
+			}
+			return chunk;
+		});
+
+		Assertions.assertEquals(Set.of("AAPL", "NVDA", "MSFT"), values.keySet());
+	}
+
+	@Test
+	void readsEveryPageAndAppendsValues() throws ApiException {
+		Map<String, List<Integer>> values = AlpacaRequestBatcher.readAllPages("AAPL", (symbols, pageToken) ->
+				pageToken == null
+						? new AlpacaRequestBatcher.Page<>(Map.of("AAPL", List.of(1, 2)), "next")
+						: new AlpacaRequestBatcher.Page<>(Map.of("AAPL", List.of(3)), null));
+
+		Assertions.assertEquals(List.of(1, 2, 3), values.get("AAPL"));
+	}
+
+	@Test
+	void propagatesChunkFailure() {
+		Assertions.assertThrows(ApiException.class, () -> batcher.fetch(List.of("AAPL", "NVDA", "MSFT"),
+				symbols -> {
+					if (symbols.contains("MSFT")) {
+						throw new ApiException();
+					}
+					return Map.of();
+				}));
+	}
+}
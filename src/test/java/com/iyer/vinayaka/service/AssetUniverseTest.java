@@ -0,0 +1,67 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.model.AssetInfo;
+import net.jacobpeterson.alpaca.openapi.trader.model.Assets;
+import net.jacobpeterson.alpaca.openapi.trader.model.Exchange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+class AssetUniverseTest {
+	@TempDir
+	Path directory;
+
+	private VinayakaProperties properties;
+	private AlpacaMarketDataService marketDataService;
+
+	@BeforeEach
+	void setUp() {
+		properties = new VinayakaProperties();
+		properties.getAssetCache().setFile(directory.resolve("assets.tsv").toString());
+		marketDataService = Mockito.mock(AlpacaMarketDataService.class);
+	}
+
+	@Test
+	void storesTheUniverseAndLoadsItWithoutTheNetwork() {
+		Mockito.when(marketDataService.getAllAssets()).thenReturn(List.of(
+				new Assets().symbol("AAPL").name("Apple Inc. Common Stock").exchange(Exchange.NASDAQ)));
+		Assertions.assertTrue(new AssetUniverse(marketDataService, properties).refresh());
+
+		AssetUniverse reloaded = new AssetUniverse(marketDataService, properties);
+		reloaded.loadFromDisk();
+
+		Assertions.assertEquals(1, reloaded.getIndex().size());
+		Assertions.assertEquals(new AssetInfo("AAPL", "Apple Inc. Common Stock", Exchange.NASDAQ.getValue()),
+				reloaded.find("aapl").orElseThrow());
+		Assertions.assertTrue(reloaded.find("GOOG").isEmpty());
+		Mockito.verify(marketDataService, Mockito.never()).getTickerNameAndExchange(Mockito.anyString());
+	}
+
+	@Test
+	void keepsTheIndexWhenTheDownloadFails() {
+		Mockito.when(marketDataService.getAllAssets()).thenReturn(List.of(
+				new Assets().symbol("AAPL").name("Apple Inc. Common Stock").exchange(Exchange.NASDAQ)), List.of());
+		AssetUniverse universe = new AssetUniverse(marketDataService, properties);
+		universe.refresh();
+
+		Assertions.assertFalse(universe.refresh());
+		Assertions.assertTrue(universe.find("AAPL").isPresent());
+	}
+
+	@Test
+	void asksTheApiUntilTheUniverseIsLoaded() {
+		Mockito.when(marketDataService.getTickerNameAndExchange("NVDA")).thenReturn(
+				Map.of("officialName", "NVIDIA Corporation Common Stock", "listedExchange", "NASDAQ"));
+		AssetUniverse universe = new AssetUniverse(marketDataService, properties);
+
+		Assertions.assertEquals("NASDAQ", universe.find("nvda").orElseThrow().exchange());
+		Assertions.assertTrue(universe.find("GOOG").isEmpty());
+	}
+}
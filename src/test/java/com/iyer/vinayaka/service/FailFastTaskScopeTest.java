@@ -0,0 +1,81 @@
+package com.iyer.vinayaka.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class FailFastTaskScopeTest {
+	private static final Instant FAR_DEADLINE = Instant.now().plusSeconds(60);
+
+	@Test
+	void runsSubtasksConcurrently() throws Exception {
+		// Each subtask waits for the other, so they only finish if both run at the same time.
+		CountDownLatch bothStarted = new CountDownLatch(2);
+		try (FailFastTaskScope scope = new FailFastTaskScope("test")) {
+			Future<String> first = scope.fork(() -> {
+				bothStarted.countDown();
+				bothStarted.await();
+				return "closes";
+			});
+			Future<String> second = scope.fork(() -> {
+				bothStarted.countDown();
+				bothStarted.await();
+				return "bars";
+			});
+
+			scope.joinUntil(FAR_DEADLINE);
+
+			Assertions.assertEquals("closes", first.resultNow());
+			Assertions.assertEquals("bars", second.resultNow());
+		}
+	}
+
+	@Test
+	void firstFailureCancelsTheOtherSubtasks() throws Exception {
+		AtomicBoolean interrupted = new AtomicBoolean();
+		FailFastTaskScope scope = new FailFastTaskScope("test");
+		scope.fork(() -> {
+			try {
+				Thread.sleep(60_000);
+			} catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+			return null;
+		});
+		scope.fork(() -> {
+			throw new IllegalStateException("HTTP 500");
+		});
+
+		ExecutionException failure = Assertions.assertThrows(ExecutionException.class,
+				() -> scope.joinUntil(FAR_DEADLINE));
+		scope.close();
+
+		Assertions.assertEquals("HTTP 500", failure.getCause().getMessage());
+		Assertions.assertTrue(interrupted.get());
+	}
+
+	@Test
+	void deadlineCancelsEverySubtask() {
+		AtomicBoolean interrupted = new AtomicBoolean();
+		FailFastTaskScope scope = new FailFastTaskScope("test");
+		scope.fork(() -> {
+			try {
+				Thread.sleep(60_000);
+			} catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+			return null;
+		});
+
+		Assertions.assertThrows(TimeoutException.class, () -> scope.joinUntil(Instant.now().plusMillis(50)));
+		scope.close();
+
+		Assertions.assertTrue(interrupted.get());
+	}
+}
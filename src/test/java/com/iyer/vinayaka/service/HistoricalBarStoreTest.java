@@ -0,0 +1,229 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.model.BarSeries;
+import net.jacobpeterson.alpaca.openapi.marketdata.ApiException;
+import net.jacobpeterson.alpaca.openapi.marketdata.model.StockBar;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+class HistoricalBarStoreTest {
+	@TempDir
+	Path directory;
+
+	private VinayakaProperties properties;
+	private List<OffsetDateTime> fetchStarts;
+
+	private final OffsetDateTime day1 = OffsetDateTime.of(2025, 3, 3, 5, 0, 0, 0, ZoneOffset.UTC);
+	// 9:00 PM on a Monday in New York, which is already Tuesday in UTC.
+	private final OffsetDateTime evening = OffsetDateTime.of(2025, 3, 18, 1, 0, 0, 0, ZoneOffset.UTC);
+
+	@BeforeEach
+	void setUp() {
+		properties = new VinayakaProperties();
+		properties.getBarStore().setDirectory(directory.toString());
+		fetchStarts = new ArrayList<>();
+	}
+
+	/**
+	 * A store whose "today" comes from a clock fixed at the given time.
+	 */
+	private HistoricalBarStore storeAt(OffsetDateTime now) {
+		Clock clock = Clock.fixed(now.toInstant(), ZoneOffset.UTC);
+		return new HistoricalBarStore(properties, new MarketSessionClock(null, clock, new AlpacaRateLimiter(properties)));
+	}
+
+	private HistoricalBarStore store() {
+		return storeAt(evening);
+	}
+
+	/**
+	 * Fetches one daily bar per day between the given times, closing at the day of the month.
+	 */
+	private List<StockBar> fetch(OffsetDateTime start, OffsetDateTime end) {
+		fetchStarts.add(start);
+		List<StockBar> bars = new ArrayList<>();
+		for (OffsetDateTime t = start; !t.isAfter(end); t = t.plusDays(1)) {
+			bars.add(new StockBar().t(t).o(1.0).h(2.0).l(0.5).c((double) t.getDayOfMonth()).v(100L).n(10L).vw(1.5));
+		}
+		return bars;
+	}
+
+	@Test
+	void fetchesOnlyTheTailOnceStored() throws ApiException {
+		HistoricalBarStore store = store();
+		store.getSeries("AAPL", "1D", day1, day1.plusDays(9), this::fetch);
+		BarSeries bars = store.getSeries("AAPL", "1D", day1, day1.plusDays(11), this::fetch);
+
+		// The second request starts at the last stored bar, which may have been incomplete.
+		Assertions.assertEquals(day1.plusDays(9), fetchStarts.getLast());
+		Assertions.assertEquals(12, bars.size());
+		Assertions.assertEquals(14.0, bars.lastClose());
+	}
+
+	@Test
+	void storesEveryFieldOfABar() throws ApiException {
+		store().getSeries("AAPL", "1D", day1, day1.plusDays(2), this::fetch);
+		StockBar bar = store().getSeries("AAPL", "1D", day1, day1.plusDays(2), (start, end) -> List.of())
+				.toStockBars().getLast();
+
+		Assertions.assertEquals(day1.plusDays(2).toEpochSecond(), bar.getT().toEpochSecond());
+		Assertions.assertEquals(5.0, bar.getC());
+		Assertions.assertEquals(100L, bar.getV());
+		Assertions.assertEquals(10L, bar.getN());
+		Assertions.assertEquals(1.5, bar.getVw());
+	}
+
+	@Test
+	void servesStoredBarsAfterReopening() throws ApiException {
+		store().getSeries("AAPL", "1D", day1, day1.plusDays(4), this::fetch);
+		BarSeries bars = store()
+				.getSeries("AAPL", "1D", day1.plusDays(2), day1.plusDays(4), this::fetch);
+
+		Assertions.assertEquals(2, fetchStarts.size());
+		Assertions.assertEquals(day1.plusDays(4), fetchStarts.getLast());
+		Assertions.assertEquals(3, bars.size());
+		Assertions.assertEquals(day1.plusDays(2).toEpochSecond(), bars.timestamp(0));
+	}
+
+	@Test
+	void refetchesWhenRangeStartsBeforeStoredBars() throws ApiException {
+		HistoricalBarStore store = store();
+		store.getSeries("AAPL", "1D", day1.plusDays(5), day1.plusDays(9), this::fetch);
+		BarSeries bars = store.getSeries("AAPL", "1D", day1, day1.plusDays(9), this::fetch);
+
+		Assertions.assertEquals(day1, fetchStarts.getLast());
+		Assertions.assertEquals(10, bars.size());
+	}
+
+	@Test
+	void growsPastInitialCapacity() throws ApiException {
+		HistoricalBarStore store = store();
+		BarSeries bars = store.getSeries("AAPL", "1D", day1, day1.plusDays(999), this::fetch);
+
+		Assertions.assertEquals(1000, bars.size());
+		Assertions.assertEquals(100L, bars.volume(999));
+	}
+
+	@Test
+	void servesPrefetchedSeries() throws ApiException {
+		HistoricalBarStore store = store();
+		Assertions.assertFalse(store.isStored("AAPL", "1D", day1));
+
+		store.storeSeries("AAPL", "1D", day1, fetch(day1, day1.plusDays(9)));
+		fetchStarts.clear();
+		BarSeries bars = store.getSeries("AAPL", "1D", day1.plusDays(3), day1.plusDays(9), this::fetch);
+
+		Assertions.assertTrue(store.isStored("AAPL", "1D", day1.plusDays(3)));
+		Assertions.assertFalse(store.isStored("AAPL", "1D", day1.minusDays(1)));
+		Assertions.assertEquals(List.of(day1.plusDays(9)), fetchStarts);
+		Assertions.assertEquals(7, bars.size());
+	}
+
+	@Test
+	void revalidatesOnTheMarketDayOfTheSessionClock() throws ApiException {
+		properties.getBarStore().setRevalidateDays(1);
+		storeAt(evening).getSeries("AAPL", "1D", day1, day1.plusDays(9), this::fetch);
+
+		// Still the same day in New York, although it's the next day in UTC.
+		storeAt(evening.plusHours(2)).getSeries("AAPL", "1D", day1, day1.plusDays(9), this::fetch);
+		Assertions.assertEquals(day1.plusDays(9), fetchStarts.getLast());
+
+		// The next day in New York, the series is downloaded in full again.
+		storeAt(evening.plusHours(5)).getSeries("AAPL", "1D", day1, day1.plusDays(9), this::fetch);
+		Assertions.assertEquals(day1, fetchStarts.getLast());
+	}
+
+	@Test
+	void ignoresAWriteThatCrashedBeforeCommitting() throws Exception {
+		store().getSeries("AAPL", "1D", day1, day1.plusDays(9), this::fetch);
+
+		// A crash after writing the next generation's bars, but before swapping in its meta file.
+		Path seriesDirectory = directory.resolve("AAPL").resolve("1D");
+		Files.write(seriesDirectory.resolve("bars.2"), new byte[128]);
+		Files.write(seriesDirectory.resolve("meta.tmp"), new byte[40]);
+
+		BarSeries bars = store().getSeries("AAPL", "1D", day1, day1.plusDays(9), this::fetch);
+		Assertions.assertEquals(10, bars.size());
+		Assertions.assertEquals(12.0, bars.lastClose());
+		try (Stream<Path> files = Files.list(seriesDirectory)) {
+			// Only the committed generation is left after the next write.
+			Assertions.assertTrue(files.map(file -> file.getFileName().toString())
+					.allMatch(name -> name.equals("meta") || name.endsWith(".2")));
+		}
+	}
+
+	@Test
+	void keepsOnlyTheMostRecentlyUsedSeriesOpen() throws ApiException {
+		Clock clock = Clock.fixed(evening.toInstant(), ZoneOffset.UTC);
+		HistoricalBarStore store = new HistoricalBarStore(properties,
+				new MarketSessionClock(null, clock, new AlpacaRateLimiter(properties)), 2);
+		for (String symbol : List.of("AAPL", "MSFT", "NVDA")) {
+			store.getSeries(symbol, "1D", day1, day1.plusDays(4), this::fetch);
+		}
+		Assertions.assertEquals(2, store.openSeriesCount());
+
+		// A closed series is opened again from its files, without a download.
+		int fetches = fetchStarts.size();
+		Assertions.assertTrue(store.isStored("AAPL", "1D", day1));
+		BarSeries bars = store.getSeries("AAPL", "1D", day1, day1.plusDays(4), this::fetch);
+		Assertions.assertEquals(5, bars.size());
+		Assertions.assertEquals(day1.plusDays(4), fetchStarts.getLast());
+		Assertions.assertEquals(fetches + 1, fetchStarts.size());
+		Assertions.assertEquals(2, store.openSeriesCount());
+	}
+
+	@Test
+	void fetchesOutsideTheSeriesLock() throws Exception {
+		HistoricalBarStore store = store();
+		store.storeSeries("AAPL", "1D", day1, fetch(day1, day1.plusDays(9)));
+		CountDownLatch fetching = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<BarSeries> slow = CompletableFuture.supplyAsync(() -> {
+			try {
+				return store.getSeries("AAPL", "1D", day1, day1.plusDays(10), (start, end) -> {
+					fetching.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return fetch(start, end);
+				});
+			} catch (ApiException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		// While the tail of AAPL downloads, its stored bars and other series are still served.
+		Assertions.assertTrue(fetching.await(5, TimeUnit.SECONDS));
+		CompletableFuture<Boolean> stored = CompletableFuture.supplyAsync(
+				() -> store.isStored("AAPL", "1D", day1));
+		Assertions.assertTrue(stored.get(5, TimeUnit.SECONDS));
+		CompletableFuture<BarSeries> other = CompletableFuture.supplyAsync(() -> {
+			try {
+				return store.getSeries("MSFT", "1D", day1, day1.plusDays(4), this::fetch);
+			} catch (ApiException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Assertions.assertEquals(5, other.get(5, TimeUnit.SECONDS).size());
+
+		release.countDown();
+		Assertions.assertEquals(11, slow.get(5, TimeUnit.SECONDS).size());
+	}
+}
@@ -0,0 +1,137 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import net.jacobpeterson.alpaca.AlpacaAPI;
+import net.jacobpeterson.alpaca.openapi.trader.model.Calendar;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.time.*;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+class MarketSessionClockTest {
+	private static final ZoneId NYC = ZoneId.of("America/New_York");
+	private static final Duration WAIT = Duration.ofSeconds(5);
+	// Thanksgiving week: Thursday is a holiday and Friday closes at 1:00 PM.
+	private static final List<Calendar> THANKSGIVING_WEEK = List.of(
+			new Calendar().date("2025-11-28").open("09:30").close("13:00").sessionOpen("0400").sessionClose("1700"),
+			new Calendar().date("2025-11-26").open("09:30").close("16:00").sessionOpen("0400").sessionClose("2000"),
+			new Calendar().date("2025-12-01").open("09:30").close("16:00").sessionOpen("0400").sessionClose("2000"));
+
+	private static long at(int month, int day, int hour, int minute) {
+		return ZonedDateTime.of(2025, month, day, hour, minute, 0, 0, NYC).toEpochSecond();
+	}
+
+	private static AlpacaAPI apiReturning(AtomicReference<List<Calendar>> calendar) throws Exception {
+		AlpacaAPI api = Mockito.mock(AlpacaAPI.class, Mockito.RETURNS_DEEP_STUBS);
+		Mockito.when(api.trader().calendar().getCalendar(ArgumentMatchers.any(), ArgumentMatchers.any(),
+				ArgumentMatchers.any())).thenAnswer(invocation -> calendar.get());
+		return api;
+	}
+
+	/**
+	 * A clock fixed at the given time, with the calendar loaded.
+	 */
+	private MarketSessionClock clockAt(long epochSecond) throws Exception {
+		MarketSessionClock clock = new MarketSessionClock(apiReturning(new AtomicReference<>(THANKSGIVING_WEEK)),
+				Clock.fixed(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC),
+				new AlpacaRateLimiter(new VinayakaProperties()));
+		Assertions.assertEquals(3, clock.awaitSessions(WAIT).count());
+		return clock;
+	}
+
+	@Test
+	void closesEarlyOnHalfDays() throws Exception {
+		MarketSessionClock clock = clockAt(at(11, 28, 12, 0));
+
+		Assertions.assertTrue(clock.isOpen());
+		Assertions.assertFalse(clock.isOpen(at(11, 28, 13, 30)));
+		Assertions.assertTrue(clock.isExtendedHours(at(11, 28, 13, 30)));
+		Assertions.assertFalse(clock.isExtendedHours(at(11, 28, 17, 30)));
+		MarketSessionClock.Sessions sessions = clock.sessions();
+		Assertions.assertEquals(at(11, 28, 13, 0), sessions.closeTime(sessions.latestSessionIndex(at(11, 28, 12, 0))));
+	}
+
+	@Test
+	void skipsHolidaysAndWeekends() throws Exception {
+		MarketSessionClock clock = clockAt(at(11, 29, 12, 0));
+
+		Assertions.assertFalse(clock.isOpen());
+		Assertions.assertEquals(at(12, 1, 9, 30), clock.nextOpen());
+		MarketSessionClock.Sessions sessions = clock.sessions();
+		Assertions.assertEquals(-1, sessions.sessionIndex(LocalDate.of(2025, 11, 27)));
+
+		int latest = sessions.latestSessionIndex(at(11, 29, 12, 0));
+		Assertions.assertEquals(LocalDate.of(2025, 11, 28), sessions.sessionDate(latest));
+		Assertions.assertEquals(LocalDate.of(2025, 11, 26), sessions.sessionDate(latest - 1));
+	}
+
+	@Test
+	void preMarketBelongsToThePreviousSession() throws Exception {
+		MarketSessionClock clock = clockAt(at(12, 1, 8, 0));
+
+		Assertions.assertFalse(clock.isOpen());
+		Assertions.assertTrue(clock.isExtendedHours(at(12, 1, 8, 0)));
+		MarketSessionClock.Sessions sessions = clock.sessions();
+		Assertions.assertEquals(LocalDate.of(2025, 11, 28), sessions.sessionDate(sessions.latestSessionIndex(at(12, 1, 8, 0))));
+		Assertions.assertEquals(-1, sessions.latestSessionIndex(at(11, 1, 12, 0)));
+		Assertions.assertEquals(-1, clock.nextOpen(at(12, 1, 12, 0)));
+	}
+
+	@Test
+	void loadsTheCalendarWithoutBlockingQueries() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AlpacaAPI api = Mockito.mock(AlpacaAPI.class, Mockito.RETURNS_DEEP_STUBS);
+		Mockito.when(api.trader().calendar().getCalendar(ArgumentMatchers.any(), ArgumentMatchers.any(),
+				ArgumentMatchers.any())).thenAnswer(invocation -> {
+			release.await();
+			return THANKSGIVING_WEEK;
+		});
+		MarketSessionClock clock = new MarketSessionClock(api,
+				Clock.fixed(Instant.ofEpochSecond(at(11, 28, 12, 0)), ZoneOffset.UTC),
+				new AlpacaRateLimiter(new VinayakaProperties()));
+
+		// The calendar is still loading: queries answer from the empty snapshot instead of waiting.
+		Assertions.assertFalse(clock.isOpen());
+		Assertions.assertEquals(0, clock.sessions().count());
+
+		release.countDown();
+		Assertions.assertEquals(3, clock.awaitSessions(WAIT).count());
+		Assertions.assertTrue(clock.isOpen());
+	}
+
+	@Test
+	void sessionIndexesStayValidAcrossReloads() throws Exception {
+		AtomicReference<List<Calendar>> calendar = new AtomicReference<>(THANKSGIVING_WEEK);
+		AtomicLong now = new AtomicLong(at(11, 28, 12, 0) * 1000);
+		Clock time = Mockito.mock(Clock.class);
+		Mockito.when(time.millis()).thenAnswer(invocation -> now.get());
+		MarketSessionClock clock = new MarketSessionClock(apiReturning(calendar), time,
+				new AlpacaRateLimiter(new VinayakaProperties()));
+		MarketSessionClock.Sessions before = clock.awaitSessions(WAIT);
+		int latest = before.latestSessionIndex(at(11, 28, 12, 0));
+
+		// Eleven months later the calendar is reloaded, and the same dates have other indexes in it.
+		calendar.set(List.of(
+				new Calendar().date("2025-11-25").open("09:30").close("16:00"),
+				new Calendar().date("2025-11-26").open("09:30").close("16:00"),
+				new Calendar().date("2025-11-28").open("09:30").close("13:00")));
+		now.addAndGet(Duration.ofDays(340).toMillis());
+		clock.sessions();
+		long deadline = System.currentTimeMillis() + WAIT.toMillis();
+		while (clock.sessions() == before && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assertions.assertNotSame(before, clock.sessions());
+
+		// An index taken before the reload still reads the snapshot it came from.
+		Assertions.assertEquals(LocalDate.of(2025, 11, 28), before.sessionDate(latest));
+		Assertions.assertEquals(at(11, 28, 13, 0), before.closeTime(latest));
+		Assertions.assertEquals(LocalDate.of(2025, 11, 26), before.sessionDate(latest - 1));
+	}
+}
@@ -0,0 +1,82 @@
+package com.iyer.vinayaka.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+class PriceChangeKernelTest {
+	private static double bigDecimalRound(double value) {
+		return new BigDecimal(Double.toString(value)).setScale(2, RoundingMode.HALF_UP).doubleValue();
+	}
+
+	@Test
+	void roundsLikeBigDecimalHalfUp() {
+		double[] values = {1.005, 2.675, -1.005, 0.125, -0.125, 123.455, 99.995, -99.995, 0.0, -0.001, 1e-7};
+		for (double value : values) {
+			Assertions.assertEquals(bigDecimalRound(value), PriceChangeKernel.roundToHundredths(value),
+					"Rounding " + value);
+		}
+
+		Random random = new Random(7);
+		for (int i = 0; i < 100_000; i++) {
+			double previousClose = 1 + random.nextInt(100_000) / 100.0;
+			double currentPrice = Math.round(previousClose * (0.8 + random.nextDouble() * 0.4) * 100) / 100.0;
+			double change = ((currentPrice - previousClose) / previousClose) * 100;
+			Assertions.assertEquals(bigDecimalRound(change), PriceChangeKernel.roundToHundredths(change),
+					"Rounding " + change);
+		}
+	}
+
+	@Test
+	void computesOnlySymbolsWithBothInputs() {
+		PriceChangeKernel kernel = new PriceChangeKernel();
+		int aapl = kernel.ordinal("AAPL");
+		int nvda = kernel.ordinal("NVDA");
+		int msft = kernel.ordinal("MSFT");
+
+		kernel.beginCycle();
+		kernel.setPreviousClose(aapl, 200.0);
+		kernel.setCurrentPrice(aapl, 210.0);
+		kernel.setPreviousClose(nvda, 100.0);
+		kernel.setCurrentPrice(msft, 400.0);
+
+		Assertions.assertEquals(1, kernel.compute());
+		Assertions.assertEquals(5.0, kernel.changePercentage(aapl));
+		Assertions.assertFalse(kernel.hasResult(nvda));
+		Assertions.assertFalse(kernel.hasResult(msft));
+	}
+
+	@Test
+	void keepsOrdinalsAndClearsResultsBetweenCycles() {
+		PriceChangeKernel kernel = new PriceChangeKernel();
+		int aapl = kernel.ordinal("AAPL");
+		kernel.beginCycle();
+		kernel.setPreviousClose(aapl, 100.0);
+		kernel.setCurrentPrice(aapl, 99.0);
+		kernel.compute();
+
+		kernel.beginCycle();
+		kernel.compute();
+
+		Assertions.assertEquals(aapl, kernel.ordinal("AAPL"));
+		Assertions.assertFalse(kernel.hasResult(aapl));
+	}
+
+	@Test
+	void growsPastInitialCapacity() {
+		PriceChangeKernel kernel = new PriceChangeKernel();
+		kernel.beginCycle();
+		for (int i = 0; i < 1000; i++) {
+			int ordinal = kernel.ordinal("SYM" + i);
+			kernel.setPreviousClose(ordinal, 100.0);
+			kernel.setCurrentPrice(ordinal, 101.0);
+		}
+
+		Assertions.assertEquals(1000, kernel.compute());
+		Assertions.assertEquals("SYM999", kernel.symbol(999));
+		Assertions.assertEquals(1.0, kernel.changePercentage(999));
+	}
+}
@@ -0,0 +1,93 @@
+package com.iyer.vinayaka.service;
+
+import net.jacobpeterson.alpaca.openapi.marketdata.ApiException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ReferencePriceCacheTest {
+	private ReferencePriceCache cache;
+	private List<List<String>> loadedBatches;
+
+	private final LocalDate monday = LocalDate.of(2025, 3, 3);
+	private final LocalDate tuesday = LocalDate.of(2025, 3, 4);
+
+	@BeforeEach
+	void setUp() {
+		cache = new ReferencePriceCache();
+		loadedBatches = new ArrayList<>();
+	}
+
+	private Map<String, Double> load(List<String> symbols) {
+		loadedBatches.add(symbols);
+		Map<String, Double> prices = new HashMap<>();
+		for (String symbol : symbols) {
+			if (!symbol.equals("NODATA")) {
+				prices.put(symbol, 100.0);
+			}
+		}
+		return prices;
+	}
+
+	@Test
+	void fetchesOncePerDay() throws ApiException {
+		cache.getReferencePrices(monday, List.of("AAPL", "NVDA"), this::load);
+		Map<String, Double> prices = cache.getReferencePrices(monday, List.of("AAPL", "NVDA"), this::load);
+
+		Assertions.assertEquals(1, loadedBatches.size());
+		Assertions.assertEquals(2, prices.size());
+	}
+
+	@Test
+	void fetchesOnlyMissingSymbols() throws ApiException {
+		cache.getReferencePrices(monday, List.of("AAPL"), this::load);
+		Map<String, Double> prices = cache.getReferencePrices(monday, List.of("AAPL", "NVDA"), this::load);
+
+		Assertions.assertEquals(List.of("NVDA"), loadedBatches.getLast());
+		Assertions.assertEquals(2, prices.size());
+	}
+
+	@Test
+	void rollsOverWhenDayChanges() throws ApiException {
+		cache.getReferencePrices(monday, List.of("AAPL"), this::load);
+		cache.getReferencePrices(tuesday, List.of("AAPL"), this::load);
+
+		Assertions.assertEquals(2, loadedBatches.size());
+		Assertions.assertEquals(List.of("AAPL"), loadedBatches.getLast());
+	}
+
+	@Test
+	void excludesSymbolsWithoutData() throws ApiException {
+		Map<String, Double> prices = cache.getReferencePrices(monday, List.of("AAPL", "NODATA"), this::load);
+
+		Assertions.assertEquals(1, prices.size());
+		Assertions.assertFalse(prices.containsKey("NODATA"));
+	}
+
+	@Test
+	void symbolsWithoutDataAreLoadedOncePerDay() throws ApiException {
+		cache.getReferencePrices(monday, List.of("AAPL", "NODATA"), this::load);
+		Map<String, Double> prices = cache.getReferencePrices(monday, List.of("AAPL", "NODATA"), this::load);
+
+		Assertions.assertEquals(1, loadedBatches.size());
+		Assertions.assertEquals(Map.of("AAPL", 100.0), prices);
+
+		cache.getReferencePrices(tuesday, List.of("NODATA"), this::load);
+		Assertions.assertEquals(List.of("NODATA"), loadedBatches.getLast());
+	}
+
+	@Test
+	void failedLoadCachesNothing() throws ApiException {
+		Assertions.assertThrows(ApiException.class, () -> cache.getReferencePrices(monday, List.of("AAPL"),
+				symbols -> { throw new ApiException(); }));
+
+		cache.getReferencePrices(monday, List.of("AAPL"), this::load);
+		Assertions.assertEquals(1, loadedBatches.size());
+	}
+}
@@ -0,0 +1,198 @@
+package com.iyer.vinayaka.service;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.entities.UserTickers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class WatchlistServiceTest {
+	private final VinayakaProperties properties = new VinayakaProperties();
+	private final StubTickers tickers = new StubTickers();
+	private WatchlistService service;
+
+	/**
+	 * Stands in for the database: keeps the stored tickers and every batch applied to them.
+	 */
+	private static class StubTickers extends UserTickersService {
+		private final Map<String, UserTickers> stored = new ConcurrentHashMap<>();
+		private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+		private final AtomicInteger failuresLeft = new AtomicInteger();
+		private volatile CountDownLatch release;
+		private final CountDownLatch writing = new CountDownLatch(1);
+		private volatile boolean interrupted = false;
+
+		StubTickers() {
+			super(null);
+		}
+
+		@Override
+		public List<UserTickers> getAllTickersWithFavoritesFirst() {
+			return List.copyOf(this.stored.values());
+		}
+
+		@Override
+		public void applyChanges(List<UserTickers> upserts, List<String> deletes) {
+			this.writing.countDown();
+			CountDownLatch current = this.release;
+			if (current != null) {
+				try {
+					current.await();
+				} catch (InterruptedException e) {
+					this.interrupted = true;
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (this.failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+				throw new IllegalStateException("database is locked");
+			}
+			List<String> batch = new ArrayList<>();
+			for (UserTickers ticker : upserts) {
+				this.stored.put(ticker.getSymbol(), new UserTickers(ticker.getSymbol(), ticker.getName(),
+						ticker.getExchange(), ticker.isFavorite()));
+				batch.add(ticker.getSymbol() + (ticker.isFavorite() ? "*" : ""));
+			}
+			for (String symbol : deletes) {
+				this.stored.remove(symbol);
+				batch.add("-" + symbol);
+			}
+			this.batches.add(batch);
+		}
+	}
+
+	private WatchlistService service(long writeDelayMillis) {
+		this.properties.getWatchlist().setWriteDelayMillis(writeDelayMillis);
+		this.service = new WatchlistService(this.tickers, this.properties);
+		return this.service;
+	}
+
+	private static UserTickers ticker(String symbol) {
+		return new UserTickers(symbol, symbol, "NASDAQ", false);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (this.service != null) {
+			this.service.stop();
+		}
+	}
+
+	@Test
+	void changesAreCoalescedIntoOneBatch() {
+		// Writes are driven by the tests, not the schedule.
+		WatchlistService service = this.service(3_600_000);
+		service.addTicker(ticker("AAPL"));
+		service.toggleFavorite("AAPL");
+		service.toggleFavorite("AAPL");
+		service.addTicker(ticker("MSFT"));
+		service.deleteTicker("MSFT");
+		service.toggleFavorite("NVDA"); // Not on the watchlist, nothing to store.
+		Assertions.assertTrue(this.tickers.batches.isEmpty());
+
+		service.flush();
+		Assertions.assertEquals(List.of(List.of("AAPL", "-MSFT")), this.tickers.batches);
+		Assertions.assertFalse(this.tickers.stored.get("AAPL").isFavorite());
+
+		// Nothing is left to store.
+		service.flush();
+		Assertions.assertEquals(1, this.tickers.batches.size());
+	}
+
+	@Test
+	void changesAreStoredAfterTheWriteDelay() throws InterruptedException {
+		WatchlistService service = this.service(10);
+		service.addTicker(ticker("AAPL"));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.tickers.batches.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assertions.assertEquals(List.of(List.of("AAPL")), this.tickers.batches);
+	}
+
+	@Test
+	void failedBatchesAreRetriedWithTheNewestState() {
+		WatchlistService service = this.service(3_600_000);
+		service.addTicker(ticker("AAPL"));
+		service.addTicker(ticker("MSFT"));
+		this.tickers.failuresLeft.set(1);
+		service.flush();
+		Assertions.assertTrue(this.tickers.stored.isEmpty());
+
+		// Changed again before the retry: the newer state is stored, not the failed batch's.
+		service.toggleFavorite("AAPL");
+		service.flush();
+		Assertions.assertEquals(List.of(List.of("AAPL*", "MSFT")), this.tickers.batches);
+		Assertions.assertTrue(this.tickers.stored.get("AAPL").isFavorite());
+	}
+
+	@Test
+	void repeatedFailuresAreReportedOnce() {
+		WatchlistService service = this.service(3_600_000);
+		List<Integer> reports = new CopyOnWriteArrayList<>();
+		service.addWriteFailureListener(reports::add);
+		service.addTicker(ticker("AAPL"));
+		service.addTicker(ticker("MSFT"));
+		this.tickers.failuresLeft.set(WatchlistService.FAILURES_BEFORE_ALERT + 1);
+
+		for (int i = 1; i < WatchlistService.FAILURES_BEFORE_ALERT; i++) {
+			service.flush();
+		}
+		Assertions.assertTrue(reports.isEmpty());
+		service.flush();
+		Assertions.assertEquals(List.of(2), reports);
+		service.flush();
+		Assertions.assertEquals(List.of(2), reports);
+
+		// A successful write starts the count over.
+		service.flush();
+		Assertions.assertEquals(2, this.tickers.stored.size());
+		this.tickers.failuresLeft.set(WatchlistService.FAILURES_BEFORE_ALERT);
+		service.deleteTicker("MSFT");
+		for (int i = 0; i < WatchlistService.FAILURES_BEFORE_ALERT; i++) {
+			service.flush();
+		}
+		Assertions.assertEquals(List.of(2, 1), reports);
+	}
+
+	@Test
+	void shutdownStoresPendingChanges() {
+		WatchlistService service = this.service(3_600_000);
+		service.addTicker(ticker("AAPL"));
+		service.stop();
+		Assertions.assertEquals(List.of(List.of("AAPL")), this.tickers.batches);
+
+		// The service can't be used after it's stopped.
+		this.service = null;
+	}
+
+	@Test
+	void shutdownWaitsForTheWriteInProgress() throws InterruptedException {
+		this.tickers.release = new CountDownLatch(1);
+		WatchlistService service = this.service(0);
+		service.addTicker(ticker("AAPL"));
+		Assertions.assertTrue(this.tickers.writing.await(5, TimeUnit.SECONDS));
+
+		// Changed while the first batch is being written.
+		service.addTicker(ticker("MSFT"));
+		Thread stopper = new Thread(service::stop);
+		stopper.start();
+		Thread.sleep(50);
+		Assertions.assertTrue(stopper.isAlive());
+
+		this.tickers.release.countDown();
+		stopper.join(5000);
+		Assertions.assertFalse(stopper.isAlive());
+		Assertions.assertFalse(this.tickers.interrupted);
+		Assertions.assertEquals(List.of(List.of("AAPL"), List.of("MSFT")), this.tickers.batches);
+		this.service = null;
+	}
+}
@@ -0,0 +1,181 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.model.TickerPrice;
+import com.iyer.vinayaka.service.AlpacaMarketDataService;
+import com.iyer.vinayaka.service.AlpacaRateLimiter;
+import com.iyer.vinayaka.service.AlpacaRequestBatcher;
+import net.jacobpeterson.alpaca.AlpacaAPI;
+import net.jacobpeterson.alpaca.openapi.trader.model.Assets;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class AlpacaStandInServerTest {
+	// Wednesday 2025-01-08, 10:00 AM in New York
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-01-08T15:00:00Z"), ZoneOffset.UTC);
+	private static final Pattern NEXT_PAGE = Pattern.compile("\"next_page_token\":\"([^\"]+)\"");
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	private static VinayakaProperties.StandIn settings() {
+		VinayakaProperties.StandIn settings = new VinayakaProperties.StandIn();
+		settings.setAssets(100);
+		return settings;
+	}
+
+	private HttpResponse<String> get(AlpacaStandInServer server, String pathAndQuery)
+			throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(server.getBaseUrl() + pathAndQuery))
+				.header("APCA-API-KEY-ID", "key")
+				.header("APCA-API-SECRET-KEY", "secret")
+				.build();
+		return this.client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static int count(String body, String needle) {
+		int count = 0;
+		for (int i = body.indexOf(needle); i >= 0; i = body.indexOf(needle, i + 1)) {
+			count++;
+		}
+		return count;
+	}
+
+	@Test
+	void barsArePagedAcrossSymbolsInAlphabeticalOrder() throws Exception {
+		try (AlpacaStandInServer server = AlpacaStandInServer.start(settings(), CLOCK)) {
+			String range = "&timeframe=1Min&start=2025-01-08T14:30:00Z&end=2025-01-08T14:59:00Z";
+			HttpResponse<String> first = this.get(server, "/v2/stocks/bars?symbols=MSFT,AAPL,NOTLISTED&limit=40"
+					+ range);
+			Assertions.assertEquals(200, first.statusCode());
+			Assertions.assertTrue(first.body().startsWith("{\"bars\":{\"AAPL\":["), first.body());
+			Assertions.assertEquals(40, count(first.body(), "\"t\":"));
+			Assertions.assertFalse(first.body().contains("NOTLISTED"));
+
+			Matcher token = NEXT_PAGE.matcher(first.body());
+			Assertions.assertTrue(token.find());
+			HttpResponse<String> second = this.get(server, "/v2/stocks/bars?symbols=MSFT,AAPL&limit=40"
+					+ range + "&page_token=" + token.group(1));
+			Assertions.assertEquals(20, count(second.body(), "\"t\":"));
+			Assertions.assertTrue(second.body().endsWith("\"next_page_token\":null}"));
+			Assertions.assertTrue(second.body().contains("\"MSFT\":[{") && !second.body().contains("AAPL"));
+
+			// The same bars come back from the single-symbol endpoint.
+			HttpResponse<String> single = this.get(server, "/v2/stocks/AAPL/bars?limit=1000" + range);
+			String aaplBars = first.body().substring(first.body().indexOf('['), first.body().indexOf(']') + 1);
+			Assertions.assertTrue(single.body().contains("\"bars\":" + aaplBars), single.body());
+		}
+	}
+
+	@Test
+	void dailyBarsSkipWeekends() throws Exception {
+		try (AlpacaStandInServer server = AlpacaStandInServer.start(settings(), CLOCK)) {
+			HttpResponse<String> response = this.get(server,
+					"/v2/stocks/bars?symbols=AAPL&timeframe=1Day&start=2024-12-23T00:00:00Z&end=2025-01-06T00:00:00Z");
+			Assertions.assertEquals(10, count(response.body(), "\"t\":"));
+			Assertions.assertTrue(response.body().contains("\"t\":\"2024-12-27T05:00:00Z\""));
+			Assertions.assertFalse(response.body().contains("\"t\":\"2024-12-28T05:00:00Z\""));
+
+			HttpResponse<String> calendar = this.get(server, "/v2/calendar?start=2025-01-04&end=2025-01-08");
+			Assertions.assertEquals(3, count(calendar.body(), "\"date\":"));
+			Assertions.assertTrue(calendar.body().contains("\"open\":\"09:30\",\"close\":\"16:00\""));
+
+			// Without a range, the calendar is the server's today.
+			HttpResponse<String> today = this.get(server, "/v2/calendar");
+			Assertions.assertEquals(1, count(today.body(), "\"date\":"));
+			Assertions.assertTrue(today.body().contains("\"date\":\"2025-01-08\""), today.body());
+		}
+	}
+
+	@Test
+	void latestTradeMatchesTheCloseOfTheLatestBar() throws Exception {
+		try (AlpacaStandInServer server = AlpacaStandInServer.start(settings(), CLOCK)) {
+			String trade = this.get(server, "/v2/stocks/trades/latest?symbols=NVDA").body();
+			String bar = this.get(server, "/v2/stocks/bars/latest?symbols=NVDA").body();
+			String price = trade.replaceAll(".*\"p\":([0-9.]+).*", "$1");
+			Assertions.assertTrue(bar.contains("\"c\":" + price + ","), trade + " " + bar);
+			Assertions.assertTrue(bar.contains("\"t\":\"2025-01-08T15:00:00Z\""), bar);
+
+			String snapshot = this.get(server, "/v2/stocks/snapshots?symbols=NVDA").body();
+			Assertions.assertTrue(snapshot.contains("\"p\":" + price + ","));
+			Assertions.assertTrue(snapshot.contains("\"prevDailyBar\":{"));
+		}
+	}
+
+	@Test
+	void assetsListTheConfiguredUniverse() throws Exception {
+		try (AlpacaStandInServer server = AlpacaStandInServer.start(settings(), CLOCK)) {
+			Assertions.assertEquals(100, count(this.get(server, "/v2/assets?status=active").body(), "\"symbol\":"));
+			Assertions.assertTrue(this.get(server, "/v2/assets/aapl").body().contains("\"symbol\":\"AAPL\""));
+			Assertions.assertEquals(404, this.get(server, "/v2/assets/NOTLISTED").statusCode());
+		}
+	}
+
+	@Test
+	void requestsOverTheLimitGet429() throws Exception {
+		VinayakaProperties.StandIn settings = settings();
+		settings.setRequestsPerMinute(2);
+		try (AlpacaStandInServer server = AlpacaStandInServer.start(settings, CLOCK)) {
+			Assertions.assertEquals(200, this.get(server, "/v2/calendar").statusCode());
+			HttpResponse<String> second = this.get(server, "/v2/calendar");
+			Assertions.assertEquals("0", second.headers().firstValue("X-RateLimit-Remaining").orElseThrow());
+
+			HttpResponse<String> third = this.get(server, "/v2/calendar");
+			Assertions.assertEquals(429, third.statusCode());
+			long reset = Long.parseLong(third.headers().firstValue("X-RateLimit-Reset").orElseThrow());
+			Assertions.assertEquals(CLOCK.instant().getEpochSecond() + 60, reset);
+			Assertions.assertEquals(3, server.getRequestCount());
+			Assertions.assertEquals(1, server.getThrottledCount());
+		}
+	}
+
+	@Test
+	void injectedErrorsAnswer500() throws Exception {
+		VinayakaProperties.StandIn settings = settings();
+		settings.setErrorRate(1);
+		try (AlpacaStandInServer server = AlpacaStandInServer.start(settings, CLOCK)) {
+			HttpResponse<String> response = this.get(server, "/v2/stocks/snapshots?symbols=AAPL");
+			Assertions.assertEquals(500, response.statusCode());
+			Assertions.assertTrue(response.body().contains("\"code\":50010000"));
+			Assertions.assertEquals(1, server.getErrorCount());
+		}
+	}
+
+	@Test
+	void alpacaClientFromTheFactoryTalksToTheServer() {
+		VinayakaProperties properties = new VinayakaProperties();
+		properties.getAlpaca().getStandIn().setEnabled(true);
+		properties.getAlpaca().getStandIn().setAssets(100);
+		properties.getRefresh().setEngine(VinayakaProperties.RefreshEngine.SNAPSHOT);
+		AlpacaClientFactory factory = new AlpacaClientFactory(properties);
+		try {
+			AlpacaAPI api = factory.create("key", "secret");
+			AlpacaRateLimiter rateLimiter = new AlpacaRateLimiter(properties);
+			AlpacaMarketDataService service = new AlpacaMarketDataService(api, null, properties,
+					new AlpacaRequestBatcher(properties, rateLimiter), rateLimiter);
+
+			Map<String, TickerPrice> prices = service.getLatestTickerPrices(List.of("AAPL", "MSFT", "NOTLISTED"));
+			Assertions.assertEquals(2, prices.size(), prices.toString());
+			Assertions.assertTrue(prices.get("AAPL").price() > 0);
+			Assertions.assertTrue(prices.get("MSFT").price() > 0);
+
+			List<Assets> assets = service.getAllAssets();
+			Assertions.assertEquals(100, assets.size());
+			Assertions.assertTrue(assets.stream().anyMatch(asset -> "AAPL".equals(asset.getSymbol())));
+		} finally {
+			factory.stop();
+		}
+	}
+}
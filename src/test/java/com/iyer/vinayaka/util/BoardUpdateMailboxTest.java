@@ -0,0 +1,107 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.entities.UserTickers;
+import com.iyer.vinayaka.model.TickerPrice;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class BoardUpdateMailboxTest {
+	private final List<List<UserTickers>> boards = new ArrayList<>();
+	private final List<Map<String, TickerPrice>> boardPrices = new ArrayList<>();
+	private final List<Map<String, TickerPrice>> priceUpdates = new ArrayList<>();
+	private final List<Runnable> fxTasks = new ArrayList<>();
+	private BoardUpdateMailbox mailbox;
+
+	private static TickerPrice price(String symbol, double price) {
+		return new TickerPrice(symbol, price, 0.0);
+	}
+
+	private static List<UserTickers> tickers(String... symbols) {
+		List<UserTickers> tickers = new ArrayList<>();
+		for (String symbol : symbols) {
+			tickers.add(new UserTickers(symbol, symbol, "NASDAQ", false));
+		}
+		return tickers;
+	}
+
+	@BeforeEach
+	void setUp() {
+		this.mailbox = new BoardUpdateMailbox((tickers, prices) -> {
+			this.boards.add(tickers);
+			this.boardPrices.add(prices);
+		}, this.priceUpdates::add, this.fxTasks::add);
+	}
+
+	@Test
+	void appliesOnlyTheNewestBoardPerPulse() {
+		this.mailbox.postBoard(tickers("AAPL", "MSFT"), Map.of("AAPL", price("AAPL", 1), "MSFT", price("MSFT", 2)));
+		this.mailbox.postBoard(tickers("MSFT", "AAPL"), Map.of("AAPL", price("AAPL", 3)));
+
+		// One timer start for both posts.
+		Assertions.assertEquals(1, this.fxTasks.size());
+		Assertions.assertTrue(this.mailbox.drain());
+		Assertions.assertEquals(List.of(tickers("MSFT", "AAPL")), this.boards);
+		// The newer board's price wins; the price it didn't carry is kept from the older one.
+		Assertions.assertEquals(Map.of("AAPL", price("AAPL", 3), "MSFT", price("MSFT", 2)), this.boardPrices.getFirst());
+	}
+
+	@Test
+	void mergesPriceUpdatesPerSymbol() {
+		this.mailbox.postPrices(Map.of("AAPL", price("AAPL", 1)));
+		this.mailbox.postPrices(Map.of("AAPL", price("AAPL", 2), "NVDA", price("NVDA", 5)));
+		this.mailbox.postPrices(Map.of("AAPL", price("AAPL", 3)));
+
+		Assertions.assertTrue(this.mailbox.drain());
+		Assertions.assertEquals(List.of(Map.of("AAPL", price("AAPL", 3), "NVDA", price("NVDA", 5))), this.priceUpdates);
+		Assertions.assertTrue(this.boards.isEmpty());
+	}
+
+	@Test
+	void stopsWhenIdleAndRestartsOnTheNextPost() {
+		this.mailbox.postPrices(Map.of("AAPL", price("AAPL", 1)));
+		Assertions.assertTrue(this.mailbox.drain());
+		Assertions.assertFalse(this.mailbox.drain());
+
+		this.mailbox.postPrices(Map.of("AAPL", price("AAPL", 2), "MSFT", price("MSFT", 4)));
+		Assertions.assertEquals(2, this.fxTasks.size());
+		// The board's price supersedes the older pending price of the same ticker.
+		this.mailbox.postBoard(tickers("AAPL", "MSFT"), Map.of("AAPL", price("AAPL", 3)));
+		Assertions.assertTrue(this.mailbox.drain());
+		Assertions.assertEquals(List.of(Map.of("AAPL", price("AAPL", 1)), Map.of("MSFT", price("MSFT", 4))),
+				this.priceUpdates);
+		Assertions.assertEquals(Map.of("AAPL", price("AAPL", 3)), this.boardPrices.getFirst());
+	}
+
+	@Test
+	void recordsTheQueueWaitOfTheOldestMergedBoard() throws Exception {
+		Path file = Files.createTempFile("board-queue", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(RefreshEvents.BoardQueueWait.class).withThreshold(Duration.ZERO);
+			recording.start();
+			this.mailbox.postBoard(tickers("AAPL"), Map.of());
+			Thread.sleep(20);
+			this.mailbox.postBoard(tickers("AAPL", "MSFT"), Map.of("AAPL", price("AAPL", 1)));
+			this.mailbox.drain();
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		Files.delete(file);
+		Assertions.assertEquals(1, events.size());
+		Assertions.assertEquals(2, events.getFirst().getInt("tickers"));
+		Assertions.assertEquals(1, events.getFirst().getInt("prices"));
+		Assertions.assertTrue(events.getFirst().getDuration().toMillis() >= 20);
+	}
+}
@@ -0,0 +1,51 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class FxStallWatchdogTest {
+	private final List<Runnable> fxTasks = new ArrayList<>();
+
+	private FxStallWatchdog watchdog(long stallThresholdMillis) {
+		VinayakaProperties properties = new VinayakaProperties();
+		properties.getUi().setStallThresholdMillis(stallThresholdMillis);
+		return new FxStallWatchdog(properties, this.fxTasks::add);
+	}
+
+	@Test
+	void postsOneProbeAtATime() {
+		FxStallWatchdog watchdog = this.watchdog(60_000);
+
+		watchdog.check();
+		watchdog.check();
+		Assertions.assertEquals(1, this.fxTasks.size());
+
+		// Once the FX thread has run the probe, the next check posts a new one.
+		this.fxTasks.getFirst().run();
+		watchdog.check();
+		Assertions.assertEquals(2, this.fxTasks.size());
+		Assertions.assertEquals(0, watchdog.getStallCount());
+	}
+
+	@Test
+	void reportsEachStallOnce() throws InterruptedException {
+		FxStallWatchdog watchdog = this.watchdog(10);
+
+		watchdog.check();
+		Thread.sleep(20);
+		watchdog.check();
+		watchdog.check();
+		Assertions.assertEquals(1, watchdog.getStallCount());
+
+		// The FX thread catches up; a later stall is reported again.
+		this.fxTasks.getFirst().run();
+		watchdog.check();
+		Thread.sleep(20);
+		watchdog.check();
+		Assertions.assertEquals(2, watchdog.getStallCount());
+	}
+}
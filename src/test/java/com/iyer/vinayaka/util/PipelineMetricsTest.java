@@ -0,0 +1,69 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.service.AlpacaRateLimiter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class PipelineMetricsTest {
+	private SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void useSimpleRegistry() {
+		this.registry = new SimpleMeterRegistry();
+		PipelineMetrics.useRegistry(this.registry);
+	}
+
+	@AfterEach
+	void restoreGlobalRegistry() {
+		PipelineMetrics.useRegistry(Metrics.globalRegistry);
+	}
+
+	@Test
+	void recordsMissingSymbolsPerLookup() {
+		PipelineMetrics.recordPriceFetch(VinayakaProperties.RefreshEngine.BARS, 1_000_000, 10, 7);
+		PipelineMetrics.recordPriceFetch(VinayakaProperties.RefreshEngine.BARS, 3_000_000, 10, 10);
+
+		Timer fetch = this.registry.get("vinayaka.prices.fetch").tag("engine", "bars").timer();
+		Assertions.assertEquals(2, fetch.count());
+		Assertions.assertEquals(4, fetch.totalTime(TimeUnit.MILLISECONDS), 0.001);
+		Assertions.assertEquals(20, this.registry.get("vinayaka.prices.symbols").summary().totalAmount());
+		Assertions.assertEquals(3, this.registry.get("vinayaka.prices.missing").summary().totalAmount());
+	}
+
+	@Test
+	void countsAlpacaRequestsByOutcome() {
+		PipelineMetrics.recordAlpacaRequest(AlpacaRateLimiter.Lane.REFRESH, "success", 1_000);
+		PipelineMetrics.recordAlpacaRequest(AlpacaRateLimiter.Lane.REFRESH, "success", 1_000);
+		PipelineMetrics.recordAlpacaRequest(AlpacaRateLimiter.Lane.INTERACTIVE, "error", 1_000);
+
+		Assertions.assertEquals(2, this.registry.get("vinayaka.alpaca.requests")
+				.tags("lane", "refresh", "outcome", "success").timer().count());
+		Assertions.assertEquals(1, this.registry.get("vinayaka.alpaca.requests")
+				.tags("lane", "interactive", "outcome", "error").timer().count());
+	}
+
+	@Test
+	void tracksTheHitRatioOfEachCache() {
+		Assertions.assertTrue(Double.isNaN(PipelineMetrics.getHitRatio("reference-prices")));
+
+		PipelineMetrics.recordCacheLookup("reference-prices", 0, 4);
+		PipelineMetrics.recordCacheLookup("reference-prices", 4, 0);
+		PipelineMetrics.recordCacheLookup("reference-prices", 3, 1);
+		PipelineMetrics.recordCacheLookup("bar-store", 1, 0);
+
+		Assertions.assertEquals(7.0 / 12, PipelineMetrics.getHitRatio("reference-prices"), 1e-9);
+		Assertions.assertEquals(7.0 / 12, this.registry.get("vinayaka.cache.hit.ratio")
+				.tag("cache", "reference-prices").gauge().value(), 1e-9);
+		Assertions.assertEquals(5, this.registry.get("vinayaka.cache.requests")
+				.tags("cache", "reference-prices", "result", "miss").counter().count());
+		Assertions.assertEquals(1.0, PipelineMetrics.getHitRatio("bar-store"));
+	}
+}
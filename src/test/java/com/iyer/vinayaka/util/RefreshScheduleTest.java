@@ -0,0 +1,86 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.service.AlpacaRateLimiter;
+import com.iyer.vinayaka.service.MarketSessionClock;
+import net.jacobpeterson.alpaca.AlpacaAPI;
+import net.jacobpeterson.alpaca.openapi.trader.model.Calendar;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.time.*;
+import java.util.List;
+
+class RefreshScheduleTest {
+	private static final ZoneId NYC = ZoneId.of("America/New_York");
+
+	private VinayakaProperties properties;
+	private RefreshSchedule schedule;
+
+	private static long at(int month, int day, int hour, int minute) {
+		return ZonedDateTime.of(2025, month, day, hour, minute, 0, 0, NYC).toInstant().toEpochMilli();
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		AlpacaAPI api = Mockito.mock(AlpacaAPI.class, Mockito.RETURNS_DEEP_STUBS);
+		Mockito.when(api.trader().calendar().getCalendar(ArgumentMatchers.any(), ArgumentMatchers.any(),
+				ArgumentMatchers.any())).thenReturn(List.of(
+				new Calendar().date("2025-11-26").open("09:30").close("16:00").sessionOpen("0400").sessionClose("2000"),
+				new Calendar().date("2025-11-28").open("09:30").close("13:00").sessionOpen("0400").sessionClose("1700"),
+				new Calendar().date("2025-12-01").open("09:30").close("16:00").sessionOpen("0400").sessionClose("2000")));
+		Clock clock = Clock.fixed(Instant.ofEpochMilli(at(11, 26, 12, 0)), ZoneOffset.UTC);
+		this.properties = new VinayakaProperties();
+		MarketSessionClock sessionClock = new MarketSessionClock(api, clock, new AlpacaRateLimiter(this.properties));
+		sessionClock.awaitSessions(Duration.ofSeconds(5));
+		this.schedule = new RefreshSchedule(sessionClock, this.properties);
+	}
+
+	@Test
+	void pollsAtTheRefreshIntervalDuringRegularHours() {
+		long noon = at(11, 26, 12, 0);
+
+		Assertions.assertEquals(RefreshSchedule.Phase.REGULAR, this.schedule.phaseAt(noon));
+		Assertions.assertEquals(noon + 10_000, this.schedule.nextCycleAt(noon, 10));
+	}
+
+	@Test
+	void runsALastCycleWhenTheDelayedCloseIsAvailable() {
+		// Half-day: the close is at 1:00 PM, so its price shows up at 1:15 PM.
+		long almostDone = at(11, 28, 13, 14);
+
+		Assertions.assertEquals(at(11, 28, 13, 15), this.schedule.nextCycleAt(almostDone, 60));
+		Assertions.assertEquals(RefreshSchedule.Phase.EXTENDED, this.schedule.phaseAt(at(11, 28, 13, 15)));
+	}
+
+	@Test
+	void sleepsUntilTheNextOpenWhileClosed() {
+		// Friday after the half-day close, through the weekend, to Monday's open.
+		long fridayEvening = at(11, 28, 13, 15);
+
+		Assertions.assertEquals(at(12, 1, 9, 30), this.schedule.nextCycleAt(fridayEvening, 10));
+		Assertions.assertEquals(RefreshSchedule.Phase.CLOSED, this.schedule.phaseAt(at(11, 29, 12, 0)));
+	}
+
+	@Test
+	void pollsExtendedHoursWhenConfigured() {
+		this.properties.getRefresh().setExtendedHoursIntervalSeconds(300);
+		long preMarket = at(12, 1, 9, 28);
+
+		Assertions.assertEquals(RefreshSchedule.Phase.EXTENDED, this.schedule.phaseAt(preMarket));
+		Assertions.assertEquals(at(12, 1, 9, 30), this.schedule.nextCycleAt(preMarket, 10));
+		Assertions.assertEquals(at(12, 1, 4, 0), this.schedule.nextCycleAt(at(11, 29, 12, 0), 10));
+	}
+
+	@Test
+	void usesTheFixedIntervalWhenNotAdaptive() {
+		this.properties.getRefresh().setAdaptive(false);
+		long saturday = at(11, 29, 12, 0);
+
+		Assertions.assertEquals(RefreshSchedule.Phase.REGULAR, this.schedule.phaseAt(saturday));
+		Assertions.assertEquals(saturday + 15_000, this.schedule.nextCycleAt(saturday, 15));
+	}
+}
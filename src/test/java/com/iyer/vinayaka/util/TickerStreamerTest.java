@@ -0,0 +1,172 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.config.VinayakaProperties;
+import com.iyer.vinayaka.entities.UserTickers;
+import com.iyer.vinayaka.model.TickerPrice;
+import com.iyer.vinayaka.service.AlpacaHistoricalBarsDataService;
+import com.iyer.vinayaka.service.AlpacaRateLimiter;
+import com.iyer.vinayaka.service.MarketSessionClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class TickerStreamerTest {
+	private final VinayakaProperties properties = new VinayakaProperties();
+	private final AlpacaStandInStream standIn = new AlpacaStandInStream();
+	// Previous closes served by the fake data service; symbols missing from it have none.
+	private final Map<String, Double> closes = new HashMap<>(Map.of("AAPL", 100.0, "MSFT", 200.0));
+	private final List<String> closeLookups = new CopyOnWriteArrayList<>();
+	private final List<Map<String, TickerPrice>> flushed = new CopyOnWriteArrayList<>();
+	private TickerStreamer streamer;
+
+	private TickerStreamer streamer() {
+		// Flushes are driven by the tests, not the schedule.
+		this.properties.getRefresh().setStreamFlushMillis(3_600_000);
+		AlpacaRateLimiter rateLimiter = new AlpacaRateLimiter(this.properties);
+		MarketSessionClock sessionClock = new MarketSessionClock(null, Clock.systemUTC(), rateLimiter);
+		AlpacaHistoricalBarsDataService dataService = new AlpacaHistoricalBarsDataService(null, null, null, null,
+				sessionClock, rateLimiter, this.properties) {
+			@Override
+			public Map<String, Double> getPreviousClosePrices(List<String> symbols) {
+				closeLookups.addAll(symbols);
+				Map<String, Double> found = new HashMap<>();
+				symbols.stream().filter(closes::containsKey).forEach(symbol -> found.put(symbol, closes.get(symbol)));
+				return found;
+			}
+		};
+		this.streamer = new TickerStreamer(this.standIn.getStream(), dataService, this.properties, this.flushed::add);
+		return this.streamer;
+	}
+
+	private static List<UserTickers> tickers(String... symbols) {
+		return Arrays.stream(symbols).map(symbol -> new UserTickers(symbol, symbol, "NASDAQ", false)).toList();
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (this.streamer != null) {
+			this.streamer.stop();
+		}
+	}
+
+	@Test
+	void subscriptionsFollowTheWatchlist() {
+		TickerStreamer streamer = this.streamer();
+		streamer.start(tickers("AAPL", "MSFT"));
+		Assertions.assertTrue(streamer.isStreaming());
+		Assertions.assertEquals(Set.of("AAPL", "MSFT"), this.standIn.getTradeSubscriptions());
+		Assertions.assertEquals(2, this.standIn.getSubscriptionChangeCount());
+
+		// The same watchlist in another order sends nothing.
+		streamer.updateSubscriptions(tickers("MSFT", "AAPL"));
+		Assertions.assertEquals(2, this.standIn.getSubscriptionChangeCount());
+
+		// Only the added ticker has its close looked up.
+		this.closeLookups.clear();
+		streamer.updateSubscriptions(tickers("MSFT", "NVDA"));
+		Assertions.assertEquals(Set.of("MSFT", "NVDA"), this.standIn.getTradeSubscriptions());
+		Assertions.assertEquals(List.of("NVDA"), this.closeLookups);
+
+		// Trades of unsubscribed tickers are ignored.
+		this.standIn.emitTrade("AAPL", 110);
+		this.streamer.flushPrices();
+		Assertions.assertTrue(this.flushed.isEmpty());
+	}
+
+	@Test
+	void flushSendsTheLatestPricePerSymbolOnce() {
+		TickerStreamer streamer = this.streamer();
+		streamer.start(tickers("AAPL", "MSFT"));
+		this.standIn.emitTrade("AAPL", 101);
+		this.standIn.emitTrade("AAPL", 110);
+		this.standIn.emitMinuteBar("MSFT", 190);
+		streamer.flushPrices();
+
+		Assertions.assertEquals(1, this.flushed.size());
+		Map<String, TickerPrice> prices = this.flushed.get(0);
+		Assertions.assertEquals(new TickerPrice("AAPL", 110, 10), prices.get("AAPL"));
+		Assertions.assertEquals(new TickerPrice("MSFT", 190, -5), prices.get("MSFT"));
+
+		// Nothing new was streamed, so nothing is sent.
+		streamer.flushPrices();
+		Assertions.assertEquals(1, this.flushed.size());
+	}
+
+	@Test
+	void referencesAreLookedUpOnEveryFlush() {
+		TickerStreamer streamer = this.streamer();
+		streamer.start(tickers("AAPL"));
+		this.standIn.emitTrade("AAPL", 110);
+		streamer.flushPrices();
+
+		// A new session has a new previous close.
+		this.closes.put("AAPL", 110.0);
+		this.standIn.emitTrade("AAPL", 121);
+		streamer.flushPrices();
+		Assertions.assertEquals(new TickerPrice("AAPL", 121, 10), this.flushed.get(1).get("AAPL"));
+	}
+
+	@Test
+	void symbolsWithoutAReferenceArePolledUntilOneIsFound() {
+		TickerStreamer streamer = this.streamer();
+		streamer.start(tickers("AAPL", "NODATA"));
+		this.standIn.emitTrade("NODATA", 5);
+		streamer.flushPrices();
+		Assertions.assertTrue(this.flushed.isEmpty());
+		Assertions.assertEquals(List.of("NODATA"), streamer.retryMissingReferences());
+
+		this.closes.put("NODATA", 4.0);
+		Assertions.assertEquals(List.of("NODATA"), streamer.retryMissingReferences());
+		Assertions.assertEquals(List.of(), streamer.retryMissingReferences());
+
+		this.standIn.emitTrade("NODATA", 5);
+		streamer.flushPrices();
+		Assertions.assertEquals(new TickerPrice("NODATA", 5, 25), this.flushed.get(0).get("NODATA"));
+	}
+
+	@Test
+	void droppedStreamFallsBackToPolling() {
+		this.properties.getRefresh().setStreamReconnectSeconds(3600);
+		TickerStreamer streamer = this.streamer();
+		streamer.start(tickers("AAPL"));
+		this.standIn.drop(1006, "network");
+		Assertions.assertFalse(streamer.isStreaming());
+
+		// Trades can't arrive while dropped, and nothing is flushed.
+		this.standIn.emitTrade("AAPL", 110);
+		streamer.flushPrices();
+		Assertions.assertTrue(this.flushed.isEmpty());
+	}
+
+	@Test
+	void droppedStreamReconnects() throws InterruptedException {
+		this.properties.getRefresh().setStreamReconnectSeconds(0);
+		TickerStreamer streamer = this.streamer();
+		streamer.start(tickers("AAPL"));
+		Assertions.assertEquals(1, this.standIn.getConnectCount());
+
+		this.standIn.drop(1006, "network");
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.standIn.getConnectCount() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assertions.assertEquals(2, this.standIn.getConnectCount());
+		Assertions.assertTrue(streamer.isStreaming());
+
+		// Subscriptions survive the reconnect.
+		this.standIn.emitTrade("AAPL", 110);
+		streamer.flushPrices();
+		Assertions.assertEquals(110, this.flushed.get(0).get("AAPL").price());
+
+		// Once stopped, a dropped stream stays down.
+		streamer.stop();
+		Assertions.assertFalse(streamer.isStreaming());
+		this.standIn.drop(1006, "network");
+		Thread.sleep(50);
+		Assertions.assertEquals(2, this.standIn.getConnectCount());
+	}
+}
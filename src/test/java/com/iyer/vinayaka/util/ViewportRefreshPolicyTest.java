@@ -0,0 +1,53 @@
+package com.iyer.vinayaka.util;
+
+import com.iyer.vinayaka.entities.UserTickers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+class ViewportRefreshPolicyTest {
+	private static final long OFFSCREEN_MILLIS = 300_000;
+
+	private static List<UserTickers> tickers(String... symbols) {
+		return Arrays.stream(symbols).map(symbol -> new UserTickers(symbol, symbol, "NASDAQ", false)).toList();
+	}
+
+	@Test
+	void fetchesEverythingUntilTheViewportIsKnown() {
+		ViewportRefreshPolicy policy = new ViewportRefreshPolicy(OFFSCREEN_MILLIS);
+		Assertions.assertEquals(List.of("AAPL", "MSFT", "NVDA"),
+				policy.dueForCycle(tickers("AAPL", "MSFT", "NVDA"), Set.of(), 0));
+	}
+
+	@Test
+	void fetchesOffScreenTickersAtTheSlowerInterval() {
+		ViewportRefreshPolicy policy = new ViewportRefreshPolicy(OFFSCREEN_MILLIS);
+		List<UserTickers> board = tickers("AAPL", "MSFT", "NVDA", "TSLA");
+		Set<String> viewport = Set.of("AAPL", "MSFT");
+
+		// First cycle: nothing fetched yet, so everything is due.
+		Assertions.assertEquals(4, policy.dueForCycle(board, viewport, 0).size());
+		// Next cycles: only the viewport, until the off-screen interval has passed.
+		Assertions.assertEquals(List.of("AAPL", "MSFT"), policy.dueForCycle(board, viewport, 10_000));
+		Assertions.assertEquals(List.of("AAPL", "MSFT"), policy.dueForCycle(board, viewport, 290_000));
+		Assertions.assertEquals(board.size(), policy.dueForCycle(board, viewport, 300_000).size());
+	}
+
+	@Test
+	void fetchesRowsScrolledIntoViewUnlessFresh() {
+		ViewportRefreshPolicy policy = new ViewportRefreshPolicy(OFFSCREEN_MILLIS);
+		List<UserTickers> board = tickers("AAPL", "MSFT", "NVDA", "TSLA");
+		policy.dueForCycle(board, Set.of("AAPL", "MSFT"), 0);
+		policy.dueForCycle(board, Set.of("AAPL", "MSFT"), 10_000);
+
+		// NVDA and TSLA were last fetched at 0, AAPL at 10s; with a 10s refresh interval at 15s only
+		// the rows that came into view are stale.
+		List<String> stale = policy.staleInViewport(Set.of("AAPL", "NVDA", "TSLA"), 10_000, 15_000);
+		Assertions.assertEquals(Set.of("NVDA", "TSLA"), Set.copyOf(stale));
+		// Just fetched, so scrolling back and forth doesn't fetch them again.
+		Assertions.assertTrue(policy.staleInViewport(Set.of("NVDA", "TSLA"), 10_000, 16_000).isEmpty());
+	}
+}